@@ -21,6 +21,7 @@ module org.glassfish.shoal.ha.cache {
 
     requires java.logging;
     requires java.management;
+    requires static jdk.jfr;
 
     requires org.glassfish.ha.api;
     requires org.glassfish.shoal.gms.api;
@@ -30,6 +30,7 @@ public interface DataStore<K, V> {
      * @param k The Key
      * @param v The value. The value must be either serializable of the DataStoreEntryHelper that is associated with this
      * cache must be able to transform this into a serializable.
+     * @throws DataStoreException if, with synchronous replication, the replica rejected the save
      */
     String put(K k, V v) throws DataStoreException;
 
@@ -68,6 +68,12 @@ public class DataStoreConfigurator<K, V> {
 
     private boolean broadcastRemovedExpired = true;
 
+    private long replicaQuotaInBytes;
+
+    private ReplicaQuotaPolicy replicaQuotaPolicy = ReplicaQuotaPolicy.REJECT;
+
+    private long replicaTierIdleTimeInMillis;
+
     protected DataStoreConfigurator() {
 
     }
@@ -242,11 +248,47 @@ public class DataStoreConfigurator<K, V> {
         return this;
     }
 
+    public long getReplicaQuotaInBytes() {
+        return replicaQuotaInBytes;
+    }
+
+    /**
+     * Bounds the bytes of replica state, plus an estimate of the per entry overhead, that this instance holds for the
+     * store. 0, the default, means no bound.
+     */
+    public DataStoreConfigurator<K, V> setReplicaQuotaInBytes(long replicaQuotaInBytes) {
+        this.replicaQuotaInBytes = replicaQuotaInBytes;
+        return this;
+    }
+
+    public ReplicaQuotaPolicy getReplicaQuotaPolicy() {
+        return replicaQuotaPolicy;
+    }
+
+    public DataStoreConfigurator<K, V> setReplicaQuotaPolicy(ReplicaQuotaPolicy replicaQuotaPolicy) {
+        this.replicaQuotaPolicy = replicaQuotaPolicy;
+        return this;
+    }
+
+    public long getReplicaTierIdleTimeInMillis() {
+        return replicaTierIdleTimeInMillis;
+    }
+
+    /**
+     * Moves the state of the replicas that have not been accessed for this long to local disk segments. 0, the default,
+     * keeps every replica in memory.
+     */
+    public DataStoreConfigurator<K, V> setReplicaTierIdleTimeInMillis(long replicaTierIdleTimeInMillis) {
+        this.replicaTierIdleTimeInMillis = replicaTierIdleTimeInMillis;
+        return this;
+    }
+
     @Override
     public String toString() {
         return "DataStoreConfigurator{" + "instanceName='" + instanceName + '\'' + ", groupName='" + groupName + '\'' + ", storeName='" + storeName + '\''
                 + ", keyClazz=" + keyClazz + ", valueClazz=" + valueClazz + ", keyMapper=" + keyMapper + ", startGMS=" + startGMS + ", cacheLocally= "
                 + cacheLocally + ", clazzLoader=" + clazzLoader + ", doSynchronousReplication=" + doSynchronousReplication + ", broadcastRemovedExpired="
-                + broadcastRemovedExpired + ", keyTransformer=" + ((keyTransformer == null) ? null : keyTransformer.getClass().getName()) + '}';
+                + broadcastRemovedExpired + ", replicaQuotaInBytes=" + replicaQuotaInBytes + ", replicaQuotaPolicy=" + replicaQuotaPolicy + ", replicaTierIdleTimeInMillis=" + replicaTierIdleTimeInMillis
+                + ", keyTransformer=" + ((keyTransformer == null) ? null : keyTransformer.getClass().getName()) + '}';
     }
 }
@@ -201,6 +201,45 @@ public class DataStoreContext<K, V> extends DataStoreConfigurator<K, V> {
 
             setBroadcastRemovedExpired(bcastRemExp);
         }
+
+        Object quotaObj = vendorSpecificMap.get("replica.quota.bytes");
+        if (quotaObj != null) {
+            if (quotaObj instanceof Number) {
+                setReplicaQuotaInBytes(((Number) quotaObj).longValue());
+            } else if (quotaObj instanceof String) {
+                try {
+                    setReplicaQuotaInBytes(Long.valueOf((String) quotaObj));
+                } catch (Exception ex) {
+                    // Ignore
+                }
+            }
+        }
+
+        Object tierIdleTimeInSeconds = vendorSpecificMap.get("replica.tier.idle.timeout.in.seconds");
+        if (tierIdleTimeInSeconds != null) {
+            if (tierIdleTimeInSeconds instanceof Number) {
+                setReplicaTierIdleTimeInMillis(((Number) tierIdleTimeInSeconds).longValue() * 1000);
+            } else if (tierIdleTimeInSeconds instanceof String) {
+                try {
+                    setReplicaTierIdleTimeInMillis(Long.valueOf((String) tierIdleTimeInSeconds) * 1000);
+                } catch (Exception ex) {
+                    // Ignore
+                }
+            }
+        }
+
+        Object quotaPolicyObj = vendorSpecificMap.get("replica.quota.policy");
+        if (quotaPolicyObj != null) {
+            if (quotaPolicyObj instanceof ReplicaQuotaPolicy) {
+                setReplicaQuotaPolicy((ReplicaQuotaPolicy) quotaPolicyObj);
+            } else if (quotaPolicyObj instanceof String) {
+                try {
+                    setReplicaQuotaPolicy(ReplicaQuotaPolicy.valueOf(((String) quotaPolicyObj).toUpperCase()));
+                } catch (Exception ex) {
+                    _logger.log(Level.WARNING, "**DSC[" + conf.getStoreName() + "] Ignoring unknown replica.quota.policy: " + quotaPolicyObj);
+                }
+            }
+        }
     }
 
     public void setDataStoreMBean(ReplicatedDataStoreStatsHolder<K, V> dscMBean) {
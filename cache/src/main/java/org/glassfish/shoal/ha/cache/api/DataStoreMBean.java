@@ -70,4 +70,62 @@ public interface DataStoreMBean {
     int getGmsSendCount();
 
     long getGmsSendBytesCount();
+
+    int getCoalescedTouchCount();
+
+    int getTouchSendCount();
+
+    long getTouchSendBytesCount();
+
+    int getPendingUpdatesResyncCount();
+
+    int getCaptureStateCount();
+
+    long getCaptureStateTimeInMillis();
+
+    int getCachedStateHitCount();
+
+    long getSaveStateBytesCount();
+
+    long getAverageSaveStateBytes();
+
+    int getCheckpointSaveCount();
+
+    int getCumulativeAckCount();
+
+    int getCumulativeAckTokenCount();
+
+    String getAckLatencyHistogram();
+
+    String getExpeditedLaneLatencyHistogram();
+
+    String getBatchedLaneLatencyHistogram();
+
+    String getReplicationTraceHistograms();
+
+    String getHotKeysBySaveCount();
+
+    String getHotKeysByReplicatedBytes();
+
+    String getLargestValues();
+
+    long getResidentBytes();
+
+    int getQuotaHitCount();
+
+    int getQuotaRejectedSaveCount();
+
+    int getQuotaEvictedEntryCount();
+
+    int getQuotaSpilledEntryCount();
+
+    int getQuotaNackReceivedCount();
+
+    long getOnDiskBytes();
+
+    int getTieredEntryCount();
+
+    int getTierPageInCount();
+
+    int getCompactedSegmentCount();
 }
@@ -0,0 +1,36 @@
+/*
+ * Copyright (c) 2026 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package org.glassfish.shoal.ha.cache.api;
+
+/**
+ * What a replica store does with a save that takes it over its quota; see
+ * {@link DataStoreConfigurator#setReplicaQuotaInBytes(long)}.
+ */
+public enum ReplicaQuotaPolicy {
+
+    /** Drop the save and, with synchronous replication, make the save fail on the sender */
+    REJECT,
+
+    /** Accept the save, then remove the least recently accessed replicas until the store is back under its quota */
+    EVICT_IDLE,
+
+    /**
+     * Accept the save, then move the state of the least recently accessed replicas to the disk tier. Stores of Storeable
+     * values keep no serialized state and use {@link #EVICT_IDLE} instead.
+     */
+    SPILL
+}
@@ -19,6 +19,10 @@ package org.glassfish.shoal.ha.cache.api;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 
+import org.glassfish.shoal.ha.cache.util.HotKeyDetector;
+import org.glassfish.shoal.ha.cache.util.LatencyHistogram;
+import org.glassfish.shoal.ha.cache.util.ReplicationTrace;
+
 /**
  * @author Mahesh Kannan
  *
@@ -73,11 +77,63 @@ public class ReplicatedDataStoreStatsHolder<K, V> implements DataStoreMBean {
 
     private AtomicLong gmsSendBytesCount = new AtomicLong(0);
 
+    private AtomicInteger coalescedTouchCount = new AtomicInteger(0);
+
+    private AtomicInteger touchSendCount = new AtomicInteger(0);
+
+    private AtomicLong touchSendBytesCount = new AtomicLong(0);
+
+    private AtomicInteger pendingUpdatesResyncCount = new AtomicInteger(0);
+
+    private AtomicInteger captureStateCount = new AtomicInteger(0);
+
+    private AtomicLong captureStateTimeInNanos = new AtomicLong(0);
+
+    private AtomicInteger cachedStateHitCount = new AtomicInteger(0);
+
+    private AtomicInteger saveStateCount = new AtomicInteger(0);
+
+    private AtomicLong saveStateBytesCount = new AtomicLong(0);
+
+    private AtomicInteger checkpointSaveCount = new AtomicInteger(0);
+
+    private AtomicInteger cumulativeAckCount = new AtomicInteger(0);
+
+    private AtomicInteger cumulativeAckTokenCount = new AtomicInteger(0);
+
+    private AtomicInteger quotaHitCount = new AtomicInteger(0);
+
+    private AtomicInteger quotaRejectedSaveCount = new AtomicInteger(0);
+
+    private AtomicInteger quotaEvictedEntryCount = new AtomicInteger(0);
+
+    private AtomicInteger quotaSpilledEntryCount = new AtomicInteger(0);
+
+    private AtomicInteger quotaNackReceivedCount = new AtomicInteger(0);
+
+    private AtomicInteger tieredEntryCount = new AtomicInteger(0);
+
+    private AtomicInteger tierPageInCount = new AtomicInteger(0);
+
+    private AtomicInteger compactedSegmentCount = new AtomicInteger(0);
+
+    private LatencyHistogram ackLatencyHistogram = new LatencyHistogram();
+
+    private LatencyHistogram expeditedLaneLatencyHistogram = new LatencyHistogram();
+
+    private LatencyHistogram batchedLaneLatencyHistogram = new LatencyHistogram();
+
+    private ReplicationTrace replicationTrace;
+
+    private HotKeyDetector hotKeyDetector;
+
     public ReplicatedDataStoreStatsHolder(DataStoreContext<K, V> dsc) {
         this.dsc = dsc;
 
         this.keyClassName = (dsc.getKeyClazz() != null) ? dsc.getKeyClazz().getName() : "?";
         this.valueClassName = (dsc.getValueClazz() != null) ? dsc.getValueClazz().getName() : "?";
+        this.replicationTrace = new ReplicationTrace(dsc.getStoreName());
+        this.hotKeyDetector = new HotKeyDetector(dsc.getStoreName());
         this.keyTransformerClassName = (dsc.getKeyTransformer() != null) ? dsc.getKeyTransformer().getClass().getName() : "?";
         this.entryUpdaterClassName = (dsc.getDataStoreEntryUpdater() != null) ? dsc.getDataStoreEntryUpdater().getClass().getName() : "?";
     }
@@ -198,6 +254,131 @@ public class ReplicatedDataStoreStatsHolder<K, V> implements DataStoreMBean {
         return gmsSendBytesCount.get();
     }
 
+    public int getCoalescedTouchCount() {
+        return coalescedTouchCount.get();
+    }
+
+    public int getTouchSendCount() {
+        return touchSendCount.get();
+    }
+
+    public long getTouchSendBytesCount() {
+        return touchSendBytesCount.get();
+    }
+
+    public int getPendingUpdatesResyncCount() {
+        return pendingUpdatesResyncCount.get();
+    }
+
+    public int getCaptureStateCount() {
+        return captureStateCount.get();
+    }
+
+    public long getCaptureStateTimeInMillis() {
+        return captureStateTimeInNanos.get() / 1000000;
+    }
+
+    public int getCachedStateHitCount() {
+        return cachedStateHitCount.get();
+    }
+
+    public long getSaveStateBytesCount() {
+        return saveStateBytesCount.get();
+    }
+
+    public long getAverageSaveStateBytes() {
+        int count = saveStateCount.get();
+        return count == 0 ? 0 : saveStateBytesCount.get() / count;
+    }
+
+    public int getCheckpointSaveCount() {
+        return checkpointSaveCount.get();
+    }
+
+    public int getCumulativeAckCount() {
+        return cumulativeAckCount.get();
+    }
+
+    public int getCumulativeAckTokenCount() {
+        return cumulativeAckTokenCount.get();
+    }
+
+    public String getAckLatencyHistogram() {
+        return ackLatencyHistogram.toString();
+    }
+
+    public String getExpeditedLaneLatencyHistogram() {
+        return expeditedLaneLatencyHistogram.toString();
+    }
+
+    public String getBatchedLaneLatencyHistogram() {
+        return batchedLaneLatencyHistogram.toString();
+    }
+
+    public String getReplicationTraceHistograms() {
+        return replicationTrace.toString();
+    }
+
+    public ReplicationTrace getReplicationTrace() {
+        return replicationTrace;
+    }
+
+    public String getHotKeysBySaveCount() {
+        return HotKeyDetector.describe(hotKeyDetector.getHotKeysBySaveCount());
+    }
+
+    public String getHotKeysByReplicatedBytes() {
+        return HotKeyDetector.describe(hotKeyDetector.getHotKeysByReplicatedBytes());
+    }
+
+    public String getLargestValues() {
+        return hotKeyDetector.getLargestValues().toString();
+    }
+
+    public HotKeyDetector getHotKeyDetector() {
+        return hotKeyDetector;
+    }
+
+    public long getResidentBytes() {
+        return dsc.getReplicaStore() == null ? 0 : dsc.getReplicaStore().getResidentBytes();
+    }
+
+    public int getQuotaHitCount() {
+        return quotaHitCount.get();
+    }
+
+    public int getQuotaRejectedSaveCount() {
+        return quotaRejectedSaveCount.get();
+    }
+
+    public int getQuotaEvictedEntryCount() {
+        return quotaEvictedEntryCount.get();
+    }
+
+    public int getQuotaSpilledEntryCount() {
+        return quotaSpilledEntryCount.get();
+    }
+
+    public int getQuotaNackReceivedCount() {
+        return quotaNackReceivedCount.get();
+    }
+
+    public long getOnDiskBytes() {
+        return dsc.getReplicaStore() == null ? 0 : dsc.getReplicaStore().getOnDiskBytes();
+    }
+
+    public int getTieredEntryCount() {
+        return tieredEntryCount.get();
+    }
+
+    public int getTierPageInCount() {
+        return tierPageInCount.get();
+    }
+
+    public int getCompactedSegmentCount() {
+        return compactedSegmentCount.get();
+    }
+
     // Mutators
 
     public int incrementBatchSentCount() {
@@ -276,6 +457,93 @@ public class ReplicatedDataStoreStatsHolder<K, V> implements DataStoreMBean {
         return gmsSendBytesCount.addAndGet(delta);
     }
 
+    public int incrementCoalescedTouchCount(int delta) {
+        return coalescedTouchCount.addAndGet(delta);
+    }
+
+    public int incrementTouchSendCount(int delta) {
+        return touchSendCount.addAndGet(delta);
+    }
+
+    public long incrementTouchSendBytesCount(int delta) {
+        return touchSendBytesCount.addAndGet(delta);
+    }
+
+    public int incrementPendingUpdatesResyncCount() {
+        return pendingUpdatesResyncCount.incrementAndGet();
+    }
+
+    public int incrementCaptureStateCount(long timeInNanos) {
+        captureStateTimeInNanos.addAndGet(timeInNanos);
+        return captureStateCount.incrementAndGet();
+    }
+
+    public int incrementCachedStateHitCount() {
+        return cachedStateHitCount.incrementAndGet();
+    }
+
+    public long incrementSaveStateBytesCount(int delta) {
+        saveStateCount.incrementAndGet();
+        return saveStateBytesCount.addAndGet(delta);
+    }
+
+    public int incrementCheckpointSaveCount() {
+        return checkpointSaveCount.incrementAndGet();
+    }
+
+    public int incrementCumulativeAckCount(int tokenCount) {
+        cumulativeAckTokenCount.addAndGet(tokenCount);
+        return cumulativeAckCount.incrementAndGet();
+    }
+
+    public void recordAckLatency(long timeInNanos) {
+        ackLatencyHistogram.record(timeInNanos);
+    }
+
+    public void recordExpeditedLaneLatency(long timeInNanos) {
+        expeditedLaneLatencyHistogram.record(timeInNanos);
+    }
+
+    public void recordBatchedLaneLatency(long timeInNanos) {
+        batchedLaneLatencyHistogram.record(timeInNanos);
+    }
+
+    public void recordReplicatedSave(Object key, int bytes) {
+        hotKeyDetector.recordSave(key, bytes);
+    }
+
+    public int incrementQuotaHitCount() {
+        return quotaHitCount.incrementAndGet();
+    }
+
+    public int incrementQuotaRejectedSaveCount() {
+        return quotaRejectedSaveCount.incrementAndGet();
+    }
+
+    public int incrementQuotaEvictedEntryCount(int delta) {
+        return quotaEvictedEntryCount.addAndGet(delta);
+    }
+
+    public int incrementQuotaSpilledEntryCount(int delta) {
+        return quotaSpilledEntryCount.addAndGet(delta);
+    }
+
+    public int incrementQuotaNackReceivedCount() {
+        return quotaNackReceivedCount.incrementAndGet();
+    }
+
+    public int incrementTieredEntryCount(int delta) {
+        return tieredEntryCount.addAndGet(delta);
+    }
+
+    public int incrementTierPageInCount() {
+        return tierPageInCount.incrementAndGet();
+    }
+
+    public int incrementCompactedSegmentCount(int delta) {
+        return compactedSegmentCount.addAndGet(delta);
+    }
+
     public int updateExecutedRemoveCount(int delta) {
         return executedRemoveCount.addAndGet(delta);
     }
@@ -290,6 +558,16 @@ public class ReplicatedDataStoreStatsHolder<K, V> implements DataStoreMBean {
                 + getExecutedRemoveCount() + ", batchSentCount=" + getBatchSentCount() + ", batchReceivedCount=" + getBatchReceivedCount()
                 + ", flushThreadWakeupCount=" + getFlushThreadWakeupCount() + ", flushThreadFlushedCount=" + getFlushThreadFlushedCount()
                 + ", removeExpiredCallCount=" + getRemoveExpiredCallCount() + ", expiredEntriesCount=" + getExpiredEntriesCount() + ", gmsSendCount="
-                + getGmsSendCount() + ", gmsSendBytesCount=" + getGmsSendBytesCount() + '}';
+                + getGmsSendCount() + ", gmsSendBytesCount=" + getGmsSendBytesCount() + ", coalescedTouchCount=" + getCoalescedTouchCount() + ", touchSendCount="
+                + getTouchSendCount() + ", touchSendBytesCount=" + getTouchSendBytesCount() + ", pendingUpdatesResyncCount=" + getPendingUpdatesResyncCount()
+                + ", captureStateCount=" + getCaptureStateCount() + ", captureStateTimeInMillis=" + getCaptureStateTimeInMillis() + ", cachedStateHitCount="
+                + getCachedStateHitCount() + ", saveStateBytesCount=" + getSaveStateBytesCount() + ", averageSaveStateBytes=" + getAverageSaveStateBytes()
+                + ", checkpointSaveCount=" + getCheckpointSaveCount() + ", cumulativeAckCount=" + getCumulativeAckCount() + ", cumulativeAckTokenCount="
+                + getCumulativeAckTokenCount() + ", residentBytes=" + getResidentBytes() + ", quotaHitCount=" + getQuotaHitCount() + ", quotaRejectedSaveCount="
+                + getQuotaRejectedSaveCount() + ", quotaEvictedEntryCount=" + getQuotaEvictedEntryCount() + ", quotaSpilledEntryCount="
+                + getQuotaSpilledEntryCount() + ", quotaNackReceivedCount=" + getQuotaNackReceivedCount() + ", onDiskBytes=" + getOnDiskBytes()
+                + ", tieredEntryCount=" + getTieredEntryCount() + ", tierPageInCount=" + getTierPageInCount() + ", compactedSegmentCount="
+                + getCompactedSegmentCount() + ", ackLatencyHistogram=[" + getAckLatencyHistogram() + "], expeditedLaneLatencyHistogram=["
+                + getExpeditedLaneLatencyHistogram() + "], batchedLaneLatencyHistogram=[" + getBatchedLaneLatencyHistogram() + "], replicationTraceHistograms=[" + getReplicationTraceHistograms() + "], hotKeys=[" + hotKeyDetector + "]}";
     }
 }
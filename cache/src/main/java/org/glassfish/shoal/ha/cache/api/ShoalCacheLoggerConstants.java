@@ -59,4 +59,6 @@ public class ShoalCacheLoggerConstants {
 
     public static final String CACHE_REMOVE_EXPIRED_COMMAND = "org.glassfish.shoal.ha.cache.command.remove_expired";
 
+    public static final String CACHE_EVALUATE_COMMAND = "org.glassfish.shoal.ha.cache.command.evaluate";
+
 }
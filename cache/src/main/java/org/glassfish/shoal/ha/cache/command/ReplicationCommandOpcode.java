@@ -25,6 +25,8 @@ public class ReplicationCommandOpcode {
 
     public static final byte SIMPLE_ACK_COMMAND = 2;
 
+    public static final byte CUMULATIVE_ACK_COMMAND = 3;
+
     public static final byte SAVE = 33;
 
     public static final byte LOAD_REQUEST = 35;
@@ -41,10 +43,16 @@ public class ReplicationCommandOpcode {
 
     public static final byte STALE_REMOVE = 40;
 
+    public static final byte SAVE_REJECTED = 41;
+
     public static final byte SIZE_REQUEST = 51;
 
     public static final byte SIZE_RESPONSE = 52;
 
+    public static final byte EVALUATE_REQUEST = 53;
+
+    public static final byte EVALUATE_RESPONSE = 54;
+
     public static final byte STOREABLE_SAVE = 68;
 
     public static final byte STOREABLE_UNICAST_LOAD_REQUEST = 69;
@@ -17,6 +17,7 @@
 
 package org.glassfish.shoal.ha.cache.group;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Properties;
@@ -54,6 +55,8 @@ public class GroupServiceProvider implements GroupService, CallBack {
 
     private static final Logger logger = GMSLogDomain.getLogger(GMSLogDomain.GMS_LOGGER);
 
+    private static final boolean MULTIPLEX_REPLICATION = Boolean.getBoolean("org.glassfish.shoal.cache.multiplex.replication");
+
     private String myName;
 
     private String groupName;
@@ -74,6 +77,15 @@ public class GroupServiceProvider implements GroupService, CallBack {
 
     private ConcurrentHashMap<String, Long> lastSendMsgFailNotification = new ConcurrentHashMap<String, Long>();
 
+    // Frames of all stores bound for the same member share one channel
+    private ConcurrentHashMap<String, MultiplexedReplicationChannel> replicationChannels = new ConcurrentHashMap<String, MultiplexedReplicationChannel>();
+
+    private ConcurrentHashMap<String, MessageReceiver> messageReceivers = new ConcurrentHashMap<String, MessageReceiver>();
+
+    private final AtomicLong multiplexedFrameCount = new AtomicLong();
+
+    private final AtomicLong multiplexedMessageCount = new AtomicLong();
+
     public GroupServiceProvider(String myName, String groupName, boolean startGMS) {
         init(myName, groupName, startGMS);
     }
@@ -200,6 +212,14 @@ public class GroupServiceProvider implements GroupService, CallBack {
             gms.addActionFactory(new FailureNotificationActionFactoryImpl(this));
             gms.addActionFactory(new PlannedShutdownActionFactoryImpl(this));
 
+            // Always registered, so that members which multiplex can talk to members which do not
+            gms.addActionFactory(new MessageActionFactoryImpl(new MessageReceiver() {
+                @Override
+                protected void handleMessage(String senderName, String messageToken, byte[] data) {
+                    demultiplex(senderName, data);
+                }
+            }), MultiplexedReplicationChannel.MULTIPLEXED_MESSAGE_TOKEN);
+
             logger.info("**GroupServiceProvider:: REGISTERED member event listeners for <group, instance> => <" + groupName + ", " + myName + ">");
 
         } else {
@@ -237,6 +257,22 @@ public class GroupServiceProvider implements GroupService, CallBack {
 
     @Override
     public boolean sendMessage(String targetMemberName, String token, byte[] data) {
+        if (MULTIPLEX_REPLICATION && targetMemberName != null) {
+            MultiplexedReplicationChannel channel = replicationChannels.get(targetMemberName);
+            if (channel == null) {
+                channel = new MultiplexedReplicationChannel(this, targetMemberName, multiplexedFrameCount, multiplexedMessageCount);
+                MultiplexedReplicationChannel oldChannel = replicationChannels.putIfAbsent(targetMemberName, channel);
+                if (oldChannel != null) {
+                    channel = oldChannel;
+                }
+            }
+            return channel.send(token, data);
+        }
+
+        return doSendMessage(targetMemberName, token, data);
+    }
+
+    boolean doSendMessage(String targetMemberName, String token, byte[] data) {
         try {
             groupHandle.sendMessage(targetMemberName, token, data);
             return true;
@@ -258,6 +294,39 @@ public class GroupServiceProvider implements GroupService, CallBack {
         return false;
     }
 
+    private void demultiplex(String senderName, byte[] data) {
+        List<MultiplexedReplicationChannel.Frame> frames = null;
+        try {
+            frames = MultiplexedReplicationChannel.unpack(data);
+        } catch (IOException ioEx) {
+            logger.log(Level.WARNING, "Ignoring malformed multiplexed message from " + senderName, ioEx);
+            return;
+        }
+
+        for (MultiplexedReplicationChannel.Frame frame : frames) {
+            MessageReceiver receiver = messageReceivers.get(frame.messageToken);
+            if (receiver != null) {
+                receiver.deliverMessage(senderName, frame.messageToken, frame.data);
+            } else if (logger.isLoggable(Level.FINE)) {
+                logger.log(Level.FINE, "[GroupServiceProvider]: dropping multiplexed frame from " + senderName + " for unknown token: " + frame.messageToken);
+            }
+        }
+    }
+
+    /**
+     * @return the number of store frames sent through the multiplexed replication channels
+     */
+    public long getMultiplexedFrameCount() {
+        return multiplexedFrameCount.get();
+    }
+
+    /**
+     * @return the number of GMS messages the multiplexed replication channels sent those frames in
+     */
+    public long getMultiplexedMessageCount() {
+        return multiplexedMessageCount.get();
+    }
+
     // ensure that log is not spammed with these messages.
     // package private so can call from junit test
     void logSendMsgFailure(GMSException t, String targetMemberName, String message) {
@@ -284,6 +353,7 @@ public class GroupServiceProvider implements GroupService, CallBack {
     @Override
     public void registerGroupMessageReceiver(String messageToken, MessageReceiver receiver) {
         logger.fine("[GroupServiceProvider]:  REGISTERED A MESSAGE LISTENER: " + receiver + "; for token: " + messageToken);
+        messageReceivers.put(messageToken, receiver);
         gms.addActionFactory(new MessageActionFactoryImpl(receiver), messageToken);
     }
 
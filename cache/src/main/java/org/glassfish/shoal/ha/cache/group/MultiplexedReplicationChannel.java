@@ -0,0 +1,188 @@
+/*
+ * Copyright (c) 2026 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package org.glassfish.shoal.ha.cache.group;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Packs the frames that stores send to the same target into as few GMS messages as possible. A frame is queued and the
+ * sending thread that wins the channel sends everything queued so far as one message, tagged by message token. Frames
+ * that arrive while a message is on the wire go out with the next one, so an idle channel adds no delay.
+ *
+ * Every sender waits for the message that carried its own frame and gets its result. The thread holding the channel
+ * only sends until its own frame is out, then hands the channel over to the threads still waiting.
+ */
+class MultiplexedReplicationChannel {
+
+    static final String MULTIPLEXED_MESSAGE_TOKEN = "__shoal_ha_multiplexed__";
+
+    // Well below the default GMS limit of 130K per message
+    private static final int MAX_MESSAGE_SIZE = Integer.getInteger("org.glassfish.shoal.cache.multiplexed.max.message.size", 64 * 1024);
+
+    private final GroupServiceProvider groupService;
+
+    private final String targetMemberName;
+
+    private final ConcurrentLinkedQueue<Frame> pendingFrames = new ConcurrentLinkedQueue<Frame>();
+
+    private final AtomicBoolean sending = new AtomicBoolean(false);
+
+    private final AtomicLong sentFrameCount;
+
+    private final AtomicLong sentMessageCount;
+
+    MultiplexedReplicationChannel(GroupServiceProvider groupService, String targetMemberName, AtomicLong sentFrameCount, AtomicLong sentMessageCount) {
+        this.groupService = groupService;
+        this.targetMemberName = targetMemberName;
+        this.sentFrameCount = sentFrameCount;
+        this.sentMessageCount = sentMessageCount;
+    }
+
+    /**
+     * @return false if the message that carried the frame could not be sent
+     */
+    boolean send(String messageToken, byte[] data) {
+        Frame frame = new Frame(messageToken, data);
+        pendingFrames.add(frame);
+
+        boolean interrupted = false;
+        while (!frame.done) {
+            if (sending.compareAndSet(false, true)) {
+                try {
+                    // Frames are sent in order, so this ends once the own frame is out
+                    while (!frame.done) {
+                        sendPendingFrames();
+                    }
+                } finally {
+                    sending.set(false);
+                    synchronized (this) {
+                        notifyAll();
+                    }
+                }
+            } else {
+                synchronized (this) {
+                    // The holder of the channel notifies after releasing it, so this cannot miss it
+                    while (!frame.done && sending.get()) {
+                        try {
+                            wait();
+                        } catch (InterruptedException inEx) {
+                            // The frame is queued and will be sent anyway, so its result is still worth waiting for
+                            interrupted = true;
+                        }
+                    }
+                }
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        return frame.success;
+    }
+
+    private void sendPendingFrames() {
+        List<Frame> frames = new ArrayList<Frame>();
+        int size = 0;
+        for (Frame frame = pendingFrames.peek(); frame != null && (frames.isEmpty() || size + frame.data.length <= MAX_MESSAGE_SIZE); frame = pendingFrames
+                .peek()) {
+            frames.add(pendingFrames.poll());
+            size += frame.data.length;
+        }
+
+        if (frames.isEmpty()) {
+            return;
+        }
+
+        boolean success = false;
+        try {
+            sentFrameCount.addAndGet(frames.size());
+            sentMessageCount.incrementAndGet();
+            if (frames.size() == 1) {
+                Frame frame = frames.get(0);
+                success = doSendMessage(frame.messageToken, frame.data);
+            } else {
+                success = doSendMessage(MULTIPLEXED_MESSAGE_TOKEN, pack(frames, size));
+            }
+        } catch (IOException ioEx) {
+            // Cannot happen with a ByteArrayOutputStream
+            throw new IllegalStateException(ioEx);
+        } finally {
+            for (Frame frame : frames) {
+                frame.success = success;
+                frame.done = true;
+            }
+            synchronized (this) {
+                notifyAll();
+            }
+        }
+    }
+
+    boolean doSendMessage(String messageToken, byte[] data) {
+        return groupService.doSendMessage(targetMemberName, messageToken, data);
+    }
+
+    static byte[] pack(List<Frame> frames, int dataSize) throws IOException {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream(dataSize + frames.size() * 32 + 4);
+        DataOutputStream dos = new DataOutputStream(bos);
+        dos.writeInt(frames.size());
+        for (Frame frame : frames) {
+            dos.writeUTF(frame.messageToken);
+            dos.writeInt(frame.data.length);
+            dos.write(frame.data);
+        }
+        dos.close();
+        return bos.toByteArray();
+    }
+
+    static List<Frame> unpack(byte[] message) throws IOException {
+        DataInputStream dis = new DataInputStream(new ByteArrayInputStream(message));
+        int count = dis.readInt();
+        List<Frame> frames = new ArrayList<Frame>(count);
+        for (int i = 0; i < count; i++) {
+            String messageToken = dis.readUTF();
+            byte[] data = new byte[dis.readInt()];
+            dis.readFully(data);
+            frames.add(new Frame(messageToken, data));
+        }
+        return frames;
+    }
+
+    static class Frame {
+
+        final String messageToken;
+
+        final byte[] data;
+
+        // Written by the sender of the message that carried the frame before done
+        boolean success;
+
+        volatile boolean done;
+
+        Frame(String messageToken, byte[] data) {
+            this.messageToken = messageToken;
+            this.data = data;
+        }
+    }
+}
@@ -29,6 +29,14 @@ import org.glassfish.shoal.ha.cache.command.ReplicationCommandOpcode;
 import org.glassfish.shoal.ha.cache.store.backing.commands.NoOpCommand;
 
 /**
+ * Routes outgoing commands to one of two lanes. Interactive commands, which a thread on one side is blocked waiting
+ * for, take the expedited lane: they are sent right away on the calling thread. Saves, touches, removes and expiry
+ * take the batched lane: they are collected per target and sent as frames by the ASyncReplicationManager executor.
+ *
+ * No bandwidth share is reserved or enforced between the lanes. The expedited lane never queues, so it only competes
+ * with the batched lane for the connection to the target, where its messages may still wait behind a frame being
+ * written. The batched lane gets whatever the expedited lane does not use.
+ *
  * @author Mahesh Kannan
  *
  */
@@ -40,6 +48,9 @@ public class ReplicationCommandTransmitterManager<K, V> extends AbstractCommandI
 
     private CommandCollector<K, V> broadcastTransmitter;
 
+    private static final boolean EXPEDITE_INTERACTIVE_COMMANDS = Boolean
+            .parseBoolean(System.getProperty("org.glassfish.shoal.cache.transmitter.expedite.interactive.commands", "true"));
+
     public ReplicationCommandTransmitterManager() {
     }
 
@@ -55,6 +66,14 @@ public class ReplicationCommandTransmitterManager<K, V> extends AbstractCommandI
 
     @Override
     public void onTransmit(Command<K, V> cmd, String initiator) throws DataStoreException {
+        if (EXPEDITE_INTERACTIVE_COMMANDS && isInteractive(cmd.getOpcode())) {
+            // A thread is blocked waiting for these, so they must not wait behind batched saves
+            long startTime = System.nanoTime();
+            super.onTransmit(cmd, initiator);
+            dsc.getDataStoreMBean().recordExpeditedLaneLatency(System.nanoTime() - startTime);
+            return;
+        }
+
         switch (cmd.getOpcode()) {
         case ReplicationCommandOpcode.REPLICATION_FRAME_PAYLOAD:
             super.onTransmit(cmd, initiator);
@@ -84,6 +103,25 @@ public class ReplicationCommandTransmitterManager<K, V> extends AbstractCommandI
         }
     }
 
+    private static boolean isInteractive(byte opcode) {
+        switch (opcode) {
+        case ReplicationCommandOpcode.LOAD_REQUEST:
+        case ReplicationCommandOpcode.LOAD_RESPONSE:
+        case ReplicationCommandOpcode.STOREABLE_UNICAST_LOAD_REQUEST:
+        case ReplicationCommandOpcode.STOREABLE_LOAD_RESPONSE:
+        case ReplicationCommandOpcode.SIMPLE_ACK_COMMAND:
+        case ReplicationCommandOpcode.CUMULATIVE_ACK_COMMAND:
+        case ReplicationCommandOpcode.SIZE_REQUEST:
+        case ReplicationCommandOpcode.SIZE_RESPONSE:
+        case ReplicationCommandOpcode.EVALUATE_REQUEST:
+        case ReplicationCommandOpcode.EVALUATE_RESPONSE:
+        case ReplicationCommandOpcode.REMOVE_EXPIRED_RESULT:
+            return true;
+        default:
+            return false;
+        }
+    }
+
     public void close() {
         for (CommandCollector<K, V> cc : transmitters.values()) {
             cc.close();
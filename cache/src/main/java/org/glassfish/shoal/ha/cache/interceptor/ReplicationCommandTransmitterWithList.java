@@ -20,7 +20,6 @@ package org.glassfish.shoal.ha.cache.interceptor;
 import java.io.IOException;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.CountDownLatch;
-import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -37,11 +36,12 @@ import org.glassfish.shoal.ha.cache.command.Command;
 import org.glassfish.shoal.ha.cache.command.ReplicationCommandOpcode;
 import org.glassfish.shoal.ha.cache.store.backing.commands.NoOpCommand;
 import org.glassfish.shoal.ha.cache.util.ASyncReplicationManager;
+import org.glassfish.shoal.ha.cache.util.ReplicationTrace;
 
 /**
  * @author Mahesh Kannan
  */
-public class ReplicationCommandTransmitterWithList<K, V> implements Runnable, CommandCollector<K, V> {
+public class ReplicationCommandTransmitterWithList<K, V> implements CommandCollector<K, V> {
 
     private static final Logger _logger = Logger.getLogger(ShoalCacheLoggerConstants.CACHE_TRANSMIT_INTERCEPTOR);
 
@@ -49,8 +49,6 @@ public class ReplicationCommandTransmitterWithList<K, V> implements Runnable, Co
 
     private volatile String targetName;
 
-    private ScheduledFuture future;
-
     private static final String TRANSMITTER_FREQUECNCY_PROP_NAME = "org.glassfish.shoal.cache.transmitter.frequency.in.millis";
 
     private static final String MAX_BATCH_SIZE_PROP_NAME = "org.glassfish.shoal.cache.transmitter.max.batch.size";
@@ -63,8 +61,6 @@ public class ReplicationCommandTransmitterWithList<K, V> implements Runnable, Co
 
     ASyncReplicationManager asyncReplicationManager = ASyncReplicationManager._getInstance();
 
-    private volatile long timeStamp = System.currentTimeMillis();
-
     ThreadPoolExecutor executor;
 
     private AtomicBoolean openStatus = new AtomicBoolean(true);
@@ -91,11 +87,9 @@ public class ReplicationCommandTransmitterWithList<K, V> implements Runnable, Co
             // Ignore
         }
 
+        // Nothing is scheduled here. Each batch arms its own flush deadline when it receives its first command
         BatchedCommandListDataFrame batch = new BatchedCommandListDataFrame(openStatus.get());
         mapRef = new AtomicReference<BatchedCommandListDataFrame>(batch);
-
-        future = asyncReplicationManager.getScheduledThreadPoolExecutor().scheduleAtFixedRate(this, TRANSMITTER_FREQUECNCY_IN_MILLIS,
-                TRANSMITTER_FREQUECNCY_IN_MILLIS, TimeUnit.MILLISECONDS);
     }
 
     @Override
@@ -107,8 +101,7 @@ public class ReplicationCommandTransmitterWithList<K, V> implements Runnable, Co
             // Mark this as closed to prevent new valid batches
             if (openStatus.compareAndSet(true, false)) {
 
-                // First cancel the background task
-                future.cancel(false);
+                // Pending flush deadlines see the closed status and do nothing
 
                 // Now flush all pending batched data
                 if (_logger.isLoggable(Level.FINE)) {
@@ -162,19 +155,20 @@ public class ReplicationCommandTransmitterWithList<K, V> implements Runnable, Co
         addCommand(cmd);
     }
 
-    public void run() {
+    // Called when the flush deadline of a batch expires
+    private void flush(BatchedCommandListDataFrame batch) {
         try {
             dsc.acquireReadLock();
-            BatchedCommandListDataFrame batch = mapRef.get();
             // Since this called by a async thread
             // OR upon close, it is OK to not rethrow the exceptions
-            if (batch.isTimeToFlush(timeStamp) || (!openStatus.get())) {
+            if (openStatus.get()) {
+                dsc.getDataStoreMBean().incrementFlushThreadWakeupCount();
                 NoOpCommand noop = new NoOpCommand();
                 while (batch.addCommand(noop)) {
 
                 }
+                dsc.getDataStoreMBean().incrementFlushThreadFlushedCount();
             }
-            timeStamp = batch.getBatchCreationTime();
         } catch (DataStoreAlreadyClosedException dsEx) {
             // Ignore....
         } catch (DataStoreException dsEx) {
@@ -190,10 +184,14 @@ public class ReplicationCommandTransmitterWithList<K, V> implements Runnable, Co
 
         private ConcurrentLinkedQueue<Command> list = new ConcurrentLinkedQueue<Command>();
 
-        private long batchCreationTime = System.currentTimeMillis();
+        private AtomicBoolean alreadySent = new AtomicBoolean(false);
 
         private boolean validBatch;
 
+        private volatile long firstCommandTime;
+
+        private volatile long submitTime;
+
         BatchedCommandListDataFrame(boolean valid) {
             this.validBatch = valid;
         }
@@ -210,7 +208,11 @@ public class ReplicationCommandTransmitterWithList<K, V> implements Runnable, Co
             int value = current.incrementAndGet();
             if (value < MAX_BATCH_SIZE) {
                 list.add(cmd);
-                if (list.size() == MAX_BATCH_SIZE) {
+                if (value == 0) {
+                    armFlushDeadline();
+                }
+                if (list.size() == MAX_BATCH_SIZE && alreadySent.compareAndSet(false, true)) {
+                    submitTime = System.nanoTime();
                     asyncReplicationManager.getExecutorService().submit(this);
                 }
             }
@@ -218,18 +220,29 @@ public class ReplicationCommandTransmitterWithList<K, V> implements Runnable, Co
             return value < MAX_BATCH_SIZE;
         }
 
-        // Called by periodic task
-        boolean isTimeToFlush(long timeStamp) {
-            return batchCreationTime == timeStamp && list.size() > 0;
-        }
-
-        long getBatchCreationTime() {
-            return batchCreationTime;
+        // The first command of a batch is never delayed by more than TRANSMITTER_FREQUECNCY_IN_MILLIS
+        private void armFlushDeadline() {
+            if (!validBatch) {
+                return;
+            }
+            firstCommandTime = System.nanoTime();
+            final BatchedCommandListDataFrame batch = this;
+            asyncReplicationManager.getScheduledThreadPoolExecutor().schedule(new Runnable() {
+                public void run() {
+                    // A batch that lost the race to become the current batch is never sent
+                    if (!alreadySent.get() && mapRef.get() == batch) {
+                        flush(batch);
+                    }
+                }
+            }, TRANSMITTER_FREQUECNCY_IN_MILLIS, TimeUnit.MILLISECONDS);
         }
 
         public void run() {
 
             ReplicationFramePayloadCommand rfCmd = new ReplicationFramePayloadCommand();
+            if (firstCommandTime != 0 && ReplicationTrace.shouldSample()) {
+                rfCmd.startTrace(dsc.getDataStoreMBean().getReplicationTrace(), firstCommandTime, submitTime);
+            }
             rfCmd.setTargetInstance(targetName);
             try {
                 int size = list.size();
@@ -241,6 +254,9 @@ public class ReplicationCommandTransmitterWithList<K, V> implements Runnable, Co
                 }
 
                 dsc.getCommandManager().execute(rfCmd);
+                if (firstCommandTime != 0) {
+                    dsc.getDataStoreMBean().recordBatchedLaneLatency(System.nanoTime() - firstCommandTime);
+                }
             } catch (IOException ioEx) {
                 _logger.log(Level.WARNING, "Batch operation (ASyncCommandList failed...", ioEx);
             } finally {
@@ -17,10 +17,13 @@
 package org.glassfish.shoal.ha.cache.interceptor;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.CountDownLatch;
-import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -37,12 +40,16 @@ import org.glassfish.shoal.ha.cache.command.Command;
 import org.glassfish.shoal.ha.cache.command.ReplicationCommandOpcode;
 import org.glassfish.shoal.ha.cache.store.backing.commands.NoOpCommand;
 import org.glassfish.shoal.ha.cache.store.backing.commands.SaveCommand;
+import org.glassfish.shoal.ha.cache.store.backing.commands.TouchCommand;
 import org.glassfish.shoal.ha.cache.util.ASyncReplicationManager;
+import org.glassfish.shoal.ha.cache.util.ReplicationTrace;
+import org.glassfish.shoal.ha.cache.util.ReplicationWireFormat;
+import org.glassfish.shoal.ha.cache.util.ShoalCacheEvents;
 
 /**
  * @author Mahesh Kannan
  */
-public class ReplicationCommandTransmitterWithMap<K, V> implements Runnable, CommandCollector<K, V> {
+public class ReplicationCommandTransmitterWithMap<K, V> implements CommandCollector<K, V> {
 
     private static final Logger _logger = Logger.getLogger(ShoalCacheLoggerConstants.CACHE_TRANSMIT_INTERCEPTOR);
 
@@ -52,8 +59,6 @@ public class ReplicationCommandTransmitterWithMap<K, V> implements Runnable, Com
 
     private volatile String targetName;
 
-    private ScheduledFuture future;
-
     private static final String TRANSMITTER_FREQUECNCY_PROP_NAME = "org.glassfish.shoal.cache.transmitter.frequency.in.millis";
 
     private static final String MAX_BATCH_SIZE_PROP_NAME = "org.glassfish.shoal.cache.transmitter.max.batch.size";
@@ -66,8 +71,6 @@ public class ReplicationCommandTransmitterWithMap<K, V> implements Runnable, Com
 
     ASyncReplicationManager asyncReplicationManager = ASyncReplicationManager._getInstance();
 
-    private long timeStamp = System.currentTimeMillis();
-
     ThreadPoolExecutor executor;
 
     private AtomicBoolean openStatus = new AtomicBoolean(true);
@@ -101,11 +104,9 @@ public class ReplicationCommandTransmitterWithMap<K, V> implements Runnable, Com
         this.targetName = targetName;
         this.dsc = rsInfo;
 
+        // Nothing is scheduled here. Each batch arms its own flush deadline when it receives its first command
         BatchedCommandMapDataFrame batch = new BatchedCommandMapDataFrame(openStatus.get());
         mapRef = new AtomicReference<BatchedCommandMapDataFrame>(batch);
-
-        future = asyncReplicationManager.getScheduledThreadPoolExecutor().scheduleAtFixedRate(this, TRANSMITTER_FREQUECNCY_IN_MILLIS,
-                TRANSMITTER_FREQUECNCY_IN_MILLIS, TimeUnit.MILLISECONDS);
     }
 
     @Override
@@ -117,8 +118,7 @@ public class ReplicationCommandTransmitterWithMap<K, V> implements Runnable, Com
             // Mark this as closed to prevent new valid batches
             if (openStatus.compareAndSet(true, false)) {
 
-                // First cancel the background task
-                future.cancel(false);
+                // Pending flush deadlines see the closed status and do nothing
 
                 // Now flush all pending batched data
                 if (_logger.isLoggable(Level.FINE)) {
@@ -176,12 +176,11 @@ public class ReplicationCommandTransmitterWithMap<K, V> implements Runnable, Com
         }
     }
 
-    public void run() {
+    // Called when the flush deadline of a batch expires
+    private void flush(BatchedCommandMapDataFrame batch) {
         try {
             dsc.acquireReadLock();
             if (openStatus.get()) {
-                BatchedCommandMapDataFrame batch = mapRef.get();
-
                 // Since this called by a async thread
                 // OR upon close, it is OK to not rethrow the exceptions
                 batch.flushAndTransmit();
@@ -197,6 +196,57 @@ public class ReplicationCommandTransmitterWithMap<K, V> implements Runnable, Com
 
     private static AtomicInteger _sendBatchCount = new AtomicInteger(0);
 
+    private static final Comparator<TouchCommand> TOUCH_VERSION_ORDER = new Comparator<TouchCommand>() {
+        public int compare(TouchCommand t1, TouchCommand t2) {
+            return Long.compare(t1.getVersion(), t2.getVersion());
+        }
+    };
+
+    /**
+     * Merges each run of consecutive versions among the touches of one key into a single touch that stands for all of
+     * them, so the replica can apply it without waiting for the versions in between. Touches superseded by the save of
+     * the same batch are dropped.
+     *
+     * @return the number of touches that were not sent on their own
+     */
+    static int addMergedTouches(ReplicationFramePayloadCommand rfCmd, List<TouchCommand> touchCmds, long saveVersion) {
+        Collections.sort(touchCmds, TOUCH_VERSION_ORDER);
+        int merged = 0;
+        TouchCommand first = null;
+        TouchCommand last = null;
+        long maxAccessedAt = 0;
+        for (TouchCommand touch : touchCmds) {
+            if (touch.getVersion() <= saveVersion || (last != null && touch.getVersion() == last.getVersion())) {
+                // The save already carries a newer version and access time, or this is a duplicate
+                merged++;
+                continue;
+            }
+            if (last != null && touch.getVersion() != last.getVersion() + 1) {
+                rfCmd.addTouch(mergeTouches(first, last, maxAccessedAt));
+                first = null;
+            }
+            if (first == null) {
+                first = touch;
+                maxAccessedAt = 0;
+            } else {
+                merged++;
+            }
+            last = touch;
+            maxAccessedAt = Math.max(maxAccessedAt, touch.getLastAccessedAt());
+        }
+        if (first != null) {
+            rfCmd.addTouch(mergeTouches(first, last, maxAccessedAt));
+        }
+        return merged;
+    }
+
+    private static TouchCommand mergeTouches(TouchCommand first, TouchCommand last, long maxAccessedAt) {
+        if (first == last) {
+            return first;
+        }
+        return new TouchCommand(last.getKey(), first.getVersion(), last.getVersion(), maxAccessedAt, last.getMaxIdleTime());
+    }
+
     private class BatchedCommandMapDataFrame implements Runnable {
 
         private int myBatchNumber;
@@ -207,13 +257,19 @@ public class ReplicationCommandTransmitterWithMap<K, V> implements Runnable, Com
 
         private AtomicBoolean alreadySent = new AtomicBoolean(false);
 
+        private AtomicBoolean flushDeadlineArmed = new AtomicBoolean(false);
+
         private volatile ConcurrentHashMap<Object, ConcurrentLinkedQueue<Command>> map = new ConcurrentHashMap<Object, ConcurrentLinkedQueue<Command>>();
 
         private AtomicInteger removedKeysSize = new AtomicInteger(0);
 
         private volatile ConcurrentLinkedQueue removedKeys = new ConcurrentLinkedQueue();
 
-        private volatile long lastTS = System.currentTimeMillis();
+        private final long creationTime = System.currentTimeMillis();
+
+        private volatile long firstCommandTime;
+
+        private volatile long submitTime;
 
         private boolean validBatch;
 
@@ -266,14 +322,19 @@ public class ReplicationCommandTransmitterWithMap<K, V> implements Runnable, Com
                     inCount = inFlightCount.decrementAndGet();
                 }
 
+                if (result && validBatch && cmd.getOpcode() != ReplicationCommandOpcode.NOOP_COMMAND && flushDeadlineArmed.compareAndSet(false, true)) {
+                    armFlushDeadline();
+                }
+
                 if (batchThresholdReached.get() && inCount == 0 && alreadySent.compareAndSet(false, true)) {
                     if (_statsLogger.isLoggable(Level.FINE)) {
                         _statsLogger.log(Level.FINE,
                                 "doAddOrRemove batchThresholdReached.get()=" + batchThresholdReached.get() + "; inFlightCount = " + inCount + "; ");
 
                         _statsLogger.log(Level.FINE, "Sending batch# " + myBatchNumber + " to " + targetName + "; wasActive for ("
-                                + (System.currentTimeMillis() - lastTS) + " millis");
+                                + (System.currentTimeMillis() - creationTime) + " millis");
                     }
+                    submitTime = System.nanoTime();
                     asyncReplicationManager.getExecutorService().submit(this);
                     dsc.getDataStoreMBean().incrementBatchSentCount();
                 }
@@ -282,42 +343,53 @@ public class ReplicationCommandTransmitterWithMap<K, V> implements Runnable, Com
             return result;
         }
 
-        // Called by periodic task
+        // The first command of a batch is never delayed by more than TRANSMITTER_FREQUECNCY_IN_MILLIS
+        private void armFlushDeadline() {
+            firstCommandTime = System.nanoTime();
+            final BatchedCommandMapDataFrame batch = this;
+            asyncReplicationManager.getScheduledThreadPoolExecutor().schedule(new Runnable() {
+                public void run() {
+                    // A batch that lost the race to become the current batch is never sent
+                    if (!alreadySent.get() && mapRef.get() == batch) {
+                        flush(batch);
+                    }
+                }
+            }, TRANSMITTER_FREQUECNCY_IN_MILLIS, TimeUnit.MILLISECONDS);
+        }
+
+        // Called when the flush deadline expires
         void flushAndTransmit() throws DataStoreException {
             dsc.getDataStoreMBean().incrementFlushThreadWakeupCount();
             if ((!alreadySent.get()) && ((map.size() > 0) || (removedKeysSize.get() > 0))) {
-                if (lastTS == timeStamp) {
-                    if (_statsLogger.isLoggable(Level.FINE)) {
-                        _statsLogger.log(Level.FINE, "flushAndTransmit will flush data because lastTS = " + lastTS + "; timeStamp = " + timeStamp
-                                + "; lastTS = " + lastTS + "; map.size() = " + map.size() + "; removedKeys.size() = " + removedKeysSize.get());
-                    }
-
-                    NoOpCommand nc = null;
-                    do {
-                        nc = new NoOpCommand();
-                    } while (doAddOrRemove(nc, true));
-                    dsc.getDataStoreMBean().incrementFlushThreadFlushedCount();
-                } else {
-                    if (_statsLogger.isLoggable(Level.FINER)) {
-                        _statsLogger.log(Level.FINER, "flushAndTransmit will NOT flush data because lastTS = " + lastTS + "; timeStamp = " + timeStamp
-                                + "; lastTS = " + lastTS + "; map.size() = " + map.size() + "; removedKeys.size() = " + removedKeysSize.get());
-                    }
-                    timeStamp = lastTS;
+                if (_statsLogger.isLoggable(Level.FINE)) {
+                    _statsLogger.log(Level.FINE, "flushAndTransmit will flush batch# " + myBatchNumber + " after " + (System.currentTimeMillis() - creationTime)
+                            + " millis; map.size() = " + map.size() + "; removedKeys.size() = " + removedKeysSize.get());
                 }
-            } else {
-//                if (_statsLogger.isLoggable(Level.FINEST)) {
-//                    _statsLogger.log(Level.FINEST, "flushAndTransmit visited a new Batch");
-//                }
+
+                NoOpCommand nc = null;
+                do {
+                    nc = new NoOpCommand();
+                } while (doAddOrRemove(nc, true));
+                dsc.getDataStoreMBean().incrementFlushThreadFlushedCount();
             }
         }
 
         public void run() {
             try {
                 ReplicationFramePayloadCommand rfCmd = new ReplicationFramePayloadCommand();
+                if (firstCommandTime != 0 && ReplicationTrace.shouldSample()) {
+                    rfCmd.startTrace(dsc.getDataStoreMBean().getReplicationTrace(), firstCommandTime, submitTime);
+                }
                 rfCmd.setTargetInstance(targetName);
+                // Touches are acknowledged one by one in synchronous mode, so they can be merged only in asynchronous mode.
+                // Older members cannot read the merged touch records.
+                boolean coalesceTouches = !dsc.isDoSynchronousReplication() && !ReplicationWireFormat.isLegacy();
+                int coalescedTouchCount = 0;
+                Object sendEvent = null;
                 try {
                     for (ConcurrentLinkedQueue<Command> cmdList : map.values()) {
                         SaveCommand saveCmd = null;
+                        List<TouchCommand> touchCmds = null;
                         for (Command cmd : cmdList) {
                             if (cmd.getOpcode() == ReplicationCommandOpcode.NOOP_COMMAND) {
                                 // No need to add the noop commands
@@ -326,6 +398,11 @@ public class ReplicationCommandTransmitterWithMap<K, V> implements Runnable, Com
                                 if (saveCmd == null || saveCmd.getVersion() < thisSaveCommand.getVersion()) {
                                     saveCmd = thisSaveCommand;
                                 }
+                            } else if (coalesceTouches && cmd.getOpcode() == ReplicationCommandOpcode.TOUCH) {
+                                if (touchCmds == null) {
+                                    touchCmds = new ArrayList<TouchCommand>();
+                                }
+                                touchCmds.add((TouchCommand) cmd);
                             } else {
                                 // Commands like Load{Requests|Response} Touch etc.
                                 rfCmd.addComamnd(cmd);
@@ -335,12 +412,28 @@ public class ReplicationCommandTransmitterWithMap<K, V> implements Runnable, Com
                         if (saveCmd != null) {
                             rfCmd.addComamnd(saveCmd);
                         }
+
+                        if (touchCmds != null) {
+                            coalescedTouchCount += addMergedTouches(rfCmd, touchCmds, saveCmd == null ? Long.MIN_VALUE : saveCmd.getVersion());
+                        }
+                    }
+
+                    if (coalescedTouchCount > 0) {
+                        dsc.getDataStoreMBean().incrementCoalescedTouchCount(coalescedTouchCount);
                     }
 
                     rfCmd.setRemovedKeys(removedKeys);
+                    sendEvent = ShoalCacheEvents.beginReplicationFrameSend();
                     dsc.getCommandManager().execute(rfCmd);
+                    ShoalCacheEvents.endReplicationFrameSend(sendEvent, dsc.getStoreName(), targetName, rfCmd.getCommandCount(), removedKeysSize.get(),
+                            true);
+                    if (firstCommandTime != 0) {
+                        dsc.getDataStoreMBean().recordBatchedLaneLatency(System.nanoTime() - firstCommandTime);
+                    }
 
                 } catch (IOException ioEx) {
+                    ShoalCacheEvents.endReplicationFrameSend(sendEvent, dsc.getStoreName(), targetName, rfCmd.getCommandCount(), removedKeysSize.get(),
+                            false);
                     _logger.log(Level.WARNING, "Batch operation (ASyncCommandList failed...", ioEx);
                 }
             } finally {
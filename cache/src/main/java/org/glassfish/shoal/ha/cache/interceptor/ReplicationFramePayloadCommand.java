@@ -16,9 +16,12 @@
 
 package org.glassfish.shoal.ha.cache.interceptor;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
+import java.io.OptionalDataException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
@@ -27,9 +30,14 @@ import java.util.logging.Logger;
 
 import org.glassfish.ha.store.util.KeyTransformer;
 import org.glassfish.shoal.ha.cache.api.DataStoreException;
+import org.glassfish.shoal.ha.cache.api.ObjectInputStreamWithLoader;
 import org.glassfish.shoal.ha.cache.api.ShoalCacheLoggerConstants;
 import org.glassfish.shoal.ha.cache.command.Command;
 import org.glassfish.shoal.ha.cache.command.ReplicationCommandOpcode;
+import org.glassfish.shoal.ha.cache.store.backing.commands.CumulativeAckCommand;
+import org.glassfish.shoal.ha.cache.store.backing.commands.TouchCommand;
+import org.glassfish.shoal.ha.cache.util.ReplicationTrace;
+import org.glassfish.shoal.ha.cache.util.ReplicationWireFormat;
 
 /**
  * @author Mahesh Kannan
@@ -49,6 +57,22 @@ public class ReplicationFramePayloadCommand<K, V> extends Command {
 
     private List<byte[]> rawRemovedKeys = new ArrayList<byte[]>();
 
+    // Coalesced touches are sent as (key, version, merged versions, lastAccessedAt, maxIdleTime) records instead of TouchCommands
+    private transient List<TouchCommand<K, V>> touches = new ArrayList<TouchCommand<K, V>>();
+
+    private byte[] rawTouches;
+
+    // Set on sampled frames only; see ReplicationTrace
+    private transient boolean traced;
+
+    private transient long originMicros;
+
+    private transient long sentAtMicros;
+
+    private transient long receivedAtMicros;
+
+    private transient long deserializeNanos;
+
     public ReplicationFramePayloadCommand() {
         super(ReplicationCommandOpcode.REPLICATION_FRAME_PAYLOAD);
         setKey("RepFP:" + System.identityHashCode(this));
@@ -58,10 +82,32 @@ public class ReplicationFramePayloadCommand<K, V> extends Command {
         commands.add(cmd);
     }
 
+    void addTouch(TouchCommand<K, V> touch) {
+        touches.add(touch);
+    }
+
     public void setTargetInstance(String target) {
         targetInstanceName = target;
     }
 
+    void startTrace(ReplicationTrace trace, long firstCommandTime, long submitTime) {
+        long now = System.nanoTime();
+        if (submitTime != 0) {
+            trace.record(ReplicationTrace.Stage.BATCH_LINGER, submitTime - firstCommandTime);
+            trace.record(ReplicationTrace.Stage.EXECUTOR_QUEUE, now - submitTime);
+        }
+        originMicros = ReplicationTrace.currentTimeMicros() - (now - firstCommandTime) / 1000;
+        traced = true;
+    }
+
+    int getCommandCount() {
+        return commands.size() + touches.size();
+    }
+
+    boolean isTraced() {
+        return traced;
+    }
+
     void setRemovedKeys(Collection<K> removedKeys) {
         this.removedKeys = removedKeys;
     }
@@ -87,6 +133,16 @@ public class ReplicationFramePayloadCommand<K, V> extends Command {
 
                 ros.writeObject(rawRemovedKeys);
             }
+            if (ReplicationWireFormat.isLegacy()) {
+                // Older members stop reading after the removed keys; such frames are never traced
+                return;
+            }
+            ros.writeObject(writeTouches());
+            ros.writeBoolean(traced);
+            if (traced) {
+                ros.writeLong(originMicros);
+                ros.writeLong(ReplicationTrace.currentTimeMicros());
+            }
         } catch (IOException ioEx) {
             _logger.log(Level.INFO, "Error during ReplicationFramePayloadCommand.writeObject ", ioEx);
             throw ioEx;
@@ -94,6 +150,8 @@ public class ReplicationFramePayloadCommand<K, V> extends Command {
     }
 
     private void readObject(ObjectInputStream ris) throws IOException, ClassNotFoundException {
+        long readStartTime = System.nanoTime();
+        receivedAtMicros = ReplicationTrace.currentTimeMicros();
         try {
             commands = (List<Command<K, V>>) ris.readObject();
             boolean ktAbsent = ris.readBoolean();
@@ -102,6 +160,21 @@ public class ReplicationFramePayloadCommand<K, V> extends Command {
             } else {
                 rawRemovedKeys = (List<byte[]>) ris.readObject();
             }
+            try {
+                rawTouches = (byte[]) ris.readObject();
+            } catch (OptionalDataException odEx) {
+                if (odEx.eof) {
+                    // Written by a member that uses ReplicationWireFormat.LEGACY
+                    return;
+                }
+                throw odEx;
+            }
+            traced = ris.readBoolean();
+            if (traced) {
+                originMicros = ris.readLong();
+                sentAtMicros = ris.readLong();
+                deserializeNanos = System.nanoTime() - readStartTime;
+            }
         } catch (IOException ioEx) {
             _logger.log(Level.INFO, "Error during ReplicationFramePayloadCommand.readObject ", ioEx);
             throw ioEx;
@@ -109,8 +182,76 @@ public class ReplicationFramePayloadCommand<K, V> extends Command {
 
     }
 
+    private byte[] writeTouches() throws IOException {
+        if (touches == null || touches.isEmpty()) {
+            return null;
+        }
+
+        KeyTransformer<K> kt = dsc.getKeyTransformer();
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        ObjectOutputStream oos = new ObjectOutputStream(bos);
+        try {
+            oos.writeInt(touches.size());
+            for (TouchCommand<K, V> touch : touches) {
+                if (kt == null) {
+                    oos.writeObject(touch.getKey());
+                } else {
+                    byte[] rawKey = kt.keyToByteArray(touch.getKey());
+                    oos.writeInt(rawKey.length);
+                    oos.write(rawKey);
+                }
+                oos.writeLong(touch.getVersion());
+                oos.writeInt((int) (touch.getVersion() - touch.getFirstVersion()));
+                oos.writeLong(touch.getLastAccessedAt());
+                oos.writeLong(touch.getMaxIdleTime());
+            }
+        } finally {
+            oos.close();
+        }
+
+        byte[] data = bos.toByteArray();
+        if (dsc.getDataStoreMBean() != null) {
+            dsc.getDataStoreMBean().incrementTouchSendCount(touches.size());
+            dsc.getDataStoreMBean().incrementTouchSendBytesCount(data.length);
+        }
+        return data;
+    }
+
+    private void readTouches() throws DataStoreException {
+        KeyTransformer<K> kt = dsc.getKeyTransformer();
+        ObjectInputStream ois = null;
+        try {
+            ByteArrayInputStream bis = new ByteArrayInputStream(rawTouches);
+            ois = (kt == null) ? new ObjectInputStreamWithLoader(bis, dsc.getClassLoader()) : new ObjectInputStream(bis);
+            int sz = ois.readInt();
+            touches = new ArrayList<TouchCommand<K, V>>(sz);
+            for (int i = 0; i < sz; i++) {
+                K k;
+                if (kt == null) {
+                    k = (K) ois.readObject();
+                } else {
+                    byte[] rawKey = new byte[ois.readInt()];
+                    ois.readFully(rawKey);
+                    k = kt.byteArrayToKey(rawKey, 0, rawKey.length);
+                }
+                long version = ois.readLong();
+                long firstVersion = version - ois.readInt();
+                touches.add(new TouchCommand<K, V>(k, firstVersion, version, ois.readLong(), ois.readLong()));
+            }
+        } catch (Exception ex) {
+            throw new DataStoreException("Error while reading touches", ex);
+        } finally {
+            try {
+                ois.close();
+            } catch (Exception ex) {
+                _logger.log(Level.FINEST, "Ignorable error while closing ObjectInputStream");
+            }
+        }
+    }
+
     @Override
     public void execute(String initiator) throws DataStoreException {
+        long executeStartTime = traced ? System.nanoTime() : 0;
         /*
          * int sz = list.size(); commands = new ArrayList<Command<K, V>>(); for (int i = 0; i < sz; i++) { ByteArrayInputStream
          * bis = null; ObjectInputStreamWithLoader ois = null; try { bis = new ByteArrayInputStream(list.get(i)); ois = new
@@ -129,9 +270,27 @@ public class ReplicationFramePayloadCommand<K, V> extends Command {
             }
         }
 
-        for (Command<K, V> cmd : commands) {
-            cmd.initialize(dsc);
-            getCommandManager().executeCommand(cmd, false, initiator);
+        // Older members only understand SimpleAckCommands
+        boolean cumulativeAck = dsc.isDoSynchronousReplication() && !ReplicationWireFormat.isLegacy();
+        if (cumulativeAck) {
+            CumulativeAckCommand.startCollecting();
+        }
+        try {
+            for (Command<K, V> cmd : commands) {
+                cmd.initialize(dsc);
+                getCommandManager().executeCommand(cmd, false, initiator);
+            }
+
+            if (rawTouches != null) {
+                readTouches();
+                for (TouchCommand<K, V> touch : touches) {
+                    getCommandManager().executeCommand(touch, false, initiator);
+                }
+            }
+        } finally {
+            if (cumulativeAck) {
+                CumulativeAckCommand.sendCollected(dsc);
+            }
         }
 
         int executedRemoveCount = 0;
@@ -145,6 +304,14 @@ public class ReplicationFramePayloadCommand<K, V> extends Command {
                 dsc.getDataStoreMBean().updateExecutedRemoveCount(executedRemoveCount);
             }
         }
+
+        if (traced && dsc.getDataStoreMBean() != null) {
+            ReplicationTrace trace = dsc.getDataStoreMBean().getReplicationTrace();
+            trace.record(ReplicationTrace.Stage.TRANSIT, (receivedAtMicros - sentAtMicros) * 1000);
+            trace.record(ReplicationTrace.Stage.DESERIALIZE, deserializeNanos);
+            trace.record(ReplicationTrace.Stage.EXECUTE, System.nanoTime() - executeStartTime);
+            trace.record(ReplicationTrace.Stage.END_TO_END, (ReplicationTrace.currentTimeMicros() - originMicros) * 1000);
+        }
     }
 
     @Override
@@ -162,6 +329,6 @@ public class ReplicationFramePayloadCommand<K, V> extends Command {
     }
 
     public String toString() {
-        return "ReplicationFramePayloadCommand: contains " + commands.size() + " commands";
+        return "ReplicationFramePayloadCommand: contains " + commands.size() + " commands and " + (touches == null ? 0 : touches.size()) + " touches";
     }
 }
@@ -28,6 +28,7 @@ import org.glassfish.shoal.ha.cache.api.DataStoreException;
 import org.glassfish.shoal.ha.cache.api.ShoalCacheLoggerConstants;
 import org.glassfish.shoal.ha.cache.command.Command;
 import org.glassfish.shoal.ha.cache.group.GroupService;
+import org.glassfish.shoal.ha.cache.util.ReplicationTrace;
 
 /**
  * @author Mahesh Kannan
@@ -44,14 +45,23 @@ public final class TransmitInterceptor<K, V> extends AbstractCommandInterceptor<
         ObjectOutputStream oos = null;
         boolean transmitted = false;
         try {
+            boolean traced = cmd instanceof ReplicationFramePayloadCommand && ((ReplicationFramePayloadCommand) cmd).isTraced();
+            long startTime = traced ? System.nanoTime() : 0;
+
             bos = new ByteArrayOutputStream();
             oos = new ObjectOutputStream(bos);
             oos.writeObject(cmd);
             oos.close();
             byte[] data = bos.toByteArray();
 
+            long serializedTime = traced ? System.nanoTime() : 0;
             GroupService gs = ctx.getGroupService();
             gs.sendMessage(cmd.getTargetName(), ctx.getServiceName(), data);
+            if (traced) {
+                ReplicationTrace trace = dsc.getDataStoreMBean().getReplicationTrace();
+                trace.record(ReplicationTrace.Stage.SERIALIZE, serializedTime - startTime);
+                trace.record(ReplicationTrace.Stage.GMS_SEND, System.nanoTime() - serializedTime);
+            }
             dsc.getDataStoreMBean().incrementGmsSendCount();
             dsc.getDataStoreMBean().incrementGmsSendBytesCount(data.length);
             if (_logger.isLoggable(Level.FINE)) {
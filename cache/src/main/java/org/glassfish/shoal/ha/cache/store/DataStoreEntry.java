@@ -16,9 +16,12 @@
 
 package org.glassfish.shoal.ha.cache.store;
 
-import java.util.Comparator;
-import java.util.TreeSet;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
+import org.glassfish.shoal.ha.cache.api.ShoalCacheLoggerConstants;
 import org.glassfish.shoal.ha.cache.store.backing.commands.AbstractSaveCommand;
 
 /**
@@ -28,13 +31,15 @@ public class DataStoreEntry<K, V> {
 
     public static final long MIN_VERSION = -8;
 
+    private static final Logger _logger = Logger.getLogger(ShoalCacheLoggerConstants.CACHE_DATA_STORE);
+
     private K key;
 
     private V v;
 
     private String replicaInstanceName;
 
-    private TreeSet<AbstractSaveCommand<K, V>> pendingUpdates;
+    private PendingUpdateRing<K, V> pendingUpdates;
 
     private boolean removed;
 
@@ -48,6 +53,24 @@ public class DataStoreEntry<K, V> {
 
     private boolean isReplicaNode = true;
 
+    // Serialized form of v, valid only while v is at cachedStateVersion
+    private ByteBuffer cachedState;
+
+    private long cachedStateVersion;
+
+    // Bytes charged to the quota of the replica store
+    private int residentBytes;
+
+    // Where rawV went when it was moved to the disk tier
+    private ReplicaSegmentStore spillStore;
+
+    private long spillLocation;
+
+    private int spillLength;
+
+    // Saves sent since the last one that carried the full state of v
+    private int savesSinceCheckpoint;
+
     public DataStoreEntry() {
 
     }
@@ -70,15 +93,54 @@ public class DataStoreEntry<K, V> {
 
     public void setV(V state) {
         this.v = state;
+        this.cachedState = null;
     }
 
     public byte[] getRawV() {
+        if (rawV == null && spillStore != null) {
+            try {
+                return spillStore.read(spillLocation, spillLength);
+            } catch (IOException ioEx) {
+                _logger.log(Level.WARNING, "Cannot read the spilled state of " + key, ioEx);
+            }
+        }
         return rawV;
     }
 
     public void setRawV(byte[] rawV) {
+        discardSpilledState();
         this.rawV = rawV;
         this.v = null;
+        this.cachedState = null;
+    }
+
+    /**
+     * @return the serialized state cached by {@link #setCachedState} or null if it is missing or was captured at another
+     * version
+     */
+    public byte[] getCachedState() {
+        ByteBuffer state = cachedState;
+        if (state == null || cachedStateVersion != version) {
+            return null;
+        }
+        if (state.hasArray()) {
+            return state.array();
+        }
+        byte[] data = new byte[state.remaining()];
+        state.duplicate().get(data);
+        return data;
+    }
+
+    /**
+     * Caches the serialized form of the current state. A direct buffer keeps the cached copy off the heap.
+     */
+    public void setCachedState(ByteBuffer state) {
+        this.cachedState = state;
+        this.cachedStateVersion = version;
+    }
+
+    public void clearCachedState() {
+        this.cachedState = null;
     }
 
     public String getReplicaInstanceName() {
@@ -92,7 +154,7 @@ public class DataStoreEntry<K, V> {
         return oldValue == null ? null : oldValue.equals(replicaInstanceName) ? null : oldValue;
     }
 
-    public TreeSet<AbstractSaveCommand<K, V>> getPendingUpdates() {
+    public PendingUpdateRing<K, V> getPendingUpdates() {
         return pendingUpdates;
     }
 
@@ -102,16 +164,28 @@ public class DataStoreEntry<K, V> {
         }
     }
 
-    public void addPendingUpdate(AbstractSaveCommand<K, V> cmd) {
+    /**
+     * Buffers an update that cannot be applied yet.
+     *
+     * @return false if the update is too far ahead of this entry's version. All buffered updates are dropped in that case
+     * and the caller has to resync this entry.
+     */
+    public boolean addPendingUpdate(AbstractSaveCommand<K, V> cmd) {
         if (pendingUpdates == null) {
-            pendingUpdates = new TreeSet<AbstractSaveCommand<K, V>>(new Comparator<AbstractSaveCommand<K, V>>() {
-                @Override
-                public int compare(AbstractSaveCommand<K, V> cmd1, AbstractSaveCommand<K, V> cmd2) {
-                    return (int) (cmd1.getVersion() - cmd2.getVersion());
-                }
-            });
+            pendingUpdates = new PendingUpdateRing<K, V>();
         }
-        this.pendingUpdates.add(cmd);
+        if (!pendingUpdates.add(cmd, version)) {
+            pendingUpdates.clear();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * @return the buffered update that follows getVersion() or null
+     */
+    public AbstractSaveCommand<K, V> pollNextPendingUpdate() {
+        return pendingUpdates == null ? null : pendingUpdates.pollNext(version);
     }
 
     public boolean isRemoved() {
@@ -122,6 +196,7 @@ public class DataStoreEntry<K, V> {
         this.removed = true;
         v = null;
         pendingUpdates = null;
+        cachedState = null;
     }
 
     public long getLastAccessedAt() {
@@ -148,6 +223,75 @@ public class DataStoreEntry<K, V> {
         this.maxIdleTime = maxIdleTime;
     }
 
+    /**
+     * @return the length of rawV if it is held in memory, -1 otherwise
+     */
+    int getResidentRawVLength() {
+        return rawV == null ? -1 : rawV.length;
+    }
+
+    /**
+     * @return true if rawV is held by the disk tier
+     */
+    public boolean isSpilled() {
+        return spillStore != null;
+    }
+
+    long getSpillLocation() {
+        return spillLocation;
+    }
+
+    /**
+     * Moves rawV to the disk tier.
+     */
+    void spill(ReplicaSegmentStore store) throws IOException {
+        spillLocation = store.write(rawV);
+        spillLength = rawV.length;
+        spillStore = store;
+        rawV = null;
+    }
+
+    /**
+     * Rewrites the spilled rawV at the end of the disk tier, freeing its old location.
+     */
+    void relocate() throws IOException {
+        long oldLocation = spillLocation;
+        spillLocation = spillStore.write(spillStore.read(oldLocation, spillLength));
+        spillStore.release(oldLocation, spillLength);
+    }
+
+    /**
+     * Brings the spilled rawV back in memory.
+     */
+    void pageIn() throws IOException {
+        byte[] state = spillStore.read(spillLocation, spillLength);
+        discardSpilledState();
+        rawV = state;
+    }
+
+    void discardSpilledState() {
+        if (spillStore != null) {
+            spillStore.release(spillLocation, spillLength);
+            spillStore = null;
+        }
+    }
+
+    int getResidentBytes() {
+        return residentBytes;
+    }
+
+    void setResidentBytes(int residentBytes) {
+        this.residentBytes = residentBytes;
+    }
+
+    public int incrementAndGetSavesSinceCheckpoint() {
+        return ++savesSinceCheckpoint;
+    }
+
+    public void resetSavesSinceCheckpoint() {
+        savesSinceCheckpoint = 0;
+    }
+
     public boolean isReplicaNode() {
         return isReplicaNode;
     }
@@ -105,6 +105,21 @@ public abstract class DataStoreEntryUpdater<K, V> {
         entry.setMaxIdleTime(cmd.getMaxIdleTime());
     }
 
+    /**
+     * Called when an update is too far ahead of the entry to be buffered. The buffered updates have already been dropped.
+     * By default only the access time is kept and the entry is brought back in sync by the next full save.
+     */
+    protected void resyncEntry(DataStoreEntry<K, V> entry, AbstractSaveCommand<K, V> cmd) throws DataStoreException {
+        if (_logger.isLoggable(Level.FINE)) {
+            _logger.log(Level.FINE, "Too many pending updates for key = " + cmd.getKey() + "; entry.version = " + entry.getVersion() + "; cmd.version = "
+                    + cmd.getVersion() + ". Waiting for a full save");
+        }
+        entry.setLastAccessedAt(Math.max(entry.getLastAccessedAt(), cmd.getLastAccessedAt()));
+        if (ctx.getDataStoreMBean() != null) {
+            ctx.getDataStoreMBean().incrementPendingUpdatesResyncCount();
+        }
+    }
+
     protected void printEntryInfo(String msg, DataStoreEntry<K, V> entry, K key) {
         if (_logger.isLoggable(Level.FINE)) {
             _logger.log(Level.FINE, "executeSave:" + msg + " key = " + key + "; entry.version = " + entry.getVersion() + " ; entry.lastAccess = "
@@ -126,4 +141,11 @@ public abstract class DataStoreEntryUpdater<K, V> {
 
     public abstract byte[] getState(V v) throws DataStoreException;
 
+    /**
+     * @param checkpoint true if the replica must be able to rebuild v from the returned state alone
+     */
+    public byte[] getState(V v, boolean checkpoint) throws DataStoreException {
+        return getState(v);
+    }
+
 }
@@ -0,0 +1,70 @@
+/*
+ * Copyright (c) 2026 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package org.glassfish.shoal.ha.cache.store;
+
+import java.util.List;
+
+/**
+ * Holds the entries selected by a {@link org.glassfish.shoal.ha.cache.api.DataStoreEntryEvaluator} on a replica until
+ * the requesting instance has pulled all of them. Batches are handed out only when asked for, so a slow requester
+ * never gets more than one batch at a time.
+ */
+public class EvaluationCursor<K, V> {
+
+    private final List<DataStoreEntry<K, V>> entries;
+
+    private final int deletedCount;
+
+    private final int updatedCount;
+
+    private int position;
+
+    private volatile long lastAccessedAt = System.currentTimeMillis();
+
+    EvaluationCursor(List<DataStoreEntry<K, V>> entries, int deletedCount, int updatedCount) {
+        this.entries = entries;
+        this.deletedCount = deletedCount;
+        this.updatedCount = updatedCount;
+    }
+
+    public synchronized List<DataStoreEntry<K, V>> next(int batchSize) {
+        lastAccessedAt = System.currentTimeMillis();
+        int from = position;
+        position = Math.min(entries.size(), position + batchSize);
+        return entries.subList(from, position);
+    }
+
+    public synchronized boolean hasMore() {
+        return position < entries.size();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public int getDeletedCount() {
+        return deletedCount;
+    }
+
+    public int getUpdatedCount() {
+        return updatedCount;
+    }
+
+    long getLastAccessedAt() {
+        return lastAccessedAt;
+    }
+}
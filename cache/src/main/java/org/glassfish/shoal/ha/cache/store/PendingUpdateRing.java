@@ -0,0 +1,164 @@
+/*
+ * Copyright (c) 2026 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package org.glassfish.shoal.ha.cache.store;
+
+import org.glassfish.shoal.ha.cache.store.backing.commands.AbstractSaveCommand;
+
+/**
+ * Buffers the updates of a {@link DataStoreEntry} that arrived ahead of the entry's version. An update whose first
+ * version is {@code v} lives in slot {@code v & mask}, so both adding an update and taking the next in-order update are
+ * O(1). An update standing for several versions (a merged touch) is due as soon as the entry reaches the version before
+ * its first one. The ring starts small, doubles as needed and never holds updates more than {@link #MAX_CAPACITY}
+ * versions ahead of the entry; the caller must resync the entry when {@link #add} refuses an update.
+ *
+ * Not thread safe; callers synchronize on the owning entry.
+ */
+public class PendingUpdateRing<K, V> {
+
+    private static final String MAX_CAPACITY_PROP_NAME = "org.glassfish.shoal.cache.pending.updates.max.capacity";
+
+    private static final int INITIAL_CAPACITY = 4;
+
+    static final int MAX_CAPACITY = Integer.highestOneBit(Math.max(INITIAL_CAPACITY, Integer.getInteger(MAX_CAPACITY_PROP_NAME, 64)));
+
+    private AbstractSaveCommand<K, V>[] slots = newSlots(INITIAL_CAPACITY);
+
+    private int count;
+
+    /**
+     * @param cmd the update to buffer
+     * @param currentVersion the version of the owning entry
+     * @return false if the update is too far ahead of currentVersion to be buffered
+     */
+    public boolean add(AbstractSaveCommand<K, V> cmd, long currentVersion) {
+        if (cmd.getVersion() <= currentVersion) {
+            // Already superseded
+            return true;
+        }
+
+        // Compare the distance, never the raw versions, so that wrapped or extreme versions cannot misorder updates
+        long slotVersion = slotVersion(cmd, currentVersion);
+        long distance = slotVersion - currentVersion;
+        if (distance <= 0 || distance > MAX_CAPACITY) {
+            return false;
+        }
+
+        while (distance > slots.length) {
+            resize(slots.length << 1, currentVersion);
+        }
+
+        while (true) {
+            int index = (int) (slotVersion & (slots.length - 1));
+            AbstractSaveCommand<K, V> existing = slots[index];
+            if (existing == null || existing.getVersion() <= currentVersion) {
+                if (existing == null) {
+                    count++;
+                }
+                slots[index] = cmd;
+                return true;
+            }
+            if (slotVersion(existing, currentVersion) == slotVersion) {
+                // Both updates are due at the same version; keep the one that reaches further, or the first one
+                if (cmd.getVersion() > existing.getVersion()) {
+                    slots[index] = cmd;
+                }
+                return true;
+            }
+            // The existing update was placed for an older version of the entry: place all updates again
+            resize(Math.min(slots.length << 1, MAX_CAPACITY), currentVersion);
+        }
+    }
+
+    /**
+     * @return the buffered update that follows currentVersion or null if it has not arrived yet
+     */
+    public AbstractSaveCommand<K, V> pollNext(long currentVersion) {
+        if (count == 0) {
+            return null;
+        }
+
+        int index = (int) ((currentVersion + 1) & (slots.length - 1));
+        AbstractSaveCommand<K, V> cmd = slots[index];
+        if (cmd != null && isDue(cmd, currentVersion)) {
+            slots[index] = null;
+            count--;
+            return cmd;
+        }
+
+        // A full save may have moved the entry into the middle of a merged touch, which then sits in an earlier slot
+        for (int i = 0; i < slots.length; i++) {
+            cmd = slots[i];
+            if (cmd != null && cmd.getVersion() <= currentVersion) {
+                slots[i] = null;
+                count--;
+            } else if (cmd != null && isDue(cmd, currentVersion)) {
+                slots[i] = null;
+                count--;
+                return cmd;
+            }
+        }
+        return null;
+    }
+
+    private static boolean isDue(AbstractSaveCommand<?, ?> cmd, long currentVersion) {
+        return cmd.getFirstVersion() <= currentVersion + 1 && cmd.getVersion() > currentVersion;
+    }
+
+    private static long slotVersion(AbstractSaveCommand<?, ?> cmd, long currentVersion) {
+        return Math.max(cmd.getFirstVersion(), currentVersion + 1);
+    }
+
+    public boolean isEmpty() {
+        return count == 0;
+    }
+
+    public void clear() {
+        for (int i = 0; i < slots.length; i++) {
+            slots[i] = null;
+        }
+        count = 0;
+    }
+
+    /**
+     * Places the updates again for currentVersion. All of them are at most slots.length versions ahead of it, so two
+     * updates only share a slot when they are due at the same version.
+     */
+    private void resize(int length, long currentVersion) {
+        AbstractSaveCommand<K, V>[] newSlots = newSlots(length);
+        int newCount = 0;
+        for (AbstractSaveCommand<K, V> cmd : slots) {
+            // Drop the updates that have been superseded
+            if (cmd != null && cmd.getVersion() > currentVersion) {
+                int index = (int) (slotVersion(cmd, currentVersion) & (newSlots.length - 1));
+                AbstractSaveCommand<K, V> existing = newSlots[index];
+                if (existing == null) {
+                    newSlots[index] = cmd;
+                    newCount++;
+                } else if (cmd.getVersion() > existing.getVersion()) {
+                    newSlots[index] = cmd;
+                }
+            }
+        }
+        slots = newSlots;
+        count = newCount;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <K, V> AbstractSaveCommand<K, V>[] newSlots(int size) {
+        return new AbstractSaveCommand[size];
+    }
+}
@@ -0,0 +1,223 @@
+/*
+ * Copyright (c) 2026 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package org.glassfish.shoal.ha.cache.store;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedByInterruptException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The disk tier of a replica store: replica states appended to segment files. A state is addressed by
+ * its location, the id of its segment in the high 32 bits and its offset in the low ones. Segments are only appended
+ * to; the space of released states is reclaimed when a segment has no live state left, or earlier by
+ * {@link ReplicaStore#compactSegments()} which moves the live states of mostly dead segments to the current one.
+ * Segments are accessed through positional FileChannel reads and writes rather than mapped, so that deleting a segment
+ * frees its space right away and does not fail on platforms that refuse to delete mapped files.
+ */
+class ReplicaSegmentStore {
+
+    private static final String SPILL_DIR = System.getProperty("org.glassfish.shoal.cache.replica.spill.dir", System.getProperty("java.io.tmpdir"));
+
+    static final int SEGMENT_SIZE = Integer.getInteger("org.glassfish.shoal.cache.replica.segment.size", 64 * 1024 * 1024);
+
+    private final File dir;
+
+    private final ConcurrentHashMap<Integer, Segment> segments = new ConcurrentHashMap<Integer, Segment>();
+
+    private final AtomicLong liveBytes = new AtomicLong(0);
+
+    private Segment current;
+
+    private int nextSegmentId;
+
+    ReplicaSegmentStore(String storeName) throws IOException {
+        dir = Files.createTempDirectory(new File(SPILL_DIR).toPath(), "shoal-" + storeName.replaceAll("[^A-Za-z0-9._-]", "_") + "-").toFile();
+        dir.deleteOnExit();
+    }
+
+    /**
+     * @return the location of the data
+     */
+    synchronized long write(byte[] data) throws IOException {
+        if (current == null || current.end + data.length > current.size) {
+            if (current != null) {
+                current.sealed = true;
+                deleteIfDead(current);
+            }
+            current = new Segment(nextSegmentId++, Math.max(SEGMENT_SIZE, data.length));
+            segments.put(current.id, current);
+        }
+
+        int offset = current.end;
+        current.write(ByteBuffer.wrap(data), offset);
+        current.end += data.length;
+        current.liveBytes += data.length;
+        liveBytes.addAndGet(data.length);
+        return ((long) current.id << 32) | offset;
+    }
+
+    byte[] read(long location, int length) throws IOException {
+        Segment segment = segments.get((int) (location >>> 32));
+        if (segment == null) {
+            throw new IOException("Segment " + (location >>> 32) + " no longer exists in " + dir);
+        }
+        byte[] data = new byte[length];
+        segment.read(ByteBuffer.wrap(data), (int) location);
+        return data;
+    }
+
+    synchronized void release(long location, int length) {
+        Segment segment = segments.get((int) (location >>> 32));
+        if (segment != null) {
+            segment.liveBytes -= length;
+            liveBytes.addAndGet(-length);
+            deleteIfDead(segment);
+        }
+    }
+
+    long getLiveBytes() {
+        return liveBytes.get();
+    }
+
+    int getSegmentCount() {
+        return segments.size();
+    }
+
+    /**
+     * @return the ids of the sealed segments whose live states take less than the given fraction of their space
+     */
+    synchronized List<Integer> getSparseSegments(double liveRatio) {
+        List<Integer> result = new ArrayList<Integer>();
+        for (Segment segment : segments.values()) {
+            if (segment.sealed && segment.liveBytes < segment.end * liveRatio) {
+                result.add(segment.id);
+            }
+        }
+        return result;
+    }
+
+    static int getSegmentId(long location) {
+        return (int) (location >>> 32);
+    }
+
+    private void deleteIfDead(Segment segment) {
+        if (segment.sealed && segment.liveBytes == 0) {
+            segments.remove(segment.id);
+            segment.delete();
+        }
+    }
+
+    synchronized void close() {
+        for (Segment segment : segments.values()) {
+            segment.delete();
+        }
+        segments.clear();
+        current = null;
+        dir.delete();
+    }
+
+    private class Segment {
+
+        final int id;
+
+        final File file;
+
+        final int size;
+
+        // Replaced when an interrupted reader or writer closes it, see getChannel()
+        private FileChannel channel;
+
+        int end;
+
+        long liveBytes;
+
+        boolean sealed;
+
+        private boolean deleted;
+
+        Segment(int id, int size) throws IOException {
+            this.id = id;
+            this.size = size;
+            this.file = new File(dir, "segment-" + id);
+            file.deleteOnExit();
+            channel = open();
+        }
+
+        private FileChannel open() throws IOException {
+            return new RandomAccessFile(file, "rw").getChannel();
+        }
+
+        private synchronized FileChannel getChannel() throws IOException {
+            if (deleted) {
+                throw new IOException("Segment " + id + " no longer exists in " + dir);
+            }
+            // Interrupting a thread blocked on a channel closes it for every thread, so it is reopened
+            if (!channel.isOpen()) {
+                channel = open();
+            }
+            return channel;
+        }
+
+        void write(ByteBuffer source, int offset) throws IOException {
+            FileChannel fc = getChannel();
+            try {
+                while (source.hasRemaining()) {
+                    fc.write(source, offset + source.position());
+                }
+            } catch (ClosedByInterruptException cbiEx) {
+                Thread.interrupted();
+                source.rewind();
+                write(source, offset);
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        void read(ByteBuffer target, int offset) throws IOException {
+            FileChannel fc = getChannel();
+            try {
+                while (target.hasRemaining()) {
+                    if (fc.read(target, offset + target.position()) < 0) {
+                        throw new IOException("Segment " + id + " ends before " + (offset + target.limit()));
+                    }
+                }
+            } catch (ClosedByInterruptException cbiEx) {
+                Thread.interrupted();
+                target.clear();
+                read(target, offset);
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        synchronized void delete() {
+            deleted = true;
+            try {
+                channel.close();
+            } catch (IOException ioEx) {
+                // Nothing to do, the file is deleted anyway
+            }
+            file.delete();
+        }
+    }
+}
@@ -16,18 +16,34 @@
 
 package org.glassfish.shoal.ha.cache.store;
 
+import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
 import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import org.glassfish.shoal.ha.cache.api.DataStoreContext;
+import org.glassfish.shoal.ha.cache.api.DataStoreEntryEvaluator;
 import org.glassfish.shoal.ha.cache.api.DataStoreException;
 import org.glassfish.shoal.ha.cache.api.IdleEntryDetector;
+import org.glassfish.shoal.ha.cache.api.ReplicaQuotaPolicy;
 import org.glassfish.shoal.ha.cache.api.ShoalCacheLoggerConstants;
+import org.glassfish.shoal.ha.cache.util.ASyncReplicationManager;
+import org.glassfish.shoal.ha.cache.util.ShoalCacheEvents;
 
 /**
  * @author Mahesh Kannan
@@ -46,6 +62,33 @@ public class ReplicaStore<K, V> {
 
     private AtomicBoolean expiredEntryRemovalInProgress = new AtomicBoolean(false);
 
+    // Approximate heap cost of a replica beyond its state: the entry, its key and the map node
+    static final int ENTRY_OVERHEAD_BYTES = 160;
+
+    private AtomicLong residentBytes = new AtomicLong(0);
+
+    private AtomicBoolean quotaEnforcementInProgress = new AtomicBoolean(false);
+
+    private volatile ReplicaSegmentStore segmentStore;
+
+    private static final long DISK_TIER_INTERVAL_IN_SECONDS = Long.getLong("org.glassfish.shoal.cache.replica.tier.interval.seconds", 10);
+
+    // Sealed segments with less live data than this fraction of their size get compacted
+    private static final double COMPACTION_LIVE_RATIO = Double
+            .parseDouble(System.getProperty("org.glassfish.shoal.cache.replica.compaction.live.ratio", "0.5"));
+
+    private AtomicBoolean diskTierPassInProgress = new AtomicBoolean(false);
+
+    private ScheduledFuture<?> diskTierTask;
+
+    // Entries per fork/join leaf task during evaluate()
+    private static final int EVALUATION_SEGMENT_SIZE = 512;
+
+    // Cursors that are not pulled for this long are dropped
+    private static final long EVALUATION_CURSOR_IDLE_TIMEOUT_IN_MILLIS = 30 * 1000;
+
+    private ConcurrentHashMap<String, EvaluationCursor<K, V>> cursors = new ConcurrentHashMap<String, EvaluationCursor<K, V>>();
+
     public ReplicaStore(DataStoreContext<K, V> ctx) {
         this.ctx = ctx;
     }
@@ -94,6 +137,7 @@ public class ReplicaStore<K, V> {
         if (dse != null) {
             synchronized (dse) {
                 dse.markAsRemoved("Removed");
+                release(dse);
             }
 
             replicaEntries.decrementAndGet();
@@ -104,19 +148,289 @@ public class ReplicaStore<K, V> {
         return map.size();
     }
 
+    public long getResidentBytes() {
+        return residentBytes.get();
+    }
+
+    /**
+     * Checks a save against the quota of the store when its policy is {@link ReplicaQuotaPolicy#REJECT}. Must be called
+     * while holding the lock of the entry.
+     *
+     * @param saveBytes the size of the state carried by the save
+     * @return false if the save must be rejected
+     */
+    public boolean admit(DataStoreEntry<K, V> entry, int saveBytes) {
+        long quota = ctx.getReplicaQuotaInBytes();
+        if (quota <= 0 || ctx.getReplicaQuotaPolicy() != ReplicaQuotaPolicy.REJECT) {
+            return true;
+        }
+
+        long growth = saveBytes + ENTRY_OVERHEAD_BYTES - entry.getResidentBytes();
+        if (growth <= 0 || residentBytes.get() + growth <= quota) {
+            return true;
+        }
+
+        ctx.getDataStoreMBean().incrementQuotaHitCount();
+        ctx.getDataStoreMBean().incrementQuotaRejectedSaveCount();
+        return false;
+    }
+
+    /**
+     * Recomputes the bytes charged for a replica after a save. Must be called while holding the lock of the entry.
+     * Replicas whose updater merges the saves into a value instead of keeping rawV are charged the largest save seen.
+     */
+    public void updateResidentBytes(DataStoreEntry<K, V> entry, int saveBytes) {
+        int charge = 0;
+        if (entry.isReplicaNode() && !entry.isRemoved()) {
+            int rawVLength = entry.getResidentRawVLength();
+            if (rawVLength >= 0) {
+                charge = rawVLength + ENTRY_OVERHEAD_BYTES;
+            } else if (entry.isSpilled()) {
+                charge = ENTRY_OVERHEAD_BYTES;
+            } else {
+                charge = Math.max(entry.getResidentBytes(), saveBytes + ENTRY_OVERHEAD_BYTES);
+            }
+        }
+        residentBytes.addAndGet(charge - entry.getResidentBytes());
+        entry.setResidentBytes(charge);
+    }
+
+    private void release(DataStoreEntry<K, V> entry) {
+        residentBytes.addAndGet(-entry.getResidentBytes());
+        entry.setResidentBytes(0);
+        entry.discardSpilledState();
+    }
+
+    /**
+     * Brings the store back to 90% of its quota by evicting or spilling the least recently accessed replicas, depending on
+     * its {@link ReplicaQuotaPolicy}. Does nothing if the store is within its quota or another thread is already at it.
+     */
+    public void enforceQuota() {
+        long quota = ctx.getReplicaQuotaInBytes();
+        ReplicaQuotaPolicy policy = ctx.getReplicaQuotaPolicy();
+        if (quota <= 0 || policy == ReplicaQuotaPolicy.REJECT || residentBytes.get() <= quota) {
+            return;
+        }
+        if (!quotaEnforcementInProgress.compareAndSet(false, true)) {
+            return;
+        }
+
+        int count = 0;
+        try {
+            ctx.getDataStoreMBean().incrementQuotaHitCount();
+            long target = quota - quota / 10;
+
+            // lastAccessedAt changes under our feet, so sort on a snapshot of it
+            List<QuotaCandidate<K, V>> candidates = new ArrayList<QuotaCandidate<K, V>>();
+            for (DataStoreEntry<K, V> entry : map.values()) {
+                if (entry.getResidentBytes() > ENTRY_OVERHEAD_BYTES) {
+                    candidates.add(new QuotaCandidate<K, V>(entry));
+                }
+            }
+            Collections.sort(candidates, new Comparator<QuotaCandidate<K, V>>() {
+                public int compare(QuotaCandidate<K, V> c1, QuotaCandidate<K, V> c2) {
+                    return Long.compare(c1.lastAccessedAt, c2.lastAccessedAt);
+                }
+            });
+
+            for (QuotaCandidate<K, V> candidate : candidates) {
+                if (residentBytes.get() <= target) {
+                    break;
+                }
+                DataStoreEntry<K, V> entry = candidate.entry;
+                synchronized (entry) {
+                    if (entry.isRemoved()) {
+                        continue;
+                    }
+                    if (policy == ReplicaQuotaPolicy.EVICT_IDLE) {
+                        if (map.remove(entry.getKey(), entry)) {
+                            entry.markAsRemoved("Quota");
+                            release(entry);
+                            replicaEntries.decrementAndGet();
+                            count++;
+                        }
+                    } else if (entry.getResidentRawVLength() > 0) {
+                        entry.spill(getSegmentStore());
+                        updateResidentBytes(entry, 0);
+                        count++;
+                    }
+                }
+            }
+        } catch (IOException ioEx) {
+            _logger.log(Level.WARNING, "ReplicaStore.enforceQuota() failed to spill replicas of " + ctx.getStoreName(), ioEx);
+        } finally {
+            quotaEnforcementInProgress.set(false);
+        }
+
+        if (policy == ReplicaQuotaPolicy.EVICT_IDLE) {
+            ctx.getDataStoreMBean().incrementQuotaEvictedEntryCount(count);
+        } else {
+            ctx.getDataStoreMBean().incrementQuotaSpilledEntryCount(count);
+        }
+        if (_logger.isLoggable(Level.FINE)) {
+            _logger.log(Level.FINE, "ReplicaStore.enforceQuota() " + policy + " " + count + " replicas of " + ctx.getStoreName() + "; residentBytes = "
+                    + residentBytes.get() + "; quota = " + quota);
+        }
+    }
+
+    private synchronized ReplicaSegmentStore getSegmentStore() throws IOException {
+        if (segmentStore == null) {
+            segmentStore = new ReplicaSegmentStore(ctx.getStoreName());
+        }
+        return segmentStore;
+    }
+
+    public long getOnDiskBytes() {
+        return segmentStore == null ? 0 : segmentStore.getLiveBytes();
+    }
+
+    /**
+     * Starts moving idle replicas to the disk tier and compacting its segments in the background, if the store is
+     * configured to use the disk tier.
+     */
+    public void startDiskTier() {
+        if (ctx.getReplicaTierIdleTimeInMillis() <= 0 && ctx.getReplicaQuotaPolicy() != ReplicaQuotaPolicy.SPILL) {
+            return;
+        }
+
+        final ASyncReplicationManager asyncReplicationManager = ASyncReplicationManager._getInstance();
+        diskTierTask = asyncReplicationManager.getScheduledThreadPoolExecutor().scheduleWithFixedDelay(new Runnable() {
+            public void run() {
+                // A pass over millions of replicas must not hold up the batch flush deadlines sharing this pool
+                if (diskTierPassInProgress.compareAndSet(false, true)) {
+                    asyncReplicationManager.getExecutorService().submit(new Runnable() {
+                        public void run() {
+                            try {
+                                tierIdleReplicas();
+                                compactSegments();
+                            } catch (Throwable th) {
+                                _logger.log(Level.WARNING, "ReplicaStore disk tier pass failed for " + ctx.getStoreName(), th);
+                            } finally {
+                                diskTierPassInProgress.set(false);
+                            }
+                        }
+                    });
+                }
+            }
+        }, DISK_TIER_INTERVAL_IN_SECONDS, DISK_TIER_INTERVAL_IN_SECONDS, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Moves the state of the replicas not accessed within the tier idle time of the store to disk, keeping only their
+     * metadata in memory.
+     *
+     * @return the number of replicas moved
+     */
+    public int tierIdleReplicas() throws IOException {
+        long idleTime = ctx.getReplicaTierIdleTimeInMillis();
+        if (idleTime <= 0) {
+            return 0;
+        }
+
+        long threshold = System.currentTimeMillis() - idleTime;
+        int count = 0;
+        try {
+            for (DataStoreEntry<K, V> entry : map.values()) {
+                if (entry.getResidentRawVLength() <= 0 || entry.getLastAccessedAt() >= threshold) {
+                    continue;
+                }
+                synchronized (entry) {
+                    if (!entry.isRemoved() && entry.isReplicaNode() && entry.getResidentRawVLength() > 0 && entry.getLastAccessedAt() < threshold) {
+                        entry.spill(getSegmentStore());
+                        updateResidentBytes(entry, 0);
+                        count++;
+                    }
+                }
+            }
+        } finally {
+            if (count > 0) {
+                ctx.getDataStoreMBean().incrementTieredEntryCount(count);
+                if (_logger.isLoggable(Level.FINE)) {
+                    _logger.log(Level.FINE, "ReplicaStore.tierIdleReplicas() moved " + count + " replicas of " + ctx.getStoreName() + " to disk");
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Brings the state of a replica back from the disk tier. Must be called while holding the lock of the entry.
+     */
+    public void pageIn(DataStoreEntry<K, V> entry) throws DataStoreException {
+        if (entry.isSpilled()) {
+            try {
+                entry.pageIn();
+            } catch (IOException ioEx) {
+                throw new DataStoreException("Cannot page in the replica of " + entry.getKey(), ioEx);
+            }
+            updateResidentBytes(entry, 0);
+            ctx.getDataStoreMBean().incrementTierPageInCount();
+        }
+    }
+
+    /**
+     * Moves the live states of the sparse segments of the disk tier to its current segment, so that their space can be
+     * reclaimed.
+     *
+     * @return the number of segments compacted
+     */
+    public int compactSegments() throws IOException {
+        ReplicaSegmentStore store = segmentStore;
+        if (store == null) {
+            return 0;
+        }
+        Set<Integer> sparseSegments = new HashSet<Integer>(store.getSparseSegments(COMPACTION_LIVE_RATIO));
+        if (sparseSegments.isEmpty()) {
+            return 0;
+        }
+
+        int relocatedCount = 0;
+        for (DataStoreEntry<K, V> entry : map.values()) {
+            if (!entry.isSpilled()) {
+                continue;
+            }
+            synchronized (entry) {
+                if (entry.isSpilled() && sparseSegments.contains(ReplicaSegmentStore.getSegmentId(entry.getSpillLocation()))) {
+                    entry.relocate();
+                    relocatedCount++;
+                }
+            }
+        }
+
+        ctx.getDataStoreMBean().incrementCompactedSegmentCount(sparseSegments.size());
+        if (_logger.isLoggable(Level.FINE)) {
+            _logger.log(Level.FINE, "ReplicaStore.compactSegments() compacted " + sparseSegments.size() + " segments of " + ctx.getStoreName()
+                    + " by relocating " + relocatedCount + " replicas");
+        }
+        return sparseSegments.size();
+    }
+
+    public void close() {
+        if (diskTierTask != null) {
+            diskTierTask.cancel(false);
+        }
+        if (segmentStore != null) {
+            segmentStore.close();
+        }
+    }
+
     public int removeExpired() {
         int result = 0;
         ctx.getDataStoreMBean().incrementRemoveExpiredCallCount();
         if (expiredEntryRemovalInProgress.compareAndSet(false, true)) {
+            Object event = ShoalCacheEvents.beginRemoveExpired();
+            int scannedCount = 0;
             try {
                 if (idleEntryDetector != null) {
                     long now = System.currentTimeMillis();
                     Iterator<DataStoreEntry<K, V>> iterator = map.values().iterator();
                     while (iterator.hasNext()) {
                         DataStoreEntry<K, V> entry = iterator.next();
+                        scannedCount++;
                         synchronized (entry) {
                             if (idleEntryDetector.isIdle(entry, now)) {
                                 entry.markAsRemoved("Idle");
+                                release(entry);
                                 _logger.log(Level.FINE, "ReplicaStore removing (idle) key: " + entry.getKey());
                                 iterator.remove();
                                 result++;
@@ -131,6 +445,7 @@ public class ReplicaStore<K, V> {
             }
 
             ctx.getDataStoreMBean().incrementRemoveExpiredEntriesCount(result);
+            ShoalCacheEvents.endRemoveExpired(event, ctx.getStoreName(), scannedCount, result);
         } else {
             _logger.log(Level.FINEST, "ReplicaStore.removeExpired(). Skipping since there is already another thread running");
         }
@@ -138,6 +453,122 @@ public class ReplicaStore<K, V> {
         return result;
     }
 
+    /**
+     * Runs the evaluator over every replica entry held by this instance. The entries are split into segments that are
+     * evaluated in parallel on the common fork/join pool. Entries for which the evaluator returns DELETE are removed
+     * right away; UPDATED entries are left as modified by the evaluator.
+     *
+     * @param evaluator the evaluator
+     * @return a cursor over the SELECTed entries
+     */
+    public EvaluationCursor<K, V> evaluate(DataStoreEntryEvaluator<K, V> evaluator) {
+        DataStoreEntry<K, V>[] entries = map.values().toArray(new DataStoreEntry[0]);
+        AtomicInteger deletedCount = new AtomicInteger(0);
+        AtomicInteger updatedCount = new AtomicInteger(0);
+        List<DataStoreEntry<K, V>> selected = ForkJoinPool.commonPool()
+                .invoke(new EvaluationTask(evaluator, entries, 0, entries.length, deletedCount, updatedCount));
+
+        if (_logger.isLoggable(Level.FINE)) {
+            _logger.log(Level.FINE, "ReplicaStore.evaluate() visited " + entries.length + " entries; selected = " + selected.size() + "; deleted = "
+                    + deletedCount.get() + "; updated = " + updatedCount.get());
+        }
+        return new EvaluationCursor<K, V>(selected, deletedCount.get(), updatedCount.get());
+    }
+
+    public EvaluationCursor<K, V> openCursor(String cursorId, DataStoreEntryEvaluator<K, V> evaluator) {
+        expireIdleCursors(System.currentTimeMillis());
+        EvaluationCursor<K, V> cursor = evaluate(evaluator);
+        cursors.put(cursorId, cursor);
+        return cursor;
+    }
+
+    public EvaluationCursor<K, V> getCursor(String cursorId) {
+        return cursors.get(cursorId);
+    }
+
+    public void closeCursor(String cursorId) {
+        cursors.remove(cursorId);
+    }
+
+    private void expireIdleCursors(long now) {
+        Iterator<EvaluationCursor<K, V>> iterator = cursors.values().iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next().getLastAccessedAt() + EVALUATION_CURSOR_IDLE_TIMEOUT_IN_MILLIS < now) {
+                iterator.remove();
+            }
+        }
+    }
+
+    private class EvaluationTask extends RecursiveTask<List<DataStoreEntry<K, V>>> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final DataStoreEntryEvaluator<K, V> evaluator;
+
+        private final DataStoreEntry<K, V>[] entries;
+
+        private final int from;
+
+        private final int to;
+
+        private final AtomicInteger deletedCount;
+
+        private final AtomicInteger updatedCount;
+
+        EvaluationTask(DataStoreEntryEvaluator<K, V> evaluator, DataStoreEntry<K, V>[] entries, int from, int to, AtomicInteger deletedCount,
+                AtomicInteger updatedCount) {
+            this.evaluator = evaluator;
+            this.entries = entries;
+            this.from = from;
+            this.to = to;
+            this.deletedCount = deletedCount;
+            this.updatedCount = updatedCount;
+        }
+
+        @Override
+        protected List<DataStoreEntry<K, V>> compute() {
+            if (to - from > EVALUATION_SEGMENT_SIZE) {
+                int mid = (from + to) >>> 1;
+                EvaluationTask left = new EvaluationTask(evaluator, entries, from, mid, deletedCount, updatedCount);
+                left.fork();
+                List<DataStoreEntry<K, V>> right = new EvaluationTask(evaluator, entries, mid, to, deletedCount, updatedCount).compute();
+                List<DataStoreEntry<K, V>> result = left.join();
+                result.addAll(right);
+                return result;
+            }
+
+            List<DataStoreEntry<K, V>> selected = new ArrayList<DataStoreEntry<K, V>>();
+            for (int i = from; i < to; i++) {
+                DataStoreEntry<K, V> entry = entries[i];
+                DataStoreEntryEvaluator.Opcode opcode = DataStoreEntryEvaluator.Opcode.KEEP;
+                synchronized (entry) {
+                    if (!entry.isRemoved() && entry.isReplicaNode()) {
+                        opcode = evaluator.eval(entry);
+                    }
+                }
+
+                if (opcode == null) {
+                    continue;
+                }
+                switch (opcode) {
+                case SELECT:
+                    selected.add(entry);
+                    break;
+                case DELETE:
+                    remove(entry.getKey());
+                    deletedCount.incrementAndGet();
+                    break;
+                case UPDATED:
+                    updatedCount.incrementAndGet();
+                    break;
+                default:
+                    break;
+                }
+            }
+            return selected;
+        }
+    }
+
     public Collection<K> keys() {
         return map.keySet();
     }
@@ -146,4 +577,15 @@ public class ReplicaStore<K, V> {
         return map.values();
     }
 
+    private static class QuotaCandidate<K, V> {
+
+        final DataStoreEntry<K, V> entry;
+
+        final long lastAccessedAt;
+
+        QuotaCandidate(DataStoreEntry<K, V> entry) {
+            this.entry = entry;
+            this.lastAccessedAt = entry.getLastAccessedAt();
+        }
+    }
 }
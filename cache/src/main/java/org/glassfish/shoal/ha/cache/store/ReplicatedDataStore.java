@@ -19,9 +19,15 @@ package org.glassfish.shoal.ha.cache.store;
 
 import java.io.Serializable;
 import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -40,9 +46,11 @@ import org.glassfish.ha.store.util.SimpleMetadata;
 import org.glassfish.shoal.ha.cache.api.DataStore;
 import org.glassfish.shoal.ha.cache.api.DataStoreAlreadyClosedException;
 import org.glassfish.shoal.ha.cache.api.DataStoreContext;
+import org.glassfish.shoal.ha.cache.api.DataStoreEntryEvaluator;
 import org.glassfish.shoal.ha.cache.api.DataStoreException;
 import org.glassfish.shoal.ha.cache.api.DataStoreMBean;
 import org.glassfish.shoal.ha.cache.api.IdleEntryDetector;
+import org.glassfish.shoal.ha.cache.api.ReplicaQuotaPolicy;
 import org.glassfish.shoal.ha.cache.api.ReplicatedDataStoreStatsHolder;
 import org.glassfish.shoal.ha.cache.api.ShoalCacheLoggerConstants;
 import org.glassfish.shoal.ha.cache.command.Command;
@@ -53,7 +61,10 @@ import org.glassfish.shoal.ha.cache.interceptor.ReplicationCommandTransmitterMan
 import org.glassfish.shoal.ha.cache.interceptor.ReplicationFramePayloadCommand;
 import org.glassfish.shoal.ha.cache.mapper.DefaultKeyMapper;
 import org.glassfish.shoal.ha.cache.mapper.KeyMapper;
+import org.glassfish.shoal.ha.cache.store.backing.commands.EvaluateRequestCommand;
+import org.glassfish.shoal.ha.cache.store.backing.commands.EvaluateResponseCommand;
 import org.glassfish.shoal.ha.cache.store.backing.commands.LoadRequestCommand;
+import org.glassfish.shoal.ha.cache.store.backing.commands.LoadResponseCommand;
 import org.glassfish.shoal.ha.cache.store.backing.commands.RemoveCommand;
 import org.glassfish.shoal.ha.cache.store.backing.commands.RemoveExpiredCommand;
 import org.glassfish.shoal.ha.cache.store.backing.commands.SaveCommand;
@@ -62,6 +73,7 @@ import org.glassfish.shoal.ha.cache.store.backing.commands.StaleCopyRemoveComman
 import org.glassfish.shoal.ha.cache.store.backing.commands.TouchCommand;
 import org.glassfish.shoal.ha.cache.util.CommandResponse;
 import org.glassfish.shoal.ha.cache.util.ResponseMediator;
+import org.glassfish.shoal.ha.cache.util.ShoalCacheEvents;
 import org.glassfish.shoal.ha.cache.util.StringKeyTransformer;
 
 /**
@@ -77,6 +89,12 @@ public class ReplicatedDataStore<K, V extends Serializable> implements DataStore
 
     private static final Logger _saveLogger = Logger.getLogger(ShoalCacheLoggerConstants.CACHE_SAVE_COMMAND);
 
+    private static final Logger _evaluateLogger = Logger.getLogger(ShoalCacheLoggerConstants.CACHE_EVALUATE_COMMAND);
+
+    private static final int EVALUATION_BATCH_SIZE = Integer.getInteger("org.glassfish.shoal.cache.evaluate.batch.size", 256);
+
+    private static final AtomicLong _scanCounter = new AtomicLong(0);
+
     private String storeName;
 
     private String instanceName;
@@ -161,6 +179,12 @@ public class ReplicatedDataStore<K, V extends Serializable> implements DataStore
         } else if (Storeable.class.isAssignableFrom(vClazz)) {
             dseUpdater = new StoreableDataStoreEntryUpdater();
             dsc.setUseMapToCacheCommands(false);
+            if (dsc.getReplicaQuotaPolicy() == ReplicaQuotaPolicy.SPILL) {
+                // Storeable replicas are merged into a value and have no serialized state to spill
+                _logger.log(Level.WARNING, "ReplicatedDataStore For {" + dsc.getStoreName() + "} cannot spill Storeable replicas; using "
+                        + ReplicaQuotaPolicy.EVICT_IDLE + " instead of " + ReplicaQuotaPolicy.SPILL);
+                dsc.setReplicaQuotaPolicy(ReplicaQuotaPolicy.EVICT_IDLE);
+            }
         } else {
             dseUpdater = new SimpleDataStoreEntryUpdater();
         }
@@ -206,6 +230,7 @@ public class ReplicatedDataStore<K, V extends Serializable> implements DataStore
 
         dscMBean = new ReplicatedDataStoreStatsHolder<K, V>(dsc);
         dsc.setDataStoreMBean(dscMBean);
+        replicaStore.startDiskTier();
 
         boolean registerInMBeanServer = Boolean.getBoolean("org.glassfish.shoal.ha.cache.mbean.register");
         if (registerInMBeanServer) {
@@ -258,6 +283,10 @@ public class ReplicatedDataStore<K, V extends Serializable> implements DataStore
     @Override
     public String put(K k, V v) throws DataStoreException {
         String result = "";
+        Object event = ShoalCacheEvents.beginDataStoreOperation();
+        String outcome = "failed";
+        String replica = null;
+        long bytes = -1;
 
         try {
             dsc.acquireReadLock();
@@ -277,16 +306,29 @@ public class ReplicatedDataStore<K, V extends Serializable> implements DataStore
                     String[] members = keyMapper.getCurrentMembers();
                     if (members.length == 0) {
                         _saveLogger.log(Level.FINE, "Skipped replication of " + k + " since there is only one instance running in the cluster.");
+                        outcome = "skipped";
                         return result;
                     }
 
                     SaveCommand<K, V> cmd = dsc.getDataStoreEntryUpdater().createSaveCommand(entry, k, v);
                     cm.execute(cmd);
+                    if (cmd.isRejected()) {
+                        // The replica dropped its copy, so the next save must not depend on it
+                        entry.setReplicaInstanceName(null);
+                        outcome = "rejected";
+                        throw new DataStoreException("Replica " + cmd.getTargetName() + " rejected the save of " + k);
+                    }
                     dscMBean.incrementSaveCount();
 
                     String staleLocation = entry.setReplicaInstanceName(cmd.getTargetName());
 
                     result = cmd.getKeyMappingInfo();
+                    outcome = "replicated";
+                    replica = cmd.getTargetName();
+                    if (cmd.getRawV() != null) {
+                        // Only known here when the command has already been serialized
+                        bytes = cmd.getRawV().length;
+                    }
 
                     if ((staleLocation != null) && (!staleLocation.equals(cmd.getTargetName()))) {
                         StaleCopyRemoveCommand<K, V> staleCmd = new StaleCopyRemoveCommand<K, V>(k);
@@ -295,6 +337,7 @@ public class ReplicatedDataStore<K, V extends Serializable> implements DataStore
                     }
                 } else {
                     _logger.log(Level.WARNING, "ReplicatedDataStore.put(" + k + ") AFTER remove?");
+                    outcome = "removed";
                     return result;
                 }
             }
@@ -304,6 +347,7 @@ public class ReplicatedDataStore<K, V extends Serializable> implements DataStore
             }
         } finally {
             dsc.releaseReadLock();
+            ShoalCacheEvents.endDataStoreOperation(event, dsc.getStoreName(), "put", k, bytes, outcome, replica);
         }
         return result;
     }
@@ -312,6 +356,9 @@ public class ReplicatedDataStore<K, V extends Serializable> implements DataStore
     public V get(K key) throws DataStoreException {
         dscMBean.incrementLoadCount();
         V v = null;
+        Object event = ShoalCacheEvents.beginDataStoreOperation();
+        String outcome = "failed";
+        String respondingInstance = null;
 
         try {
             dsc.acquireReadLock();
@@ -333,6 +380,7 @@ public class ReplicatedDataStore<K, V extends Serializable> implements DataStore
                         }
                     }
                 } else {
+                    outcome = "removed";
                     return null; // Because it is already removed
                 }
             }
@@ -349,9 +397,9 @@ public class ReplicatedDataStore<K, V extends Serializable> implements DataStore
                 String[] members = keyMapper.getCurrentMembers();
                 if (members.length == 0) {
                     _loadLogger.log(Level.FINE, "Skipped replication of " + key + " since there is only one instance running in the cluster.");
+                    outcome = "miss";
                     return null;
                 }
-                String respondingInstance = null;
                 for (int replicaIndex = 0; (replicaIndex < replicaHint.length) && (replicaIndex < MAX_REPLICA_TRIES); replicaIndex++) {
                     String target = replicaHint[replicaIndex];
                     if (target == null || target.trim().length() == 0 || target.equals(dsc.getInstanceName())) {
@@ -368,6 +416,7 @@ public class ReplicatedDataStore<K, V extends Serializable> implements DataStore
                     v = command.getResult(3, TimeUnit.SECONDS);
                     if (v != null) {
                         respondingInstance = command.getRespondingInstanceName();
+                        outcome = "replica";
                         dscMBean.incrementSimpleLoadSuccessCount();
                         break;
                     }
@@ -392,6 +441,7 @@ public class ReplicatedDataStore<K, V extends Serializable> implements DataStore
                         v = lrCmd.getResult(3, TimeUnit.SECONDS);
                         if (v != null) {
                             respondingInstance = targetInstance;
+                            outcome = "broadcast";
                             dscMBean.incrementBroadcastLoadSuccessCount();
                             break;
                         }
@@ -426,8 +476,11 @@ public class ReplicatedDataStore<K, V extends Serializable> implements DataStore
                         }
                     }
                 } else {
+                    outcome = "miss";
                     dscMBean.incrementLoadFailureCount();
                 }
+            } else {
+                outcome = "local";
             }
 
             if (_loadLogger.isLoggable(Level.FINE)) {
@@ -451,11 +504,14 @@ public class ReplicatedDataStore<K, V extends Serializable> implements DataStore
             return v;
         } finally {
             dsc.releaseReadLock();
+            ShoalCacheEvents.endDataStoreOperation(event, dsc.getStoreName(), "get", key, -1, outcome, respondingInstance);
         }
     }
 
     @Override
     public void remove(K k) throws DataStoreException {
+        Object event = ShoalCacheEvents.beginDataStoreOperation();
+        String outcome = "failed";
 
         try {
             dsc.acquireReadLock();
@@ -479,8 +535,10 @@ public class ReplicatedDataStore<K, V extends Serializable> implements DataStore
                     cm.execute(cmd);
                 }
             }
+            outcome = "removed";
         } finally {
             dsc.releaseReadLock();
+            ShoalCacheEvents.endDataStoreOperation(event, dsc.getStoreName(), "remove", k, -1, outcome, null);
         }
     }
 
@@ -563,12 +621,125 @@ public class ReplicatedDataStore<K, V extends Serializable> implements DataStore
         // return replicaStore.removeExpired();
     }
 
+    /**
+     * Runs the evaluator over the replicas held by every instance in the cluster (including this one) and returns the
+     * keys of the entries for which it returned SELECT. Entries for which it returned DELETE are removed from the replica
+     * that evaluated them. The evaluator is serialized and sent to the other instances, so it must be Serializable.
+     *
+     * @param evaluator The evaluator
+     * @return The selected keys
+     * @throws DataStoreException if an instance did not return all of its results
+     */
+    public Set<K> selectKeys(DataStoreEntryEvaluator<K, V> evaluator) throws DataStoreException {
+        return evaluate(evaluator, false).keySet();
+    }
+
+    /**
+     * Same as {@link #selectKeys(DataStoreEntryEvaluator)}, but also fetches the values of the selected entries.
+     *
+     * @param evaluator The evaluator
+     * @return The selected entries
+     */
+    public Map<K, V> selectEntries(DataStoreEntryEvaluator<K, V> evaluator) throws DataStoreException {
+        return evaluate(evaluator, true);
+    }
+
+    private Map<K, V> evaluate(DataStoreEntryEvaluator<K, V> evaluator, boolean includeValues) throws DataStoreException {
+        if (!(evaluator instanceof Serializable)) {
+            throw new DataStoreException("Evaluator " + evaluator.getClass().getName() + " must be Serializable");
+        }
+
+        Map<K, V> result = new HashMap<K, V>();
+        List<EvaluateRequestCommand<K, V>> requests = new ArrayList<EvaluateRequestCommand<K, V>>();
+        try {
+            dsc.acquireReadLock();
+            if (closed.get()) {
+                throw new DataStoreAlreadyClosedException("evaluate() failed. Store " + dsc.getStoreName() + " already closed");
+            }
+
+            // Every member starts evaluating its replicas while we evaluate ours
+            long scanId = _scanCounter.incrementAndGet();
+            String[] targets = dsc.getKeyMapper().getCurrentMembers();
+            for (String target : targets) {
+                EvaluateRequestCommand<K, V> cmd = new EvaluateRequestCommand<K, V>(evaluator, scanId, target, EVALUATION_BATCH_SIZE, includeValues);
+                cm.execute(cmd);
+                requests.add(cmd);
+            }
+
+            EvaluationCursor<K, V> localCursor = replicaStore.evaluate(evaluator);
+            for (DataStoreEntry<K, V> entry : localCursor.next(localCursor.size())) {
+                synchronized (entry) {
+                    if (!entry.isRemoved()) {
+                        result.put(entry.getKey(), includeValues ? dsc.getDataStoreEntryUpdater().getV(entry) : null);
+                    }
+                }
+            }
+        } finally {
+            dsc.releaseReadLock();
+        }
+
+        // The lock is only held while sending, so that waiting on slow members does not hold back close()
+        List<String> incompleteMembers = new ArrayList<String>();
+        DataStoreException failure = null;
+        for (EvaluateRequestCommand<K, V> cmd : requests) {
+            while (cmd != null) {
+                EvaluateResponseCommand<K, V> rsp;
+                try {
+                    rsp = cmd.getResult(3, TimeUnit.SECONDS);
+                } catch (DataStoreException dsEx) {
+                    // still collect the other members' results, so that their responses do not linger
+                    failure = dsEx;
+                    rsp = null;
+                }
+                if (rsp == null) {
+                    incompleteMembers.add(cmd.getTargetName());
+                    break;
+                }
+
+                for (int i = 0; i < rsp.size(); i++) {
+                    V v = null;
+                    if (includeValues) {
+                        LoadResponseCommand<K, V> state = new LoadResponseCommand<K, V>(rsp.getKey(i), rsp.getVersion(i), rsp.getRawV(i));
+                        v = dsc.getDataStoreEntryUpdater().extractVFrom(state);
+                    }
+                    result.put(rsp.getKey(i), v);
+                }
+
+                if (_evaluateLogger.isLoggable(Level.FINE)) {
+                    _evaluateLogger.log(Level.FINE, debugName + "evaluate() received " + rsp + " from " + rsp.getRespondingInstanceName());
+                }
+
+                // Pull the remaining batches one at a time so that a replica never has more than one batch in flight
+                cmd = rsp.hasMore() ? cmd.nextBatch() : null;
+                if (cmd != null) {
+                    try {
+                        dsc.acquireReadLock();
+                        if (closed.get()) {
+                            throw new DataStoreAlreadyClosedException("evaluate() failed. Store " + dsc.getStoreName() + " closed during evaluation");
+                        }
+                        cm.execute(cmd);
+                    } finally {
+                        dsc.releaseReadLock();
+                    }
+                }
+            }
+        }
+
+        if (!incompleteMembers.isEmpty()) {
+            throw new DataStoreException("evaluate() did not receive all the results of " + incompleteMembers + ". Selected "
+                    + result.size() + " entries from the other members", failure);
+        }
+
+        return result;
+    }
+
     @Override
     public void close() {
         try {
             dsc.acquireWriteLock();
             closed.set(true);
             dsc.getCommandManager().close();
+            replicaStore.close();
             if (mbs != null && mbeanObjectName != null) {
                 mbs.unregisterMBean(mbeanObjectName);
             }
@@ -16,8 +16,6 @@
 
 package org.glassfish.shoal.ha.cache.store;
 
-import java.util.Iterator;
-import java.util.TreeSet;
 import java.util.logging.Level;
 
 import org.glassfish.ha.store.util.SimpleMetadata;
@@ -92,38 +90,18 @@ public class SimpleStoreableDataStoreEntryUpdater<K, V extends SimpleMetadata> e
     @Override
     public void executeTouch(DataStoreEntry<K, V> entry, TouchCommand<K, V> touchCmd) throws DataStoreException {
 
-        entry.addPendingUpdate(touchCmd);
-        // TODO: For 'full save' mode there is no need to keep multiple touch commands
+        if (!entry.addPendingUpdate(touchCmd)) {
+            resyncEntry(entry, touchCmd);
+        }
         updateFromPendingUpdates(entry);
         entry.setIsReplicaNode(true);
     }
 
     private void updateFromPendingUpdates(DataStoreEntry<K, V> entry) {
-        TreeSet<AbstractSaveCommand<K, V>> pendingUpdates = entry.getPendingUpdates();
-        if (pendingUpdates != null) {
-            Iterator<AbstractSaveCommand<K, V>> iter = entry.getPendingUpdates().iterator();
-
-            while (iter.hasNext()) {
-                AbstractSaveCommand<K, V> pendingCmd = iter.next();
-                if (entry.getVersion() > pendingCmd.getVersion()) {
-                    iter.remove();
-                    if (_logger.isLoggable(Level.FINE)) {
-                        _logger.log(Level.FINE, "**Ignoring Pending touch because " + entry.getVersion() + " > " + pendingCmd.getVersion());
-                    }
-                } else if (entry.getVersion() + 1 == pendingCmd.getVersion()) {
-                    if (_logger.isLoggable(Level.FINE)) {
-                        _logger.log(Level.FINE, "**Updated with Pending touch because, cmd.version = " + entry.getVersion() + " & pending.version = "
-                                + pendingCmd.getVersion());
-                    }
-                    iter.remove();
-                    super.updateMetaInfoInDataStoreEntry(entry, pendingCmd);
-                } else {
-                    if (_logger.isLoggable(Level.FINE)) {
-                        _logger.log(Level.FINE,
-                                "**Added Touch as pending because, cmd.version = " + entry.getVersion() + " & pending.version = " + pendingCmd.getVersion());
-                    }
-                    break;
-                }
+        for (AbstractSaveCommand<K, V> pendingCmd = entry.pollNextPendingUpdate(); pendingCmd != null; pendingCmd = entry.pollNextPendingUpdate()) {
+            super.updateMetaInfoInDataStoreEntry(entry, pendingCmd);
+            if (_logger.isLoggable(Level.FINE)) {
+                _logger.log(Level.FINE, "**Updated with Pending touch because, entry.version = " + entry.getVersion());
             }
         }
     }
@@ -19,7 +19,8 @@ package org.glassfish.shoal.ha.cache.store;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.util.Iterator;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
 import java.util.logging.Level;
 
 import org.glassfish.ha.store.api.Storeable;
@@ -28,16 +29,48 @@ import org.glassfish.shoal.ha.cache.store.backing.commands.AbstractSaveCommand;
 import org.glassfish.shoal.ha.cache.store.backing.commands.LoadResponseCommand;
 import org.glassfish.shoal.ha.cache.store.backing.commands.SaveCommand;
 import org.glassfish.shoal.ha.cache.store.backing.commands.TouchCommand;
+import org.glassfish.shoal.ha.cache.util.ReplicationWireFormat;
 
 /**
  * @author Mahesh Kannan
  */
 public class StoreableDataStoreEntryUpdater<K, V extends Storeable> extends DataStoreEntryUpdater<K, V> {
 
+    // Trades heap for speed: each cached state gets its own direct buffer, freed only when the entry is collected, and
+    // every load copies it back to the heap. StoreableCachedStateBenchmark measures about 1.5 us per hit instead of
+    // 50 ns, so it only pays when the heap cannot hold the cached states.
+    private static final String CACHE_STATE_OFF_HEAP_PROP_NAME = "org.glassfish.shoal.cache.storeable.cached.state.offheap";
+
+    private static final boolean CACHE_STATE_OFF_HEAP = Boolean.getBoolean(CACHE_STATE_OFF_HEAP_PROP_NAME);
+
+    private static final String CHECKPOINT_INTERVAL_PROP_NAME = "org.glassfish.shoal.cache.storeable.checkpoint.interval";
+
+    // Every CHECKPOINT_INTERVAL saves the full state is sent instead of the dirty attributes
+    private static final int CHECKPOINT_INTERVAL = Integer.getInteger(CHECKPOINT_INTERVAL_PROP_NAME, 20);
+
+    // The first byte of the state sent by getState() tells how the replica applies the rest
+    private static final byte NO_STATE = 0;
+
+    private static final byte DIRTY_STATE = 1;
+
+    private static final byte FULL_STATE = 2;
+
     @Override
     public SaveCommand<K, V> createSaveCommand(DataStoreEntry<K, V> entry, K k, V v) {
         SaveCommand<K, V> cmd = new SaveCommand<K, V>(k, v, v._storeable_getVersion(), v._storeable_getLastAccessTime(), v._storeable_getMaxIdleTime());
 
+        // A replica that has not seen the previous saves of this key cannot merge dirty attributes. A replica that dropped
+        // its copy clears the replica name through a rejection, in asynchronous mode with a SaveRejectedCommand.
+        boolean newReplica = entry.getReplicaInstanceName() == null
+                || !entry.getReplicaInstanceName().equals(ctx.getKeyMapper().getMappedInstance(ctx.getGroupName(), k));
+        // Counting the saves rather than looking at the version, which may skip any multiple of the interval
+        boolean checkpoint = newReplica || entry.getVersion() == DataStoreEntry.MIN_VERSION
+                || (CHECKPOINT_INTERVAL > 0 && entry.incrementAndGetSavesSinceCheckpoint() >= CHECKPOINT_INTERVAL);
+        if (checkpoint) {
+            entry.resetSavesSinceCheckpoint();
+        }
+        cmd.setCheckpoint(checkpoint);
+
         super.updateMetaInfoInDataStoreEntry(entry, cmd);
         entry.setIsReplicaNode(false);
 
@@ -48,7 +81,17 @@ public class StoreableDataStoreEntryUpdater<K, V extends Storeable> extends Data
     public LoadResponseCommand<K, V> createLoadResponseCommand(DataStoreEntry<K, V> entry, K k, long minVersion) throws DataStoreException {
         LoadResponseCommand<K, V> cmd = null;
         if (entry != null && entry.isReplicaNode() && entry.getVersion() >= minVersion) {
-            byte[] rawV = super.captureState(entry.getV());
+            byte[] rawV = entry.getCachedState();
+            if (rawV == null) {
+                long startTime = System.nanoTime();
+                rawV = super.captureState(entry.getV());
+                if (ctx.getDataStoreMBean() != null) {
+                    ctx.getDataStoreMBean().incrementCaptureStateCount(System.nanoTime() - startTime);
+                }
+                entry.setCachedState(CACHE_STATE_OFF_HEAP ? ByteBuffer.allocateDirect(rawV.length).put(rawV).flip() : ByteBuffer.wrap(rawV));
+            } else if (ctx.getDataStoreMBean() != null) {
+                ctx.getDataStoreMBean().incrementCachedStateHitCount();
+            }
             cmd = new LoadResponseCommand<K, V>(k, entry.getVersion(), rawV);
             if (_logger.isLoggable(Level.FINE)) {
                 _logger.log(Level.FINE, "StoreableDataStoreEntryUpdater Sending valid load response for key: " + k + "; minVersion = " + minVersion
@@ -81,81 +124,172 @@ public class StoreableDataStoreEntryUpdater<K, V extends Storeable> extends Data
                 _logger.log(Level.FINE, "StoreableEntryUpdater.executeSave received (first copy) of key = " + saveCmd.getKey() + "; entry.version"
                         + entry.getVersion() + "; cmd.version" + saveCmd.getVersion());
             }
+            if (!isFullState(saveCmd) && !saveCmd.isLegacyState()) {
+                // The changes alone would build a value missing every attribute that was not dirty. The save is
+                // rejected and the replica stays empty until the next checkpoint of the key.
+                throw new DataStoreException("Cannot apply the changes of version " + saveCmd.getVersion() + " of " + saveCmd.getKey()
+                        + " without its full state");
+            }
             V v = null;
             try {
-                v = ctx.getValueClazz().newInstance();
+                // A checkpoint brings its own instance
+                v = isFullState(saveCmd) ? null : ctx.getValueClazz().newInstance();
                 mergeIntoV(entry, v, saveCmd);
+            } catch (DataStoreException dsEx) {
+                throw dsEx;
             } catch (Exception ex) {
                 throw new DataStoreException(ex);
             }
-            entry.setV(v);
             super.updateMetaInfoInDataStoreEntry(entry, saveCmd);
             super.printEntryInfo("Saved initial entry", entry, saveCmd.getKey());
             entry.setIsReplicaNode(true);
+        } else if (isFullState(saveCmd) && entry.getVersion() < saveCmd.getVersion()) {
+            // A checkpoint does not depend on the updates before it, so it can be applied right away
+            if (_logger.isLoggable(Level.FINE)) {
+                _logger.log(Level.FINE, "StoreableEntryUpdater received checkpoint: key = " + saveCmd.getKey() + "; entry.version" + entry.getVersion()
+                        + "; cmd.version" + saveCmd.getVersion());
+            }
+            mergeIntoV(entry, entry.getV(), saveCmd);
+            updateFromPendingUpdates(entry);
         } else {
             if (_logger.isLoggable(Level.FINE)) {
                 _logger.log(Level.FINE, "StoreableEntryUpdater received: key = " + saveCmd.getKey() + "; entry.version" + entry.getVersion() + "; cmd.version"
                         + saveCmd.getVersion());
             }
-            entry.addPendingUpdate(saveCmd);
-            updateFromPendingUpdates(entry);
+            if (entry.addPendingUpdate(saveCmd)) {
+                updateFromPendingUpdates(entry);
+            } else {
+                resyncEntry(entry, saveCmd);
+            }
         }
     }
 
     @Override
     public void executeTouch(DataStoreEntry<K, V> entry, TouchCommand<K, V> touchCmd) throws DataStoreException {
 
-        entry.addPendingUpdate(touchCmd);
+        if (!entry.addPendingUpdate(touchCmd)) {
+            resyncEntry(entry, touchCmd);
+        }
         updateFromPendingUpdates(entry);
     }
 
+    @Override
+    protected void resyncEntry(DataStoreEntry<K, V> entry, AbstractSaveCommand<K, V> cmd) throws DataStoreException {
+        super.resyncEntry(entry, cmd);
+        if (cmd.hasState()) {
+            // The missing updates will not be replayed, so start over from this save as if it were the first copy
+            entry.setV(null);
+            executeSave(entry, (SaveCommand<K, V>) cmd);
+        }
+    }
+
     private void updateFromPendingUpdates(DataStoreEntry<K, V> entry) throws DataStoreException {
-        Iterator<AbstractSaveCommand<K, V>> iter = entry.getPendingUpdates().iterator();
-        while (iter.hasNext()) {
-            AbstractSaveCommand<K, V> cmd = iter.next();
-            if (entry.getVersion() + 1 == cmd.getVersion()) {
-                iter.remove();
-                mergeIntoV(entry, entry.getV(), cmd);
-            } else {
-                break;
-            }
+        for (AbstractSaveCommand<K, V> cmd = entry.pollNextPendingUpdate(); cmd != null; cmd = entry.pollNextPendingUpdate()) {
+            mergeIntoV(entry, entry.getV(), cmd);
         }
         entry.setIsReplicaNode(true);
     }
 
-    private void mergeIntoV(DataStoreEntry<K, V> entry, V v, AbstractSaveCommand<K, V> cmd) throws DataStoreException {
-        v._storeable_setVersion(cmd.getVersion());
-        v._storeable_setLastAccessTime(cmd.getLastAccessedAt());
-        v._storeable_setMaxIdleTime(cmd.getMaxIdleTime());
+    private boolean isFullState(SaveCommand<K, V> cmd) {
+        byte[] rawV = cmd.getRawV();
+        return !cmd.isLegacyState() && rawV != null && rawV.length > 0 && rawV[0] == FULL_STATE;
+    }
 
-        super.updateMetaInfoInDataStoreEntry(entry, cmd);
+    private void mergeIntoV(DataStoreEntry<K, V> entry, V v, AbstractSaveCommand<K, V> cmd) throws DataStoreException {
+        entry.clearCachedState();
 
-        if (cmd.hasState()) {
-            ByteArrayInputStream bis = new ByteArrayInputStream(((SaveCommand) cmd).getRawV());
+        byte[] rawV = cmd.hasState() ? ((SaveCommand<K, V>) cmd).getRawV() : null;
+        if (rawV != null && ((SaveCommand<K, V>) cmd).isLegacyState()) {
+            // Older members send what _storeable_writeState writes, without a marker
             try {
-                v._storeable_readState(bis);
+                v._storeable_readState(new ByteArrayInputStream(rawV));
             } catch (Exception ex) {
                 throw new DataStoreException("Error during updating existing V", ex);
             }
+        } else if (rawV != null && rawV.length > 0) {
+            switch (rawV[0]) {
+            case FULL_STATE:
+                v = super.deserializeV(Arrays.copyOfRange(rawV, 1, rawV.length));
+                break;
+            case DIRTY_STATE:
+                try {
+                    v._storeable_readState(new ByteArrayInputStream(rawV, 1, rawV.length - 1));
+                } catch (Exception ex) {
+                    throw new DataStoreException("Error during updating existing V", ex);
+                }
+                break;
+            default:
+                // Nothing was dirty
+                break;
+            }
         }
 
-        // Now that we have...
-//        super.printEntryInfo("Merged entry from pending updates", entry, cmd.getKey());
+        v._storeable_setVersion(cmd.getVersion());
+        v._storeable_setLastAccessTime(cmd.getLastAccessedAt());
+        v._storeable_setMaxIdleTime(cmd.getMaxIdleTime());
+
+        entry.setV(v);
+        super.updateMetaInfoInDataStoreEntry(entry, cmd);
     }
 
     @Override
     public byte[] getState(V v) throws DataStoreException {
+        return getState(v, false);
+    }
+
+    /**
+     * Sends either the whole value (checkpoint) or only what {@link Storeable#_storeable_writeState} writes for the
+     * dirty attributes. Nothing but the marker is sent when no attribute is dirty. With
+     * {@link ReplicationWireFormat#LEGACY} the state is sent without a marker and there are no checkpoints.
+     */
+    @Override
+    public byte[] getState(V v, boolean checkpoint) throws DataStoreException {
+        if (ReplicationWireFormat.isLegacy()) {
+            return writeState(v, new ByteArrayOutputStream());
+        }
+
+        if (checkpoint) {
+            byte[] fullState = super.captureState(v);
+            byte[] data = new byte[fullState.length + 1];
+            data[0] = FULL_STATE;
+            System.arraycopy(fullState, 0, data, 1, fullState.length);
+            if (ctx.getDataStoreMBean() != null) {
+                ctx.getDataStoreMBean().incrementCheckpointSaveCount();
+            }
+            return data;
+        }
+
+        if (!isDirty(v)) {
+            return new byte[] { NO_STATE };
+        }
+
         ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        bos.write(DIRTY_STATE);
+        return writeState(v, bos);
+    }
+
+    private static byte[] writeState(Storeable v, ByteArrayOutputStream bos) throws DataStoreException {
         try {
             v._storeable_writeState(bos);
         } catch (IOException ex) {
             throw new DataStoreException(ex);
         }
 
-        byte[] data = bos.toByteArray();
-//        System.out.println("Returning  a byte[] of length = " + data.length);
+        return bos.toByteArray();
+    }
 
-        return data;
+    private static boolean isDirty(Storeable v) {
+        boolean[] dirtyStatus = v._storeable_getDirtyStatus();
+        if (dirtyStatus == null) {
+            // No dirty tracking
+            return true;
+        }
+        for (boolean dirty : dirtyStatus) {
+            if (dirty) {
+                return true;
+            }
+        }
+        return false;
     }
 
     @Override
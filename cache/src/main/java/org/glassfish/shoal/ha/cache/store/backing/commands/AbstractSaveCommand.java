@@ -86,6 +86,13 @@ public abstract class AbstractSaveCommand<K, V> extends AcknowledgedCommand<K, V
         return version;
     }
 
+    /**
+     * @return the first of the consecutive versions this update stands for. Only merged touches stand for more than one.
+     */
+    public long getFirstVersion() {
+        return version;
+    }
+
     public long getLastAccessedAt() {
         return lastAccessedAt;
     }
@@ -24,6 +24,7 @@ import java.util.concurrent.TimeoutException;
 import org.glassfish.shoal.ha.cache.api.DataStoreException;
 import org.glassfish.shoal.ha.cache.command.Command;
 import org.glassfish.shoal.ha.cache.util.CommandResponse;
+import org.glassfish.shoal.ha.cache.util.ReplicationWireFormat;
 import org.glassfish.shoal.ha.cache.util.ResponseMediator;
 
 /**
@@ -38,6 +39,10 @@ public abstract class AcknowledgedCommand<K, V> extends Command<K, V> {
 
     private transient Future future;
 
+    private transient long transmitStartTime;
+
+    private transient boolean rejected;
+
     private long tokenId;
 
     private String originatingInstance;
@@ -53,12 +58,18 @@ public abstract class AcknowledgedCommand<K, V> extends Command<K, V> {
             resp = respMed.createCommandResponse();
             tokenId = resp.getTokenId();
             future = resp.getFuture();
+            transmitStartTime = System.nanoTime();
         }
 
         return true;
     }
 
     protected void sendAcknowledgement() {
+        // Commands of a received frame are acknowledged together once the whole frame has been executed
+        if (CumulativeAckCommand.collect(originatingInstance, tokenId)) {
+            return;
+        }
+
         try {
             dsc.getCommandManager().execute(new SimpleAckCommand<K, V>(originatingInstance, tokenId));
         } catch (DataStoreException dse) {
@@ -66,6 +77,21 @@ public abstract class AcknowledgedCommand<K, V> extends Command<K, V> {
         }
     }
 
+    /**
+     * Tells the sender that this command was not applied. Never collected into a cumulative ack. Acks written with
+     * ReplicationWireFormat.LEGACY cannot carry a rejection, so the sender is left to time out instead.
+     */
+    protected void sendRejection() {
+        if (ReplicationWireFormat.isLegacy()) {
+            return;
+        }
+        try {
+            dsc.getCommandManager().execute(new SimpleAckCommand<K, V>(originatingInstance, tokenId, false));
+        } catch (DataStoreException dse) {
+            // The sender times out waiting for the ack
+        }
+    }
+
     private void writeObject(java.io.ObjectOutputStream out) throws IOException {
         out.writeBoolean(dsc.isDoSynchronousReplication());
 
@@ -84,6 +110,13 @@ public abstract class AcknowledgedCommand<K, V> extends Command<K, V> {
         }
     }
 
+    /**
+     * @return true if the command was sent with synchronous replication and the replica did not apply it
+     */
+    public boolean isRejected() {
+        return rejected;
+    }
+
     @Override
     public final void onSuccess() {
         if (dsc.isDoSynchronousReplication()) {
@@ -105,7 +138,14 @@ public abstract class AcknowledgedCommand<K, V> extends Command<K, V> {
 
     private void waitForAck() throws DataStoreException, TimeoutException {
         try {
-            future.get(3, TimeUnit.SECONDS);
+            Object result = future.get(3, TimeUnit.SECONDS);
+            if (dsc.getDataStoreMBean() != null) {
+                dsc.getDataStoreMBean().recordAckLatency(System.nanoTime() - transmitStartTime);
+                if (Boolean.FALSE.equals(result)) {
+                    dsc.getDataStoreMBean().incrementQuotaNackReceivedCount();
+                }
+            }
+            rejected = Boolean.FALSE.equals(result);
         } catch (TimeoutException tEx) {
             throw tEx;
         } catch (Exception inEx) {
@@ -0,0 +1,179 @@
+/*
+ * Copyright (c) 2026 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package org.glassfish.shoal.ha.cache.store.backing.commands;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.glassfish.shoal.ha.cache.api.DataStoreContext;
+import org.glassfish.shoal.ha.cache.api.DataStoreException;
+import org.glassfish.shoal.ha.cache.api.ShoalCacheLoggerConstants;
+import org.glassfish.shoal.ha.cache.command.Command;
+import org.glassfish.shoal.ha.cache.command.ReplicationCommandOpcode;
+import org.glassfish.shoal.ha.cache.util.ResponseMediator;
+
+/**
+ * Acknowledges all the {@link AcknowledgedCommand}s of one received frame that came from the same instance. While a
+ * frame is executed, {@link AcknowledgedCommand#sendAcknowledgement()} only collects its token id; the frame then sends
+ * one CumulativeAckCommand per originating instance instead of one {@link SimpleAckCommand} per command.
+ */
+public class CumulativeAckCommand<K, V> extends Command {
+
+    private static final long serialVersionUID = 2387452046236593081L;
+
+    private static final Logger _logger = Logger.getLogger(ShoalCacheLoggerConstants.CACHE_LOAD_RESPONSE_COMMAND);
+
+    private static final ThreadLocal<Map<String, TokenIds>> collectedAcks = new ThreadLocal<Map<String, TokenIds>>();
+
+    private String targetInstanceName;
+
+    private String respondingInstanceName;
+
+    private transient long[] tokenIds;
+
+    private transient int tokenCount;
+
+    public CumulativeAckCommand() {
+        super(ReplicationCommandOpcode.CUMULATIVE_ACK_COMMAND);
+    }
+
+    private CumulativeAckCommand(String targetInstanceName, TokenIds ids) {
+        this();
+        this.targetInstanceName = targetInstanceName;
+        this.tokenIds = ids.ids;
+        this.tokenCount = ids.count;
+        super.setKey("CumulativeAck:" + tokenIds[0]);
+    }
+
+    /**
+     * Starts collecting the acknowledgements of the calling thread.
+     */
+    public static void startCollecting() {
+        collectedAcks.set(new HashMap<String, TokenIds>());
+    }
+
+    /**
+     * @return false if the calling thread is not collecting acknowledgements
+     */
+    static boolean collect(String originatingInstance, long tokenId) {
+        Map<String, TokenIds> acks = collectedAcks.get();
+        if (acks == null) {
+            return false;
+        }
+
+        TokenIds ids = acks.get(originatingInstance);
+        if (ids == null) {
+            ids = new TokenIds();
+            acks.put(originatingInstance, ids);
+        }
+        ids.add(tokenId);
+        return true;
+    }
+
+    /**
+     * Stops collecting and sends one CumulativeAckCommand to each instance that has been acknowledged since
+     * {@link #startCollecting()}.
+     */
+    public static <K, V> void sendCollected(DataStoreContext<K, V> dsc) {
+        Map<String, TokenIds> acks = collectedAcks.get();
+        collectedAcks.remove();
+        if (acks == null) {
+            return;
+        }
+
+        for (Map.Entry<String, TokenIds> ack : acks.entrySet()) {
+            try {
+                dsc.getCommandManager().execute(new CumulativeAckCommand<K, V>(ack.getKey(), ack.getValue()));
+            } catch (DataStoreException dse) {
+                // The senders time out waiting for these acks
+                _logger.log(Level.FINE, "Error while sending a cumulative ack to " + ack.getKey(), dse);
+            }
+        }
+    }
+
+    public int getTokenCount() {
+        return tokenCount;
+    }
+
+    protected boolean beforeTransmit() {
+        super.setTargetName(targetInstanceName);
+        return targetInstanceName != null;
+    }
+
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        setTargetName(targetInstanceName);
+
+        out.writeUTF(targetInstanceName);
+        out.writeUTF(dsc.getInstanceName());
+        out.writeInt(tokenCount);
+        for (int i = 0; i < tokenCount; i++) {
+            out.writeLong(tokenIds[i]);
+        }
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException {
+        targetInstanceName = in.readUTF();
+        respondingInstanceName = in.readUTF();
+        tokenCount = in.readInt();
+        tokenIds = new long[tokenCount];
+        for (int i = 0; i < tokenCount; i++) {
+            tokenIds[i] = in.readLong();
+        }
+    }
+
+    @Override
+    public void execute(String initiator) {
+        ResponseMediator respMed = getDataStoreContext().getResponseMediator();
+        for (int i = 0; i < tokenCount; i++) {
+            respMed.complete(tokenIds[i], respondingInstanceName, Boolean.TRUE);
+        }
+
+        if (dsc.getDataStoreMBean() != null) {
+            dsc.getDataStoreMBean().incrementCumulativeAckCount(tokenCount);
+        }
+    }
+
+    @Override
+    protected boolean isArtificialKey() {
+        return true;
+    }
+
+    public String toString() {
+        return getName() + "(" + tokenCount + " tokens)";
+    }
+
+    private static class TokenIds {
+
+        long[] ids = new long[8];
+
+        int count;
+
+        void add(long id) {
+            if (count == ids.length) {
+                long[] newIds = new long[count << 1];
+                System.arraycopy(ids, 0, newIds, 0, count);
+                ids = newIds;
+            }
+            ids[count++] = id;
+        }
+    }
+}
@@ -0,0 +1,228 @@
+/*
+ * Copyright (c) 2026 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package org.glassfish.shoal.ha.cache.store.backing.commands;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.List;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.glassfish.shoal.ha.cache.api.DataStoreEntryEvaluator;
+import org.glassfish.shoal.ha.cache.api.DataStoreException;
+import org.glassfish.shoal.ha.cache.api.ObjectInputStreamWithLoader;
+import org.glassfish.shoal.ha.cache.api.ShoalCacheLoggerConstants;
+import org.glassfish.shoal.ha.cache.command.Command;
+import org.glassfish.shoal.ha.cache.command.ReplicationCommandOpcode;
+import org.glassfish.shoal.ha.cache.store.DataStoreEntry;
+import org.glassfish.shoal.ha.cache.store.DataStoreEntryUpdater;
+import org.glassfish.shoal.ha.cache.store.EvaluationCursor;
+import org.glassfish.shoal.ha.cache.store.ReplicaStore;
+import org.glassfish.shoal.ha.cache.util.CommandResponse;
+import org.glassfish.shoal.ha.cache.util.ResponseMediator;
+
+/**
+ * Asks a replica to run a {@link DataStoreEntryEvaluator} over its replica entries and to send back one batch of the
+ * selected entries. The first request of a scan carries the evaluator; the replica keeps the selected entries in an
+ * {@link EvaluationCursor} and every following request (see {@link #nextBatch()}) pulls the next batch from it.
+ */
+public class EvaluateRequestCommand<K, V> extends Command {
+
+    private static final long serialVersionUID = 2851907341126563417L;
+
+    private static final Logger _logger = Logger.getLogger(ShoalCacheLoggerConstants.CACHE_EVALUATE_COMMAND);
+
+    private transient DataStoreEntryEvaluator<K, V> evaluator;
+
+    private transient Future future;
+
+    private byte[] rawEvaluator;
+
+    private long scanId;
+
+    private int batchSize;
+
+    private boolean includeValues;
+
+    private long tokenId;
+
+    private String originatingInstance;
+
+    private String target;
+
+    public EvaluateRequestCommand() {
+        super(ReplicationCommandOpcode.EVALUATE_REQUEST);
+        super.setKey("EvalReq:" + System.identityHashCode(this));
+    }
+
+    public EvaluateRequestCommand(DataStoreEntryEvaluator<K, V> evaluator, long scanId, String target, int batchSize, boolean includeValues) {
+        this();
+        this.evaluator = evaluator;
+        this.scanId = scanId;
+        this.target = target;
+        this.batchSize = batchSize;
+        this.includeValues = includeValues;
+    }
+
+    /**
+     * @return a command that pulls the next batch of this scan from the same replica
+     */
+    public EvaluateRequestCommand<K, V> nextBatch() {
+        return new EvaluateRequestCommand<K, V>(null, scanId, target, batchSize, includeValues);
+    }
+
+    protected boolean beforeTransmit() {
+        setTargetName(target);
+        originatingInstance = dsc.getInstanceName();
+        ResponseMediator respMed = dsc.getResponseMediator();
+        CommandResponse resp = respMed.createCommandResponse();
+        tokenId = resp.getTokenId();
+        future = resp.getFuture();
+
+        return target != null;
+    }
+
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        out.writeLong(scanId);
+        out.writeInt(batchSize);
+        out.writeBoolean(includeValues);
+        out.writeLong(tokenId);
+        out.writeUTF(originatingInstance);
+
+        if (evaluator != null && rawEvaluator == null) {
+            try {
+                rawEvaluator = captureState(evaluator);
+            } catch (DataStoreException dsEx) {
+                throw new IOException("Error while serializing evaluator " + evaluator, dsEx);
+            }
+        }
+        out.writeObject(rawEvaluator);
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        scanId = in.readLong();
+        batchSize = in.readInt();
+        includeValues = in.readBoolean();
+        tokenId = in.readLong();
+        originatingInstance = in.readUTF();
+        rawEvaluator = (byte[]) in.readObject();
+    }
+
+    @Override
+    public void execute(String initiator) throws DataStoreException {
+        ReplicaStore<K, V> replicaStore = dsc.getReplicaStore();
+        DataStoreEntryUpdater<K, V> updater = dsc.getDataStoreEntryUpdater();
+
+        String cursorId = originatingInstance + ":" + scanId;
+        EvaluationCursor<K, V> cursor = replicaStore.getCursor(cursorId);
+        if (cursor == null && rawEvaluator != null) {
+            cursor = replicaStore.openCursor(cursorId, readEvaluator());
+        }
+
+        EvaluateResponseCommand<K, V> rsp = new EvaluateResponseCommand<K, V>(originatingInstance, tokenId);
+        if (cursor != null) {
+            List<DataStoreEntry<K, V>> batch = cursor.next(batchSize);
+            for (DataStoreEntry<K, V> entry : batch) {
+                synchronized (entry) {
+                    if (entry.isRemoved()) {
+                        continue;
+                    }
+                    if (includeValues) {
+                        LoadResponseCommand<K, V> state = updater.createLoadResponseCommand(entry, entry.getKey(), DataStoreEntry.MIN_VERSION);
+                        rsp.addEntry(entry.getKey(), state.getVersion(), state.getRawV());
+                    } else {
+                        rsp.addEntry(entry.getKey(), entry.getVersion(), null);
+                    }
+                }
+            }
+
+            rsp.setHasMore(cursor.hasMore());
+            if (!cursor.hasMore()) {
+                replicaStore.closeCursor(cursorId);
+            }
+        } else {
+            // an empty batch would end the scan as if it were complete
+            _logger.log(Level.FINE, "EvaluateRequestCommand: no cursor for " + cursorId + ". Expired?");
+            rsp.setError("no cursor for scan " + cursorId + ", it has expired or is unknown");
+        }
+
+        if (_logger.isLoggable(Level.FINE)) {
+            _logger.log(Level.FINE, dsc.getInstanceName() + " sending " + rsp + " for scan " + cursorId);
+        }
+        getCommandManager().execute(rsp);
+    }
+
+    private DataStoreEntryEvaluator<K, V> readEvaluator() throws DataStoreException {
+        ByteArrayInputStream bis = new ByteArrayInputStream(rawEvaluator);
+        ObjectInputStreamWithLoader ois = null;
+        try {
+            ois = new ObjectInputStreamWithLoader(bis, dsc.getClassLoader());
+            return (DataStoreEntryEvaluator<K, V>) ois.readObject();
+        } catch (Exception ex) {
+            throw new DataStoreException("Error while reading evaluator", ex);
+        } finally {
+            try {
+                ois.close();
+            } catch (Exception ex) {
+                _logger.log(Level.FINEST, "Ignorable error while closing ObjectInputStream");
+            }
+        }
+    }
+
+    /**
+     * Waits for the batch requested by this command.
+     *
+     * @return the response or null if the replica did not answer in time
+     * @throws DataStoreException if the replica could not return the batch
+     */
+    public EvaluateResponseCommand<K, V> getResult(long waitFor, TimeUnit unit) throws DataStoreException {
+        try {
+            Object result = future.get(waitFor, unit);
+            if (result instanceof Exception) {
+                throw new DataStoreException((Exception) result);
+            }
+            EvaluateResponseCommand<K, V> rsp = (EvaluateResponseCommand<K, V>) result;
+            if (rsp != null && rsp.getError() != null) {
+                throw new DataStoreException("Evaluation failed on " + rsp.getRespondingInstanceName() + ": " + rsp.getError());
+            }
+            return rsp;
+        } catch (DataStoreException dsEx) {
+            throw dsEx;
+        } catch (TimeoutException timeoutEx) {
+            _logger.log(Level.WARNING, "EvaluateRequestCommand timed out while waiting for result from " + target);
+            return null;
+        } catch (Exception ex) {
+            throw new DataStoreException(ex);
+        } finally {
+            dsc.getResponseMediator().removeCommandResponse(tokenId);
+        }
+    }
+
+    @Override
+    protected boolean isArtificialKey() {
+        return true;
+    }
+
+    public String toString() {
+        return getName() + "(scanId=" + scanId + ")";
+    }
+}
@@ -0,0 +1,192 @@
+/*
+ * Copyright (c) 2026 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package org.glassfish.shoal.ha.cache.store.backing.commands;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.glassfish.ha.store.util.KeyTransformer;
+import org.glassfish.shoal.ha.cache.api.ShoalCacheLoggerConstants;
+import org.glassfish.shoal.ha.cache.command.Command;
+import org.glassfish.shoal.ha.cache.command.ReplicationCommandOpcode;
+import org.glassfish.shoal.ha.cache.util.ResponseMediator;
+
+/**
+ * One batch of entries selected by an {@link EvaluateRequestCommand}.
+ */
+public class EvaluateResponseCommand<K, V> extends Command {
+
+    private static final long serialVersionUID = -3214419250381935374L;
+
+    private static final Logger _logger = Logger.getLogger(ShoalCacheLoggerConstants.CACHE_EVALUATE_COMMAND);
+
+    private transient List<K> keys = new ArrayList<K>();
+
+    private transient List<Long> versions = new ArrayList<Long>();
+
+    private transient List<byte[]> rawVs = new ArrayList<byte[]>();
+
+    private transient boolean rawKeysPending;
+
+    private long tokenId;
+
+    private boolean hasMore;
+
+    private String originatingInstance;
+
+    private String respondingInstanceName;
+
+    private String error;
+
+    public EvaluateResponseCommand() {
+        super(ReplicationCommandOpcode.EVALUATE_RESPONSE);
+        super.setKey("EvalResp:" + System.identityHashCode(this));
+    }
+
+    public EvaluateResponseCommand(String originatingInstance, long tokenId) {
+        this();
+        this.originatingInstance = originatingInstance;
+        this.tokenId = tokenId;
+    }
+
+    void addEntry(K k, long version, byte[] rawV) {
+        keys.add(k);
+        versions.add(version);
+        rawVs.add(rawV);
+    }
+
+    void setHasMore(boolean hasMore) {
+        this.hasMore = hasMore;
+    }
+
+    /**
+     * Marks this response as a failure of the scan on the responding replica.
+     */
+    void setError(String error) {
+        this.error = error;
+    }
+
+    /**
+     * @return why the responding replica could not return the requested batch, or null
+     */
+    public String getError() {
+        return error;
+    }
+
+    public boolean hasMore() {
+        return hasMore;
+    }
+
+    public int size() {
+        return keys.size();
+    }
+
+    public K getKey(int index) {
+        return keys.get(index);
+    }
+
+    public long getVersion(int index) {
+        return versions.get(index);
+    }
+
+    public byte[] getRawV(int index) {
+        return rawVs.get(index);
+    }
+
+    public String getRespondingInstanceName() {
+        return respondingInstanceName;
+    }
+
+    protected boolean beforeTransmit() {
+        setTargetName(originatingInstance);
+        return originatingInstance != null;
+    }
+
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        out.writeLong(tokenId);
+        out.writeBoolean(hasMore);
+        out.writeUTF(dsc.getInstanceName());
+
+        KeyTransformer<K> kt = dsc.getKeyTransformer();
+        out.writeBoolean(kt == null);
+        int sz = keys.size();
+        out.writeInt(sz);
+        for (int i = 0; i < sz; i++) {
+            if (kt == null) {
+                out.writeObject(keys.get(i));
+            } else {
+                out.writeObject(kt.keyToByteArray(keys.get(i)));
+            }
+            out.writeLong(versions.get(i));
+            out.writeObject(rawVs.get(i));
+        }
+        out.writeObject(error);
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        tokenId = in.readLong();
+        hasMore = in.readBoolean();
+        respondingInstanceName = in.readUTF();
+
+        boolean ktAbsent = in.readBoolean();
+        rawKeysPending = !ktAbsent;
+        int sz = in.readInt();
+        keys = new ArrayList<K>(sz);
+        versions = new ArrayList<Long>(sz);
+        rawVs = new ArrayList<byte[]>(sz);
+        for (int i = 0; i < sz; i++) {
+            // Raw keys are transformed in execute(), once the DataStoreContext is available
+            keys.add((K) in.readObject());
+            versions.add(in.readLong());
+            rawVs.add((byte[]) in.readObject());
+        }
+        error = (String) in.readObject();
+    }
+
+    @Override
+    public void execute(String initiator) {
+        if (rawKeysPending) {
+            KeyTransformer<K> kt = dsc.getKeyTransformer();
+            for (int i = 0; i < keys.size(); i++) {
+                byte[] bytes = (byte[]) keys.get(i);
+                keys.set(i, kt.byteArrayToKey(bytes, 0, bytes.length));
+            }
+            rawKeysPending = false;
+        }
+
+        ResponseMediator respMed = getDataStoreContext().getResponseMediator();
+        if (respMed.complete(tokenId, respondingInstanceName, this)) {
+            if (_logger.isLoggable(Level.FINE)) {
+                _logger.log(Level.FINE, dsc.getInstanceName() + " received " + this + " from " + respondingInstanceName);
+            }
+        }
+    }
+
+    @Override
+    protected boolean isArtificialKey() {
+        return true;
+    }
+
+    public String toString() {
+        return getName() + "(" + keys.size() + " entries; hasMore=" + hasMore + (error == null ? "" : "; error=" + error) + ")";
+    }
+}
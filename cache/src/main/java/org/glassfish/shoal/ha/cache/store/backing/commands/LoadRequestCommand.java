@@ -46,6 +46,8 @@ public class LoadRequestCommand<K, V> extends Command<K, V> {
 
     private transient Future future;
 
+    private transient String respondingInstanceName;
+
     private long minVersion = -1;
 
     private long tokenId;
@@ -102,6 +104,8 @@ public class LoadRequestCommand<K, V> extends Command<K, V> {
 
             if (e != null) {
                 synchronized (e) {
+                    // A replica is read back when its primary failed, so it is likely to be read again
+                    dsc.getReplicaStore().pageIn(e);
                     if (!originatingInstance.equals(dsc.getInstanceName())) {
                         LoadResponseCommand<K, V> rsp = dsc.getDataStoreEntryUpdater().createLoadResponseCommand(e, getKey(), minVersion);
                         rsp.setTokenId(tokenId);
@@ -130,12 +134,13 @@ public class LoadRequestCommand<K, V> extends Command<K, V> {
     }
 
     public String getRespondingInstanceName() {
-        return resp.getRespondingInstanceName();
+        return respondingInstanceName;
     }
 
     public V getResult(long waitFor, TimeUnit unit) throws DataStoreException {
         try {
             Object result = future.get(waitFor, unit);
+            respondingInstanceName = resp.getRespondingInstanceName();
             if (result instanceof Exception) {
                 throw new DataStoreException((Exception) result);
             }
@@ -157,6 +162,8 @@ public class LoadRequestCommand<K, V> extends Command<K, V> {
         } catch (ExecutionException exeEx) {
             _logger.log(Level.WARNING, "LoadRequestCommand got an exception while waiting for result", exeEx);
             throw new DataStoreException(exeEx);
+        } finally {
+            dsc.getResponseMediator().removeCommandResponse(resp.getTokenId());
         }
     }
 
@@ -26,7 +26,6 @@ import org.glassfish.shoal.ha.cache.api.DataStoreException;
 import org.glassfish.shoal.ha.cache.api.ShoalCacheLoggerConstants;
 import org.glassfish.shoal.ha.cache.command.Command;
 import org.glassfish.shoal.ha.cache.command.ReplicationCommandOpcode;
-import org.glassfish.shoal.ha.cache.util.CommandResponse;
 import org.glassfish.shoal.ha.cache.util.ResponseMediator;
 
 /**
@@ -113,15 +112,11 @@ public class LoadResponseCommand<K, V> extends Command<K, V> {
     public void execute(String initiator) throws DataStoreException {
 
         ResponseMediator respMed = getDataStoreContext().getResponseMediator();
-        CommandResponse resp = respMed.getCommandResponse(tokenId);
-        if (resp != null) {
+        if (respMed.complete(tokenId, respondingInstanceName, this)) {
             if (_logger.isLoggable(Level.FINE)) {
                 _logger.log(Level.FINE,
                         dsc.getInstanceName() + " received load_response key=" + getKey() + "; version=" + version + "; from " + respondingInstanceName);
             }
-
-            resp.setRespondingInstanceName(respondingInstanceName);
-            resp.setResult(this);
         }
     }
 
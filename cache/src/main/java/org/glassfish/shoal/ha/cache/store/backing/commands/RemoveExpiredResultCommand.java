@@ -77,8 +77,12 @@ public class RemoveExpiredResultCommand<K, V> extends Command<String, V> {
                 _logger.log(Level.FINE, dsc.getInstanceName() + "For tokenId = " + tokenId + " received remove_expired_response value=" + result);
             }
 
-            int pendingUpdates = 0;
+            int pendingUpdates = -1;
             synchronized (resp) {
+                if (resp.getTokenId() != tokenId) {
+                    // The slot has been reused since it was looked up
+                    return;
+                }
                 Integer existingValue = (Integer) resp.getTransientResult();
                 Integer newResult = new Integer(existingValue.intValue() + result);
                 resp.setTransientResult(newResult);
@@ -86,7 +90,7 @@ public class RemoveExpiredResultCommand<K, V> extends Command<String, V> {
             }
 
             if (pendingUpdates == 0) {
-                resp.setResult(resp.getTransientResult());
+                resp.complete(tokenId, null, resp.getTransientResult());
             }
         } else {
             _logger.log(Level.FINE, "RemoveExpiredResult: TOKEN already removed for tokenId = " + tokenId);
@@ -16,12 +16,15 @@
 
 package org.glassfish.shoal.ha.cache.store.backing.commands;
 
+import java.io.EOFException;
 import java.io.IOException;
 import java.util.logging.Level;
 
 import org.glassfish.shoal.ha.cache.api.DataStoreException;
 import org.glassfish.shoal.ha.cache.command.ReplicationCommandOpcode;
 import org.glassfish.shoal.ha.cache.store.DataStoreEntry;
+import org.glassfish.shoal.ha.cache.store.ReplicaStore;
+import org.glassfish.shoal.ha.cache.util.ReplicationWireFormat;
 
 /**
  * @author Mahesh Kannan
@@ -35,6 +38,11 @@ public class SaveCommand<K, V> extends AbstractSaveCommand<K, V> {
 
     private transient byte[] rawV;
 
+    private transient boolean checkpoint;
+
+    // Set when the sender used ReplicationWireFormat.LEGACY
+    private transient boolean legacyState;
+
     public SaveCommand() {
         super(ReplicationCommandOpcode.SAVE);
     }
@@ -52,27 +60,82 @@ public class SaveCommand<K, V> extends AbstractSaveCommand<K, V> {
                     dsc.getServiceName() + getName() + " received save_command for key = " + getKey() + " from " + initiator + "; version = " + getVersion());
         }
 
-        DataStoreEntry<K, V> entry = dsc.getReplicaStore().getOrCreateEntry(getKey());
+        ReplicaStore<K, V> replicaStore = dsc.getReplicaStore();
+        int saveBytes = rawV == null ? 0 : rawV.length;
+        boolean accepted;
+        String rejection = "replica quota exceeded";
+        DataStoreEntry<K, V> entry = replicaStore.getOrCreateEntry(getKey());
         synchronized (entry) {
-            dsc.getDataStoreEntryUpdater().executeSave(entry, this);
+            accepted = replicaStore.admit(entry, saveBytes);
+            if (accepted) {
+                try {
+                    dsc.getDataStoreEntryUpdater().executeSave(entry, this);
+                    replicaStore.updateResidentBytes(entry, saveBytes);
+                } catch (DataStoreException dsEx) {
+                    accepted = false;
+                    rejection = dsEx.getMessage();
+                }
+            }
+        }
+
+        if (!accepted) {
+            // Keeping the older version would only serve stale data
+            replicaStore.remove(getKey());
+            if (_logger.isLoggable(Level.FINE)) {
+                _logger.log(Level.FINE, dsc.getServiceName() + " rejected save_command for key = " + getKey() + " from " + initiator
+                        + "; " + rejection);
+            }
         }
 
         if (dsc.isDoSynchronousReplication()) {
-            _logger.log(Level.FINE, "SaveCommand Sending SIMPLE_ACK");
-            super.sendAcknowledgement();
+            if (accepted) {
+                _logger.log(Level.FINE, "SaveCommand Sending SIMPLE_ACK");
+                super.sendAcknowledgement();
+            } else {
+                super.sendRejection();
+            }
+        } else if (!accepted && !ReplicationWireFormat.isLegacy()) {
+            // Without an ack the sender would keep sending changes that this replica can no longer apply
+            try {
+                dsc.getCommandManager().execute(new SaveRejectedCommand<K, V>(getKey(), initiator));
+            } catch (DataStoreException dsEx) {
+                // The next checkpoint of the key repairs the replica
+            }
         }
 
-        dsc.getDataStoreMBean().incrementExecutedSaveCount();
+        if (accepted) {
+            replicaStore.enforceQuota();
+            dsc.getDataStoreMBean().incrementExecutedSaveCount();
+        }
     }
 
     public String toString() {
         return getName() + "(" + getKey() + ")";
     }
 
+    /**
+     * Asks the updater to send the full state of the value instead of the changes made since the previous save.
+     */
+    public void setCheckpoint(boolean checkpoint) {
+        this.checkpoint = checkpoint;
+    }
+
+    public boolean isCheckpoint() {
+        return checkpoint;
+    }
+
     private void writeObject(java.io.ObjectOutputStream out) throws IOException {
 
-        rawV = dsc.getDataStoreEntryUpdater().getState(v);
+        rawV = dsc.getDataStoreEntryUpdater().getState(v, checkpoint);
         out.writeObject(rawV);
+        if (!ReplicationWireFormat.isLegacy()) {
+            // Tells the replica that rawV is in the current format; older members stop reading before it
+            out.writeBoolean(true);
+        }
+        if (dsc.getDataStoreMBean() != null) {
+            dsc.getDataStoreMBean().incrementSaveStateBytesCount(rawV == null ? 0 : rawV.length);
+            dsc.getDataStoreMBean().recordReplicatedSave(getKey(), rawV == null ? 0 : rawV.length);
+        }
 
         if (_logger.isLoggable(Level.FINE)) {
             _logger.log(Level.FINE, dsc.getServiceName() + " sending save_command for key = " + getKey() + "; version = " + version + "; lastAccessedAt = "
@@ -88,9 +151,21 @@ public class SaveCommand<K, V> extends AbstractSaveCommand<K, V> {
         return rawV;
     }
 
+    /**
+     * @return true if rawV was written by a member that uses ReplicationWireFormat.LEGACY
+     */
+    public boolean isLegacyState() {
+        return legacyState;
+    }
+
     private void readObject(java.io.ObjectInputStream in) throws IOException, ClassNotFoundException {
 
         rawV = (byte[]) in.readObject();
+        try {
+            legacyState = !in.readBoolean();
+        } catch (EOFException eofEx) {
+            legacyState = true;
+        }
     }
 
 }
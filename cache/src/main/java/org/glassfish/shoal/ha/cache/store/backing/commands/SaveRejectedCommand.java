@@ -0,0 +1,79 @@
+/*
+ * Copyright (c) 2026 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package org.glassfish.shoal.ha.cache.store.backing.commands;
+
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.glassfish.shoal.ha.cache.api.ShoalCacheLoggerConstants;
+import org.glassfish.shoal.ha.cache.command.Command;
+import org.glassfish.shoal.ha.cache.command.ReplicationCommandOpcode;
+import org.glassfish.shoal.ha.cache.store.DataStoreEntry;
+
+/**
+ * Tells the sender of a save that the replica did not apply it, when replication is asynchronous and the sender does
+ * not wait for an ack. The replica has dropped its copy of the key, so the next save of the key must send the full
+ * state.
+ */
+public class SaveRejectedCommand<K, V> extends Command<K, V> {
+
+    private static final long serialVersionUID = 6253092185176315472L;
+
+    private static final Logger _logger = Logger.getLogger(ShoalCacheLoggerConstants.CACHE_SAVE_COMMAND);
+
+    private String senderName;
+
+    public SaveRejectedCommand() {
+        super(ReplicationCommandOpcode.SAVE_REJECTED);
+    }
+
+    public SaveRejectedCommand(K k, String senderName) {
+        this();
+        super.setKey(k);
+        this.senderName = senderName;
+    }
+
+    @Override
+    protected boolean beforeTransmit() {
+        setTargetName(senderName);
+        return senderName != null;
+    }
+
+    @Override
+    public void execute(String initiator) {
+        DataStoreEntry<K, V> entry = dsc.getReplicaStore().getEntry(getKey());
+        if (entry == null) {
+            return;
+        }
+        synchronized (entry) {
+            // A newer save may already have gone to another replica
+            if (initiator != null && initiator.equals(entry.getReplicaInstanceName())) {
+                entry.setReplicaInstanceName(null);
+            }
+        }
+        if (dsc.getDataStoreMBean() != null) {
+            dsc.getDataStoreMBean().incrementQuotaNackReceivedCount();
+        }
+        if (_logger.isLoggable(Level.FINE)) {
+            _logger.log(Level.FINE, dsc.getServiceName() + " save of key = " + getKey() + " rejected by " + initiator);
+        }
+    }
+
+    public String toString() {
+        return getName() + "(" + getKey() + ")";
+    }
+}
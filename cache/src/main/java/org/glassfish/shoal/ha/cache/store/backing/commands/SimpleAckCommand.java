@@ -16,6 +16,7 @@
 
 package org.glassfish.shoal.ha.cache.store.backing.commands;
 
+import java.io.EOFException;
 import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
@@ -24,7 +25,7 @@ import java.util.logging.Logger;
 import org.glassfish.shoal.ha.cache.api.ShoalCacheLoggerConstants;
 import org.glassfish.shoal.ha.cache.command.Command;
 import org.glassfish.shoal.ha.cache.command.ReplicationCommandOpcode;
-import org.glassfish.shoal.ha.cache.util.CommandResponse;
+import org.glassfish.shoal.ha.cache.util.ReplicationWireFormat;
 import org.glassfish.shoal.ha.cache.util.ResponseMediator;
 
 /**
@@ -40,6 +41,8 @@ public class SimpleAckCommand<K, V> extends Command {
 
     private String respondingInstanceName;
 
+    private boolean accepted = true;
+
     public SimpleAckCommand() {
         super(ReplicationCommandOpcode.SIMPLE_ACK_COMMAND);
     }
@@ -51,12 +54,23 @@ public class SimpleAckCommand<K, V> extends Command {
         this.tokenId = tokenId;
     }
 
+    /**
+     * @param accepted false to tell the sender that the command was rejected
+     */
+    public SimpleAckCommand(String targetInstanceName, long tokenId, boolean accepted) {
+        this(targetInstanceName, tokenId);
+        this.accepted = accepted;
+    }
+
     private void writeObject(ObjectOutputStream ros) throws IOException {
         setTargetName(targetInstanceName);
 
         ros.writeLong(tokenId);
         ros.writeUTF(targetInstanceName);
         ros.writeUTF(dsc.getInstanceName());
+        if (!ReplicationWireFormat.isLegacy()) {
+            ros.writeBoolean(accepted);
+        }
     }
 
     protected boolean beforeTransmit() {
@@ -69,16 +83,18 @@ public class SimpleAckCommand<K, V> extends Command {
         tokenId = ris.readLong();
         targetInstanceName = ris.readUTF();
         respondingInstanceName = ris.readUTF();
+        try {
+            accepted = ris.readBoolean();
+        } catch (EOFException eofEx) {
+            // Older members only acknowledge
+            accepted = true;
+        }
     }
 
     @Override
     public void execute(String initiator) {
         ResponseMediator respMed = getDataStoreContext().getResponseMediator();
-        CommandResponse resp = respMed.getCommandResponse(tokenId);
-        if (resp != null) {
-            resp.setRespondingInstanceName(respondingInstanceName);
-            resp.setResult(true);
-        }
+        respMed.complete(tokenId, respondingInstanceName, Boolean.valueOf(accepted));
     }
 
     @Override
@@ -96,6 +96,8 @@ public class SizeRequestCommand<K, V> extends Command {
             result = (Integer) future.get(3, TimeUnit.SECONDS);
         } catch (Exception dse) {
             // TODO
+        } finally {
+            dsc.getResponseMediator().removeCommandResponse(tokenId);
         }
 
         return result;
@@ -25,7 +25,6 @@ import java.util.logging.Logger;
 import org.glassfish.shoal.ha.cache.api.ShoalCacheLoggerConstants;
 import org.glassfish.shoal.ha.cache.command.Command;
 import org.glassfish.shoal.ha.cache.command.ReplicationCommandOpcode;
-import org.glassfish.shoal.ha.cache.util.CommandResponse;
 import org.glassfish.shoal.ha.cache.util.ResponseMediator;
 
 /**
@@ -82,14 +81,10 @@ public class SizeResponseCommand<K, V> extends Command {
     public void execute(String initiator) {
 
         ResponseMediator respMed = getDataStoreContext().getResponseMediator();
-        CommandResponse resp = respMed.getCommandResponse(tokenId);
-        if (resp != null) {
+        if (respMed.complete(tokenId, respondingInstanceName, size)) {
             if (_logger.isLoggable(Level.FINE)) {
                 _logger.log(Level.FINE, dsc.getInstanceName() + " executed size_response tokenId=" + tokenId + " value " + size);
             }
-
-            resp.setRespondingInstanceName(respondingInstanceName);
-            resp.setResult(size);
         }
     }
 
@@ -16,6 +16,8 @@
 
 package org.glassfish.shoal.ha.cache.store.backing.commands;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.util.logging.Level;
 
 import org.glassfish.shoal.ha.cache.api.DataStoreException;
@@ -30,12 +32,31 @@ public class TouchCommand<K, V> extends AbstractSaveCommand<K, V> {
 
     private static final long serialVersionUID = -7824388716058350739L;
 
+    // A merged touch stands for every version from firstVersion to version, so the replica never waits for them
+    private transient long firstVersion;
+
     public TouchCommand() {
         super(ReplicationCommandOpcode.TOUCH);
     }
 
     public TouchCommand(K k, long version, long accessTime, long maxIdleTime) {
+        this(k, version, version, accessTime, maxIdleTime);
+    }
+
+    public TouchCommand(K k, long firstVersion, long version, long accessTime, long maxIdleTime) {
         super(ReplicationCommandOpcode.TOUCH, k, version, accessTime, maxIdleTime);
+        this.firstVersion = firstVersion;
+    }
+
+    @Override
+    public long getFirstVersion() {
+        return firstVersion;
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        // A serialized touch always stands for its own version only
+        firstVersion = version;
     }
 
     @Override
@@ -16,34 +16,179 @@
 
 package org.glassfish.shoal.ha.cache.util;
 
-import java.util.concurrent.Callable;
-import java.util.concurrent.FutureTask;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.concurrent.locks.LockSupport;
 
 /**
+ * The pending response to a command. Responses handed out by {@link ResponseMediator} are reusable slots: the token id
+ * of a slot combines its index with a generation that changes each time the slot is released, so a late response for
+ * an older generation can never complete the current one. A response is its own {@link Future}; it stays valid until
+ * its owner calls {@link ResponseMediator#removeCommandResponse(long)}.
+ *
  * @author Mahesh Kannan
  *
  */
-public class CommandResponse implements Callable {
+public class CommandResponse implements Future<Object> {
+
+    static final int INDEX_BITS = 20;
+
+    static final long INDEX_MASK = (1L << INDEX_BITS) - 1;
+
+    private static final int FREE = 0;
+
+    private static final int PENDING = 1;
+
+    private static final int COMPLETING = 2;
 
+    private static final int COMPLETED = 3;
+
+    private static final int STATE_BITS = 2;
+
+    private static final long STATE_MASK = (1L << STATE_BITS) - 1;
+
+    private static final AtomicLongFieldUpdater<CommandResponse> stampUpdater = AtomicLongFieldUpdater.newUpdater(CommandResponse.class, "stamp");
+
+    // Unpooled responses use negative token ids
     private static final AtomicLong tokenCounter = new AtomicLong(0);
 
-    private long tokenId;
+    private final ResponseMediator mediator;
 
-    private String respondingInstanceName;
+    private final int index;
 
-    protected Object result;
+    // generation << STATE_BITS | state
+    private volatile long stamp;
 
-    protected int expectedUpdateCount;
+    private volatile long tokenId;
+
+    private volatile long acquiredAt;
 
-    private FutureTask future;
+    private volatile Thread waiter;
 
-    private ResponseMediator mediator;
+    private volatile String respondingInstanceName;
 
+    protected volatile Object result;
+
+    protected int expectedUpdateCount;
+
+    /**
+     * Creates an unpooled response, used when all the slots of the mediator are busy.
+     */
     public CommandResponse(ResponseMediator mediator) {
         this.mediator = mediator;
-        this.tokenId = tokenCounter.incrementAndGet();
-        this.future = new FutureTask(this);
+        this.index = -1;
+        this.tokenId = -tokenCounter.incrementAndGet();
+        this.stamp = PENDING;
+    }
+
+    CommandResponse(ResponseMediator mediator, int index) {
+        this.mediator = mediator;
+        this.index = index;
+        this.stamp = 1L << STATE_BITS | FREE;
+    }
+
+    boolean tryAcquire(long now) {
+        long s = stamp;
+        if ((s & STATE_MASK) != FREE) {
+            return false;
+        }
+        // Written before the slot is published, so that expire() never sees it pending with the age of its previous use.
+        // A thread losing the race below can only make the slot look younger.
+        acquiredAt = now;
+        if (!stampUpdater.compareAndSet(this, s, s | PENDING)) {
+            return false;
+        }
+
+        result = null;
+        respondingInstanceName = null;
+        expectedUpdateCount = 0;
+        tokenId = (s >>> STATE_BITS) << INDEX_BITS | index;
+        return true;
+    }
+
+    /**
+     * Releases a slot whose owner has not released it within maxAge.
+     *
+     * @return true if the slot has been released
+     */
+    boolean expire(long now, long maxAge) {
+        // The stamp must be read before acquiredAt; see tryAcquire()
+        long s = stamp;
+        if ((s & STATE_MASK) == FREE || now - acquiredAt <= maxAge) {
+            return false;
+        }
+        release((s >>> STATE_BITS) << INDEX_BITS | index);
+        return true;
+    }
+
+    void release(long token) {
+        if (index < 0) {
+            mediator.removeUnpooledResponse(token);
+            return;
+        }
+
+        long generation = token >>> INDEX_BITS;
+        while (true) {
+            long s = stamp;
+            if ((s >>> STATE_BITS) != generation || (s & STATE_MASK) == FREE) {
+                return;
+            }
+            if ((s & STATE_MASK) == COMPLETING) {
+                Thread.onSpinWait();
+                continue;
+            }
+            // Drop the reference before the slot can be handed out again
+            result = null;
+            if (stampUpdater.compareAndSet(this, s, (generation + 1) << STATE_BITS | FREE)) {
+                return;
+            }
+        }
+    }
+
+    boolean isPendingFor(long token) {
+        return stamp == pendingStampFor(token);
+    }
+
+    private long pendingStampFor(long token) {
+        if (index < 0) {
+            return token == tokenId ? PENDING : -1;
+        }
+        return (token >>> INDEX_BITS) << STATE_BITS | PENDING;
+    }
+
+    /**
+     * Completes this response if it is still pending for the given token.
+     *
+     * @param respondingInstanceName the responding instance or null to keep the current one
+     * @return false if the response has already been completed or released
+     */
+    public boolean complete(long token, String respondingInstanceName, Object v) {
+        return doComplete(token, respondingInstanceName, v);
+    }
+
+    private boolean doComplete(long token, String respondingInstanceName, Object v) {
+        long expected = pendingStampFor(token);
+        if (expected == -1 || !stampUpdater.compareAndSet(this, expected, expected - PENDING + COMPLETING)) {
+            return false;
+        }
+
+        if (respondingInstanceName != null) {
+            this.respondingInstanceName = respondingInstanceName;
+        }
+        this.result = v;
+        stamp = expected - PENDING + COMPLETED;
+
+        if (index < 0) {
+            mediator.removeUnpooledResponse(token);
+        }
+        Thread w = waiter;
+        if (w != null) {
+            LockSupport.unpark(w);
+        }
+        return true;
     }
 
     public void setExpectedUpdateCount(int value) {
@@ -62,14 +207,12 @@ public class CommandResponse implements Callable {
         return tokenId;
     }
 
-    public FutureTask getFuture() {
-        return future;
+    public Future getFuture() {
+        return this;
     }
 
     public void setResult(Object v) {
-        this.result = v;
-        mediator.removeCommandResponse(tokenId);
-        future.run(); // Which calls our call()
+        doComplete(tokenId, null, v);
     }
 
     public Object getTransientResult() {
@@ -92,7 +235,55 @@ public class CommandResponse implements Callable {
         this.respondingInstanceName = respondingInstanceName;
     }
 
-    public Object call() {
-        return result;
+    @Override
+    public boolean cancel(boolean mayInterruptIfRunning) {
+        return false;
+    }
+
+    @Override
+    public boolean isCancelled() {
+        return false;
+    }
+
+    @Override
+    public boolean isDone() {
+        return (stamp & STATE_MASK) == COMPLETED;
+    }
+
+    @Override
+    public Object get() throws InterruptedException {
+        waiter = Thread.currentThread();
+        try {
+            while (!isDone()) {
+                LockSupport.park(this);
+                if (Thread.interrupted()) {
+                    throw new InterruptedException();
+                }
+            }
+            return result;
+        } finally {
+            waiter = null;
+        }
+    }
+
+    @Override
+    public Object get(long timeout, TimeUnit unit) throws InterruptedException, TimeoutException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        waiter = Thread.currentThread();
+        try {
+            while (!isDone()) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    throw new TimeoutException();
+                }
+                LockSupport.parkNanos(this, remaining);
+                if (Thread.interrupted()) {
+                    throw new InterruptedException();
+                }
+            }
+            return result;
+        } finally {
+            waiter = null;
+        }
     }
 }
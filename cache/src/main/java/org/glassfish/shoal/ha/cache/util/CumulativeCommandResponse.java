@@ -45,6 +45,18 @@ public class CumulativeCommandResponse extends CommandResponse {
         }
     }
 
+    @Override
+    public boolean complete(long token, String respondingInstanceName, Object v) {
+        if (token != getTokenId() || isDone()) {
+            return false;
+        }
+        if (respondingInstanceName != null) {
+            setRespondingInstanceName(respondingInstanceName);
+        }
+        setResult(v);
+        return true;
+    }
+
     protected void updateResult(Object oldValue, Object newValue) {
 
     }
@@ -0,0 +1,81 @@
+/*
+ * Copyright (c) 2026 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package org.glassfish.shoal.ha.cache.util;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * One put, get or remove on a replicated data store.
+ */
+@Name("org.glassfish.shoal.cache.DataStoreOperation")
+@Label("Data Store Operation")
+@Category({ "Shoal", "Cache" })
+@Description("A put, get or remove on a replicated data store")
+class DataStoreOperationEvent extends Event {
+
+    @Label("Store")
+    String storeName;
+
+    @Label("Operation")
+    String operation;
+
+    @Label("Key Hash")
+    int keyHash;
+
+    @Label("Bytes")
+    @Description("Size of the replicated state, -1 if not known on this path")
+    @DataAmount
+    long bytes;
+
+    @Label("Outcome")
+    String outcome;
+
+    @Label("Replica")
+    String replica;
+
+    static DataStoreOperationEvent start() {
+        // A static check first, so that nothing is allocated as long as no recording was ever started
+        if (!FlightRecorder.isInitialized()) {
+            return null;
+        }
+        DataStoreOperationEvent event = new DataStoreOperationEvent();
+        if (!event.isEnabled()) {
+            return null;
+        }
+        event.begin();
+        return event;
+    }
+
+    void end(String storeName, String operation, int keyHash, long bytes, String outcome, String replica) {
+        end();
+        if (shouldCommit()) {
+            this.storeName = storeName;
+            this.operation = operation;
+            this.keyHash = keyHash;
+            this.bytes = bytes;
+            this.outcome = outcome;
+            this.replica = replica;
+            commit();
+        }
+    }
+}
@@ -0,0 +1,194 @@
+/*
+ * Copyright (c) 2026 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package org.glassfish.shoal.ha.cache.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Finds the heaviest keys of an unbounded stream in bounded memory. A Count-Min sketch estimates the weight of every key
+ * (never below its real weight) and a min-heap keeps the K keys with the highest estimates. Once {@code windowSize}
+ * weights have been added, all counters are halved so that keys which were heavy long ago fade out.
+ */
+public class HeavyHitterSketch {
+
+    private static final int DEPTH = 4;
+
+    private static final int WIDTH = 1024;
+
+    private static final long[] SEEDS = { 0x9E3779B97F4A7C15L, 0xC2B2AE3D27D4EB4FL, 0x165667B19E3779F9L, 0xD6E8FEB86659FD93L };
+
+    private final AtomicLongArray counters = new AtomicLongArray(DEPTH * WIDTH);
+
+    private final int k;
+
+    private final long windowSize;
+
+    private final AtomicLong addCount = new AtomicLong();
+
+    private final PriorityQueue<HeavyHitter> topK;
+
+    private final Map<Object, HeavyHitter> tracked = new HashMap<Object, HeavyHitter>();
+
+    // The estimate a key needs to enter a full top-K; read without the lock to keep light keys off it
+    private volatile long admissionEstimate;
+
+    public HeavyHitterSketch(int k, long windowSize) {
+        this.k = k;
+        this.windowSize = windowSize;
+        this.topK = new PriorityQueue<HeavyHitter>(k + 1, new Comparator<HeavyHitter>() {
+            public int compare(HeavyHitter h1, HeavyHitter h2) {
+                return Long.compare(h1.estimate, h2.estimate);
+            }
+        });
+    }
+
+    /**
+     * @return the new estimated weight of the key
+     */
+    public long add(Object key, long weight) {
+        int hash = key.hashCode();
+        long estimate = Long.MAX_VALUE;
+        for (int i = 0; i < DEPTH; i++) {
+            estimate = Math.min(estimate, counters.addAndGet(index(i, hash), weight));
+        }
+
+        if (estimate >= admissionEstimate) {
+            offer(key, estimate);
+        }
+
+        if (windowSize > 0 && addCount.addAndGet(weight) >= windowSize) {
+            addCount.set(0);
+            age();
+        }
+        return estimate;
+    }
+
+    public long estimate(Object key) {
+        int hash = key.hashCode();
+        long estimate = Long.MAX_VALUE;
+        for (int i = 0; i < DEPTH; i++) {
+            estimate = Math.min(estimate, counters.get(index(i, hash)));
+        }
+        return estimate;
+    }
+
+    /**
+     * @return the heaviest keys, heaviest first
+     */
+    public List<HeavyHitter> getTopK() {
+        List<HeavyHitter> result = new ArrayList<HeavyHitter>();
+        synchronized (topK) {
+            for (HeavyHitter hitter : topK) {
+                result.add(new HeavyHitter(hitter.key, hitter.estimate));
+            }
+        }
+        Collections.sort(result, new Comparator<HeavyHitter>() {
+            public int compare(HeavyHitter h1, HeavyHitter h2) {
+                return Long.compare(h2.estimate, h1.estimate);
+            }
+        });
+        return result;
+    }
+
+    public void reset() {
+        synchronized (topK) {
+            for (int i = 0; i < counters.length(); i++) {
+                counters.set(i, 0);
+            }
+            topK.clear();
+            tracked.clear();
+            admissionEstimate = 0;
+        }
+    }
+
+    private void offer(Object key, long estimate) {
+        synchronized (topK) {
+            HeavyHitter hitter = tracked.get(key);
+            if (hitter != null) {
+                topK.remove(hitter);
+                hitter.estimate = Math.max(hitter.estimate, estimate);
+                topK.add(hitter);
+            } else if (topK.size() < k) {
+                hitter = new HeavyHitter(key, estimate);
+                tracked.put(key, hitter);
+                topK.add(hitter);
+            } else if (estimate > topK.peek().estimate) {
+                tracked.remove(topK.poll().key);
+                hitter = new HeavyHitter(key, estimate);
+                tracked.put(key, hitter);
+                topK.add(hitter);
+            }
+            admissionEstimate = topK.size() < k ? 0 : topK.peek().estimate;
+        }
+    }
+
+    private void age() {
+        synchronized (topK) {
+            for (int i = 0; i < counters.length(); i++) {
+                long value;
+                do {
+                    value = counters.get(i);
+                } while (!counters.compareAndSet(i, value, value >>> 1));
+            }
+            List<HeavyHitter> hitters = new ArrayList<HeavyHitter>(topK);
+            topK.clear();
+            for (HeavyHitter hitter : hitters) {
+                hitter.estimate >>>= 1;
+                topK.add(hitter);
+            }
+            admissionEstimate = topK.size() < k ? 0 : topK.peek().estimate;
+        }
+    }
+
+    private static int index(int row, int hash) {
+        long h = (hash ^ (hash >>> 16)) * SEEDS[row];
+        return row * WIDTH + (int) (h >>> 54);
+    }
+
+    public static class HeavyHitter {
+
+        private final Object key;
+
+        private long estimate;
+
+        HeavyHitter(Object key, long estimate) {
+            this.key = key;
+            this.estimate = estimate;
+        }
+
+        public Object getKey() {
+            return key;
+        }
+
+        public long getEstimate() {
+            return estimate;
+        }
+
+        @Override
+        public String toString() {
+            return key + "=" + estimate;
+        }
+    }
+}
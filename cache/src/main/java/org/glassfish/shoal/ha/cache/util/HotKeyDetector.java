@@ -0,0 +1,240 @@
+/*
+ * Copyright (c) 2026 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package org.glassfish.shoal.ha.cache.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.glassfish.shoal.ha.cache.api.ShoalCacheLoggerConstants;
+
+/**
+ * Tracks the keys of a store that dominate replication: the keys saved most often, the keys with the most replicated
+ * bytes and the largest single values. Each save crossing one of the configured thresholds is logged once:
+ * <ul>
+ * <li>{@code org.glassfish.shoal.cache.hot.key.save.count.warning.threshold} saves of one key</li>
+ * <li>{@code org.glassfish.shoal.cache.hot.key.bytes.warning.threshold} replicated bytes of one key</li>
+ * <li>{@code org.glassfish.shoal.cache.large.value.warning.threshold} bytes in a single value</li>
+ * </ul>
+ * 0, the default, disables a warning. Counts are halved every
+ * {@code org.glassfish.shoal.cache.hot.key.window.size} saves, so the thresholds apply to recent activity; a key that
+ * crosses a threshold again after its count was halved is not warned about again. Keys are only reported by their
+ * hash code, the one the JFR events of the store carry, so that session ids and the like do not end up in logs.
+ */
+public class HotKeyDetector {
+
+    private static final Logger _logger = Logger.getLogger(ShoalCacheLoggerConstants.CACHE_STATS);
+
+    private static final int TOP_K = Integer.getInteger("org.glassfish.shoal.cache.hot.key.top.k", 10);
+
+    private static final long WINDOW_SIZE = Long.getLong("org.glassfish.shoal.cache.hot.key.window.size", 100000);
+
+    private static final long SAVE_COUNT_THRESHOLD = Long.getLong("org.glassfish.shoal.cache.hot.key.save.count.warning.threshold", 0);
+
+    private static final long BYTES_THRESHOLD = Long.getLong("org.glassfish.shoal.cache.hot.key.bytes.warning.threshold", 0);
+
+    private static final long LARGE_VALUE_THRESHOLD = Long.getLong("org.glassfish.shoal.cache.large.value.warning.threshold", 0);
+
+    // Beyond this many keys warned about, the oldest warnings may be repeated
+    private static final int MAX_WARNED_KEYS = 10000;
+
+    private final String storeName;
+
+    private final long saveCountThreshold;
+
+    private final long bytesThreshold;
+
+    private final long largeValueThreshold;
+
+    private final Set<Object> warnedBySaveCount = Collections.newSetFromMap(new ConcurrentHashMap<Object, Boolean>());
+
+    private final Set<Object> warnedByBytes = Collections.newSetFromMap(new ConcurrentHashMap<Object, Boolean>());
+
+    private final Set<Object> warnedByLargeValue = Collections.newSetFromMap(new ConcurrentHashMap<Object, Boolean>());
+
+    private final HeavyHitterSketch bySaveCount;
+
+    private final HeavyHitterSketch byBytes;
+
+    private final PriorityQueue<LargeValue> largestValues;
+
+    private final Map<Object, LargeValue> largestValuesByKey = new HashMap<Object, LargeValue>();
+
+    private volatile int smallestLargeValue;
+
+    public HotKeyDetector(String storeName) {
+        this(storeName, WINDOW_SIZE, SAVE_COUNT_THRESHOLD, BYTES_THRESHOLD, LARGE_VALUE_THRESHOLD);
+    }
+
+    public HotKeyDetector(String storeName, long windowSize, long saveCountThreshold, long bytesThreshold, long largeValueThreshold) {
+        this.storeName = storeName;
+        this.saveCountThreshold = saveCountThreshold;
+        this.bytesThreshold = bytesThreshold;
+        this.largeValueThreshold = largeValueThreshold;
+        this.bySaveCount = new HeavyHitterSketch(TOP_K, windowSize);
+        // Same window in saves as bySaveCount, assuming values of about 1K
+        this.byBytes = new HeavyHitterSketch(TOP_K, windowSize * 1024);
+        this.largestValues = new PriorityQueue<LargeValue>(TOP_K + 1, new Comparator<LargeValue>() {
+            public int compare(LargeValue v1, LargeValue v2) {
+                return Integer.compare(v1.size, v2.size);
+            }
+        });
+    }
+
+    public void recordSave(Object key, int bytes) {
+        if (key == null) {
+            return;
+        }
+
+        long saveCount = bySaveCount.add(key, 1);
+        if (saveCountThreshold > 0 && saveCount >= saveCountThreshold && firstWarning(warnedBySaveCount, key)) {
+            _logger.log(Level.WARNING, "Key " + describe(key) + " of store " + storeName + " has been saved about " + saveCount + " times recently");
+        }
+
+        if (bytes <= 0) {
+            return;
+        }
+        long byteCount = byBytes.add(key, bytes);
+        if (bytesThreshold > 0 && byteCount >= bytesThreshold && firstWarning(warnedByBytes, key)) {
+            _logger.log(Level.WARNING, "Key " + describe(key) + " of store " + storeName + " has replicated about " + byteCount + " bytes recently");
+        }
+
+        if (bytes > smallestLargeValue) {
+            offerLargeValue(key, bytes);
+        }
+        if (largeValueThreshold > 0 && bytes >= largeValueThreshold && firstWarning(warnedByLargeValue, key)) {
+            _logger.log(Level.WARNING, "Key " + describe(key) + " of store " + storeName + " replicated a value of " + bytes + " bytes");
+        }
+    }
+
+    private static boolean firstWarning(Set<Object> warned, Object key) {
+        if (warned.contains(key)) {
+            return false;
+        }
+        if (warned.size() >= MAX_WARNED_KEYS) {
+            warned.clear();
+        }
+        return warned.add(key);
+    }
+
+    /**
+     * @return the key as it is reported, by its hash code
+     */
+    public static String describe(Object key) {
+        return "#" + (key == null ? 0 : key.hashCode());
+    }
+
+    /**
+     * @return the hot keys as they are reported, hash code=estimate
+     */
+    public static String describe(List<HeavyHitterSketch.HeavyHitter> hotKeys) {
+        List<String> result = new ArrayList<String>(hotKeys.size());
+        for (HeavyHitterSketch.HeavyHitter hotKey : hotKeys) {
+            result.add(describe(hotKey.getKey()) + "=" + hotKey.getEstimate());
+        }
+        return result.toString();
+    }
+
+    public List<HeavyHitterSketch.HeavyHitter> getHotKeysBySaveCount() {
+        return bySaveCount.getTopK();
+    }
+
+    public List<HeavyHitterSketch.HeavyHitter> getHotKeysByReplicatedBytes() {
+        return byBytes.getTopK();
+    }
+
+    /**
+     * @return the largest values seen, largest first, as key hash code=size in bytes
+     */
+    public List<String> getLargestValues() {
+        List<LargeValue> values;
+        synchronized (largestValues) {
+            values = new ArrayList<LargeValue>(largestValues);
+        }
+        Collections.sort(values, new Comparator<LargeValue>() {
+            public int compare(LargeValue v1, LargeValue v2) {
+                return Integer.compare(v2.size, v1.size);
+            }
+        });
+
+        List<String> result = new ArrayList<String>(values.size());
+        for (LargeValue value : values) {
+            result.add(describe(value.key) + "=" + value.size);
+        }
+        return result;
+    }
+
+    public void reset() {
+        bySaveCount.reset();
+        byBytes.reset();
+        warnedBySaveCount.clear();
+        warnedByBytes.clear();
+        warnedByLargeValue.clear();
+        synchronized (largestValues) {
+            largestValues.clear();
+            largestValuesByKey.clear();
+            smallestLargeValue = 0;
+        }
+    }
+
+    private void offerLargeValue(Object key, int size) {
+        synchronized (largestValues) {
+            LargeValue value = largestValuesByKey.get(key);
+            if (value != null) {
+                if (size > value.size) {
+                    largestValues.remove(value);
+                    value.size = size;
+                    largestValues.add(value);
+                }
+            } else if (largestValues.size() < TOP_K || size > largestValues.peek().size) {
+                if (largestValues.size() == TOP_K) {
+                    largestValuesByKey.remove(largestValues.poll().key);
+                }
+                value = new LargeValue(key, size);
+                largestValues.add(value);
+                largestValuesByKey.put(key, value);
+            }
+            smallestLargeValue = largestValues.size() < TOP_K ? 0 : largestValues.peek().size;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "bySaveCount=" + describe(getHotKeysBySaveCount()) + ", byReplicatedBytes=" + describe(getHotKeysByReplicatedBytes()) + ", largestValues="
+                + getLargestValues();
+    }
+
+    private static class LargeValue {
+
+        final Object key;
+
+        int size;
+
+        LargeValue(Object key, int size) {
+            this.key = key;
+            this.size = size;
+        }
+    }
+}
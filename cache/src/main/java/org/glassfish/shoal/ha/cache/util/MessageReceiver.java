@@ -48,5 +48,12 @@ public abstract class MessageReceiver implements CallBack {
         }
     }
 
+    /**
+     * Delivers a message that did not arrive as its own signal, e.g. one unpacked from a multiplexed GMS message.
+     */
+    public void deliverMessage(String senderName, String messageToken, byte[] data) {
+        handleMessage(senderName, messageToken, data);
+    }
+
     protected abstract void handleMessage(String senderName, String messageToken, byte[] data);
 }
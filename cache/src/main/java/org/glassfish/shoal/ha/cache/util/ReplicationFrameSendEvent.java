@@ -0,0 +1,74 @@
+/*
+ * Copyright (c) 2026 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package org.glassfish.shoal.ha.cache.util;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * The transmission of one batched replication frame.
+ */
+@Name("org.glassfish.shoal.cache.ReplicationFrameSend")
+@Label("Replication Frame Send")
+@Category({ "Shoal", "Cache" })
+@Description("Transmission of one batched replication frame")
+class ReplicationFrameSendEvent extends Event {
+
+    @Label("Store")
+    String storeName;
+
+    @Label("Target")
+    String target;
+
+    @Label("Commands")
+    int commandCount;
+
+    @Label("Removed Keys")
+    int removedKeyCount;
+
+    @Label("Success")
+    boolean success;
+
+    static ReplicationFrameSendEvent start() {
+        // A static check first, so that nothing is allocated as long as no recording was ever started
+        if (!FlightRecorder.isInitialized()) {
+            return null;
+        }
+        ReplicationFrameSendEvent event = new ReplicationFrameSendEvent();
+        if (!event.isEnabled()) {
+            return null;
+        }
+        event.begin();
+        return event;
+    }
+
+    void end(String storeName, String target, int commandCount, int removedKeyCount, boolean success) {
+        end();
+        if (shouldCommit()) {
+            this.storeName = storeName;
+            this.target = target;
+            this.commandCount = commandCount;
+            this.removedKeyCount = removedKeyCount;
+            this.success = success;
+            commit();
+        }
+    }
+}
@@ -0,0 +1,59 @@
+/*
+ * Copyright (c) 2026 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package org.glassfish.shoal.ha.cache.util;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * The time a sampled replication frame spent in one stage; see {@link ReplicationTrace}.
+ */
+@Name("org.glassfish.shoal.cache.ReplicationStage")
+@Label("Replication Stage")
+@Category({ "Shoal", "Cache" })
+@Description("Time a sampled replication frame spent in one stage")
+class ReplicationStageEvent extends Event {
+
+    @Label("Store")
+    String storeName;
+
+    @Label("Stage")
+    String stage;
+
+    // Measured from the timestamps of two members rather than by begin() and end() on this thread
+    @Label("Latency")
+    @Timespan(Timespan.NANOSECONDS)
+    long latency;
+
+    static void commit(String storeName, String stage, long latency) {
+        if (!FlightRecorder.isInitialized()) {
+            return;
+        }
+        ReplicationStageEvent event = new ReplicationStageEvent();
+        if (event.isEnabled()) {
+            event.storeName = storeName;
+            event.stage = stage;
+            event.latency = latency;
+            event.commit();
+        }
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright (c) 2026 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package org.glassfish.shoal.ha.cache.util;
+
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per-stage latency histograms of sampled replication frames. One frame in
+ * {@code org.glassfish.shoal.cache.replication.trace.sample.rate} is traced (0, the default, disables tracing); a traced
+ * frame carries its origin timestamps so that the replica can record the stages after the send. Stages that span two
+ * members compare their wall clocks and are only as accurate as the clock synchronization between them.
+ */
+public class ReplicationTrace {
+
+    public enum Stage {
+        /** From the first command of a batch until the batch is full or its deadline expires */
+        BATCH_LINGER,
+        /** Waiting in the ASyncReplicationManager executor */
+        EXECUTOR_QUEUE,
+        /** Serializing the frame */
+        SERIALIZE,
+        /** GroupService.sendMessage */
+        GMS_SEND,
+        /** From the send until the replica starts reading the frame, including the GMS message dispatch pool */
+        TRANSIT,
+        /** Deserializing the frame on the replica */
+        DESERIALIZE,
+        /** Executing the commands of the frame on the replica */
+        EXECUTE,
+        /** From the first command of the batch until its frame has been executed on the replica */
+        END_TO_END
+    }
+
+    private static final int SAMPLE_RATE = Integer.getInteger("org.glassfish.shoal.cache.replication.trace.sample.rate", 0);
+
+    private static final AtomicLong frameCounter = new AtomicLong();
+
+    private final String storeName;
+
+    private final LatencyHistogram[] histograms = new LatencyHistogram[Stage.values().length];
+
+    public ReplicationTrace(String storeName) {
+        this.storeName = storeName;
+        for (int i = 0; i < histograms.length; i++) {
+            histograms[i] = new LatencyHistogram();
+        }
+    }
+
+    /**
+     * @return true if the next frame should be traced. Frames written with {@link ReplicationWireFormat#LEGACY} cannot
+     *         carry the trace timestamps and are never traced.
+     */
+    public static boolean shouldSample() {
+        return SAMPLE_RATE > 0 && !ReplicationWireFormat.isLegacy() && frameCounter.incrementAndGet() % SAMPLE_RATE == 0;
+    }
+
+    /**
+     * @return the wall clock time in microseconds. Read from the system clock every time rather than extrapolated with
+     *         System.nanoTime(), which drifts away from the clock the other members are synchronized with.
+     */
+    public static long currentTimeMicros() {
+        Instant now = Instant.now();
+        return now.getEpochSecond() * 1000000 + now.getNano() / 1000;
+    }
+
+    public void record(Stage stage, long timeInNanos) {
+        if (timeInNanos < 0) {
+            // The clocks of the two members disagree
+            return;
+        }
+        histograms[stage.ordinal()].record(timeInNanos);
+        ShoalCacheEvents.replicationStage(storeName, stage, timeInNanos);
+    }
+
+    public LatencyHistogram getHistogram(Stage stage) {
+        return histograms[stage.ordinal()];
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        String delim = "";
+        for (Stage stage : Stage.values()) {
+            sb.append(delim).append(stage).append(": [").append(histograms[stage.ordinal()]).append(']');
+            delim = "; ";
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,47 @@
+/*
+ * Copyright (c) 2026 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package org.glassfish.shoal.ha.cache.util;
+
+/**
+ * The format of the replication messages written by this member, set by
+ * {@code org.glassfish.shoal.cache.replication.wire.format.version}. Version {@link #CURRENT} (the default) adds
+ * coalesced touch records, the trace timestamps of sampled frames, the state marker of Storeable saves and the
+ * accepted flag of acknowledgements, and acknowledges the saves of a frame with one CumulativeAckCommand. Version
+ * {@link #LEGACY} writes the messages understood by older members. Readers accept both versions, so a rolling upgrade
+ * runs every member with version 1 until the last old member has left the group, and then restarts them with the
+ * default.
+ */
+public final class ReplicationWireFormat {
+
+    public static final String WIRE_FORMAT_VERSION_PROP_NAME = "org.glassfish.shoal.cache.replication.wire.format.version";
+
+    public static final int LEGACY = 1;
+
+    public static final int CURRENT = 2;
+
+    private static final int VERSION = Integer.getInteger(WIRE_FORMAT_VERSION_PROP_NAME, CURRENT);
+
+    private ReplicationWireFormat() {
+    }
+
+    /**
+     * @return true if the messages must be readable by members that predate version {@link #CURRENT}
+     */
+    public static boolean isLegacy() {
+        return VERSION < CURRENT;
+    }
+}
@@ -17,34 +17,112 @@
 package org.glassfish.shoal.ha.cache.util;
 
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 
 /**
- * Created by IntelliJ IDEA. User: mk Date: Jan 9, 2010 Time: 2:44:09 PM To change this template use File | Settings |
- * File Templates.
+ * Hands out {@link CommandResponse}s from a preallocated array of slots, split in stripes so that threads mostly scan
+ * their own stripe. Creating, completing and releasing a pooled response allocates nothing and takes no lock. Slots
+ * that are not released within {@code org.glassfish.shoal.cache.response.slot.max.age.seconds} are reclaimed; when
+ * every slot is busy an unpooled response is used instead.
+ *
+ * @author Mahesh Kannan
  */
 public class ResponseMediator {
 
-    private ConcurrentHashMap<Long, CommandResponse> responses = new ConcurrentHashMap<Long, CommandResponse>();
+    private static final int STRIPE_COUNT = Integer.highestOneBit(Math.min(64, Math.max(1, Runtime.getRuntime().availableProcessors()))) * 2;
+
+    private static final int SLOTS_PER_STRIPE = Integer
+            .highestOneBit(Math.max(1, Integer.getInteger("org.glassfish.shoal.cache.response.slots.per.stripe", 64)));
+
+    private static final long MAX_SLOT_AGE = TimeUnit.SECONDS.toNanos(Long.getLong("org.glassfish.shoal.cache.response.slot.max.age.seconds", 60));
+
+    private final CommandResponse[] slots;
+
+    // Where each stripe last found a free slot; racy by design
+    private final int[] stripeCursors = new int[STRIPE_COUNT];
+
+    private ConcurrentHashMap<Long, CommandResponse> unpooledResponses = new ConcurrentHashMap<Long, CommandResponse>();
+
+    public ResponseMediator() {
+        slots = new CommandResponse[(int) Math.min(CommandResponse.INDEX_MASK + 1, (long) STRIPE_COUNT * SLOTS_PER_STRIPE)];
+        for (int i = 0; i < slots.length; i++) {
+            slots[i] = new CommandResponse(this, i);
+        }
+    }
 
     public CommandResponse createCommandResponse() {
-        CommandResponse resp = new CommandResponse(this);
-        responses.put(resp.getTokenId(), resp);
+        long now = System.nanoTime();
+        int stripe = (int) Thread.currentThread().getId();
+        for (int i = 0; i < STRIPE_COUNT; i++) {
+            CommandResponse resp = acquireSlot((stripe + i) & (STRIPE_COUNT - 1), now);
+            if (resp != null) {
+                return resp;
+            }
+        }
 
+        CommandResponse resp = new CommandResponse(this);
+        unpooledResponses.put(resp.getTokenId(), resp);
         return resp;
     }
 
+    private CommandResponse acquireSlot(int stripe, long now) {
+        int base = stripe * SLOTS_PER_STRIPE;
+        if (base >= slots.length) {
+            return null;
+        }
+
+        int start = stripeCursors[stripe];
+        for (int i = 0; i < SLOTS_PER_STRIPE; i++) {
+            int offset = (start + i) & (SLOTS_PER_STRIPE - 1);
+            CommandResponse slot = slots[base + offset];
+            if (slot.tryAcquire(now) || (slot.expire(now, MAX_SLOT_AGE) && slot.tryAcquire(now))) {
+                stripeCursors[stripe] = offset + 1;
+                return slot;
+            }
+        }
+        return null;
+    }
+
     public CumulativeCommandResponse createCumulativeCommandResponse(int maxResponse, Object initialValue) {
         CumulativeCommandResponse resp = new CumulativeCommandResponse(this, maxResponse, initialValue);
-        responses.put(resp.getTokenId(), resp);
+        unpooledResponses.put(resp.getTokenId(), resp);
 
         return resp;
     }
 
+    /**
+     * @return the response for tokenId or null if it has already been completed or released
+     */
     public CommandResponse getCommandResponse(long tokenId) {
-        return responses.get(tokenId);
+        CommandResponse resp = null;
+        if (tokenId < 0) {
+            resp = unpooledResponses.get(tokenId);
+        } else if ((tokenId & CommandResponse.INDEX_MASK) < slots.length) {
+            resp = slots[(int) (tokenId & CommandResponse.INDEX_MASK)];
+        }
+        return resp != null && resp.isPendingFor(tokenId) ? resp : null;
     }
 
+    /**
+     * Completes the response for tokenId, unless it has already been completed or released.
+     */
+    public boolean complete(long tokenId, String respondingInstanceName, Object result) {
+        CommandResponse resp = getCommandResponse(tokenId);
+        return resp != null && resp.complete(tokenId, respondingInstanceName, result);
+    }
+
+    /**
+     * Releases the response for id; its owner must not use it afterwards.
+     */
     public void removeCommandResponse(long id) {
-        responses.remove(id);
+        if (id < 0) {
+            unpooledResponses.remove(id);
+        } else if ((id & CommandResponse.INDEX_MASK) < slots.length) {
+            slots[(int) (id & CommandResponse.INDEX_MASK)].release(id);
+        }
+    }
+
+    void removeUnpooledResponse(long id) {
+        unpooledResponses.remove(id);
     }
 }
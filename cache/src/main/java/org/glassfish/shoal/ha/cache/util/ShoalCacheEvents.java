@@ -0,0 +1,83 @@
+/*
+ * Copyright (c) 2026 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package org.glassfish.shoal.ha.cache.util;
+
+/**
+ * Emits the JDK Flight Recorder events of shoal-cache. jdk.jfr is an optional dependency, so the event classes are only
+ * loaded when the module is present.
+ */
+public final class ShoalCacheEvents {
+
+    private static final boolean JFR_AVAILABLE = ModuleLayer.boot().findModule("jdk.jfr").isPresent();
+
+    private ShoalCacheEvents() {
+    }
+
+    static void replicationStage(String storeName, ReplicationTrace.Stage stage, long timeInNanos) {
+        if (JFR_AVAILABLE) {
+            ReplicationStageEvent.commit(storeName, stage.name(), timeInNanos);
+        }
+    }
+
+    /**
+     * Starts timing a put, get or remove.
+     *
+     * @return the event to pass to {@link #endDataStoreOperation}, null if no recording is interested in it
+     */
+    public static Object beginDataStoreOperation() {
+        return JFR_AVAILABLE ? DataStoreOperationEvent.start() : null;
+    }
+
+    /**
+     * @param event the result of {@link #beginDataStoreOperation()}, may be null
+     * @param bytes the size of the replicated state or -1 if it is not known
+     * @param replica the instance that holds or served the replica, may be null
+     */
+    public static void endDataStoreOperation(Object event, String storeName, String operation, Object key, long bytes, String outcome,
+            String replica) {
+        if (event != null) {
+            ((DataStoreOperationEvent) event).end(storeName, operation, key == null ? 0 : key.hashCode(), bytes, outcome, replica);
+        }
+    }
+
+    /**
+     * @return the event to pass to {@link #endReplicationFrameSend}, null if no recording is interested in it
+     */
+    public static Object beginReplicationFrameSend() {
+        return JFR_AVAILABLE ? ReplicationFrameSendEvent.start() : null;
+    }
+
+    public static void endReplicationFrameSend(Object event, String storeName, String target, int commandCount, int removedKeyCount,
+            boolean success) {
+        if (event != null) {
+            ((ReplicationFrameSendEvent) event).end(storeName, target, commandCount, removedKeyCount, success);
+        }
+    }
+
+    /**
+     * @return the event to pass to {@link #endRemoveExpired}, null if no recording is interested in it
+     */
+    public static Object beginRemoveExpired() {
+        return JFR_AVAILABLE ? RemoveExpiredEvent.start() : null;
+    }
+
+    public static void endRemoveExpired(Object event, String storeName, int scannedCount, int removedCount) {
+        if (event != null) {
+            ((RemoveExpiredEvent) event).end(storeName, scannedCount, removedCount);
+        }
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ * Copyright (c) 2026 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+
+package org.glassfish.shoal.ha.cache.group;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+public class MultiplexedReplicationChannelTest extends TestCase {
+
+    public MultiplexedReplicationChannelTest(String testName) {
+        super(testName);
+    }
+
+    public static Test suite() {
+        return new TestSuite(MultiplexedReplicationChannelTest.class);
+    }
+
+    public void testPackUnpack() throws Exception {
+        List<MultiplexedReplicationChannel.Frame> frames = new ArrayList<MultiplexedReplicationChannel.Frame>();
+        frames.add(new MultiplexedReplicationChannel.Frame("store1", new byte[] { 1, 2, 3 }));
+        frames.add(new MultiplexedReplicationChannel.Frame("store2", new byte[0]));
+        frames.add(new MultiplexedReplicationChannel.Frame("storeé", new byte[70000]));
+
+        List<MultiplexedReplicationChannel.Frame> unpacked = MultiplexedReplicationChannel.unpack(MultiplexedReplicationChannel.pack(frames, 70003));
+        assertEquals(frames.size(), unpacked.size());
+        for (int i = 0; i < frames.size(); i++) {
+            assertEquals(frames.get(i).messageToken, unpacked.get(i).messageToken);
+            assertTrue(Arrays.equals(frames.get(i).data, unpacked.get(i).data));
+        }
+    }
+
+    public void testEachSenderGetsTheResultOfItsOwnMessage() throws Exception {
+        final CountDownLatch firstSendStarted = new CountDownLatch(1);
+        final CountDownLatch releaseFirstSend = new CountDownLatch(1);
+        final List<Thread> senderThreads = new ArrayList<Thread>();
+        final List<String> sentTokens = new ArrayList<String>();
+        final AtomicLong messageCount = new AtomicLong();
+        final MultiplexedReplicationChannel channel = new MultiplexedReplicationChannel(null, "target", new AtomicLong(), messageCount) {
+            @Override
+            boolean doSendMessage(String messageToken, byte[] data) {
+                synchronized (senderThreads) {
+                    senderThreads.add(Thread.currentThread());
+                    sentTokens.add(messageToken);
+                }
+                if (messageCount.get() == 1) {
+                    firstSendStarted.countDown();
+                    try {
+                        releaseFirstSend.await();
+                    } catch (InterruptedException e) {
+                        return false;
+                    }
+                    return true;
+                }
+                // The message packing the frames queued meanwhile fails
+                return false;
+            }
+        };
+
+        final boolean[] results = new boolean[3];
+        Thread[] threads = new Thread[3];
+        for (int i = 0; i < threads.length; i++) {
+            final int index = i;
+            threads[i] = new Thread() {
+                public void run() {
+                    results[index] = channel.send("store" + index, new byte[] { (byte) index });
+                }
+            };
+        }
+
+        threads[0].start();
+        assertTrue(firstSendStarted.await(10, TimeUnit.SECONDS));
+        threads[1].start();
+        threads[2].start();
+        waitUntilWaiting(threads[1]);
+        waitUntilWaiting(threads[2]);
+        releaseFirstSend.countDown();
+        for (Thread thread : threads) {
+            thread.join(10000);
+            assertFalse(thread.isAlive());
+        }
+
+        assertTrue(results[0]);
+        assertFalse(results[1]);
+        assertFalse(results[2]);
+        assertEquals(Arrays.asList("store0", MultiplexedReplicationChannel.MULTIPLEXED_MESSAGE_TOKEN), sentTokens);
+        // The first sender stops once its own frame is out and leaves the frames queued behind it to their senders
+        assertSame(threads[0], senderThreads.get(0));
+        assertNotSame(threads[0], senderThreads.get(1));
+    }
+
+    private static void waitUntilWaiting(Thread thread) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10000;
+        while (thread.getState() != Thread.State.WAITING && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(Thread.State.WAITING, thread.getState());
+    }
+}
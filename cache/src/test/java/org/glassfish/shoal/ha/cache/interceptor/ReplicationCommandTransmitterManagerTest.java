@@ -0,0 +1,87 @@
+/*
+ * Copyright (c) 2026 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+
+package org.glassfish.shoal.ha.cache.interceptor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.glassfish.shoal.ha.cache.api.AbstractCommandInterceptor;
+import org.glassfish.shoal.ha.cache.api.DataStoreContext;
+import org.glassfish.shoal.ha.cache.api.DataStoreException;
+import org.glassfish.shoal.ha.cache.api.ReplicatedDataStoreStatsHolder;
+import org.glassfish.shoal.ha.cache.command.Command;
+import org.glassfish.shoal.ha.cache.command.CommandManager;
+import org.glassfish.shoal.ha.cache.store.backing.commands.LoadRequestCommand;
+import org.glassfish.shoal.ha.cache.store.backing.commands.TouchCommand;
+import org.glassfish.shoal.test.common.DummyGroupService;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+public class ReplicationCommandTransmitterManagerTest extends TestCase {
+
+    public ReplicationCommandTransmitterManagerTest(String testName) {
+        super(testName);
+    }
+
+    public static Test suite() {
+        return new TestSuite(ReplicationCommandTransmitterManagerTest.class);
+    }
+
+    public void testInteractiveCommandsTakeTheExpeditedLane() throws Exception {
+        DataStoreContext<String, String> dsc = new DataStoreContext<String, String>("lane-test", new DummyGroupService("inst1", "grp1"),
+                getClass().getClassLoader());
+        // Batched frames are dropped; they would reach the transmit interceptor through the command manager
+        dsc.setCommandManager(new CommandManager<String, String>() {
+            @Override
+            public void execute(Command<String, String> cmd) throws DataStoreException {
+            }
+        });
+        dsc.setDataStoreMBean(new ReplicatedDataStoreStatsHolder<String, String>(dsc));
+
+        final List<Command<String, String>> transmitted = new ArrayList<Command<String, String>>();
+        final List<Thread> transmittingThreads = new ArrayList<Thread>();
+        ReplicationCommandTransmitterManager<String, String> manager = new ReplicationCommandTransmitterManager<String, String>();
+        manager.initialize(dsc);
+        manager.setNext(new AbstractCommandInterceptor<String, String>() {
+            @Override
+            public void onTransmit(Command<String, String> cmd, String initiator) {
+                synchronized (transmitted) {
+                    transmitted.add(cmd);
+                    transmittingThreads.add(Thread.currentThread());
+                }
+            }
+        });
+
+        // Sent before onTransmit returns, on the calling thread
+        LoadRequestCommand<String, String> loadRequest = new LoadRequestCommand<String, String>("key1", 0, "inst2");
+        manager.onTransmit(loadRequest, "inst1");
+        assertEquals(1, transmitted.size());
+        assertSame(loadRequest, transmitted.get(0));
+        assertSame(Thread.currentThread(), transmittingThreads.get(0));
+        String histogram = dsc.getDataStoreMBean().getExpeditedLaneLatencyHistogram();
+        assertTrue(histogram, histogram.startsWith("count=1,"));
+
+        // A touch waits for its batch instead
+        manager.onTransmit(new TouchCommand<String, String>("key1", 1, System.currentTimeMillis(), 60000), "inst1");
+        Thread.sleep(300);
+        assertEquals(1, transmitted.size());
+        assertTrue(dsc.getDataStoreMBean().getExpeditedLaneLatencyHistogram().startsWith("count=1,"));
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright (c) 2026 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+
+package org.glassfish.shoal.ha.cache.interceptor;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.glassfish.shoal.ha.cache.api.DataStoreContext;
+import org.glassfish.shoal.ha.cache.api.DataStoreException;
+import org.glassfish.shoal.ha.cache.api.ReplicatedDataStoreStatsHolder;
+import org.glassfish.shoal.ha.cache.command.Command;
+import org.glassfish.shoal.ha.cache.command.CommandManager;
+import org.glassfish.shoal.ha.cache.store.backing.commands.TouchCommand;
+import org.glassfish.shoal.test.common.DummyGroupService;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+public class ReplicationCommandTransmitterWithMapTest extends TestCase {
+
+    public ReplicationCommandTransmitterWithMapTest(String testName) {
+        super(testName);
+    }
+
+    public static Test suite() {
+        return new TestSuite(ReplicationCommandTransmitterWithMapTest.class);
+    }
+
+    public void testDeadlineFlushesBatchThatIsNotFull() throws Exception {
+        final BlockingQueue<ReplicationFramePayloadCommand<String, String>> frames = new LinkedBlockingQueue<ReplicationFramePayloadCommand<String, String>>();
+        DataStoreContext<String, String> dsc = new DataStoreContext<String, String>("transmitter-test", new DummyGroupService("inst1", "grp1"),
+                getClass().getClassLoader());
+        CommandManager<String, String> cm = new CommandManager<String, String>() {
+            @Override
+            public void execute(Command<String, String> cmd) throws DataStoreException {
+                frames.add((ReplicationFramePayloadCommand<String, String>) cmd);
+            }
+        };
+        dsc.setCommandManager(cm);
+        dsc.setDataStoreMBean(new ReplicatedDataStoreStatsHolder<String, String>(dsc));
+
+        ReplicationCommandTransmitterWithMap<String, String> transmitter = new ReplicationCommandTransmitterWithMap<String, String>();
+        transmitter.initialize("inst2", dsc);
+
+        long start = System.nanoTime();
+        transmitter.addCommand(new TouchCommand<String, String>("key1", 1, System.currentTimeMillis(), 60000));
+        transmitter.addCommand(new TouchCommand<String, String>("key2", 1, System.currentTimeMillis(), 60000));
+
+        // Two commands are far from a full batch, so only the deadline of 100 ms can send them
+        ReplicationFramePayloadCommand<String, String> frame = frames.poll(10, TimeUnit.SECONDS);
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        assertNotNull(frame);
+        assertEquals(2, frame.getCommandCount());
+        assertTrue("sent after " + elapsedMillis + " ms", elapsedMillis >= 90);
+        assertEquals(1, dsc.getDataStoreMBean().getFlushThreadFlushedCount());
+        assertEquals(1, dsc.getDataStoreMBean().getBatchSentCount());
+
+        // Sent once, and nothing is sent while the transmitter is idle
+        assertNull(frames.poll(300, TimeUnit.MILLISECONDS));
+        assertEquals(1, dsc.getDataStoreMBean().getFlushThreadWakeupCount());
+    }
+}
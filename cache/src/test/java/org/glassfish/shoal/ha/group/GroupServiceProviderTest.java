@@ -72,6 +72,12 @@ public class GroupServiceProviderTest extends TestCase {
         return new TestSuite(GroupServiceProviderTest.class);
     }
 
+    @Override
+    protected void setUp() {
+        // messages broadcast by other tests loop back to the local receiver
+        called = 0;
+    }
+
     public void testSendMessageToSelf() {
         init();
         boolean result = gsp.sendMessage(INSTANCE_NAME, COMPONENT, new String("hello").getBytes());
@@ -98,7 +104,9 @@ public class GroupServiceProviderTest extends TestCase {
     public void testFailToBroadcastBigMessage() {
         init();
         logger.setLevel(Level.FINE);
-        byte[] bigPayload = new byte[70 * 1024];
+        // broadcasts that do not fit in one datagram are fragmented, only messages over the GMS limit are refused.
+        // MessageImpl.getMaxMessageLength() is not exported; it defaults to MAX_MESSAGE_LENGTH = 130K.
+        byte[] bigPayload = new byte[2 * 130 * 1024];
         Arrays.fill(bigPayload, (byte) 'e');
         boolean result = gsp.sendMessage(null, COMPONENT, bigPayload);
         assertEquals("broadcast too large a payload", false, result);
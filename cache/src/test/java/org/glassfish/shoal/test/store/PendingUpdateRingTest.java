@@ -0,0 +1,162 @@
+/*
+ * Copyright (c) 2026 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package org.glassfish.shoal.test.store;
+
+import org.glassfish.shoal.ha.cache.api.DataStoreContext;
+import org.glassfish.shoal.ha.cache.api.DataStoreException;
+import org.glassfish.shoal.ha.cache.store.DataStoreEntry;
+import org.glassfish.shoal.ha.cache.store.SimpleDataStoreEntryUpdater;
+import org.glassfish.shoal.ha.cache.store.backing.commands.AbstractSaveCommand;
+import org.glassfish.shoal.ha.cache.store.backing.commands.TouchCommand;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+public class PendingUpdateRingTest extends TestCase {
+
+    public PendingUpdateRingTest(String testName) {
+        super(testName);
+    }
+
+    public static Test suite() {
+        return new TestSuite(PendingUpdateRingTest.class);
+    }
+
+    private static TouchCommand<String, String> touch(long version) {
+        return new TouchCommand<String, String>("k", version, version, 0);
+    }
+
+    private static int applyPendingUpdates(DataStoreEntry<String, String> entry) {
+        int applied = 0;
+        for (AbstractSaveCommand<String, String> cmd = entry.pollNextPendingUpdate(); cmd != null; cmd = entry.pollNextPendingUpdate()) {
+            entry.setVersion(cmd.getVersion());
+            applied++;
+        }
+        return applied;
+    }
+
+    public void testOutOfOrderUpdatesAreAppliedInOrder() {
+        DataStoreEntry<String, String> entry = new DataStoreEntry<String, String>();
+        entry.setVersion(10);
+
+        for (long version = 30; version > 10; version--) {
+            assertTrue(entry.addPendingUpdate(touch(version)));
+            if (version > 11) {
+                assertNull(entry.pollNextPendingUpdate());
+            }
+        }
+
+        assertEquals(20, applyPendingUpdates(entry));
+        assertEquals(30, entry.getVersion());
+        assertTrue(entry.getPendingUpdates().isEmpty());
+    }
+
+    public void testStaleAndDuplicateUpdatesAreIgnored() {
+        DataStoreEntry<String, String> entry = new DataStoreEntry<String, String>();
+        entry.setVersion(10);
+
+        assertTrue(entry.addPendingUpdate(touch(5)));
+        assertTrue(entry.addPendingUpdate(touch(12)));
+        assertTrue(entry.addPendingUpdate(touch(12)));
+        assertNull(entry.pollNextPendingUpdate());
+
+        assertTrue(entry.addPendingUpdate(touch(11)));
+        assertEquals(2, applyPendingUpdates(entry));
+        assertEquals(12, entry.getVersion());
+    }
+
+    public void testOverflowRequiresResync() {
+        DataStoreEntry<String, String> entry = new DataStoreEntry<String, String>();
+        entry.setVersion(10);
+
+        assertTrue(entry.addPendingUpdate(touch(12)));
+        // Far enough ahead that the old (int) comparator would have wrapped around
+        assertFalse(entry.addPendingUpdate(touch(10 + (1L << 32) + 1)));
+        assertFalse(entry.addPendingUpdate(touch(10 + 100000)));
+
+        // The overflow dropped the buffered updates
+        assertTrue(entry.addPendingUpdate(touch(11)));
+        assertEquals(1, applyPendingUpdates(entry));
+        assertEquals(11, entry.getVersion());
+    }
+
+    private static SimpleDataStoreEntryUpdater<String, String> createUpdater() {
+        SimpleDataStoreEntryUpdater<String, String> updater = new SimpleDataStoreEntryUpdater<String, String>();
+        updater.initialize(new DataStoreContext<String, String>());
+        return updater;
+    }
+
+    public void testMergedTouchIsAppliedByReplica() throws DataStoreException {
+        SimpleDataStoreEntryUpdater<String, String> updater = createUpdater();
+        DataStoreEntry<String, String> entry = new DataStoreEntry<String, String>();
+        entry.setVersion(10);
+        entry.setLastAccessedAt(100);
+
+        // A batch holding touches 11, 12 and 13 of the key is sent as one touch
+        updater.executeTouch(entry, new TouchCommand<String, String>("k", 11, 13, 130, 0));
+
+        assertEquals(13, entry.getVersion());
+        assertEquals(130, entry.getLastAccessedAt());
+        assertTrue(entry.getPendingUpdates().isEmpty());
+    }
+
+    public void testMergedTouchWaitsForEarlierVersions() throws DataStoreException {
+        SimpleDataStoreEntryUpdater<String, String> updater = createUpdater();
+        DataStoreEntry<String, String> entry = new DataStoreEntry<String, String>();
+        entry.setVersion(10);
+
+        updater.executeTouch(entry, new TouchCommand<String, String>("k", 12, 14, 140, 0));
+        assertEquals(10, entry.getVersion());
+
+        updater.executeTouch(entry, new TouchCommand<String, String>("k", 11, 110, 0));
+        assertEquals(14, entry.getVersion());
+        assertEquals(140, entry.getLastAccessedAt());
+    }
+
+    public void testMergedTouchPartlyCoveredBySave() {
+        DataStoreEntry<String, String> entry = new DataStoreEntry<String, String>();
+        entry.setVersion(10);
+
+        assertTrue(entry.addPendingUpdate(new TouchCommand<String, String>("k", 12, 15, 150, 0)));
+        // A full save moves the entry into the middle of the merged touch
+        entry.setVersion(13);
+        assertEquals(1, applyPendingUpdates(entry));
+        assertEquals(15, entry.getVersion());
+    }
+
+    public void testCollisionWithUpdatePlacedForOlderVersion() {
+        DataStoreEntry<String, String> entry = new DataStoreEntry<String, String>();
+        entry.setVersion(10);
+
+        assertTrue(entry.addPendingUpdate(new TouchCommand<String, String>("k", 11, 15, 150, 0)));
+        // Grows the ring to 8 slots; the merged touch sits in slot 11 & 7
+        assertTrue(entry.addPendingUpdate(touch(18)));
+        // A full save moves the entry into the middle of the merged touch
+        entry.setVersion(13);
+        // Maps to slot 19 & 7, the slot of the merged touch
+        assertTrue(entry.addPendingUpdate(touch(19)));
+
+        assertEquals(1, applyPendingUpdates(entry));
+        assertEquals(15, entry.getVersion());
+        assertTrue(entry.addPendingUpdate(touch(17)));
+        assertTrue(entry.addPendingUpdate(touch(16)));
+        assertEquals(4, applyPendingUpdates(entry));
+        assertEquals(19, entry.getVersion());
+        assertTrue(entry.getPendingUpdates().isEmpty());
+    }
+}
@@ -0,0 +1,149 @@
+/*
+ * Copyright (c) 2026 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package org.glassfish.shoal.test.store;
+
+import java.io.File;
+import java.io.FilenameFilter;
+import java.util.Arrays;
+
+import org.glassfish.shoal.ha.cache.api.DataStoreContext;
+import org.glassfish.shoal.ha.cache.api.ReplicatedDataStoreStatsHolder;
+import org.glassfish.shoal.ha.cache.store.DataStoreEntry;
+import org.glassfish.shoal.ha.cache.store.ReplicaStore;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+public class ReplicaStoreDiskTierTest extends TestCase {
+
+    private static final int ENTRY_COUNT = 100;
+
+    private static final int STATE_SIZE = 500;
+
+    public ReplicaStoreDiskTierTest(String testName) {
+        super(testName);
+    }
+
+    public static Test suite() {
+        return new TestSuite(ReplicaStoreDiskTierTest.class);
+    }
+
+    public void testTierAndPageIn() throws Exception {
+        DataStoreContext<String, String> ctx = new DataStoreContext<String, String>();
+        ctx.setStoreName("tier-test");
+        ctx.setReplicaTierIdleTimeInMillis(60 * 1000);
+        ctx.setDataStoreMBean(new ReplicatedDataStoreStatsHolder<String, String>(ctx));
+        ReplicaStore<String, String> store = new ReplicaStore<String, String>(ctx);
+        ctx.setReplicaStore(store);
+
+        // Half of the replicas were last accessed two minutes ago
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < ENTRY_COUNT; i++) {
+            DataStoreEntry<String, String> entry = store.getOrCreateEntry("key" + i);
+            synchronized (entry) {
+                byte[] state = new byte[STATE_SIZE];
+                Arrays.fill(state, (byte) i);
+                entry.setRawV(state);
+                entry.setLastAccessedAt(i % 2 == 0 ? now - 2 * 60 * 1000 : now);
+                store.updateResidentBytes(entry, STATE_SIZE);
+            }
+        }
+        long residentBytes = store.getResidentBytes();
+
+        try {
+            assertEquals(ENTRY_COUNT / 2, store.tierIdleReplicas());
+            assertEquals(ENTRY_COUNT / 2 * STATE_SIZE, store.getOnDiskBytes());
+            assertEquals(residentBytes - ENTRY_COUNT / 2 * STATE_SIZE, store.getResidentBytes());
+            assertTrue(store.getEntry("key0").isSpilled());
+            assertFalse(store.getEntry("key1").isSpilled());
+
+            // Reads are served from disk, paging in brings the state back to memory
+            DataStoreEntry<String, String> entry = store.getEntry("key2");
+            synchronized (entry) {
+                assertEquals(2, entry.getRawV()[STATE_SIZE - 1]);
+                store.pageIn(entry);
+            }
+            assertFalse(entry.isSpilled());
+            assertEquals(2, entry.getRawV()[0]);
+            assertEquals((ENTRY_COUNT / 2 - 1) * STATE_SIZE, store.getOnDiskBytes());
+            assertEquals(1, ctx.getDataStoreMBean().getTierPageInCount());
+
+            // Removing a replica frees its space on disk
+            store.remove("key4");
+            assertEquals((ENTRY_COUNT / 2 - 2) * STATE_SIZE, store.getOnDiskBytes());
+
+            // Nothing is sealed yet, so there is nothing to compact
+            assertEquals(0, store.compactSegments());
+        } finally {
+            store.close();
+        }
+    }
+
+    public void testInterruptedReaderAndClose() throws Exception {
+        DataStoreContext<String, String> ctx = new DataStoreContext<String, String>();
+        ctx.setStoreName("tier-interrupt-test");
+        ctx.setReplicaTierIdleTimeInMillis(60 * 1000);
+        ctx.setDataStoreMBean(new ReplicatedDataStoreStatsHolder<String, String>(ctx));
+        ReplicaStore<String, String> store = new ReplicaStore<String, String>(ctx);
+        ctx.setReplicaStore(store);
+
+        for (int i = 0; i < 2; i++) {
+            DataStoreEntry<String, String> entry = store.getOrCreateEntry("key" + i);
+            synchronized (entry) {
+                byte[] state = new byte[STATE_SIZE];
+                Arrays.fill(state, (byte) i);
+                entry.setRawV(state);
+                entry.setLastAccessedAt(0);
+                store.updateResidentBytes(entry, STATE_SIZE);
+            }
+        }
+        assertEquals(2, store.tierIdleReplicas());
+        File[] spillDirs = getSpillDirs("tier-interrupt-test");
+        assertEquals(1, spillDirs.length);
+        assertEquals(1, spillDirs[0].list().length);
+
+        try {
+            // An interrupted reader closes the channel of the segment; neither it nor later readers may fail because of it
+            DataStoreEntry<String, String> entry = store.getEntry("key0");
+            Thread.currentThread().interrupt();
+            synchronized (entry) {
+                assertEquals(0, entry.getRawV()[STATE_SIZE - 1]);
+            }
+            assertTrue(Thread.interrupted());
+            entry = store.getEntry("key1");
+            synchronized (entry) {
+                assertEquals(1, entry.getRawV()[0]);
+            }
+        } finally {
+            Thread.interrupted();
+            store.close();
+        }
+
+        // No mapping keeps the segments alive, so they are deleted right away
+        assertFalse(spillDirs[0].exists());
+    }
+
+    private static File[] getSpillDirs(final String storeName) {
+        File tmpDir = new File(System.getProperty("org.glassfish.shoal.cache.replica.spill.dir", System.getProperty("java.io.tmpdir")));
+        return tmpDir.listFiles(new FilenameFilter() {
+            public boolean accept(File dir, String name) {
+                return name.startsWith("shoal-" + storeName + "-");
+            }
+        });
+    }
+}
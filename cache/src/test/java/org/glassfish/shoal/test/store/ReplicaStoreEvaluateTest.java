@@ -0,0 +1,96 @@
+/*
+ * Copyright (c) 2026 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package org.glassfish.shoal.test.store;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import org.glassfish.shoal.ha.cache.api.DataStoreContext;
+import org.glassfish.shoal.ha.cache.api.DataStoreEntryEvaluator;
+import org.glassfish.shoal.ha.cache.store.DataStoreEntry;
+import org.glassfish.shoal.ha.cache.store.EvaluationCursor;
+import org.glassfish.shoal.ha.cache.store.ReplicaStore;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+public class ReplicaStoreEvaluateTest extends TestCase {
+
+    private static final int ENTRY_COUNT = 5000;
+
+    public ReplicaStoreEvaluateTest(String testName) {
+        super(testName);
+    }
+
+    public static Test suite() {
+        return new TestSuite(ReplicaStoreEvaluateTest.class);
+    }
+
+    private static ReplicaStore<String, String> createReplicaStore() {
+        ReplicaStore<String, String> store = new ReplicaStore<String, String>(new DataStoreContext<String, String>());
+        for (int i = 0; i < ENTRY_COUNT; i++) {
+            DataStoreEntry<String, String> entry = store.getOrCreateEntry("key" + i);
+            entry.setVersion(i);
+        }
+        return store;
+    }
+
+    public void testSelectAndDelete() {
+        ReplicaStore<String, String> store = createReplicaStore();
+
+        EvaluationCursor<String, String> cursor = store.evaluate(new DataStoreEntryEvaluator<String, String>() {
+            @Override
+            public Opcode eval(DataStoreEntry<String, String> entry) {
+                if (entry.getVersion() % 10 == 0) {
+                    return Opcode.SELECT;
+                }
+                return entry.getVersion() % 10 == 1 ? Opcode.DELETE : Opcode.KEEP;
+            }
+        });
+
+        assertEquals(ENTRY_COUNT / 10, cursor.size());
+        assertEquals(ENTRY_COUNT / 10, cursor.getDeletedCount());
+        assertEquals(ENTRY_COUNT - ENTRY_COUNT / 10, store.size());
+        assertNull(store.getEntry("key1"));
+    }
+
+    public void testCursorHandsOutBatches() {
+        ReplicaStore<String, String> store = createReplicaStore();
+        EvaluationCursor<String, String> cursor = store.openCursor("n1:1", new DataStoreEntryEvaluator<String, String>() {
+            @Override
+            public Opcode eval(DataStoreEntry<String, String> entry) {
+                return Opcode.SELECT;
+            }
+        });
+
+        Set<String> keys = new HashSet<String>();
+        int batches = 0;
+        while (cursor.hasMore()) {
+            for (DataStoreEntry<String, String> entry : cursor.next(256)) {
+                keys.add(entry.getKey());
+            }
+            batches++;
+        }
+
+        assertEquals(ENTRY_COUNT, keys.size());
+        assertEquals((ENTRY_COUNT + 255) / 256, batches);
+        assertSame(cursor, store.getCursor("n1:1"));
+        store.closeCursor("n1:1");
+        assertNull(store.getCursor("n1:1"));
+    }
+}
@@ -0,0 +1,135 @@
+/*
+ * Copyright (c) 2026 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package org.glassfish.shoal.test.store;
+
+import java.util.Arrays;
+
+import org.glassfish.shoal.ha.cache.api.DataStoreContext;
+import org.glassfish.shoal.ha.cache.api.ReplicaQuotaPolicy;
+import org.glassfish.shoal.ha.cache.api.ReplicatedDataStoreStatsHolder;
+import org.glassfish.shoal.ha.cache.store.DataStoreEntry;
+import org.glassfish.shoal.ha.cache.store.ReplicaStore;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+public class ReplicaStoreQuotaTest extends TestCase {
+
+    private static final int ENTRY_COUNT = 10;
+
+    private static final int STATE_SIZE = 1000;
+
+    public ReplicaStoreQuotaTest(String testName) {
+        super(testName);
+    }
+
+    public static Test suite() {
+        return new TestSuite(ReplicaStoreQuotaTest.class);
+    }
+
+    private static ReplicaStore<String, String> createReplicaStore(DataStoreContext<String, String> ctx) {
+        ctx.setStoreName("quota-test");
+        ctx.setDataStoreMBean(new ReplicatedDataStoreStatsHolder<String, String>(ctx));
+        ReplicaStore<String, String> store = new ReplicaStore<String, String>(ctx);
+        ctx.setReplicaStore(store);
+        for (int i = 0; i < ENTRY_COUNT; i++) {
+            save(store, "key" + i, i);
+        }
+        return store;
+    }
+
+    private static void save(ReplicaStore<String, String> store, String key, long lastAccessedAt) {
+        DataStoreEntry<String, String> entry = store.getOrCreateEntry(key);
+        synchronized (entry) {
+            byte[] state = new byte[STATE_SIZE];
+            Arrays.fill(state, (byte) lastAccessedAt);
+            entry.setRawV(state);
+            entry.setLastAccessedAt(lastAccessedAt);
+            store.updateResidentBytes(entry, STATE_SIZE);
+        }
+    }
+
+    public void testAccounting() {
+        DataStoreContext<String, String> ctx = new DataStoreContext<String, String>();
+        ReplicaStore<String, String> store = createReplicaStore(ctx);
+        long perEntry = store.getResidentBytes() / ENTRY_COUNT;
+        assertTrue(perEntry > STATE_SIZE);
+
+        // Overwriting a replica does not charge it twice
+        save(store, "key0", 100);
+        assertEquals(perEntry * ENTRY_COUNT, store.getResidentBytes());
+
+        store.remove("key0");
+        assertEquals(perEntry * (ENTRY_COUNT - 1), store.getResidentBytes());
+    }
+
+    public void testRejectOverQuota() {
+        DataStoreContext<String, String> ctx = new DataStoreContext<String, String>();
+        ReplicaStore<String, String> store = createReplicaStore(ctx);
+        ctx.setReplicaQuotaInBytes(store.getResidentBytes());
+
+        DataStoreEntry<String, String> existing = store.getEntry("key0");
+        assertTrue(store.admit(existing, STATE_SIZE));
+        DataStoreEntry<String, String> created = store.getOrCreateEntry("new-key");
+        assertFalse(store.admit(created, STATE_SIZE));
+        assertEquals(1, ctx.getDataStoreMBean().getQuotaRejectedSaveCount());
+    }
+
+    public void testEvictIdleFirst() {
+        DataStoreContext<String, String> ctx = new DataStoreContext<String, String>();
+        ReplicaStore<String, String> store = createReplicaStore(ctx);
+        long perEntry = store.getResidentBytes() / ENTRY_COUNT;
+        ctx.setReplicaQuotaInBytes(perEntry * 5).setReplicaQuotaPolicy(ReplicaQuotaPolicy.EVICT_IDLE);
+
+        store.enforceQuota();
+
+        // Down to 90% of the quota, least recently accessed first
+        assertEquals(4, store.size());
+        assertNull(store.getEntry("key5"));
+        assertNotNull(store.getEntry("key6"));
+        assertEquals(perEntry * 4, store.getResidentBytes());
+        assertEquals(6, ctx.getDataStoreMBean().getQuotaEvictedEntryCount());
+    }
+
+    public void testSpill() {
+        DataStoreContext<String, String> ctx = new DataStoreContext<String, String>();
+        ReplicaStore<String, String> store = createReplicaStore(ctx);
+        long perEntry = store.getResidentBytes() / ENTRY_COUNT;
+        ctx.setReplicaQuotaInBytes(perEntry * 5).setReplicaQuotaPolicy(ReplicaQuotaPolicy.SPILL);
+
+        try {
+            store.enforceQuota();
+
+            assertEquals(ENTRY_COUNT, store.size());
+            assertTrue(store.getResidentBytes() <= perEntry * 5);
+            assertTrue(ctx.getDataStoreMBean().getQuotaSpilledEntryCount() > 0);
+
+            // Spilled state reads back from disk
+            byte[] state = store.getEntry("key1").getRawV();
+            assertEquals(STATE_SIZE, state.length);
+            assertEquals(1, state[STATE_SIZE - 1]);
+
+            // Saving again brings the state back in memory
+            long before = store.getResidentBytes();
+            save(store, "key1", 1);
+            assertEquals(before + STATE_SIZE, store.getResidentBytes());
+        } finally {
+            store.close();
+        }
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright (c) 2026 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+
+package org.glassfish.shoal.test.store;
+
+import java.lang.management.BufferPoolMXBean;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.glassfish.shoal.ha.cache.store.DataStoreEntry;
+
+import junit.framework.TestCase;
+
+/**
+ * Measures what keeping the cached Storeable state of every replica in its own direct buffer costs compared to the heap,
+ * when the state is cached and when it is served again. Not run by the build, since surefire only picks up *Test
+ * classes; run it with
+ * {@code mvn test -Dtest=StoreableCachedStateBenchmark -Dsurefire.failIfNoSpecifiedTests=false}.
+ */
+public class StoreableCachedStateBenchmark extends TestCase {
+
+    private static final int ENTRY_COUNT = 100000;
+
+    private static final int ROUNDS = 3;
+
+    public StoreableCachedStateBenchmark(String testName) {
+        super(testName);
+    }
+
+    public void testCachedStateCost() throws Exception {
+        for (int stateSize : new int[] { 256, 4096 }) {
+            for (int round = 0; round < ROUNDS; round++) {
+                System.out.println("round " + round + ", " + stateSize + " byte states: heap " + run(stateSize, false) + "; direct " + run(stateSize, true));
+            }
+        }
+    }
+
+    private static String run(int stateSize, boolean direct) {
+        List<DataStoreEntry<String, String>> entries = new ArrayList<DataStoreEntry<String, String>>(ENTRY_COUNT);
+        byte[] state = new byte[stateSize];
+        long directBefore = getDirectMemoryUsed();
+
+        long start = System.nanoTime();
+        for (int i = 0; i < ENTRY_COUNT; i++) {
+            DataStoreEntry<String, String> entry = new DataStoreEntry<String, String>();
+            // A state captured on a miss is always a fresh array
+            byte[] captured = state.clone();
+            entry.setCachedState(direct ? ByteBuffer.allocateDirect(captured.length).put(captured).flip() : ByteBuffer.wrap(captured));
+            entries.add(entry);
+        }
+        long cacheNanos = System.nanoTime() - start;
+        long directUsed = getDirectMemoryUsed() - directBefore;
+
+        long length = 0;
+        start = System.nanoTime();
+        for (DataStoreEntry<String, String> entry : entries) {
+            length += entry.getCachedState().length;
+        }
+        long hitNanos = System.nanoTime() - start;
+        assertEquals((long) ENTRY_COUNT * stateSize, length);
+
+        return "cache " + cacheNanos / ENTRY_COUNT + " ns, hit " + hitNanos / ENTRY_COUNT + " ns" + (direct ? ", direct memory " + directUsed / ENTRY_COUNT + " bytes" : "")
+                + " per entry";
+    }
+
+    private static long getDirectMemoryUsed() {
+        for (BufferPoolMXBean pool : ManagementFactory.getPlatformMXBeans(BufferPoolMXBean.class)) {
+            if (pool.getName().equals("direct")) {
+                return pool.getMemoryUsed();
+            }
+        }
+        return 0;
+    }
+}
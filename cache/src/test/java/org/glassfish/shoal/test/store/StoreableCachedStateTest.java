@@ -0,0 +1,224 @@
+/*
+ * Copyright (c) 2026 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+
+package org.glassfish.shoal.test.store;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+
+import org.glassfish.ha.store.api.Storeable;
+import org.glassfish.shoal.ha.cache.api.DataStoreContext;
+import org.glassfish.shoal.ha.cache.api.ReplicatedDataStoreStatsHolder;
+import org.glassfish.shoal.ha.cache.store.DataStoreEntry;
+import org.glassfish.shoal.ha.cache.store.ReplicaStore;
+import org.glassfish.shoal.ha.cache.store.StoreableDataStoreEntryUpdater;
+import org.glassfish.shoal.ha.cache.store.backing.commands.LoadResponseCommand;
+import org.glassfish.shoal.ha.cache.store.backing.commands.SaveCommand;
+import org.glassfish.shoal.ha.cache.store.backing.commands.SaveRejectedCommand;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+public class StoreableCachedStateTest extends TestCase {
+
+    private DataStoreContext<String, Session> ctx;
+
+    private StoreableDataStoreEntryUpdater<String, Session> updater;
+
+    private ReplicaStore<String, Session> store;
+
+    public StoreableCachedStateTest(String testName) {
+        super(testName);
+    }
+
+    public static Test suite() {
+        return new TestSuite(StoreableCachedStateTest.class);
+    }
+
+    @Override
+    protected void setUp() {
+        ctx = new DataStoreContext<String, Session>();
+        ctx.setStoreName("cached-state-test");
+        ctx.setValueClazz(Session.class);
+        ctx.setClassLoader(Session.class.getClassLoader());
+        ctx.setDataStoreMBean(new ReplicatedDataStoreStatsHolder<String, Session>(ctx));
+        updater = new StoreableDataStoreEntryUpdater<String, Session>();
+        updater.initialize(ctx);
+        ctx.setDataStoreEntryUpdater(updater);
+        store = new ReplicaStore<String, Session>(ctx);
+        ctx.setReplicaStore(store);
+    }
+
+    public void testSaveInvalidatesCachedState() throws Exception {
+        DataStoreEntry<String, Session> entry = store.getOrCreateEntry("s1");
+        updater.executeSave(entry, replicate(new Session("s1", "first", 1), true));
+
+        byte[] state = load(entry);
+        assertEquals("first", deserialize(state).attribute);
+        assertEquals(1, ctx.getDataStoreMBean().getCaptureStateCount());
+
+        // Unchanged, so the same bytes are served again
+        assertSame(state, load(entry));
+        assertEquals(1, ctx.getDataStoreMBean().getCaptureStateCount());
+        assertEquals(1, ctx.getDataStoreMBean().getCachedStateHitCount());
+
+        // Only the dirty attribute is sent and merged into the value
+        updater.executeSave(entry, replicate(new Session("s1", "second", 2), false));
+        assertNull(entry.getCachedState());
+        state = load(entry);
+        assertEquals("second", deserialize(state).attribute);
+        assertEquals(2, deserialize(state)._storeable_getVersion());
+        assertEquals(2, ctx.getDataStoreMBean().getCaptureStateCount());
+    }
+
+    public void testRemoveInvalidatesCachedState() throws Exception {
+        DataStoreEntry<String, Session> entry = store.getOrCreateEntry("s2");
+        updater.executeSave(entry, replicate(new Session("s2", "first", 1), true));
+        load(entry);
+        assertNotNull(entry.getCachedState());
+
+        store.remove("s2");
+        assertNull(entry.getCachedState());
+        assertNull(store.getEntry("s2"));
+    }
+
+    public void testRejectedSaveMakesNextSaveFull() throws Exception {
+        DataStoreEntry<String, Session> entry = store.getOrCreateEntry("s3");
+        entry.setReplicaInstanceName("n2");
+
+        // Only the replica that holds the copy can make the sender start over
+        reject("s3", "n3");
+        assertEquals("n2", entry.getReplicaInstanceName());
+
+        reject("s3", "n2");
+        assertNull(entry.getReplicaInstanceName());
+        assertTrue(updater.createSaveCommand(entry, "s3", new Session("s3", "first", 2)).isCheckpoint());
+    }
+
+    // What the sender does when the replica tells it that it rejected a save
+    private void reject(String key, String replica) throws Exception {
+        SaveRejectedCommand<String, Session> cmd = new SaveRejectedCommand<String, Session>(key, "n1");
+        cmd.initialize(ctx);
+        cmd.execute(replica);
+    }
+
+    private byte[] load(DataStoreEntry<String, Session> entry) throws Exception {
+        LoadResponseCommand<String, Session> response = updater.createLoadResponseCommand(entry, entry.getKey(), 0);
+        return response.getRawV();
+    }
+
+    private Session deserialize(byte[] state) throws Exception {
+        ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(state));
+        try {
+            return (Session) ois.readObject();
+        } finally {
+            ois.close();
+        }
+    }
+
+    // What the replica receives for a save of the value
+    private SaveCommand<String, Session> replicate(Session session, boolean checkpoint) throws Exception {
+        SaveCommand<String, Session> cmd = new SaveCommand<String, Session>(session.id, session, session._storeable_getVersion(), 0, 60000);
+        cmd.initialize(ctx);
+        cmd.setCheckpoint(checkpoint);
+
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        ObjectOutputStream oos = new ObjectOutputStream(bos);
+        oos.writeObject(cmd);
+        oos.close();
+        ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(bos.toByteArray()));
+        try {
+            return (SaveCommand<String, Session>) ois.readObject();
+        } finally {
+            ois.close();
+        }
+    }
+
+    public static class Session implements Storeable {
+
+        private static final long serialVersionUID = 1L;
+
+        String id;
+
+        String attribute;
+
+        long version;
+
+        long lastAccessTime;
+
+        long maxIdleTime;
+
+        public Session() {
+        }
+
+        Session(String id, String attribute, long version) {
+            this.id = id;
+            this.attribute = attribute;
+            this.version = version;
+        }
+
+        public long _storeable_getVersion() {
+            return version;
+        }
+
+        public void _storeable_setVersion(long version) {
+            this.version = version;
+        }
+
+        public long _storeable_getLastAccessTime() {
+            return lastAccessTime;
+        }
+
+        public void _storeable_setLastAccessTime(long lastAccessTime) {
+            this.lastAccessTime = lastAccessTime;
+        }
+
+        public long _storeable_getMaxIdleTime() {
+            return maxIdleTime;
+        }
+
+        public void _storeable_setMaxIdleTime(long maxIdleTime) {
+            this.maxIdleTime = maxIdleTime;
+        }
+
+        public String[] _storeable_getAttributeNames() {
+            return new String[] { "attribute" };
+        }
+
+        public boolean[] _storeable_getDirtyStatus() {
+            return new boolean[] { true };
+        }
+
+        public void _storeable_writeState(OutputStream os) throws IOException {
+            DataOutputStream dos = new DataOutputStream(os);
+            dos.writeUTF(attribute);
+            dos.flush();
+        }
+
+        public void _storeable_readState(InputStream is) throws IOException {
+            attribute = new DataInputStream(is).readUTF();
+        }
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright (c) 2026 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package org.glassfish.shoal.test.util;
+
+import java.util.List;
+
+import org.glassfish.shoal.ha.cache.util.HeavyHitterSketch;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+public class HeavyHitterSketchTest extends TestCase {
+
+    public HeavyHitterSketchTest(String testName) {
+        super(testName);
+    }
+
+    public static Test suite() {
+        return new TestSuite(HeavyHitterSketchTest.class);
+    }
+
+    public void testTopKeys() {
+        HeavyHitterSketch sketch = new HeavyHitterSketch(3, 0);
+
+        // 5000 cold keys saved twice each and three hot keys
+        for (int round = 0; round < 2; round++) {
+            for (int i = 0; i < 5000; i++) {
+                sketch.add("cold-" + i, 1);
+            }
+        }
+        for (int i = 0; i < 1000; i++) {
+            sketch.add("hot-1", 1);
+            if (i % 2 == 0) {
+                sketch.add("hot-2", 1);
+            }
+            if (i % 4 == 0) {
+                sketch.add("hot-3", 1);
+            }
+        }
+
+        List<HeavyHitterSketch.HeavyHitter> topK = sketch.getTopK();
+        assertEquals(3, topK.size());
+        assertEquals("hot-1", topK.get(0).getKey());
+        assertEquals("hot-2", topK.get(1).getKey());
+        assertEquals("hot-3", topK.get(2).getKey());
+        // Count-Min never underestimates
+        assertTrue(topK.get(0).getEstimate() >= 1000);
+        assertTrue(sketch.estimate("cold-1") >= 2);
+
+        sketch.reset();
+        assertTrue(sketch.getTopK().isEmpty());
+        assertEquals(0, sketch.estimate("hot-1"));
+    }
+
+    public void testAging() {
+        HeavyHitterSketch sketch = new HeavyHitterSketch(2, 1000);
+        for (int i = 0; i < 999; i++) {
+            sketch.add("old", 1);
+        }
+        assertEquals(999, sketch.estimate("old"));
+
+        // The 1000th weight halves every count
+        sketch.add("new", 1);
+        assertEquals(499, sketch.estimate("old"));
+        assertEquals(499, sketch.getTopK().get(0).getEstimate());
+    }
+}
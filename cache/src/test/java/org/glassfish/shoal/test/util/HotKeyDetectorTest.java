@@ -0,0 +1,108 @@
+/*
+ * Copyright (c) 2026 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+
+package org.glassfish.shoal.test.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Handler;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+import org.glassfish.shoal.ha.cache.api.ShoalCacheLoggerConstants;
+import org.glassfish.shoal.ha.cache.util.HotKeyDetector;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+public class HotKeyDetectorTest extends TestCase {
+
+    private static final String KEY = "JSESSIONID-0123456789";
+
+    private final List<String> warnings = new ArrayList<String>();
+
+    private final Handler handler = new Handler() {
+        public void publish(LogRecord record) {
+            // Other stores of the JVM may log to the same logger
+            if (record.getMessage().contains("hot-key-test")) {
+                synchronized (warnings) {
+                    warnings.add(record.getMessage());
+                }
+            }
+        }
+
+        public void flush() {
+        }
+
+        public void close() {
+        }
+    };
+
+    public HotKeyDetectorTest(String testName) {
+        super(testName);
+    }
+
+    public static Test suite() {
+        return new TestSuite(HotKeyDetectorTest.class);
+    }
+
+    @Override
+    protected void setUp() {
+        Logger.getLogger(ShoalCacheLoggerConstants.CACHE_STATS).addHandler(handler);
+    }
+
+    @Override
+    protected void tearDown() {
+        Logger.getLogger(ShoalCacheLoggerConstants.CACHE_STATS).removeHandler(handler);
+    }
+
+    public void testEachThresholdWarnsOncePerKey() {
+        HotKeyDetector detector = new HotKeyDetector("hot-key-test", 1000, 100, 10000, 5000);
+
+        for (int i = 0; i < 300; i++) {
+            detector.recordSave(KEY, 60);
+        }
+        // The bytes threshold is crossed at save 167, the save count one at save 100
+        assertEquals(warnings.toString(), 2, warnings.size());
+
+        // Even if the count estimate jumps past the threshold without hitting it, and again after aging
+        for (int i = 0; i < 2000; i++) {
+            detector.recordSave("other-" + i, 1);
+        }
+        for (int i = 0; i < 300; i++) {
+            detector.recordSave(KEY, 60);
+        }
+        assertEquals(2, warnings.size());
+
+        detector.recordSave(KEY, 6000);
+        detector.recordSave(KEY, 7000);
+        assertEquals(3, warnings.size());
+
+        for (String warning : warnings) {
+            assertFalse(warning, warning.contains(KEY));
+            assertTrue(warning, warning.contains(HotKeyDetector.describe(KEY)));
+        }
+        assertFalse(detector.toString().contains(KEY));
+        assertTrue(detector.getLargestValues().get(0).startsWith(HotKeyDetector.describe(KEY) + "="));
+
+        // A reset forgets the warnings given
+        detector.reset();
+        detector.recordSave(KEY, 6000);
+        assertEquals(4, warnings.size());
+    }
+}
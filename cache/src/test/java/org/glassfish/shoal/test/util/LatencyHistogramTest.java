@@ -0,0 +1,55 @@
+/*
+ * Copyright (c) 2026 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package org.glassfish.shoal.test.util;
+
+import org.glassfish.shoal.ha.cache.util.LatencyHistogram;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+public class LatencyHistogramTest extends TestCase {
+
+    public LatencyHistogramTest(String testName) {
+        super(testName);
+    }
+
+    public static Test suite() {
+        return new TestSuite(LatencyHistogramTest.class);
+    }
+
+    public void testPercentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0, histogram.getPercentileInMicros(99));
+
+        // 90 samples of 100us and 10 samples of 5ms
+        for (int i = 0; i < 90; i++) {
+            histogram.record(100 * 1000L);
+        }
+        for (int i = 0; i < 10; i++) {
+            histogram.record(5 * 1000 * 1000L);
+        }
+
+        assertEquals(100, histogram.getCount());
+        assertEquals(128, histogram.getPercentileInMicros(50));
+        assertEquals(128, histogram.getPercentileInMicros(90));
+        assertEquals(8192, histogram.getPercentileInMicros(99));
+
+        histogram.reset();
+        assertEquals(0, histogram.getCount());
+    }
+}
@@ -0,0 +1,54 @@
+/*
+ * Copyright (c) 2026 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+
+package org.glassfish.shoal.test.util;
+
+import org.glassfish.shoal.ha.cache.util.ReplicationTrace;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+public class ReplicationTraceTest extends TestCase {
+
+    public ReplicationTraceTest(String testName) {
+        super(testName);
+    }
+
+    public static Test suite() {
+        return new TestSuite(ReplicationTraceTest.class);
+    }
+
+    public void testCurrentTimeFollowsWallClock() throws Exception {
+        for (int i = 0; i < 5; i++) {
+            long before = System.currentTimeMillis();
+            long micros = ReplicationTrace.currentTimeMicros();
+            long after = System.currentTimeMillis();
+            assertTrue(micros + " < " + before, micros / 1000 >= before);
+            assertTrue(micros + " > " + after, micros / 1000 <= after);
+            Thread.sleep(20);
+        }
+    }
+
+    public void testNegativeTimesAreIgnored() {
+        ReplicationTrace trace = new ReplicationTrace("trace-test");
+        trace.record(ReplicationTrace.Stage.TRANSIT, -1000);
+        assertEquals(0, trace.getHistogram(ReplicationTrace.Stage.TRANSIT).getCount());
+        trace.record(ReplicationTrace.Stage.TRANSIT, 1000);
+        assertEquals(1, trace.getHistogram(ReplicationTrace.Stage.TRANSIT).getCount());
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright (c) 2026 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package org.glassfish.shoal.test.util;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.glassfish.shoal.ha.cache.util.CommandResponse;
+import org.glassfish.shoal.ha.cache.util.ResponseMediator;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+public class ResponseMediatorTest extends TestCase {
+
+    public ResponseMediatorTest(String testName) {
+        super(testName);
+    }
+
+    public static Test suite() {
+        return new TestSuite(ResponseMediatorTest.class);
+    }
+
+    public void testCompleteFromAnotherThread() throws Exception {
+        final ResponseMediator respMed = new ResponseMediator();
+        CommandResponse resp = respMed.createCommandResponse();
+        final long tokenId = resp.getTokenId();
+
+        new Thread() {
+            @Override
+            public void run() {
+                respMed.complete(tokenId, "instance1", "value");
+            }
+        }.start();
+
+        assertEquals("value", resp.getFuture().get(5, TimeUnit.SECONDS));
+        assertEquals("instance1", resp.getRespondingInstanceName());
+        // Completed responses can no longer be looked up
+        assertNull(respMed.getCommandResponse(tokenId));
+        respMed.removeCommandResponse(tokenId);
+    }
+
+    public void testStaleTokenCannotCompleteReusedSlot() throws Exception {
+        ResponseMediator respMed = new ResponseMediator();
+        CommandResponse resp = respMed.createCommandResponse();
+        long staleTokenId = resp.getTokenId();
+        try {
+            resp.getFuture().get(1, TimeUnit.MILLISECONDS);
+            fail("Expected a TimeoutException");
+        } catch (TimeoutException tEx) {
+            // Expected
+        }
+        respMed.removeCommandResponse(staleTokenId);
+
+        // Cycle through the stripe until the slot is handed out again, with a new generation
+        CommandResponse reused = respMed.createCommandResponse();
+        for (int i = 0; reused != resp && i < 100000; i++) {
+            respMed.removeCommandResponse(reused.getTokenId());
+            reused = respMed.createCommandResponse();
+        }
+        assertSame(resp, reused);
+        assertTrue(staleTokenId != reused.getTokenId());
+
+        assertFalse(respMed.complete(staleTokenId, "instance1", "stale"));
+        assertFalse(reused.getFuture().isDone());
+        assertTrue(respMed.complete(reused.getTokenId(), "instance2", "fresh"));
+        assertEquals("fresh", reused.getFuture().get(1, TimeUnit.SECONDS));
+        respMed.removeCommandResponse(reused.getTokenId());
+    }
+
+    public void testUnpooledResponsesWhenAllSlotsAreBusy() {
+        ResponseMediator respMed = new ResponseMediator();
+        List<CommandResponse> responses = new ArrayList<CommandResponse>();
+        Set<Long> tokenIds = new HashSet<Long>();
+        CommandResponse resp;
+        do {
+            resp = respMed.createCommandResponse();
+            responses.add(resp);
+            assertTrue(tokenIds.add(resp.getTokenId()));
+        } while (resp.getTokenId() > 0);
+
+        assertSame(resp, respMed.getCommandResponse(resp.getTokenId()));
+        assertTrue(respMed.complete(resp.getTokenId(), null, Boolean.TRUE));
+        assertNull(respMed.getCommandResponse(resp.getTokenId()));
+
+        for (CommandResponse r : responses) {
+            respMed.removeCommandResponse(r.getTokenId());
+        }
+        assertTrue(respMed.createCommandResponse().getTokenId() > 0);
+    }
+}
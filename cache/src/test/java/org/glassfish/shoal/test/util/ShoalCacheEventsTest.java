@@ -0,0 +1,90 @@
+/*
+ * Copyright (c) 2026 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+
+package org.glassfish.shoal.test.util;
+
+import java.io.File;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.glassfish.shoal.ha.cache.util.ShoalCacheEvents;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+public class ShoalCacheEventsTest extends TestCase {
+
+    private static final String DATA_STORE_OPERATION = "org.glassfish.shoal.cache.DataStoreOperation";
+
+    public ShoalCacheEventsTest(String testName) {
+        super(testName);
+    }
+
+    public static Test suite() {
+        return new TestSuite(ShoalCacheEventsTest.class);
+    }
+
+    public void testOnlyEnabledEventsAreTimed() throws Exception {
+        Recording recording = new Recording();
+        try {
+            recording.disable(DATA_STORE_OPERATION);
+            recording.start();
+            assertNull(ShoalCacheEvents.beginDataStoreOperation());
+            // Ending an event that was not started does nothing
+            ShoalCacheEvents.endDataStoreOperation(null, "events-test", "put", "key", 10, "replicated", "instance1");
+
+            recording.enable(DATA_STORE_OPERATION).withThreshold(Duration.ZERO);
+            Object event = ShoalCacheEvents.beginDataStoreOperation();
+            assertNotNull(event);
+            Thread.sleep(10);
+            ShoalCacheEvents.endDataStoreOperation(event, "events-test", "put", "key", 10, "replicated", "instance1");
+            recording.stop();
+
+            List<RecordedEvent> events = readEvents(recording);
+            assertEquals(1, events.size());
+            RecordedEvent recorded = events.get(0);
+            assertEquals("events-test", recorded.getString("storeName"));
+            assertEquals("key".hashCode(), recorded.getInt("keyHash"));
+            assertEquals("replicated", recorded.getString("outcome"));
+            // The duration of the event itself is the latency of the operation
+            assertTrue(recorded.getDuration().toMillis() >= 10);
+        } finally {
+            recording.close();
+        }
+    }
+
+    private static List<RecordedEvent> readEvents(Recording recording) throws Exception {
+        File file = File.createTempFile("shoal-events", ".jfr");
+        try {
+            recording.dump(file.toPath());
+            List<RecordedEvent> result = new ArrayList<RecordedEvent>();
+            for (RecordedEvent event : RecordingFile.readAllEvents(file.toPath())) {
+                if (event.getEventType().getName().equals(DATA_STORE_OPERATION)) {
+                    result.add(event);
+                }
+            }
+            return result;
+        } finally {
+            file.delete();
+        }
+    }
+}
@@ -180,5 +180,25 @@ public enum ServiceProviderConfigurationKeys {
     /**
      * Set MONITORING frequency in seconds.
      */
-    MONITORING
+    MONITORING,
+
+    /**
+     * Write messages with the compact element encoding, which members older than this encoding cannot read. Defaults to
+     * false, so that a group can be upgraded one member at a time; set it to true once every member reads the encoding.
+     */
+    COMPACT_MESSAGE_ENCODING,
+
+    /**
+     * Compress the messages whose encoded elements are at least this many bytes. Defaults to 0, which never compresses.
+     * Members older than message compression cannot read compressed messages, so only set it once they have left the
+     * group.
+     */
+    MESSAGE_COMPRESSION_THRESHOLD,
+
+    /**
+     * Deliver the messages of one sender to one target component one at a time, in the order they were received.
+     * Messages of different senders or to different components are still handled in parallel by the incoming message
+     * threads. Defaults to false.
+     */
+    ORDERED_MESSAGE_DISPATCH
 }
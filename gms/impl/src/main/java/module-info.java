@@ -21,6 +21,7 @@ module org.glassfish.shoal.gms.impl {
 
     requires java.logging;
     requires java.management;
+    requires static jdk.jfr;
 
     requires org.glassfish.grizzly;
     requires org.glassfish.shoal.gms.api;
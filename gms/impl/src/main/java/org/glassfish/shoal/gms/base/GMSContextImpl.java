@@ -89,11 +89,17 @@ public class GMSContextImpl extends GMSContextBase {
             logger.config(
                     "INCOMING_MSG_THREAD_POOL_SIZE: " + INCOMING_MSG_THREAD_POOL_SIZE + " overrides default value of " + DEFAULT_INCOMING_MSG_THREAD_POOL_SIZE);
         }
+        boolean orderedMessageDispatch = Utility.getBooleanProperty(ServiceProviderConfigurationKeys.ORDERED_MESSAGE_DISPATCH.toString(), false,
+                configProperties);
+        if (orderedMessageDispatch && logger.isLoggable(Level.CONFIG)) {
+            logger.config("ORDERED_MESSAGE_DISPATCH: " + orderedMessageDispatch);
+        }
         long MAX_STARTCLUSTER_DURATION_MS = Utility.getLongProperty("MAX_STARTCLUSTER_DURATION_MS", 10000, configProperties);
         this.gmsMonitor = new GMSMonitor(serverToken, groupName, configProperties);
         aliveAndReadyViewWindow = new AliveAndReadyViewWindow(this);
         aliveAndReadyViewWindow.setStartClusterMaxDuration(MAX_STARTCLUSTER_DURATION_MS);
-        router = new Router(groupName, MAX_MSGS_IN_QUEUE + 100, aliveAndReadyViewWindow, INCOMING_MSG_THREAD_POOL_SIZE, gmsMonitor);
+        router = new Router(groupName, MAX_MSGS_IN_QUEUE + 100, aliveAndReadyViewWindow, INCOMING_MSG_THREAD_POOL_SIZE, gmsMonitor,
+                orderedMessageDispatch);
 
         this.configProperties = configProperties;
         groupCommunicationProvider = new GroupCommunicationProviderImpl(groupName);
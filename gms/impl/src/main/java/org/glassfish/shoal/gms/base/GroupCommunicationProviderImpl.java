@@ -20,6 +20,7 @@ import java.io.IOException;
 import java.io.Serializable;
 import java.text.MessageFormat;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ArrayBlockingQueue;
@@ -215,15 +216,16 @@ public class GroupCommunicationProviderImpl implements GroupCommunicationProvide
                 if (synchronous) {
                     /*
                      * Use point-to-point communication with all instances instead of the group-wide (udp) based message. Since we don't
-                     * have reliable multicast yet, this approach will ensure reliability. Ideally, when a message is sent to the group via
-                     * point-to-point, the message to each member should be on a separate thread to get concurrency.
+                     * have reliable multicast yet, this approach will ensure reliability. The message is serialized once and the sends to
+                     * all members are in flight together, so a slow or failed member does not delay the others.
                      */
                     List<SystemAdvertisement> currentMemberAdvs = clusterManager.getClusterViewManager().getLocalView().getView();
-
+                    List<PeerID> ids = new ArrayList<PeerID>(currentMemberAdvs.size());
+                    Map<PeerID, String> members = new HashMap<PeerID, String>();
+                    final long INDOUBT_INTERVAL_MS = clusterManager.getHealthMonitor().getIndoubtDuration();
                     for (SystemAdvertisement currentMemberAdv : currentMemberAdvs) {
                         final PeerID id = currentMemberAdv.getID();
                         final String member = currentMemberAdv.getName();
-                        final long INDOUBT_INTERVAL_MS = clusterManager.getHealthMonitor().getIndoubtDuration();
                         MemberStates memberState = getMemberState(member, INDOUBT_INTERVAL_MS, 0);
                         if (memberState == MemberStates.PEERSTOPPING ||
 //                          TBD  - should we send message to INDOUBT member? error on side that member is not failed but just busy for now.
@@ -235,41 +237,30 @@ public class GroupCommunicationProviderImpl implements GroupCommunicationProvide
                             }
                             continue;
                         }
+                        logger.log(Level.FINER, "sending message to member: " + member);
+                        ids.add(id);
+                        members.put(id, member);
+                    }
 
-                        // TODO : make this multi-threaded via Callable
-                        /*
-                         * final CallableMessageSend task = getInstanceOfCallableMessageSend(id); logger.fine("Message is = " +
-                         * message.toString()); task.setMessage(message); msgSendPool.submit(task);
-                         */
-                        logger.log(Level.FINER, "sending message to member: " + currentMemberAdv.getName());
-                        try {
-                            boolean localSent = clusterManager.send(id, message);
-                            if (!localSent) {
-                                if (logger.isLoggable(Level.FINE)) {
-                                    logger.fine("sendMessage(synchronous=true, to=group) failed to send msg " + message + " to member " + id);
-                                }
-                            }
-                        } catch (MemberNotInViewException e) {
-                            if (logger.isLoggable(Level.FINE)) {
-                                logger.fine("MemberNotInViewException during synchronous broadcast: " + e.toString());
-                            }
-                        } catch (MessageIOException mioe) {
-                            // this exception is thrown when message size is too big, discontinue trying to send message and throw this exception to
-                            // provide feedback to sender.
-                            throw new GMSException("message not sent", mioe);
-                        } catch (IOException ioe) {
-                            // don't allow an exception sending to one instance of the cluster to prevent ptp multicast to all other instances of
-                            // of the cluster. Catch this exception, record it and continue sending to rest of instances in the cluster.
-                            if (logger.isLoggable(Level.FINE)) {
-                                logger.log(Level.FINE, "IOException in reliable synchronous ptp multicast sending to instance " + currentMemberAdv.getName()
-                                        + ". Perhaps this instance has failed but that has not been detected yet. Peer id=" + id.toString(), ioe);
-                            }
-                        } catch (Throwable t) {
-                            // don't allow an exception sending to one instance of the cluster prevent ptp broadcast to all other instances of
-                            // of the cluster. Catch this exception, record it and continue sending to rest of instances in the cluster.
-                            if (logger.isLoggable(Level.FINE)) {
-                                logger.log(Level.FINE, "Exception in reliable synchronous ptp multicast sending to instance " + currentMemberAdv.getName()
-                                        + ", peer id=" + id.toString(), t);
+                    Map<PeerID, Throwable> failures = clusterManager.sendToMembers(ids, message);
+                    for (Map.Entry<PeerID, Throwable> failure : failures.entrySet()) {
+                        final PeerID id = failure.getKey();
+                        final Throwable t = failure.getValue();
+                        if (t instanceof MessageIOException) {
+                            // this exception is thrown when message size is too big, throw this exception to provide feedback to sender.
+                            throw new GMSException("message not sent", t);
+                        }
+                        // a failure sending to one instance of the cluster does not prevent ptp multicast to all other instances of the
+                        // cluster. Record it and report the rest.
+                        if (logger.isLoggable(Level.FINE)) {
+                            if (t == null) {
+                                logger.fine("sendMessage(synchronous=true, to=group) failed to send msg " + message + " to member " + id);
+                            } else if (t instanceof IOException) {
+                                logger.log(Level.FINE, "IOException in reliable synchronous ptp multicast sending to instance " + members.get(id)
+                                        + ". Perhaps this instance has failed but that has not been detected yet. Peer id=" + id.toString(), t);
+                            } else {
+                                logger.log(Level.FINE,
+                                        "Exception in reliable synchronous ptp multicast sending to instance " + members.get(id) + ", peer id=" + id.toString(), t);
                             }
                         }
                     }
@@ -70,6 +70,16 @@ public final class GroupHandleImpl implements GroupHandle {
         return ctx;
     }
 
+    /**
+     * Builds the message for a payload handed over by the application. The payload is copied once: large payloads are
+     * written without being copied and a message can stay queued after sendMessage returns, while the application may
+     * reuse its array as soon as the call returns.
+     */
+    private GMSMessage newMessage(final String componentName, final byte[] message) {
+        final byte[] payload = message == null ? null : message.clone();
+        return new GMSMessage(componentName, payload, groupName, getGMSContext().getStartTime());
+    }
+
     /**
      * Sends a message to all members of the Group. Expects a byte array as parameter carrying the payload.
      *
@@ -78,7 +88,7 @@ public final class GroupHandleImpl implements GroupHandle {
      */
     public void sendMessage(final String componentName, final byte[] message) throws GMSException {
         try {
-            final GMSMessage gMsg = new GMSMessage(componentName, message, groupName, getGMSContext().getStartTime());
+            final GMSMessage gMsg = newMessage(componentName, message);
             getGMSContext().getGroupCommunicationProvider().sendMessage(null, gMsg, true);
         } catch (Throwable t) {
             if (t instanceof GMSException) {
@@ -101,7 +111,7 @@ public final class GroupHandleImpl implements GroupHandle {
      */
     public void sendMessage(final String targetServerToken, final String targetComponentName, final byte[] message) throws GMSException {
         try {
-            final GMSMessage gMsg = new GMSMessage(targetComponentName, message, groupName, getGMSContext().getStartTime());
+            final GMSMessage gMsg = newMessage(targetComponentName, message);
             getGMSContext().getGroupCommunicationProvider().sendMessage(targetServerToken, gMsg, false);
         } catch (Throwable t) {
             if (t instanceof GMSException) {
@@ -115,7 +125,7 @@ public final class GroupHandleImpl implements GroupHandle {
     public void sendMessage(List<String> targetServerTokens, String targetComponentName, byte[] message) throws GMSException {
         Throwable lastThrowable = null;
         String failedSendToken = null;
-        final GMSMessage gMsg = new GMSMessage(targetComponentName, message, groupName, getGMSContext().getStartTime());
+        final GMSMessage gMsg = newMessage(targetComponentName, message);
         if (targetServerTokens.isEmpty()) {
             getGMSContext().getGroupCommunicationProvider().sendMessage(null, gMsg, true);
         } else {
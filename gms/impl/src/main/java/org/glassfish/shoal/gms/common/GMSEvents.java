@@ -0,0 +1,53 @@
+/*
+ * Copyright (c) 2026 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package org.glassfish.shoal.gms.common;
+
+/**
+ * Emits the JDK Flight Recorder events of GMS. jdk.jfr is an optional dependency, so the event classes are only loaded
+ * when the module is present. A disabled event costs an allocation the JIT removes and a flag check.
+ */
+public final class GMSEvents {
+
+    private static final boolean JFR_AVAILABLE = ModuleLayer.boot().findModule("jdk.jfr").isPresent();
+
+    private GMSEvents() {
+    }
+
+    /**
+     * @param bytes the number of bytes written, -1 if the message was not sent
+     */
+    public static void messageSend(Object peer, long bytes, int attempts, boolean success, long timeInNanos) {
+        if (JFR_AVAILABLE) {
+            MessageSendEvent.commit(peer, bytes, attempts, success, timeInNanos);
+        }
+    }
+
+    public static void healthStateTransition(String memberName, String groupName, String state, boolean master) {
+        if (JFR_AVAILABLE) {
+            HealthStateTransitionEvent.commit(memberName, groupName, state, master);
+        }
+    }
+
+    /**
+     * The queue size is only read when the event is enabled.
+     */
+    static void routerQueue(SignalQueue queue, int capacity, long blockedMillis) {
+        if (JFR_AVAILABLE) {
+            RouterQueueEvent.commit(queue, capacity, blockedMillis);
+        }
+    }
+}
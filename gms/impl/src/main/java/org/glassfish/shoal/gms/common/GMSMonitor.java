@@ -59,6 +59,10 @@ public class GMSMonitor {
     final public MBeanServer mbs;
     final public String instanceName;
     final public String groupName;
+    private ObjectName compressionStatsObjectName = null;
+
+    // message compression is configured for the whole JVM, so are its stats
+    private static final CompressionStats compressionStats = new CompressionStats();
 
     public GMSMonitor(String instanceName, String groupName, Properties props) {
         this.instanceName = instanceName;
@@ -75,11 +79,26 @@ public class GMSMonitor {
                 timer.scheduleAtFixedRate(new Report(this), REPORT_DURATION * 1000, REPORT_DURATION * 1000);
             }
             mbs = ManagementFactory.getPlatformMBeanServer();
+            registerCompressionStats();
         } else {
             mbs = null;
         }
     }
 
+    public static CompressionStats getCompressionStats() {
+        return compressionStats;
+    }
+
+    private void registerCompressionStats() {
+        try {
+            compressionStatsObjectName = new ObjectName("org.glassfish.shoal.gms.common.GMSMonitor.CompressionStats" + ":name=" + groupName + "_" + instanceName);
+            mbs.registerMBean(new StandardMBean(compressionStats, CompressionStatsMBean.class), compressionStatsObjectName);
+        } catch (Exception e) {
+            compressionStatsObjectName = null;
+            monitorLogger.log(Level.INFO, "Couldn't register compression stats MBean : " + e);
+        }
+    }
+
     public void setSendWriteTimeout(long value) {
         sendWriteTimeout = value;
     }
@@ -93,6 +112,9 @@ public class GMSMonitor {
             for (MessageStats stat : gmsMsgStats.values()) {
                 logger.log(Level.INFO, "gmsMonitor: " + stat.toString());
             }
+            if (compressionStats.getNumMsgsCompressed() + compressionStats.getNumMsgsNotCompressed() + compressionStats.getNumMsgsDecompressed() != 0) {
+                logger.log(Level.INFO, "gmsMonitor: " + compressionStats.toString());
+            }
         }
     }
 
@@ -433,6 +455,117 @@ public class GMSMonitor {
         for (MessageStats componentMsgStats : gmsMsgStats.values()) {
             componentMsgStats.close();
         }
+        if (compressionStatsObjectName != null) {
+            try {
+                mbs.unregisterMBean(compressionStatsObjectName);
+            } catch (Exception e) {
+            }
+            compressionStatsObjectName = null;
+        }
+    }
+
+    public interface CompressionStatsMBean {
+        long getNumMsgsCompressed();
+
+        long getNumMsgsNotCompressed();
+
+        long getBytesBeforeCompression();
+
+        long getBytesAfterCompression();
+
+        double getCompressionRatio();
+
+        long getCompressDurationNanos();
+
+        long getNumMsgsDecompressed();
+
+        long getDecompressDurationNanos();
+    }
+
+    /**
+     * Messages considered for compression, and the time spent compressing and decompressing them. A message is not
+     * compressed when that would not make it smaller.
+     */
+    static public class CompressionStats implements CompressionStatsMBean {
+        private final AtomicLong numMsgsCompressed = new AtomicLong(0);
+        private final AtomicLong numMsgsNotCompressed = new AtomicLong(0);
+        private final AtomicLong bytesBeforeCompression = new AtomicLong(0);
+        private final AtomicLong bytesAfterCompression = new AtomicLong(0);
+        private final AtomicLong compressTime = new AtomicLong(0);
+        private final AtomicLong numMsgsDecompressed = new AtomicLong(0);
+        private final AtomicLong decompressTime = new AtomicLong(0);
+
+        public void recordCompression(long bytesBefore, long bytesAfter, long durationNanos) {
+            if (bytesAfter < bytesBefore) {
+                numMsgsCompressed.incrementAndGet();
+            } else {
+                numMsgsNotCompressed.incrementAndGet();
+            }
+            bytesBeforeCompression.addAndGet(bytesBefore);
+            bytesAfterCompression.addAndGet(bytesAfter);
+            compressTime.addAndGet(durationNanos);
+        }
+
+        public void recordDecompression(long durationNanos) {
+            numMsgsDecompressed.incrementAndGet();
+            decompressTime.addAndGet(durationNanos);
+        }
+
+        public long getNumMsgsCompressed() {
+            return numMsgsCompressed.get();
+        }
+
+        public long getNumMsgsNotCompressed() {
+            return numMsgsNotCompressed.get();
+        }
+
+        public long getBytesBeforeCompression() {
+            return bytesBeforeCompression.get();
+        }
+
+        public long getBytesAfterCompression() {
+            return bytesAfterCompression.get();
+        }
+
+        /**
+         * @return bytes after compression divided by bytes before, 1 if nothing was compressed
+         */
+        public double getCompressionRatio() {
+            long before = bytesBeforeCompression.get();
+            return before == 0 ? 1 : (double) bytesAfterCompression.get() / before;
+        }
+
+        public long getCompressDurationNanos() {
+            return compressTime.get();
+        }
+
+        public long getNumMsgsDecompressed() {
+            return numMsgsDecompressed.get();
+        }
+
+        public long getDecompressDurationNanos() {
+            return decompressTime.get();
+        }
+
+        @Override
+        public String toString() {
+            long attempts = numMsgsCompressed.get() + numMsgsNotCompressed.get();
+            StringBuilder sb = new StringBuilder();
+            sb.append("compression Compress:[numMsgs:").append(numMsgsCompressed.get());
+            sb.append(" notCompressed:").append(numMsgsNotCompressed.get());
+            if (attempts != 0) {
+                sb.append(" bytesBefore:").append(bytesBeforeCompression.get());
+                sb.append(" bytesAfter:").append(bytesAfterCompression.get());
+                sb.append(" ratio:").append(String.format("%.3f", getCompressionRatio()));
+                sb.append(" avg time(us):").append(compressTime.get() / attempts / 1000);
+            }
+            sb.append("] Decompress:[numMsgs:").append(numMsgsDecompressed.get());
+            if (numMsgsDecompressed.get() != 0) {
+                sb.append(" avg time(us):").append(decompressTime.get() / numMsgsDecompressed.get() / 1000);
+            }
+            sb.append("]");
+            return sb.toString();
+        }
     }
 
     public static class Report extends TimerTask {
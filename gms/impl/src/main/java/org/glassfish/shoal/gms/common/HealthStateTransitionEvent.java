@@ -0,0 +1,56 @@
+/*
+ * Copyright (c) 2026 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package org.glassfish.shoal.gms.common;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A member the health monitor has put in doubt or declared failed.
+ */
+@Name("org.glassfish.shoal.gms.HealthStateTransition")
+@Label("Health State Transition")
+@Category({ "Shoal", "GMS" })
+@Description("A member put in doubt or declared failed by the health monitor")
+class HealthStateTransitionEvent extends Event {
+
+    @Label("Member")
+    String memberName;
+
+    @Label("Group")
+    String groupName;
+
+    @Label("State")
+    String state;
+
+    @Label("Reported By Master")
+    boolean master;
+
+    static void commit(String memberName, String groupName, String state, boolean master) {
+        HealthStateTransitionEvent event = new HealthStateTransitionEvent();
+        if (event.isEnabled()) {
+            event.memberName = memberName;
+            event.groupName = groupName;
+            event.state = state;
+            event.master = master;
+            event.commit();
+        }
+    }
+}
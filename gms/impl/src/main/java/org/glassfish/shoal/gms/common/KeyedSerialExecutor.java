@@ -0,0 +1,154 @@
+/*
+ * Copyright (c) 2026 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package org.glassfish.shoal.gms.common;
+
+import java.util.LinkedList;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.glassfish.shoal.gms.logging.GMSLogDomain;
+
+/**
+ * Runs tasks on a shared executor so that the tasks submitted with the same key run one at a time, in submission
+ * order, while tasks of different keys run in parallel. A key gives its thread back to the executor after
+ * {@code maxTasksPerTurn} tasks and queues up again behind the other keys, so a busy key cannot starve the others.
+ *
+ * Keys without pending tasks are forgotten, so keys may be as many as there are senders.
+ */
+class KeyedSerialExecutor {
+
+    private static final Logger logger = GMSLogDomain.getLogger(GMSLogDomain.GMS_LOGGER);
+
+    private final Executor executor;
+    private final int maxTasksPerTurn;
+    private final ConcurrentHashMap<Object, KeyQueue> queues = new ConcurrentHashMap<Object, KeyQueue>();
+
+    KeyedSerialExecutor(Executor executor, int maxTasksPerTurn) {
+        if (maxTasksPerTurn < 1) {
+            throw new IllegalArgumentException("maxTasksPerTurn must be positive: " + maxTasksPerTurn);
+        }
+        this.executor = executor;
+        this.maxTasksPerTurn = maxTasksPerTurn;
+    }
+
+    /**
+     * @throws RejectedExecutionException if the executor refused to run the tasks of the key
+     */
+    void execute(Object key, Runnable task) {
+        while (true) {
+            KeyQueue queue = queues.get(key);
+            if (queue == null) {
+                queue = new KeyQueue(key);
+                KeyQueue existing = queues.putIfAbsent(key, queue);
+                if (existing != null) {
+                    queue = existing;
+                }
+            }
+            if (queue.add(task)) {
+                return;
+            }
+            // the queue emptied and retired meanwhile
+        }
+    }
+
+    /**
+     * @return the number of keys with pending or running tasks
+     */
+    int getActiveKeyCount() {
+        return queues.size();
+    }
+
+    private class KeyQueue implements Runnable {
+
+        private final Object key;
+
+        // guarded by this
+        private final LinkedList<Runnable> tasks = new LinkedList<Runnable>();
+        private boolean scheduled;
+        private boolean retired;
+
+        KeyQueue(Object key) {
+            this.key = key;
+        }
+
+        synchronized boolean add(Runnable task) {
+            if (retired) {
+                return false;
+            }
+            tasks.add(task);
+            if (!scheduled) {
+                try {
+                    executor.execute(this);
+                } catch (RejectedExecutionException e) {
+                    tasks.removeLast();
+                    retireIfIdle();
+                    throw e;
+                }
+                scheduled = true;
+            }
+            return true;
+        }
+
+        public void run() {
+            for (int i = 0; i < maxTasksPerTurn; i++) {
+                Runnable task;
+                synchronized (this) {
+                    task = tasks.poll();
+                    if (task == null) {
+                        scheduled = false;
+                        retireIfIdle();
+                        return;
+                    }
+                }
+                try {
+                    task.run();
+                } catch (Throwable t) {
+                    if (logger.isLoggable(Level.FINE)) {
+                        logger.log(Level.FINE, "task for " + key + " failed", t);
+                    }
+                }
+            }
+
+            synchronized (this) {
+                if (tasks.isEmpty()) {
+                    scheduled = false;
+                    retireIfIdle();
+                    return;
+                }
+                try {
+                    executor.execute(this);
+                } catch (RejectedExecutionException e) {
+                    // the executor is shutting down
+                    tasks.clear();
+                    scheduled = false;
+                    retireIfIdle();
+                }
+            }
+        }
+
+        // must hold the lock
+        private void retireIfIdle() {
+            if (tasks.isEmpty() && !scheduled) {
+                retired = true;
+                queues.remove(key, this);
+            }
+        }
+    }
+}
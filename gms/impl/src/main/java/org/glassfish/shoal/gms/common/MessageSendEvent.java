@@ -0,0 +1,64 @@
+/*
+ * Copyright (c) 2026 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package org.glassfish.shoal.gms.common;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * One point to point message written to a peer over TCP.
+ */
+@Name("org.glassfish.shoal.gms.MessageSend")
+@Label("Message Send")
+@Category({ "Shoal", "GMS" })
+@Description("A point to point message written to a peer")
+class MessageSendEvent extends Event {
+
+    @Label("Peer")
+    String peer;
+
+    @Label("Bytes")
+    @DataAmount
+    long bytes;
+
+    @Label("Attempts")
+    int attempts;
+
+    @Label("Success")
+    boolean success;
+
+    @Label("Latency")
+    @Timespan(Timespan.NANOSECONDS)
+    long latency;
+
+    static void commit(Object peer, long bytes, int attempts, boolean success, long latency) {
+        MessageSendEvent event = new MessageSendEvent();
+        if (event.isEnabled()) {
+            event.peer = String.valueOf(peer);
+            event.bytes = bytes;
+            event.attempts = attempts;
+            event.success = success;
+            event.latency = latency;
+            event.commit();
+        }
+    }
+}
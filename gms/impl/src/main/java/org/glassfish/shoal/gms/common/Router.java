@@ -21,13 +21,12 @@ import java.text.MessageFormat;
 import java.util.Hashtable;
 import java.util.LinkedList;
 import java.util.Set;
-import java.util.concurrent.ArrayBlockingQueue;
-import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
 import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Level;
@@ -87,13 +86,14 @@ public class Router {
 
     private final CopyOnWriteArrayList<GroupLeadershipNotificationActionFactory> groupLeadershipNotificationAFs = new CopyOnWriteArrayList<GroupLeadershipNotificationActionFactory>();
 
-    private final BlockingQueue<SignalPacket> queue;
-    private AtomicInteger queueHighWaterMark = new AtomicInteger(0);
+    private final SignalQueue queue;
     private final Logger logger = GMSLogDomain.getLogger(GMSLogDomain.GMS_LOGGER);
     private final Logger handlerLogger = GMSLogDomain.getHandlerLogger();
     private final Logger monitorLogger = GMSLogDomain.getMonitorLogger();
     private final ExecutorService actionPool;
     private final ExecutorService messageActionPool;
+    private final KeyedSerialExecutor orderedMessageDispatcher; // null unless messages are delivered in order per sender
+    private static final int MAX_ORDERED_MESSAGES_PER_TURN = 16;
     private long startupTime;
     private static final int GROUP_WARMUP_TIME = 30000; // join notification remains in queue for this amount of time when there is no Join handler registered
                                                         // yet.
@@ -106,10 +106,20 @@ public class Router {
     private final boolean isSpectator;
 
     public Router(String groupName, int queueSize, AliveAndReadyViewWindow viewWindow, int incomingMsgThreadPoolSize, GMSMonitor gmsMonitor) {
+        this(groupName, queueSize, viewWindow, incomingMsgThreadPoolSize, gmsMonitor, false);
+    }
+
+    /**
+     * @param orderedMessageDispatch if true, the messages of one sender to one target component are delivered one at a
+     * time in the order they were received. Messages of different senders or to different components are still delivered
+     * in parallel.
+     */
+    public Router(String groupName, int queueSize, AliveAndReadyViewWindow viewWindow, int incomingMsgThreadPoolSize, GMSMonitor gmsMonitor,
+            boolean orderedMessageDispatch) {
         this.groupName = groupName;
         aliveAndReadyView = viewWindow;
         MAX_QUEUE_SIZE = queueSize;
-        queue = new ArrayBlockingQueue<SignalPacket>(MAX_QUEUE_SIZE);
+        queue = new SignalQueue(MAX_QUEUE_SIZE);
         signalHandler = new SignalHandler(queue, this);
         signalHandlerThread = new Thread(signalHandler, "GMS SignalHandler for Group-" + groupName + " thread");
         signalHandlerThread.setDaemon(true);
@@ -119,6 +129,7 @@ public class Router {
         tf = new GMSThreadFactory("GMS-processInboundMsg-Group-" + groupName + "-thread");
 
         messageActionPool = Executors.newFixedThreadPool(incomingMsgThreadPoolSize, tf);
+        orderedMessageDispatcher = orderedMessageDispatch ? new KeyedSerialExecutor(messageActionPool, MAX_ORDERED_MESSAGES_PER_TURN) : null;
         startupTime = System.currentTimeMillis();
         this.gmsMonitor = gmsMonitor;
         GMSContext ctx = GMSContextFactory.getGMSContext(groupName);
@@ -128,7 +139,7 @@ public class Router {
             isSpectator = true;
         }
         if (logger.isLoggable(Level.FINE)) {
-            logger.fine("Router: isSpectator:" + isSpectator + " MONITOR_ENABLED:" + gmsMonitor.ENABLED);
+            logger.fine("Router: isSpectator:" + isSpectator + " MONITOR_ENABLED:" + gmsMonitor.ENABLED + " orderedMessageDispatch:" + orderedMessageDispatch);
         }
     }
 
@@ -317,16 +328,6 @@ public class Router {
         queueSignal(signalPacket);
     }
 
-    private void recordQueueHighWaterMark() {
-        if (monitorLogger.isLoggable(Level.FINE)) {
-            int currentQueueSize = queue.size();
-            int localHighWater = queueHighWaterMark.get();
-            if (currentQueueSize > localHighWater) {
-                queueHighWaterMark.compareAndSet(localHighWater, currentQueueSize);
-            }
-        }
-    }
-
     private long lastReported = 0L;
     static final private long NEXT_REPORT_DURATION = 1000 * 60 * 30; // 30 minutes
 
@@ -337,16 +338,18 @@ public class Router {
      */
     public void queueSignal(final SignalPacket signalPacket) {
         try {
+            long blockedMillis = 0;
             boolean result = queue.offer(signalPacket);
             if (result == false) {
 
-                // blocking queue is full. log how long we were blocked.
+                // signal queue is full. log how long we were blocked.
                 int fullcapacity = queue.size();
                 long starttime = System.currentTimeMillis();
                 try {
                     queue.put(signalPacket);
                 } finally {
                     long duration = System.currentTimeMillis() - starttime;
+                    blockedMillis = duration;
                     if (duration > 2000) {
                         if (lastReported + NEXT_REPORT_DURATION < System.currentTimeMillis()) {
                             monitorLogger.log(Level.WARNING, "router.signal.queue.blocking", new Object[] { duration, fullcapacity });
@@ -363,7 +366,7 @@ public class Router {
                     }
                 }
             }
-            recordQueueHighWaterMark();
+            GMSEvents.routerQueue(queue, MAX_QUEUE_SIZE, blockedMillis);
         } catch (InterruptedException e) {
         }
     }
@@ -545,7 +548,11 @@ public class Router {
     private void callMessageAction(final Action a, final MessageSignal signal) {
         try {
             final CallableAction task = new CallableAction(a, signal);
-            messageActionPool.submit(task);
+            if (orderedMessageDispatcher != null) {
+                orderedMessageDispatcher.execute(signal.getMemberToken() + '/' + signal.getTargetComponent(), new FutureTask<Object>(task));
+            } else {
+                messageActionPool.submit(task);
+            }
         } catch (RejectedExecutionException e) {
             logger.log(Level.WARNING, e.getMessage());
         }
@@ -633,7 +640,8 @@ public class Router {
         }
         // consider WARNING to tell user to increase size of INCOMING_MSG_QUEUE_SIZE for their application's messaging load.
         if (monitorLogger.isLoggable(Level.INFO)) {
-            monitorLogger.log(Level.INFO, "router.stats.monitor.msgqueue.high.water", new Object[] { queueHighWaterMark.get(), MAX_QUEUE_SIZE });
+            monitorLogger.log(Level.INFO, "router.stats.monitor.msgqueue.high.water", new Object[] { queue.getHighWaterMark(), MAX_QUEUE_SIZE });
+            monitorLogger.log(Level.INFO, "router.stats.monitor.signal.queue", new Object[] { queue.toString() });
         }
         if (queue != null) {
             int unprocessedEventSize = queue.size();
@@ -642,7 +650,7 @@ public class Router {
                 // TBD. If shutdown has unprocessed events outstanding.
                 try {
                     LinkedList<SignalPacket> unprocessedEvents = new LinkedList<SignalPacket>();
-                    queue.drainTo(unprocessedEvents);
+                    queue.drainAll(unprocessedEvents);
                     for (SignalPacket sp : unprocessedEvents) {
                         logger.log(Level.INFO, "router.shutdown.unprocessed.signal", new Object[] { sp.toString() });
                     }
@@ -0,0 +1,55 @@
+/*
+ * Copyright (c) 2026 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package org.glassfish.shoal.gms.common;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * The depth of the router signal queue after a signal was queued.
+ */
+@Name("org.glassfish.shoal.gms.RouterQueue")
+@Label("Router Queue")
+@Category({ "Shoal", "GMS" })
+@Description("Depth of the router signal queue after a signal was queued")
+class RouterQueueEvent extends Event {
+
+    @Label("Depth")
+    int depth;
+
+    @Label("Capacity")
+    int capacity;
+
+    @Label("Blocked")
+    @Description("Time the producer waited for room in a full queue")
+    @Timespan(Timespan.MILLISECONDS)
+    long blocked;
+
+    static void commit(SignalQueue queue, int capacity, long blockedMillis) {
+        RouterQueueEvent event = new RouterQueueEvent();
+        if (event.isEnabled()) {
+            event.depth = queue.size();
+            event.capacity = capacity;
+            event.blocked = blockedMillis;
+            event.commit();
+        }
+    }
+}
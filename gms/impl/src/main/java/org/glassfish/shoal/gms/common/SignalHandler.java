@@ -16,7 +16,8 @@
 
 package org.glassfish.shoal.gms.common;
 
-import java.util.concurrent.BlockingQueue;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -33,14 +34,16 @@ import org.glassfish.shoal.gms.api.core.Signal;
 import org.glassfish.shoal.gms.logging.GMSLogDomain;
 
 /**
- * On a separate thread, analyses and handles the Signals delivered to it. Picks up signals from a BlockingQueue and
- * processes them.
+ * On a separate thread, analyses and handles the Signals delivered to it. Picks up batches of signals from a
+ * SignalQueue and processes them, serving failure and shutdown signals that arrive during a batch before the rest of
+ * the batch.
  *
  * @author Shreedhar Ganapathy Date: Jan 22, 2004
  * @version $Revision$
  */
 public class SignalHandler implements Runnable {
-    private final BlockingQueue<SignalPacket> signalQueue;
+    private static final int MAX_BATCH_SIZE = 64;
+    private final SignalQueue signalQueue;
     private final Router router;
     private Logger logger = GMSLogDomain.getLogger(GMSLogDomain.GMS_LOGGER);
     private AtomicBoolean stopped = new AtomicBoolean(false);
@@ -51,30 +54,27 @@ public class SignalHandler implements Runnable {
      * @param packetQueue the packet exchange queue
      * @param router the Router
      */
-    public SignalHandler(final BlockingQueue<SignalPacket> packetQueue, final Router router) {
+    SignalHandler(final SignalQueue packetQueue, final Router router) {
         this.signalQueue = packetQueue;
         this.router = router;
     }
 
     public void run() {
         try {
-            Signal[] signals;
+            List<SignalPacket> batch = new ArrayList<SignalPacket>(MAX_BATCH_SIZE);
             while (!stopped.get()) {
-                SignalPacket signalPacket = null;
                 try {
-                    signalPacket = signalQueue.take();
-                    if (signalPacket != null) {
-                        if ((signals = signalPacket.getSignals()) != null) {
-                            handleSignals(signals);
-                        } else {
-                            handleSignal(signalPacket.getSignal());
+                    batch.clear();
+                    signalQueue.drainTo(batch, MAX_BATCH_SIZE);
+                    for (int i = 0; i < batch.size(); i++) {
+                        if (signalQueue.hasPriority()) {
+                            // failures that arrived after the batch was drained go before the rest of it
+                            signalQueue.promotePriority(batch, i);
                         }
+                        handlePacket(batch.get(i));
                     }
                 } catch (InterruptedException e) {
                     stopped.set(true);
-                } catch (Throwable e) {
-                    logger.log(Level.SEVERE, "sig.handler.unhandled", new Object[] { Thread.currentThread().getName() });
-                    logger.log(Level.WARNING, "stack trace", e);
                 }
             }
         } finally {
@@ -82,6 +82,20 @@ public class SignalHandler implements Runnable {
         }
     }
 
+    private void handlePacket(final SignalPacket signalPacket) {
+        Signal[] signals;
+        try {
+            if ((signals = signalPacket.getSignals()) != null) {
+                handleSignals(signals);
+            } else {
+                handleSignal(signalPacket.getSignal());
+            }
+        } catch (Throwable e) {
+            logger.log(Level.SEVERE, "sig.handler.unhandled", new Object[] { Thread.currentThread().getName() });
+            logger.log(Level.WARNING, "stack trace", e);
+        }
+    }
+
     private void handleSignal(final Signal signal) {
         analyzeSignal(signal);
     }
@@ -27,6 +27,8 @@ import org.glassfish.shoal.gms.api.core.Signal;
 public class SignalPacket {
     private Signal[] signals = null;
     private Signal signal = null;
+    long queuedNanos; // when the packet entered the Router's signal queue
+    long ringIndex; // the packet's index in the normal lane, or how many packets had entered it before this priority packet
 
     public SignalPacket(final Signal[] signals) {
         this.signals = signals;
@@ -0,0 +1,409 @@
+/*
+ * Copyright (c) 2026 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package org.glassfish.shoal.gms.common;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+import org.glassfish.shoal.gms.api.core.FailureNotificationSignal;
+import org.glassfish.shoal.gms.api.core.FailureSuspectedSignal;
+import org.glassfish.shoal.gms.api.core.PlannedShutdownSignal;
+import org.glassfish.shoal.gms.api.core.Signal;
+
+/**
+ * The queue between the producers of signals and the single SignalHandler thread of the Router. Producers claim a slot
+ * of a ring with one compare and set and never take a lock unless the queue is full. The handler drains a batch of
+ * packets at a time, so it is only woken up when it actually ran out of work.
+ *
+ * Failure, failure suspected and planned shutdown signals go through a separate lane that the handler always empties
+ * first and that is not bounded, so a flood of messages cannot delay them. A priority packet still never passes a packet
+ * queued before it for the same member, so a failure is not handled before the join of the member that failed. The other
+ * signals are bounded by the capacity of the queue; their producers block while it is full.
+ */
+class SignalQueue {
+
+    // the time in queue of one in this many packets of the normal lane is measured, every priority packet is
+    private static final int TIME_SAMPLE_INTERVAL = 16;
+
+    private final int capacity;
+
+    private final AtomicReferenceArray<SignalPacket> ring;
+    private final int mask;
+    private final AtomicLong producerIndex = new AtomicLong();
+    private volatile long consumerIndex; // only advanced by the thread draining the ring
+
+    private final ConcurrentLinkedQueue<SignalPacket> priorityLane = new ConcurrentLinkedQueue<SignalPacket>();
+    private final AtomicInteger prioritySize = new AtomicInteger();
+
+    // the handler thread while it is about to park or parked, null while it is working or already woken up
+    private final AtomicReference<Thread> parkedConsumer = new AtomicReference<Thread>();
+
+    private final Object notFull = new Object();
+    private final AtomicInteger waitingProducers = new AtomicInteger();
+
+    private final AtomicInteger highWaterMark = new AtomicInteger();
+    private final LaneStats priorityStats = new LaneStats();
+    private final LaneStats normalStats = new LaneStats();
+    private final AtomicLong blockedCount = new AtomicLong();
+    private final AtomicLong blockedMillis = new AtomicLong();
+    private volatile long batchCount;
+
+    SignalQueue(int capacity) {
+        if (capacity < 1 || capacity > 1 << 30) {
+            throw new IllegalArgumentException("capacity must be between 1 and 2^30: " + capacity);
+        }
+        this.capacity = capacity;
+        int ringSize = Integer.highestOneBit(capacity);
+        if (ringSize < capacity) {
+            ringSize <<= 1;
+        }
+        ring = new AtomicReferenceArray<SignalPacket>(ringSize);
+        mask = ringSize - 1;
+    }
+
+    // a chain of negative instanceof checks against interfaces is slow on the hot path, so the answer is cached per class
+    private static final ClassValue<Boolean> PRIORITY_SIGNAL_CLASSES = new ClassValue<Boolean>() {
+        @Override
+        protected Boolean computeValue(Class<?> type) {
+            return FailureNotificationSignal.class.isAssignableFrom(type) || FailureSuspectedSignal.class.isAssignableFrom(type)
+                    || PlannedShutdownSignal.class.isAssignableFrom(type);
+        }
+    };
+
+    static boolean isPrioritySignal(Signal signal) {
+        return signal != null && PRIORITY_SIGNAL_CLASSES.get(signal.getClass());
+    }
+
+    static boolean isPriorityPacket(SignalPacket packet) {
+        Signal[] signals = packet.getSignals();
+        if (signals == null) {
+            return isPrioritySignal(packet.getSignal());
+        }
+        for (Signal signal : signals) {
+            if (isPrioritySignal(signal)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return false if the packet was not queued because the queue is full
+     */
+    boolean offer(SignalPacket packet) {
+        int size;
+        if (isPriorityPacket(packet)) {
+            packet.queuedNanos = System.nanoTime();
+            packet.ringIndex = producerIndex.get();
+            size = prioritySize.incrementAndGet() + normalSize();
+            priorityLane.add(packet);
+        } else {
+            long index;
+            do {
+                index = producerIndex.get();
+                if (index - consumerIndex >= capacity) {
+                    return false;
+                }
+            } while (!producerIndex.compareAndSet(index, index + 1));
+            packet.queuedNanos = index % TIME_SAMPLE_INTERVAL == 0 ? System.nanoTime() : 0;
+            packet.ringIndex = index;
+            // publishes the packet and its time stamp to the handler
+            ring.lazySet((int) index & mask, packet);
+            size = (int) (index + 1 - consumerIndex) + prioritySize.get();
+        }
+        if (size > highWaterMark.get()) {
+            recordHighWaterMark(size);
+        }
+        // only the first producer after the handler parked pays for waking it up
+        Thread consumer = parkedConsumer.get();
+        if (consumer != null && parkedConsumer.compareAndSet(consumer, null)) {
+            LockSupport.unpark(consumer);
+        }
+        return true;
+    }
+
+    /**
+     * Queues the packet, waiting for room if the queue is full.
+     *
+     * @return the number of milliseconds the caller waited for room
+     */
+    long put(SignalPacket packet) throws InterruptedException {
+        if (offer(packet)) {
+            return 0;
+        }
+        long start = System.currentTimeMillis();
+        long blocked;
+        waitingProducers.incrementAndGet();
+        try {
+            synchronized (notFull) {
+                while (!offer(packet)) {
+                    notFull.wait();
+                }
+            }
+        } finally {
+            waitingProducers.decrementAndGet();
+            blocked = System.currentTimeMillis() - start;
+            blockedCount.incrementAndGet();
+            blockedMillis.addAndGet(blocked);
+        }
+        return blocked;
+    }
+
+    /**
+     * Waits until at least one packet is queued, then moves all the priority packets and up to {@code maxPackets} other
+     * packets to {@code batch}, priority packets first unless a packet queued before them concerns the same member. More
+     * packets are taken when one of them must go before a priority packet. Only one thread may take packets from this
+     * queue.
+     *
+     * @return the number of packets added to the batch
+     */
+    int drainTo(List<SignalPacket> batch, int maxPackets) throws InterruptedException {
+        while (true) {
+            int count = drainAvailable(batch, maxPackets);
+            if (count > 0) {
+                batchCount++;
+                return count;
+            }
+            parkedConsumer.set(Thread.currentThread());
+            // producers read parkedConsumer after queueing, so either they see it or this sees their packet
+            if (isEmpty()) {
+                LockSupport.park(this);
+            } else {
+                // a producer claimed a slot but has not filled it yet
+                Thread.yield();
+            }
+            parkedConsumer.set(null);
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+        }
+    }
+
+    /**
+     * @return true if priority packets may be waiting
+     */
+    boolean hasPriority() {
+        return prioritySize.get() > 0;
+    }
+
+    /**
+     * Moves the waiting priority packets into {@code pending}, ahead of the packets from position {@code from} on, but
+     * behind the last packet queued before them for the same member. Such a packet still in the normal lane is taken
+     * along with all the packets ahead of it. {@code pending} must hold the packets taken from this queue and not yet
+     * handled, in the order they are to be handled. Lets the handler serve failures that arrived during a batch.
+     */
+    void promotePriority(List<SignalPacket> pending, int from) {
+        for (SignalPacket packet = pollPriority(); packet != null; packet = pollPriority()) {
+            int insertAt = from;
+            for (int i = from; i < pending.size(); i++) {
+                SignalPacket other = pending.get(i);
+                // priority packets come out of their lane in order, normal packets are ordered by their index
+                if ((isPriorityPacket(other) || other.ringIndex < packet.ringIndex) && sameMember(other, packet)) {
+                    insertAt = i + 1;
+                }
+            }
+            long last = -1;
+            for (long index = consumerIndex; index < packet.ringIndex; index++) {
+                // a slot not filled yet belongs to an offer that was still running when this packet was queued
+                SignalPacket other = ring.get((int) index & mask);
+                if (other != null && sameMember(other, packet)) {
+                    last = index;
+                }
+            }
+            if (last >= 0) {
+                drainRing(pending, 0, last);
+                insertAt = pending.size();
+            }
+            pending.add(insertAt, packet);
+        }
+    }
+
+    private static boolean sameMember(SignalPacket a, SignalPacket b) {
+        for (Signal signal : signalsOf(a)) {
+            String token = signal.getMemberToken();
+            if (token != null) {
+                for (Signal other : signalsOf(b)) {
+                    if (token.equals(other.getMemberToken())) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    private static Signal[] signalsOf(SignalPacket packet) {
+        Signal[] signals = packet.getSignals();
+        return signals != null ? signals : new Signal[] { packet.getSignal() };
+    }
+
+    private SignalPacket pollPriority() {
+        SignalPacket packet = priorityLane.poll();
+        if (packet != null) {
+            prioritySize.decrementAndGet();
+            long timeInQueue = System.nanoTime() - packet.queuedNanos;
+            priorityStats.record(1, 1, timeInQueue, timeInQueue);
+        }
+        return packet;
+    }
+
+    private int drainAvailable(List<SignalPacket> batch, int maxPackets) {
+        int start = batch.size();
+        long firstIndex = consumerIndex;
+        drainRing(batch, maxPackets, -1);
+        if (hasPriority()) {
+            promotePriority(batch, start);
+        }
+        int normalCount = (int) (consumerIndex - firstIndex);
+        int waiting = waitingProducers.get();
+        if (normalCount > 0 && waiting > 0) {
+            // wake up only as many producers as there is new room for
+            synchronized (notFull) {
+                for (int i = Math.min(normalCount, waiting); i > 0; i--) {
+                    notFull.notify();
+                }
+            }
+        }
+        return batch.size() - start;
+    }
+
+    /**
+     * Moves up to {@code maxPackets} packets of the normal lane to {@code batch}, and at least the packets up to the one
+     * at index {@code through}, waiting for their producers to fill their slots.
+     */
+    private synchronized int drainRing(List<SignalPacket> batch, int maxPackets, long through) {
+        long index = consumerIndex;
+        long now = 0;
+        int count = 0;
+        int samples = 0;
+        long totalTimeInQueue = 0;
+        long maxTimeInQueue = 0;
+        while (count < maxPackets || index <= through) {
+            int slot = (int) index & mask;
+            SignalPacket packet = ring.get(slot);
+            if (packet == null) {
+                if (index <= through) {
+                    // the producer of this slot has claimed it but not filled it yet
+                    Thread.yield();
+                    continue;
+                }
+                // empty, or the producer of this slot has not filled it yet
+                break;
+            }
+            ring.lazySet(slot, null);
+            index++;
+            if (packet.queuedNanos != 0) {
+                if (now == 0) {
+                    now = System.nanoTime();
+                }
+                long timeInQueue = now - packet.queuedNanos;
+                samples++;
+                totalTimeInQueue += timeInQueue;
+                maxTimeInQueue = Math.max(maxTimeInQueue, timeInQueue);
+            }
+            batch.add(packet);
+            count++;
+        }
+        if (count > 0) {
+            // gives the slots back to the producers
+            consumerIndex = index;
+            normalStats.record(count, samples, totalTimeInQueue, maxTimeInQueue);
+        }
+        return count;
+    }
+
+    private void recordHighWaterMark(int size) {
+        int highWater = highWaterMark.get();
+        while (size > highWater && !highWaterMark.compareAndSet(highWater, size)) {
+            highWater = highWaterMark.get();
+        }
+    }
+
+    private int normalSize() {
+        return (int) (producerIndex.get() - consumerIndex);
+    }
+
+    private boolean isEmpty() {
+        return priorityLane.isEmpty() && producerIndex.get() == consumerIndex;
+    }
+
+    int size() {
+        return prioritySize.get() + normalSize();
+    }
+
+    int getHighWaterMark() {
+        return highWaterMark.get();
+    }
+
+    /**
+     * Removes all queued packets. Used once the handler has been stopped.
+     */
+    void drainAll(List<SignalPacket> unprocessed) {
+        for (SignalPacket packet = priorityLane.poll(); packet != null; packet = priorityLane.poll()) {
+            prioritySize.decrementAndGet();
+            unprocessed.add(packet);
+        }
+        while (drainRing(unprocessed, capacity, -1) > 0) {
+        }
+        synchronized (notFull) {
+            notFull.notifyAll();
+        }
+    }
+
+    void clear() {
+        drainAll(new ArrayList<SignalPacket>());
+    }
+
+    @Override
+    public String toString() {
+        return "size=" + size() + ", capacity=" + capacity + ", highWaterMark=" + highWaterMark.get() + ", batches=" + batchCount
+                + ", priority[" + priorityStats + "], normal[" + normalStats + "], blockedProducers=" + blockedCount.get() + " for "
+                + blockedMillis.get() + "ms";
+    }
+
+    /**
+     * The number of packets of one lane and the time a sample of them spent in the queue.
+     */
+    private static class LaneStats {
+        // only written by the thread draining the queue
+        private volatile long count;
+        private volatile long samples;
+        private volatile long totalNanos;
+        private volatile long maxNanos;
+
+        void record(int packets, int sampledPackets, long totalTimeInQueue, long maxTimeInQueue) {
+            count += packets;
+            samples += sampledPackets;
+            totalNanos += totalTimeInQueue;
+            if (maxTimeInQueue > maxNanos) {
+                maxNanos = maxTimeInQueue;
+            }
+        }
+
+        @Override
+        public String toString() {
+            long n = samples;
+            return "dequeued=" + count + ", avgTimeInQueue=" + (n == 0 ? 0 : totalNanos / n / 1000) + "us, maxTimeInQueue=" + maxNanos / 1000 + "us";
+        }
+    }
+}
@@ -21,6 +21,8 @@ import java.io.IOException;
 import java.io.Serializable;
 import java.net.Inet6Address;
 import java.net.InetAddress;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.logging.Level;
@@ -341,6 +343,38 @@ public class ClusterManager implements MessageListener {
         return send(peerid, msg, true);
     }
 
+    /**
+     * Send a message to several nodes at once. The message is serialized once and the sends to all the nodes are in
+     * flight together, so a slow node does not delay the others. Nodes that are not in the view are skipped.
+     *
+     * @param peerids the node IDs
+     * @param msg the message to send
+     * @return the nodes the message could not be sent to, mapped to the cause of the failure or to <code>null</code> if
+     * the send returned false
+     * @throws java.io.IOException if an io error occurs
+     */
+    public Map<PeerID, Throwable> sendToMembers(final List<PeerID> peerids, final Serializable msg) throws IOException {
+        if (stopping) {
+            return Collections.emptyMap();
+        }
+        final List<PeerID> targets = new ArrayList<PeerID>(peerids.size());
+        for (PeerID peerid : peerids) {
+            if (getClusterViewManager().containsKey(peerid, true)) {
+                targets.add(peerid);
+            } else if (LOG.isLoggable(Level.FINE)) {
+                LOG.fine("ClusterManager.send : skipping " + peerid + " which is not in the View anymore");
+            }
+        }
+        if (targets.isEmpty()) {
+            return Collections.emptyMap();
+        }
+
+        final Message message = new MessageImpl(Message.TYPE_CLUSTER_MANAGER_MESSAGE);
+        message.addMessageElement(NODEADV, systemAdv);
+        message.addMessageElement(APPMESSAGE, msg);
+        return netManager.send(targets, message);
+    }
+
     /**
      * {@inheritDoc}
      */
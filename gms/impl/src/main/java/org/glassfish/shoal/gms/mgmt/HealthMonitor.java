@@ -49,6 +49,7 @@ import org.glassfish.shoal.gms.base.GMSThreadFactory;
 import org.glassfish.shoal.gms.base.PeerID;
 import org.glassfish.shoal.gms.base.SystemAdvertisement;
 import org.glassfish.shoal.gms.base.Utility;
+import org.glassfish.shoal.gms.common.GMSEvents;
 import org.glassfish.shoal.gms.logging.GMSLogDomain;
 import org.glassfish.shoal.gms.mgmt.transport.Message;
 import org.glassfish.shoal.gms.mgmt.transport.MessageEvent;
@@ -1371,6 +1372,7 @@ public class HealthMonitor implements MessageListener, Runnable {
                 // health message sequence id's should only be used from instance that the health message is reporting about.
                 reportOtherPeerState(reportEntry);
             }
+            GMSEvents.healthStateTransition(entry.adv.getName(), manager.getGroupName(), reportEntry.state, masterNode.isMaster());
             LOG.log(Level.FINEST, "Notifying Local Listeners of designated indoubt state for " + entry.adv.getName());
             notifyLocalListeners(reportEntry.state, reportEntry.adv);
         }
@@ -1440,6 +1442,7 @@ public class HealthMonitor implements MessageListener, Runnable {
                 deadEntry = new HealthMessage.Entry(lastCheck.adv, states[DEAD], lastCheck.getSeqID());
                 cache.put(lastCheck.id, deadEntry);
             }
+            GMSEvents.healthStateTransition(entry.adv.getName(), manager.getGroupName(), deadEntry.state, masterNode.isMaster());
             if (LOG.isLoggable(Level.FINE)) {
                 fine(" assignAndReportFailure => going to put into cache " + entry.adv.getName() + " state is " + entry.state);
             }
@@ -17,6 +17,15 @@
 package org.glassfish.shoal.gms.mgmt.transport;
 
 import java.io.IOException;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 import org.glassfish.shoal.gms.base.PeerID;
 
@@ -40,6 +49,61 @@ public abstract class AbstractMessageSender implements MessageSender {
      * {@inheritDoc}
      */
     public boolean send(final PeerID peerID, final Message message) throws IOException {
+        prepareMessage(peerID, message);
+        return doSend(peerID, message);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public Map<PeerID, Throwable> send(final Collection<PeerID> peerIDs, final Message message) throws IOException {
+        if (peerIDs == null) {
+            throw new IOException("peer IDs can not be null");
+        }
+        if (message == null) {
+            throw new IOException("message is null");
+        }
+        if (localPeerID != null) {
+            message.addMessageElement(Message.SOURCE_PEER_ID_TAG, localPeerID);
+        }
+
+        final Map<PeerID, Throwable> failures = new HashMap<PeerID, Throwable>();
+        final Map<PeerID, Future<Boolean>> pendingSends = new LinkedHashMap<PeerID, Future<Boolean>>();
+        for (PeerID peerID : peerIDs) {
+            try {
+                pendingSends.put(peerID, doSendAsync(peerID, message));
+            } catch (IOException ie) {
+                failures.put(peerID, ie);
+            }
+        }
+
+        final long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(getWriteTimeoutMillis());
+        for (Map.Entry<PeerID, Future<Boolean>> pendingSend : pendingSends.entrySet()) {
+            try {
+                if (!pendingSend.getValue().get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS)) {
+                    failures.put(pendingSend.getKey(), null);
+                }
+            } catch (ExecutionException ee) {
+                failures.put(pendingSend.getKey(), ee.getCause());
+            } catch (TimeoutException te) {
+                failures.put(pendingSend.getKey(), te);
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+                failures.put(pendingSend.getKey(), ie);
+            }
+        }
+        return failures;
+    }
+
+    /**
+     * Validates the parameters of a send and stores both source's {@link PeerID} and target's {@link PeerID} in the
+     * message
+     *
+     * @param peerID the destination {@link PeerID}. <code>null</code> is not allowed
+     * @param message a message which is sent to the peer
+     * @throws IOException if given parameters are not valid
+     */
+    protected void prepareMessage(final PeerID peerID, final Message message) throws IOException {
         if (peerID == null) {
             throw new IOException("peer ID can not be null");
         }
@@ -52,7 +116,6 @@ public abstract class AbstractMessageSender implements MessageSender {
         if (peerID != null) {
             message.addMessageElement(Message.TARGET_PEER_ID_TAG, peerID);
         }
-        return doSend(peerID, message);
     }
 
     /**
@@ -76,4 +139,24 @@ public abstract class AbstractMessageSender implements MessageSender {
      * @throws IOException if I/O error occurs or given parameters are not valid
      */
     protected abstract boolean doSend(final PeerID peerID, final Message message) throws IOException;
+
+    /**
+     * Starts sending the given {@link Message}, as is, to the destination. This implementation sends synchronously,
+     * transports with asynchronous writes should override it
+     *
+     * @param peerID the destination {@link PeerID}. <code>null</code> is not allowed
+     * @param message a message which is sent to the peer
+     * @return a future completed with the result of {@link #doSend(PeerID, Message)}
+     * @throws IOException if I/O error occurs or given parameters are not valid
+     */
+    protected Future<Boolean> doSendAsync(final PeerID peerID, final Message message) throws IOException {
+        return CompletableFuture.completedFuture(doSend(peerID, message));
+    }
+
+    /**
+     * @return how long {@link #send(Collection, Message)} waits for the sends to complete
+     */
+    protected long getWriteTimeoutMillis() {
+        return 0;
+    }
 }
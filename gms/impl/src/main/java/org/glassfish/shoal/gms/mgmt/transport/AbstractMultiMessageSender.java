@@ -17,6 +17,9 @@
 package org.glassfish.shoal.gms.mgmt.transport;
 
 import java.io.IOException;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
 
 import org.glassfish.shoal.gms.base.PeerID;
 
@@ -69,6 +72,34 @@ public abstract class AbstractMultiMessageSender implements MulticastMessageSend
         return doSend(peerID, message);
     }
 
+    /**
+     * {@inheritDoc}
+     *
+     * This implementation sends to one destination after the other
+     */
+    public Map<PeerID, Throwable> send(final Collection<PeerID> peerIDs, final Message message) throws IOException {
+        if (peerIDs == null) {
+            throw new IOException("peer IDs can not be null");
+        }
+        if (message == null) {
+            throw new IOException("message is null");
+        }
+        if (localPeerID != null) {
+            message.addMessageElement(Message.SOURCE_PEER_ID_TAG, localPeerID);
+        }
+        final Map<PeerID, Throwable> failures = new HashMap<PeerID, Throwable>();
+        for (PeerID peerID : peerIDs) {
+            try {
+                if (!doSend(peerID, message)) {
+                    failures.put(peerID, null);
+                }
+            } catch (IOException ie) {
+                failures.put(peerID, ie);
+            }
+        }
+        return failures;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -245,5 +245,15 @@ public abstract class AbstractNetworkManager implements NetworkManager {
         if (LOG.isLoggable(Level.CONFIG)) {
             LOG.log(Level.CONFIG, "GMS MAX_MESSAGE_LENGTH={0}", maxMsgLength);
         }
+        boolean compactEncoding = Utility.getBooleanProperty(ServiceProviderConfigurationKeys.COMPACT_MESSAGE_ENCODING.toString(), false, properties);
+        MessageImpl.setCompactEncoding(compactEncoding);
+        if (LOG.isLoggable(Level.CONFIG)) {
+            LOG.log(Level.CONFIG, "GMS COMPACT_MESSAGE_ENCODING={0}", compactEncoding);
+        }
+        int compressionThreshold = Utility.getIntProperty(ServiceProviderConfigurationKeys.MESSAGE_COMPRESSION_THRESHOLD.toString(), 0, properties);
+        MessageImpl.setCompressionThreshold(compressionThreshold);
+        if (LOG.isLoggable(Level.CONFIG)) {
+            LOG.log(Level.CONFIG, "GMS MESSAGE_COMPRESSION_THRESHOLD={0}", compressionThreshold);
+        }
     }
 }
@@ -24,6 +24,8 @@ import java.net.InetAddress;
 import java.net.InetSocketAddress;
 import java.net.MulticastSocket;
 import java.net.NetworkInterface;
+import java.nio.ByteBuffer;
+import java.util.List;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Executor;
 import java.util.concurrent.RejectedExecutionException;
@@ -40,7 +42,8 @@ import org.glassfish.shoal.gms.logging.GMSLogDomain;
  * This class is a default {@link MulticastMessageSender}'s implementation and extends
  * {@link AbstractMulticastMessageSender}
  *
- * This uses <code>MulticastSocket</code> which is based on Blocking I/O
+ * This uses <code>MulticastSocket</code> which is based on Blocking I/O. Messages larger than one datagram are sent as
+ * fragments, see {@link MulticastFragmentAssembler}.
  *
  * @author Bongjae Chang
  */
@@ -59,6 +62,7 @@ public class BlockingIOMulticastSender extends AbstractMulticastMessageSender im
 
     private NetworkInterface anInterface;
     private int multicastPacketSize;
+    private final MulticastFragmentAssembler fragments;
     private MulticastSocket multicastSocket;
     private Thread multicastThread;
 
@@ -96,6 +100,7 @@ public class BlockingIOMulticastSender extends AbstractMulticastMessageSender im
         } else {
             this.multicastPacketSize = multicastPacketSize;
         }
+        this.fragments = new MulticastFragmentAssembler(this.multicastPacketSize);
         this.localPeerID = localPeerID;
         this.executor = executor;
         this.threadPoolExecutor = executor instanceof ThreadPoolExecutor ? (ThreadPoolExecutor) executor : null;
@@ -214,6 +219,7 @@ public class BlockingIOMulticastSender extends AbstractMulticastMessageSender im
                 sb.append(" largest pool size:").append(threadPoolExecutor.getLargestPoolSize()).append(" task count:")
                         .append(threadPoolExecutor.getTaskCount());
                 sb.append(" max queue size:").append(maxExecutorQueueSize).append(" rejected execution:").append(rejectedExecution);
+                sb.append(' ').append(fragments);
                 monitorLog.log(level, sb.toString());
             } catch (Throwable t) {
             }
@@ -281,30 +287,30 @@ public class BlockingIOMulticastSender extends AbstractMulticastMessageSender im
         if (message == null) {
             throw new IOException("message is null");
         }
-        byte[] messageBytes = message.getPlainBytes();
-        int numBytesInPacket = messageBytes.length;
-        if ((numBytesInPacket > multicastPacketSize)) {
-            LOG.log(Level.WARNING, "blockingiomcast.exceedsmaxsize", new Object[] { numBytesInPacket, multicastPacketSize });
-        }
-        DatagramPacket packet;
-        if (localSocketAddress != null) {
-            if (multicastSocketAddress == null) {
-                throw new IOException("multicast address can not be null");
-            }
-            packet = new DatagramPacket(messageBytes, numBytesInPacket, multicastSocketAddress);
-        } else {
-            if (multicastAddress == null) {
-                throw new IOException("multicast address can not be null");
+        List<ByteBuffer> datagrams = fragments.fragment(message.getPlainByteBuffer().duplicate());
+        for (ByteBuffer datagram : datagrams) {
+            byte[] messageBytes = datagram.array();
+            int numBytesInPacket = datagram.remaining();
+            DatagramPacket packet;
+            if (localSocketAddress != null) {
+                if (multicastSocketAddress == null) {
+                    throw new IOException("multicast address can not be null");
+                }
+                packet = new DatagramPacket(messageBytes, datagram.arrayOffset() + datagram.position(), numBytesInPacket, multicastSocketAddress);
+            } else {
+                if (multicastAddress == null) {
+                    throw new IOException("multicast address can not be null");
+                }
+                packet = new DatagramPacket(messageBytes, datagram.arrayOffset() + datagram.position(), numBytesInPacket, multicastAddress,
+                        multicastPort);
             }
-            packet = new DatagramPacket(messageBytes, numBytesInPacket, multicastAddress, multicastPort);
-        }
 
-        if (multicastSocket != null) {
+            if (multicastSocket == null) {
+                return false;
+            }
             multicastSocket.send(packet);
-            return true;
-        } else {
-            return false;
         }
+        return true;
     }
 
     private class MessageProcessTask implements Runnable {
@@ -324,6 +330,12 @@ public class BlockingIOMulticastSender extends AbstractMulticastMessageSender im
                 message = new MessageImpl();
                 byte[] byteMessage = packet.getData();
                 try {
+                    if (MulticastFragmentAssembler.isFragment(byteMessage, packet.getOffset(), packet.getLength())) {
+                        byteMessage = fragments.addFragment(byteMessage, packet.getOffset(), packet.getLength());
+                        if (byteMessage == null) {
+                            return;
+                        }
+                    }
                     int messageLen = message.parseHeader(byteMessage, 0);
                     message.parseMessage(byteMessage, MessageImpl.HEADER_LENGTH, messageLen);
                 } catch (IllegalArgumentException iae) {
@@ -0,0 +1,126 @@
+/*
+ * Copyright (c) 2026 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package org.glassfish.shoal.gms.mgmt.transport;
+
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import org.glassfish.shoal.gms.common.GMSMonitor;
+
+/**
+ * Compresses the encoded elements of a {@link MessageImpl}, used when the header carries
+ * {@link MessageImpl#COMPRESSED_FLAG}. The compressed form is the length of the uncompressed elements followed by the
+ * elements deflated at {@link Deflater#BEST_SPEED}. Each thread reuses its own Deflater, Inflater and output buffer.
+ */
+final class MessageCompressor {
+
+    private static final ThreadLocal<Deflater> deflaters = new ThreadLocal<Deflater>() {
+        @Override
+        protected Deflater initialValue() {
+            return new Deflater(Deflater.BEST_SPEED);
+        }
+    };
+
+    private static final ThreadLocal<Inflater> inflaters = new ThreadLocal<Inflater>() {
+        @Override
+        protected Inflater initialValue() {
+            return new Inflater();
+        }
+    };
+
+    private static final ThreadLocal<byte[]> outputBuffers = new ThreadLocal<byte[]>();
+
+    private MessageCompressor() {
+    }
+
+    /**
+     * @return the compressed form of the given elements, or null if it would not be smaller
+     */
+    static byte[] compress(final byte[] bytes, final int offset, final int length) {
+        if (length <= 4) {
+            return null;
+        }
+        final long start = System.nanoTime();
+        byte[] out = outputBuffers.get();
+        if (out == null || out.length < length) {
+            out = new byte[length];
+            outputBuffers.set(out);
+        }
+
+        final Deflater deflater = deflaters.get();
+        int compressedLength = 4;
+        try {
+            NetworkUtility.writeIntToByteArray(out, 0, length);
+            deflater.setInput(bytes, offset, length);
+            deflater.finish();
+            while (!deflater.finished() && compressedLength < length) {
+                compressedLength += deflater.deflate(out, compressedLength, length - compressedLength);
+            }
+            if (!deflater.finished()) {
+                compressedLength = length;
+            }
+        } finally {
+            deflater.reset();
+        }
+
+        final boolean smaller = compressedLength < length;
+        GMSMonitor.getCompressionStats().recordCompression(length, smaller ? compressedLength : length, System.nanoTime() - start);
+        return smaller ? Arrays.copyOf(out, compressedLength) : null;
+    }
+
+    /**
+     * @return the uncompressed elements
+     * @throws MessageIOException if the compressed form is damaged or would exceed the maximum message length
+     */
+    static byte[] decompress(final byte[] bytes, final int offset, final int length) throws MessageIOException {
+        final long start = System.nanoTime();
+        if (length < 4) {
+            throw new MessageIOException("compressed message is too short: " + length);
+        }
+        final int uncompressedLength = NetworkUtility.getIntFromByteArray(bytes, offset);
+        if (uncompressedLength < 0 || uncompressedLength > MessageImpl.getMaxMessageLength()) {
+            throw new MessageIOException("uncompressed message size is not valid: size = " + uncompressedLength + ", max size = "
+                    + MessageImpl.getMaxMessageLength());
+        }
+
+        final byte[] out = new byte[uncompressedLength];
+        final Inflater inflater = inflaters.get();
+        int inflated = 0;
+        try {
+            inflater.setInput(bytes, offset + 4, length - 4);
+            while (inflated < uncompressedLength) {
+                int count = inflater.inflate(out, inflated, uncompressedLength - inflated);
+                if (count == 0 && (inflater.finished() || inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                inflated += count;
+            }
+        } catch (DataFormatException dfe) {
+            throw new MessageIOException("failed to decompress a message", dfe);
+        } finally {
+            inflater.reset();
+        }
+        if (inflated != uncompressedLength) {
+            throw new MessageIOException("compressed message is truncated: " + inflated + " of " + uncompressedLength + " bytes");
+        }
+
+        GMSMonitor.getCompressionStats().recordDecompression(System.nanoTime() - start);
+        return out;
+    }
+}
@@ -0,0 +1,309 @@
+/*
+ * Copyright (c) 2026 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+
+package org.glassfish.shoal.gms.mgmt.transport;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.glassfish.shoal.gms.api.spi.GMSMessage;
+import org.glassfish.shoal.gms.logging.GMSLogDomain;
+import org.glassfish.shoal.gms.mgmt.transport.buffers.ExpandableBufferWriter;
+
+/**
+ * The compact encoding of the elements of a {@link MessageImpl}, used when the header carries
+ * {@link MessageImpl#COMPACT_ENCODING_FLAG}. Each element is written as name + type tag + value. Well known element
+ * names are written as a one byte id and Strings, byte arrays, longs, ints, booleans and {@link GMSMessage}s natively.
+ * Any other value is written by one {@link ObjectOutputStream} appended after the last element, so that the values
+ * of a message still share their class descriptors.
+ *
+ * When written to an {@link ExpandableBufferWriter}, large byte arrays are handed to
+ * {@link ExpandableBufferWriter#putShared(byte[], int, int)} rather than copied. Application payloads are
+ * copied once by GroupHandleImpl when the message is built, so they are never shared with the caller.
+ *
+ * The element name ids and the type tags are part of the wire format: only ever append to them.
+ */
+final class MessageElementCodec {
+
+    private static final Logger LOG = GMSLogDomain.getLogger(GMSLogDomain.GMS_LOGGER);
+
+    private static final String[] ELEMENT_NAMES = { null, Message.SOURCE_PEER_ID_TAG, Message.TARGET_PEER_ID_TAG, "APPMESSAGE", "NAD", "HM", "SEQ", "ACK",
+            "SRCID", "RESEND", "CCNTL", "MN", "MQ", "NQ", "MR", "NR", "AMV", "AMVS", "GS", "GN", "GSC", "RR", "LMWID", "VCE", "RJSE", "MEMBERSTATEQUERY",
+            "MEMBERSTATERESPONSE", "WATCHDOG_NOTIFICATION" };
+
+    private static final Map<String, Integer> ELEMENT_IDS = new HashMap<String, Integer>();
+
+    static {
+        for (int id = 1; id < ELEMENT_NAMES.length; id++) {
+            ELEMENT_IDS.put(ELEMENT_NAMES[id], id);
+        }
+    }
+
+    private static final int INLINE_NAME = 0;
+
+    private static final byte TAG_NULL = 0;
+    private static final byte TAG_SERIALIZED = 1;
+    private static final byte TAG_STRING = 2;
+    private static final byte TAG_BYTES = 3;
+    private static final byte TAG_LONG = 4;
+    private static final byte TAG_INTEGER = 5;
+    private static final byte TAG_BOOLEAN = 6;
+    private static final byte TAG_GMS_MESSAGE = 7;
+
+    private static final int SHARED_BYTES_THRESHOLD = 2 * 1024;
+
+    private MessageElementCodec() {
+    }
+
+    /**
+     * @return the number of written elements
+     */
+    static int serialize(final OutputStream os, final Map<String, Serializable> messages) throws MessageIOException {
+        return serialize(os, null, messages);
+    }
+
+    /**
+     * @return the number of written elements
+     */
+    static int serialize(final ExpandableBufferWriter bufferWriter, final Map<String, Serializable> messages) throws MessageIOException {
+        return serialize(bufferWriter.asOutputStream(), bufferWriter, messages);
+    }
+
+    private static int serialize(final OutputStream os, final ExpandableBufferWriter bufferWriter, final Map<String, Serializable> messages)
+            throws MessageIOException {
+        int count = 0;
+        if (os == null || messages == null) {
+            return count;
+        }
+        String name = null;
+        List<Map.Entry<String, Serializable>> serialized = null;
+        try {
+            DataOutputStream dos = new DataOutputStream(os);
+            for (Map.Entry<String, Serializable> entry : messages.entrySet()) {
+                name = entry.getKey();
+                count++;
+                writeName(dos, name);
+                if (!writeNativeValue(dos, bufferWriter, entry.getValue())) {
+                    dos.writeByte(TAG_SERIALIZED);
+                    if (serialized == null) {
+                        serialized = new ArrayList<Map.Entry<String, Serializable>>(2);
+                    }
+                    serialized.add(entry);
+                }
+            }
+            if (serialized != null) {
+                // straight to the output, after the last element
+                ObjectOutputStream oos = new ObjectOutputStream(dos);
+                for (Map.Entry<String, Serializable> entry : serialized) {
+                    name = entry.getKey();
+                    oos.writeObject(entry.getValue());
+                }
+                oos.flush();
+            }
+            dos.flush();
+        } catch (Throwable t) {
+            throw new MessageIOException("failed to serialize a message : name = " + name + ".", t);
+        }
+        return count;
+    }
+
+    static void deserialize(final InputStream is, final int count, final Map<String, Serializable> messages) throws MessageIOException {
+        if (is == null || count <= 0 || messages == null) {
+            return;
+        }
+        String name = null;
+        try {
+            DataInputStream dis = new DataInputStream(is);
+            List<String> serializedNames = null;
+            for (int i = 0; i < count; i++) {
+                name = readName(dis);
+                byte tag = dis.readByte();
+                if (tag == TAG_SERIALIZED) {
+                    if (serializedNames == null) {
+                        serializedNames = new ArrayList<String>(2);
+                    }
+                    serializedNames.add(name);
+                } else if (tag != TAG_NULL) {
+                    messages.put(name, readNativeValue(dis, tag));
+                }
+            }
+            if (serializedNames != null) {
+                ObjectInputStream ois = new ObjectInputStream(is);
+                for (String serializedName : serializedNames) {
+                    name = serializedName;
+                    Object obj = ois.readObject();
+                    if (obj instanceof Serializable) {
+                        messages.put(name, (Serializable) obj);
+                    }
+                }
+            }
+        } catch (Throwable t) {
+            LOG.log(Level.WARNING, "netutil.deserialize.failure", new Object[] { messages.toString(), name, Thread.currentThread().getName() });
+            throw new MessageIOException("failed to deserialize a message : name = " + name, t);
+        }
+    }
+
+    private static void writeName(final DataOutputStream dos, final String name) throws IOException {
+        Integer id = ELEMENT_IDS.get(name);
+        if (id != null) {
+            dos.writeByte(id);
+        } else {
+            dos.writeByte(INLINE_NAME);
+            writeString(dos, name);
+        }
+    }
+
+    private static String readName(final DataInputStream dis) throws IOException {
+        int id = dis.readUnsignedByte();
+        if (id == INLINE_NAME) {
+            return readString(dis);
+        }
+        if (id >= ELEMENT_NAMES.length) {
+            throw new IOException("unknown element name id " + id);
+        }
+        return ELEMENT_NAMES[id];
+    }
+
+    /**
+     * @return false if the value has to be serialized. Only the exact classes are written natively so that subclasses keep
+     * their type.
+     */
+    private static boolean writeNativeValue(final DataOutputStream dos, final ExpandableBufferWriter bufferWriter, final Serializable value)
+            throws IOException {
+        if (value == null) {
+            dos.writeByte(TAG_NULL);
+            return true;
+        }
+        Class<?> type = value.getClass();
+        if (type == String.class) {
+            dos.writeByte(TAG_STRING);
+            writeString(dos, (String) value);
+        } else if (type == byte[].class) {
+            dos.writeByte(TAG_BYTES);
+            writeBytes(dos, bufferWriter, (byte[]) value);
+        } else if (type == Long.class) {
+            dos.writeByte(TAG_LONG);
+            dos.writeLong((Long) value);
+        } else if (type == Integer.class) {
+            dos.writeByte(TAG_INTEGER);
+            dos.writeInt((Integer) value);
+        } else if (type == Boolean.class) {
+            dos.writeByte(TAG_BOOLEAN);
+            dos.writeBoolean((Boolean) value);
+        } else if (type == GMSMessage.class) {
+            GMSMessage msg = (GMSMessage) value;
+            dos.writeByte(TAG_GMS_MESSAGE);
+            writeString(dos, msg.getComponentName());
+            writeBytes(dos, bufferWriter, msg.getMessage());
+            writeString(dos, msg.getGroupName());
+            dos.writeLong(msg.getStartTime());
+        } else {
+            return false;
+        }
+        return true;
+    }
+
+    private static Serializable readNativeValue(final DataInputStream dis, final byte tag) throws IOException {
+        switch (tag) {
+        case TAG_STRING:
+            return readString(dis);
+        case TAG_BYTES:
+            return readBytes(dis);
+        case TAG_LONG:
+            return dis.readLong();
+        case TAG_INTEGER:
+            return dis.readInt();
+        case TAG_BOOLEAN:
+            return dis.readBoolean();
+        case TAG_GMS_MESSAGE:
+            return new GMSMessage(readString(dis), readBytes(dis), readString(dis), dis.readLong());
+        default:
+            throw new IOException("unknown element type tag " + tag);
+        }
+    }
+
+    private static void writeString(final DataOutputStream dos, final String value) throws IOException {
+        writeBytes(dos, null, value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String readString(final DataInputStream dis) throws IOException {
+        return new String(readBytes(dis), StandardCharsets.UTF_8);
+    }
+
+    // The length is written plus one, so that 0 stands for null
+    private static void writeBytes(final DataOutputStream dos, final ExpandableBufferWriter bufferWriter, final byte[] value) throws IOException {
+        if (value == null) {
+            writeVarInt(dos, 0);
+        } else {
+            writeVarInt(dos, value.length + 1);
+            if (bufferWriter != null && value.length >= SHARED_BYTES_THRESHOLD) {
+                // dos does not buffer, so the bytes land right after the length
+                bufferWriter.putShared(value, 0, value.length);
+            } else {
+                dos.write(value);
+            }
+        }
+    }
+
+    private static byte[] readBytes(final DataInputStream dis) throws IOException {
+        int length = readVarInt(dis) - 1;
+        if (length < 0) {
+            return null;
+        }
+        // The message is fully buffered: never wait for bytes that are not there
+        if (length > dis.available()) {
+            throw new IOException("element length " + length + " exceeds the remaining message length");
+        }
+        byte[] value = new byte[length];
+        dis.readFully(value);
+        return value;
+    }
+
+    // 7 bits per byte, low bits first: lengths below 128 take one byte
+    private static void writeVarInt(final DataOutputStream dos, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            dos.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        dos.writeByte(value);
+    }
+
+    private static int readVarInt(final DataInputStream dis) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            int b = dis.readUnsignedByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("malformed length");
+    }
+}
@@ -51,6 +51,15 @@ import org.glassfish.shoal.gms.mgmt.transport.buffers.ExpandableBufferWriterFact
  * messages(message_length) [messages] message_count(4) + message_key1 + message_value1 + message_key2 + message_value2
  * + ...(message_count) ----
  *
+ * The version carries {@link #COMPACT_ENCODING_FLAG} when the messages are written by {@link MessageElementCodec}
+ * instead of one ObjectOutputStream. Members always read both encodings but only write the compact one if
+ * {@link #setCompactEncoding(boolean)} is enabled, which is off by default so that old members can still read the
+ * messages until they have left the group.
+ *
+ * The version carries {@link #COMPRESSED_FLAG} when the messages are compressed by {@link MessageCompressor}. Members
+ * always read compressed messages but only compress the ones reaching {@link #setCompressionThreshold(int)}, which is
+ * off by default. Health monitor messages are never compressed.
+ *
  * @author Bongjae Chang
  */
 public class MessageImpl implements Message {
@@ -66,6 +75,18 @@ public class MessageImpl implements Message {
     private static final int MAGIC_NUMBER = 770303;
     private static final int VERSION = 1;
 
+    /**
+     * Set in the version of the header when the messages use the compact encoding
+     */
+    public static final int COMPACT_ENCODING_FLAG = 0x10000;
+    /**
+     * Set in the version of the header when the messages are compressed
+     */
+    public static final int COMPRESSED_FLAG = 0x20000;
+    private static final int VERSION_MASK = 0xFFFF;
+    private static volatile boolean compactEncoding = false;
+    private static volatile int compressionThreshold = 0;
+
     private static final int MAGIC_NUMBER_LENGTH = 4;
     private static final int VERSION_LENGTH = 4;
     private static final int TYPE_LENGTH = 4;
@@ -74,6 +95,8 @@ public class MessageImpl implements Message {
 
     private volatile int version;
     private volatile int type;
+    private volatile boolean compactElements;
+    private volatile boolean compressedElements;
 
     private final Map<String, Serializable> messages = new HashMap<String, Serializable>();
     private final ReentrantLock messageLock = new ReentrantLock();
@@ -89,6 +112,25 @@ public class MessageImpl implements Message {
         maxTotalMessageLength = maxMsgLength;
     }
 
+    public static boolean isCompactEncoding() {
+        return compactEncoding;
+    }
+
+    public static void setCompactEncoding(boolean compact) {
+        compactEncoding = compact;
+    }
+
+    public static int getCompressionThreshold() {
+        return compressionThreshold;
+    }
+
+    /**
+     * @param threshold the encoded size of the messages from which they are compressed, 0 or less to never compress
+     */
+    public static void setCompressionThreshold(int threshold) {
+        compressionThreshold = threshold;
+    }
+
     public MessageImpl() {
     }
 
@@ -146,7 +188,7 @@ public class MessageImpl implements Message {
         if (magicNumber != MAGIC_NUMBER) {
             throw new IllegalArgumentException("magic number is not valid");
         }
-        version = readInt(bytes, offset + 4);
+        parseVersion(readInt(bytes, offset + 4));
         type = readInt(bytes, offset + 8);
         messageLen = readInt(bytes, offset + 12);
         return messageLen;
@@ -173,7 +215,7 @@ public class MessageImpl implements Message {
             if (magicNumber != MAGIC_NUMBER) {
                 throw new IllegalArgumentException("magic number is not valid");
             }
-            version = buffer.getInt();
+            parseVersion(buffer.getInt());
             type = buffer.getInt();
             messageLen = buffer.getInt();
         } finally {
@@ -182,6 +224,22 @@ public class MessageImpl implements Message {
         return messageLen;
     }
 
+    private void parseVersion(final int versionWithFlags) {
+        version = versionWithFlags & VERSION_MASK;
+        compactElements = (versionWithFlags & COMPACT_ENCODING_FLAG) != 0;
+        compressedElements = (versionWithFlags & COMPRESSED_FLAG) != 0;
+    }
+
+    private int getVersionWithFlags(final boolean compact, final boolean compressed) {
+        int versionWithFlags = compact ? version | COMPACT_ENCODING_FLAG : version;
+        return compressed ? versionWithFlags | COMPRESSED_FLAG : versionWithFlags;
+    }
+
+    private boolean shouldCompress(final int messagesLength) {
+        final int threshold = compressionThreshold;
+        return threshold > 0 && messagesLength >= threshold && type != TYPE_HEALTH_MONITOR_MESSAGE;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -211,7 +269,12 @@ public class MessageImpl implements Message {
                 throw new IllegalArgumentException("byte[] is too small");
             }
 
-            ByteArrayInputStream bais = new ByteArrayInputStream(bytes, offset, length);
+            ByteArrayInputStream bais;
+            if (compressedElements) {
+                bais = new ByteArrayInputStream(MessageCompressor.decompress(bytes, offset, length));
+            } else {
+                bais = new ByteArrayInputStream(bytes, offset, length);
+            }
             try {
                 readMessagesInputStream(bais);
             } finally {
@@ -257,7 +320,13 @@ public class MessageImpl implements Message {
 
                 buffer.limit(offset + length);
                 receiveStartTime = System.currentTimeMillis();
-                readMessagesInputStream(new BufferInputStream(buffer));
+                if (compressedElements) {
+                    byte[] compressed = new byte[length];
+                    buffer.get(compressed);
+                    readMessagesInputStream(new ByteArrayInputStream(MessageCompressor.decompress(compressed, 0, length)));
+                } else {
+                    readMessagesInputStream(new BufferInputStream(buffer));
+                }
                 receiveDuration = System.currentTimeMillis() - receiveStartTime;
                 calledMonitor = true;
                 monitorReceive(receiveDuration);
@@ -322,7 +391,11 @@ public class MessageImpl implements Message {
             int messageCount = readInt(is);
             messageLock.lock();
             try {
-                NetworkUtility.deserialize(is, messageCount, messages);
+                if (compactElements) {
+                    MessageElementCodec.deserialize(is, messageCount, messages);
+                } else {
+                    NetworkUtility.deserialize(is, messageCount, messages);
+                }
             } finally {
                 modified = true;
                 messageLock.unlock();
@@ -396,16 +469,18 @@ public class MessageImpl implements Message {
     public ByteBuffer getPlainByteBuffer() throws MessageIOException {
         messageLock.lock();
         try {
-            if (cachedByteBuffer != null && !modified) {
+            dropStaleCaches();
+            if (cachedByteBuffer != null) {
                 return cachedByteBuffer;
             }
+            final boolean compact = compactEncoding;
             MessageByteArrayOutputStream mbaos = new MessageByteArrayOutputStream();
             DataOutputStream dos = null;
             try {
                 dos = new DataOutputStream(mbaos);
                 int tempInt = 0;
                 dos.writeInt(tempInt);
-                int messageCount = NetworkUtility.serialize(mbaos, messages);
+                int messageCount = compact ? MessageElementCodec.serialize(mbaos, messages) : NetworkUtility.serialize(mbaos, messages);
                 mbaos.writeIntWithoutCount(0, messageCount);
             } catch (IOException ie) {
                 throw new MessageIOException(ie);
@@ -431,16 +506,20 @@ public class MessageImpl implements Message {
                 }
                 throw new MessageIOException("total message size is too big: size = " + msgSize + ", max size = " + maxTotalMessageLength + toString());
             }
+            final byte[] compressed = shouldCompress(messageLen) ? MessageCompressor.compress(messageBytes, 0, messageLen) : null;
+            if (compressed != null) {
+                messageBytes = compressed;
+                messageLen = compressed.length;
+            }
             cachedByteBuffer = ByteBuffer.allocate(HEADER_LENGTH + messageLen);
             cachedByteBuffer.putInt(MAGIC_NUMBER);
-            cachedByteBuffer.putInt(version);
+            cachedByteBuffer.putInt(getVersionWithFlags(compact, compressed != null));
             cachedByteBuffer.putInt(type);
             cachedByteBuffer.putInt(messageLen);
             cachedByteBuffer.put(messageBytes, 0, messageLen);
             cachedByteBuffer.flip();
             return cachedByteBuffer;
         } finally {
-            modified = false;
             messageLock.unlock();
         }
     }
@@ -460,10 +539,12 @@ public class MessageImpl implements Message {
     public Buffer getPlainBuffer(final ExpandableBufferWriterFactory bufferWriterFactory) throws MessageIOException {
         messageLock.lock();
         try {
-            if (cachedBuffer != null && !modified) {
+            dropStaleCaches();
+            if (cachedBuffer != null) {
                 return cachedBuffer.duplicate();
             }
 
+            final boolean compact = compactEncoding;
             final ExpandableBufferWriter bufferWriter = bufferWriterFactory.create();
 
             final int headerStart = bufferWriter.position();
@@ -473,7 +554,8 @@ public class MessageImpl implements Message {
                 final int pos = bufferWriter.position();
                 bufferWriter.reserve(4);
 
-                final int messageCount = NetworkUtility.serialize(bufferWriter.asOutputStream(), messages);
+                final int messageCount = compact ? MessageElementCodec.serialize(bufferWriter, messages)
+                        : NetworkUtility.serialize(bufferWriter.asOutputStream(), messages);
 
                 bufferWriter.putInt(pos, messageCount);
             } catch (IOException ie) {
@@ -490,11 +572,18 @@ public class MessageImpl implements Message {
             }
 
             bufferWriter.putInt(headerStart, MAGIC_NUMBER);
-            bufferWriter.putInt(headerStart + 4, version);
+            bufferWriter.putInt(headerStart + 4, getVersionWithFlags(compact, false));
             bufferWriter.putInt(headerStart + 8, type);
             bufferWriter.putInt(headerStart + 12, msgSize - HEADER_LENGTH);
 
             cachedBuffer = bufferWriter.toBuffer();
+            if (shouldCompress(msgSize - HEADER_LENGTH)) {
+                final Buffer compressedBuffer = compress(cachedBuffer.duplicate(), compact, bufferWriterFactory);
+                if (compressedBuffer != null) {
+                    cachedBuffer = compressedBuffer;
+                    return compressedBuffer.duplicate();
+                }
+            }
 
             return bufferWriter.toBuffer();
         } finally {
@@ -502,6 +591,34 @@ public class MessageImpl implements Message {
         }
     }
 
+    // Returns null if compressing the messages of the given plain buffer does not make them smaller
+    private Buffer compress(final Buffer plain, final boolean compact, final ExpandableBufferWriterFactory bufferWriterFactory) {
+        plain.position(plain.position() + HEADER_LENGTH);
+        final byte[] messageBytes = new byte[plain.remaining()];
+        plain.get(messageBytes);
+        final byte[] compressed = MessageCompressor.compress(messageBytes, 0, messageBytes.length);
+        if (compressed == null) {
+            return null;
+        }
+
+        final ExpandableBufferWriter bufferWriter = bufferWriterFactory.create();
+        bufferWriter.putInt(MAGIC_NUMBER);
+        bufferWriter.putInt(getVersionWithFlags(compact, true));
+        bufferWriter.putInt(type);
+        bufferWriter.putInt(compressed.length);
+        bufferWriter.putShared(compressed, 0, compressed.length);
+        return bufferWriter.toBuffer();
+    }
+
+    // Both cached forms are stale once an element has changed. Must be called with messageLock held
+    private void dropStaleCaches() {
+        if (modified) {
+            cachedBuffer = null;
+            cachedByteBuffer = null;
+            modified = false;
+        }
+    }
+
     public static String getStringType(final int type) {
         switch (type) {
         case TYPE_CLUSTER_MANAGER_MESSAGE:
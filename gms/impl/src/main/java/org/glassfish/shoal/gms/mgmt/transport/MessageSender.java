@@ -17,6 +17,8 @@
 package org.glassfish.shoal.gms.mgmt.transport;
 
 import java.io.IOException;
+import java.util.Collection;
+import java.util.Map;
 
 import org.glassfish.shoal.gms.base.PeerID;
 
@@ -38,4 +40,16 @@ public interface MessageSender extends ShoalMessageSender {
      * @throws IOException if I/O error occurs or given parameters are not valid
      */
     boolean send(final PeerID peerID, final Message message) throws IOException;
+
+    /**
+     * Sends the given {@link Message} to all the destinations at once: a slow destination does not delay the others. The
+     * message carries no target's {@link PeerID}, so it is serialized only once
+     *
+     * @param peerIDs the destinations
+     * @param message a message which is sent to the peers
+     * @return the destinations the message could not be sent to, mapped to the cause of the failure or to
+     * <code>null</code> if the send returned false
+     * @throws IOException if given parameters are not valid
+     */
+    Map<PeerID, Throwable> send(final Collection<PeerID> peerIDs, final Message message) throws IOException;
 }
@@ -0,0 +1,294 @@
+/*
+ * Copyright (c) 2026 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package org.glassfish.shoal.gms.mgmt.transport;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.glassfish.shoal.gms.logging.GMSLogDomain;
+
+/**
+ * Splits the messages that do not fit in one multicast datagram into fragments and puts them back together on
+ * receipt.
+ *
+ * A fragment starts with its own magic number, so it is never mistaken for a whole message and messages that fit in
+ * one datagram are sent unchanged. The header then carries a random id of the sending assembler, the sequence number of
+ * the message, the index and count of the fragment, its offset and the total message length. Received fragments are
+ * copied into a buffer per message until all have arrived. Incomplete messages are dropped after
+ * {@link #REASSEMBLY_TIMEOUT_MILLIS}, at most {@link #MAX_PARTIAL_MESSAGES} of them are kept at once, and fragments of
+ * messages that have already been delivered are ignored.
+ */
+public class MulticastFragmentAssembler {
+
+    private static final Logger LOG = GMSLogDomain.getLogger(GMSLogDomain.GMS_LOGGER);
+
+    /**
+     * Largest UDP payload over IPv4
+     */
+    public static final int MAX_DATAGRAM_SIZE = 65507;
+
+    static final int FRAGMENT_MAGIC_NUMBER = 770313;
+
+    // magic, sender id, sequence, index, count, offset, total length
+    static final int FRAGMENT_HEADER_LENGTH = 4 + 8 + 4 + 2 + 2 + 4 + 4;
+
+    private static final int MAX_FRAGMENT_COUNT = 0xFFFF;
+
+    static final long REASSEMBLY_TIMEOUT_MILLIS = 5 * 1000;
+
+    static final int MAX_PARTIAL_MESSAGES = 64;
+
+    // delivered messages remembered to suppress duplicate fragments
+    private static final int COMPLETED_HISTORY_SIZE = 1024;
+
+    private final long senderId = new Random().nextLong();
+    private final AtomicInteger nextSequence = new AtomicInteger();
+    private final int datagramSize;
+
+    private final Map<MessageKey, PartialMessage> partialMessages = new HashMap<MessageKey, PartialMessage>();
+    private final Map<MessageKey, Boolean> completedMessages = new LinkedHashMap<MessageKey, Boolean>() {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<MessageKey, Boolean> eldest) {
+            return size() > COMPLETED_HISTORY_SIZE;
+        }
+    };
+    private long lastExpiryCheck = System.nanoTime();
+
+    // stats
+    private final AtomicLong fragmentedMessages = new AtomicLong();
+    private final AtomicLong reassembledMessages = new AtomicLong();
+    private final AtomicLong duplicateFragments = new AtomicLong();
+    private final AtomicLong droppedFragments = new AtomicLong();
+    private final AtomicLong expiredMessages = new AtomicLong();
+
+    /**
+     * @param datagramSize the largest datagram to send, capped at {@link #MAX_DATAGRAM_SIZE}
+     */
+    public MulticastFragmentAssembler(int datagramSize) {
+        this.datagramSize = Math.min(datagramSize, MAX_DATAGRAM_SIZE);
+        if (this.datagramSize <= FRAGMENT_HEADER_LENGTH) {
+            throw new IllegalArgumentException("datagram size is too small: " + datagramSize);
+        }
+    }
+
+    /**
+     * @param message the plain bytes of a message, from its position to its limit
+     * @return the message itself if it fits in one datagram, otherwise its fragments in order
+     * @throws IOException if the message needs more fragments than the header can count
+     */
+    public List<ByteBuffer> fragment(final ByteBuffer message) throws IOException {
+        List<ByteBuffer> datagrams = new ArrayList<ByteBuffer>();
+        int totalLength = message.remaining();
+        if (totalLength <= datagramSize) {
+            datagrams.add(message);
+            return datagrams;
+        }
+
+        int chunkSize = datagramSize - FRAGMENT_HEADER_LENGTH;
+        int count = (totalLength + chunkSize - 1) / chunkSize;
+        if (count > MAX_FRAGMENT_COUNT) {
+            throw new IOException("message of " + totalLength + " bytes needs too many fragments: " + count);
+        }
+        int sequence = nextSequence.incrementAndGet();
+        int start = message.position();
+        for (int index = 0; index < count; index++) {
+            int offset = index * chunkSize;
+            int length = Math.min(chunkSize, totalLength - offset);
+            ByteBuffer datagram = ByteBuffer.allocate(FRAGMENT_HEADER_LENGTH + length);
+            datagram.putInt(FRAGMENT_MAGIC_NUMBER);
+            datagram.putLong(senderId);
+            datagram.putInt(sequence);
+            datagram.putShort((short) index);
+            datagram.putShort((short) count);
+            datagram.putInt(offset);
+            datagram.putInt(totalLength);
+            ByteBuffer chunk = message.duplicate();
+            chunk.position(start + offset);
+            chunk.limit(start + offset + length);
+            datagram.put(chunk);
+            datagram.flip();
+            datagrams.add(datagram);
+        }
+        fragmentedMessages.incrementAndGet();
+        return datagrams;
+    }
+
+    /**
+     * @return true if the given datagram is a fragment rather than a whole message
+     */
+    public static boolean isFragment(final byte[] bytes, final int offset, final int length) {
+        return length >= FRAGMENT_HEADER_LENGTH && ByteBuffer.wrap(bytes, offset, length).getInt() == FRAGMENT_MAGIC_NUMBER;
+    }
+
+    /**
+     * Adds a received fragment. Its bytes are copied, so the given array may be reused as soon as this returns.
+     *
+     * @return the plain bytes of the whole message once its last missing fragment has arrived, otherwise null
+     */
+    public synchronized byte[] addFragment(final byte[] bytes, final int offset, final int length) {
+        expirePartialMessages(false);
+
+        ByteBuffer header = ByteBuffer.wrap(bytes, offset, length);
+        header.getInt();
+        MessageKey key = new MessageKey(header.getLong(), header.getInt());
+        int index = header.getShort() & 0xFFFF;
+        int count = header.getShort() & 0xFFFF;
+        int fragmentOffset = header.getInt();
+        int totalLength = header.getInt();
+        int fragmentLength = length - FRAGMENT_HEADER_LENGTH;
+
+        if (index >= count || totalLength <= 0 || totalLength > MessageImpl.getMaxMessageLength() || fragmentOffset < 0
+                || fragmentOffset > totalLength - fragmentLength) {
+            dropFragment("damaged fragment", key, index, count);
+            return null;
+        }
+        if (completedMessages.containsKey(key)) {
+            duplicateFragments.incrementAndGet();
+            return null;
+        }
+
+        PartialMessage partial = partialMessages.get(key);
+        if (partial == null) {
+            if (partialMessages.size() >= MAX_PARTIAL_MESSAGES) {
+                expirePartialMessages(true);
+            }
+            if (partialMessages.size() >= MAX_PARTIAL_MESSAGES) {
+                dropFragment("too many partial messages", key, index, count);
+                return null;
+            }
+            partial = new PartialMessage(count, totalLength);
+            partialMessages.put(key, partial);
+        } else if (partial.count != count || partial.data.length != totalLength) {
+            dropFragment("fragment does not match its message", key, index, count);
+            return null;
+        }
+
+        if (partial.received.get(index)) {
+            duplicateFragments.incrementAndGet();
+            return null;
+        }
+        System.arraycopy(bytes, offset + FRAGMENT_HEADER_LENGTH, partial.data, fragmentOffset, fragmentLength);
+        partial.received.set(index);
+        if (--partial.missing > 0) {
+            return null;
+        }
+
+        partialMessages.remove(key);
+        completedMessages.put(key, Boolean.TRUE);
+        reassembledMessages.incrementAndGet();
+        return partial.data;
+    }
+
+    private void dropFragment(String reason, MessageKey key, int index, int count) {
+        droppedFragments.incrementAndGet();
+        if (LOG.isLoggable(Level.FINE)) {
+            LOG.fine("dropped multicast fragment " + index + " of " + count + " for " + key + ": " + reason);
+        }
+    }
+
+    // checks at most once per second unless forced
+    private void expirePartialMessages(boolean force) {
+        long now = System.nanoTime();
+        if (!force && now - lastExpiryCheck < TimeUnit.SECONDS.toNanos(1)) {
+            return;
+        }
+        lastExpiryCheck = now;
+        long timeout = TimeUnit.MILLISECONDS.toNanos(REASSEMBLY_TIMEOUT_MILLIS);
+        for (Iterator<Map.Entry<MessageKey, PartialMessage>> it = partialMessages.entrySet().iterator(); it.hasNext();) {
+            Map.Entry<MessageKey, PartialMessage> entry = it.next();
+            if (now - entry.getValue().startTime > timeout) {
+                it.remove();
+                expiredMessages.incrementAndGet();
+                if (LOG.isLoggable(Level.FINE)) {
+                    LOG.fine("dropped incomplete multicast message " + entry.getKey() + " missing " + entry.getValue().missing + " of "
+                            + entry.getValue().count + " fragments");
+                }
+            }
+        }
+    }
+
+    public synchronized int getPartialMessageCount() {
+        return partialMessages.size();
+    }
+
+    @Override
+    public String toString() {
+        return "fragmented: " + fragmentedMessages.get() + " reassembled: " + reassembledMessages.get() + " duplicate fragments: "
+                + duplicateFragments.get() + " dropped fragments: " + droppedFragments.get() + " expired: " + expiredMessages.get();
+    }
+
+    private static class MessageKey {
+
+        private final long senderId;
+        private final int sequence;
+
+        MessageKey(long senderId, int sequence) {
+            this.senderId = senderId;
+            this.sequence = sequence;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof MessageKey)) {
+                return false;
+            }
+            MessageKey other = (MessageKey) o;
+            return senderId == other.senderId && sequence == other.sequence;
+        }
+
+        @Override
+        public int hashCode() {
+            return (int) (senderId ^ (senderId >>> 32)) * 31 + sequence;
+        }
+
+        @Override
+        public String toString() {
+            return Long.toHexString(senderId) + ":" + sequence;
+        }
+    }
+
+    private static class PartialMessage {
+
+        private final byte[] data;
+        private final int count;
+        private final BitSet received;
+        private final long startTime = System.nanoTime();
+        private int missing;
+
+        PartialMessage(int count, int totalLength) {
+            this.data = new byte[totalLength];
+            this.count = count;
+            this.received = new BitSet(count);
+            this.missing = count;
+        }
+    }
+}
@@ -0,0 +1,509 @@
+/*
+ * Copyright (c) 2026 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package org.glassfish.shoal.gms.mgmt.transport;
+
+import java.io.IOException;
+import java.net.Inet6Address;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.NetworkInterface;
+import java.net.ProtocolFamily;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.MembershipKey;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.glassfish.shoal.gms.api.core.GMSConstants;
+import org.glassfish.shoal.gms.base.PeerID;
+import org.glassfish.shoal.gms.logging.GMSLogDomain;
+
+/**
+ * A {@link MulticastMessageSender} based on a non-blocking <code>DatagramChannel</code> and a selector.
+ *
+ * Packets are received into a small pool of reused buffers, and each buffer goes back to the pool as soon as its
+ * message has been parsed. Outgoing datagrams are queued and whichever thread wins the channel sends everything
+ * queued so far, so concurrent broadcasts do not serialize on a socket lock. When the socket send buffer is full the
+ * listener thread resumes sending once it drains. Messages larger than one datagram are sent as fragments, see
+ * {@link MulticastFragmentAssembler}.
+ */
+public class NIOMulticastSender extends AbstractMulticastMessageSender implements Runnable {
+
+    private static final Logger LOG = GMSLogDomain.getLogger(GMSLogDomain.GMS_LOGGER);
+    private static final Logger monitorLog = GMSLogDomain.getMonitorLogger();
+    private static final Logger mcastLog = GMSLogDomain.getMcastLogger();
+
+    private static final String DEFAULT_MULTICAST_ADDRESS = "230.30.1.1";
+    private static final int DEFAULT_MULTICAST_PACKET_SIZE = 16384;
+
+    // receive buffers kept for reuse. More may be in flight under a burst; the extra ones are left to the GC
+    private static final int RECEIVE_BUFFER_POOL_SIZE = 32;
+
+    // datagrams waiting for room in the socket send buffer
+    private static final int MAX_PENDING_SENDS = 1024;
+
+    private final InetSocketAddress localSocketAddress;
+    private final InetAddress multicastAddress;
+    private final int multicastPort;
+    private final InetSocketAddress multicastSocketAddress;
+    private final Executor executor;
+    private final ThreadPoolExecutor threadPoolExecutor;
+    private final NetworkManager networkManager;
+
+    private NetworkInterface anInterface;
+    private final int multicastPacketSize;
+    private final MulticastFragmentAssembler fragments;
+    private int multicastTimeToLive = GMSConstants.DEFAULT_MULTICAST_TIME_TO_LIVE;
+
+    private DatagramChannel channel;
+    private Selector selector;
+    private SelectionKey selectionKey;
+    private MembershipKey membershipKey;
+    private Thread multicastThread;
+
+    private volatile boolean running;
+    private final CountDownLatch endGate = new CountDownLatch(1);
+    private long shutdownTimeout = 5 * 1000; // ms
+
+    private final BlockingQueue<ByteBuffer> receiveBuffers = new ArrayBlockingQueue<ByteBuffer>(RECEIVE_BUFFER_POOL_SIZE);
+    private final ConcurrentLinkedQueue<PendingDatagram> pendingSends = new ConcurrentLinkedQueue<PendingDatagram>();
+    private final AtomicInteger pendingSendCount = new AtomicInteger();
+    private final AtomicBoolean sending = new AtomicBoolean(false);
+
+    // stats
+    private long receivedPackets = 0;
+    private long allocatedReceiveBuffers = 0;
+    private long maxExecutorQueueSize = 0;
+    private long rejectedExecution = 0;
+    private final AtomicLong sentPackets = new AtomicLong();
+    private final AtomicLong droppedSends = new AtomicLong();
+
+    public NIOMulticastSender(String host, String multicastAddress, int multicastPort, String networkInterfaceName, int multicastPacketSize,
+            PeerID localPeerID, Executor executor, int multicastTimeToLive, NetworkManager networkManager) throws IOException {
+        this.localSocketAddress = host == null ? null : new InetSocketAddress(host, multicastPort);
+        this.multicastPort = multicastPort;
+        if (multicastAddress == null) {
+            multicastAddress = DEFAULT_MULTICAST_ADDRESS;
+        }
+        this.multicastAddress = InetAddress.getByName(multicastAddress);
+        this.multicastSocketAddress = new InetSocketAddress(this.multicastAddress, multicastPort);
+        if (networkInterfaceName != null) {
+            NetworkInterface anInterface = NetworkInterface.getByName(networkInterfaceName);
+            if (NetworkUtility.supportsMulticast(anInterface) && anInterface.isUp()) {
+                this.anInterface = anInterface;
+            }
+        }
+        this.multicastPacketSize = Math.max(multicastPacketSize, DEFAULT_MULTICAST_PACKET_SIZE);
+        this.fragments = new MulticastFragmentAssembler(this.multicastPacketSize);
+        this.localPeerID = localPeerID;
+        this.executor = executor;
+        this.threadPoolExecutor = executor instanceof ThreadPoolExecutor ? (ThreadPoolExecutor) executor : null;
+        this.networkManager = networkManager;
+        this.multicastTimeToLive = multicastTimeToLive;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized void start() throws IOException {
+        if (running) {
+            return;
+        }
+        super.start();
+        boolean ipv6 = multicastAddress instanceof Inet6Address;
+        ProtocolFamily family = ipv6 ? StandardProtocolFamily.INET6 : StandardProtocolFamily.INET;
+        channel = DatagramChannel.open(family);
+        channel.setOption(StandardSocketOptions.SO_REUSEADDR, true);
+        channel.bind(new InetSocketAddress(multicastPort));
+
+        NetworkInterface joinInterface = null;
+        if (anInterface != null && localSocketAddress != null) {
+            // prefer the interface owning the bind address, see GLASSFISH-16103
+            NetworkInterface bindInterface = NetworkInterface.getByInetAddress(localSocketAddress.getAddress());
+            joinInterface = bindInterface != null ? bindInterface : anInterface;
+            try {
+                channel.setOption(StandardSocketOptions.IP_MULTICAST_IF, joinInterface);
+            } catch (Exception e) {
+                LOG.log(Level.WARNING, "mgmt.blockingiomulticast.setinterfacefailed",
+                        new Object[] { localSocketAddress.getAddress(), channel.getOption(StandardSocketOptions.IP_MULTICAST_IF) });
+                joinInterface = null;
+            }
+        }
+        if (joinInterface == null) {
+            joinInterface = NetworkUtility.getFirstNetworkInterface(ipv6);
+        }
+
+        // enable loopback.
+        channel.setOption(StandardSocketOptions.IP_MULTICAST_LOOP, true);
+
+        // enforce a minimum for time to live UNLESS it is explicitly set via GMS configuration property.
+        if (multicastTimeToLive > 0) {
+            try {
+                channel.setOption(StandardSocketOptions.IP_MULTICAST_TTL, multicastTimeToLive);
+                LOG.config("set via property: IP_MULTICAST_TTL=" + channel.getOption(StandardSocketOptions.IP_MULTICAST_TTL));
+            } catch (IOException ioe) {
+                LOG.log(Level.WARNING, "blockingiomcast.fail.set.timetolive", new Object[] { multicastTimeToLive });
+            } catch (IllegalArgumentException iae) {
+                LOG.log(Level.WARNING, "blockingiomcast.fail.set.timetolive", new Object[] { multicastTimeToLive });
+            }
+        } else if (channel.getOption(StandardSocketOptions.IP_MULTICAST_TTL) < GMSConstants.MINIMUM_MULTICAST_TIME_TO_LIVE) {
+            try {
+                multicastTimeToLive = GMSConstants.MINIMUM_MULTICAST_TIME_TO_LIVE;
+                channel.setOption(StandardSocketOptions.IP_MULTICAST_TTL, multicastTimeToLive);
+                LOG.config("Set via default minimum: IP_MULTICAST_TTL=" + channel.getOption(StandardSocketOptions.IP_MULTICAST_TTL));
+            } catch (IOException ioe) {
+                LOG.log(Level.WARNING, "blockingiomcast.fail.set.timetolive", new Object[] { multicastTimeToLive });
+            }
+        }
+
+        channel.configureBlocking(false);
+        selector = Selector.open();
+        selectionKey = channel.register(selector, SelectionKey.OP_READ);
+        running = true;
+
+        multicastThread = new Thread(this, "IP Multicast Listener for " + multicastSocketAddress);
+        multicastThread.setDaemon(true);
+        multicastThread.start();
+
+        LOG.config("DatagramChannel configuration: local socket address: " + channel.getLocalAddress() + " network interface: " + joinInterface
+                + " multicast address:" + multicastAddress + " timeToLive=" + channel.getOption(StandardSocketOptions.IP_MULTICAST_TTL));
+        membershipKey = channel.join(multicastAddress, joinInterface);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized void stop() throws IOException {
+        if (!running) {
+            return;
+        }
+        running = false;
+        super.stop();
+        if (membershipKey != null) {
+            membershipKey.drop();
+        }
+        if (selector != null) {
+            selector.wakeup();
+        }
+        try {
+            endGate.await(shutdownTimeout, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+        }
+        if (selector != null) {
+            try {
+                selector.close();
+            } catch (IOException e) {
+            }
+        }
+        if (channel != null) {
+            channel.close();
+        }
+        pendingSends.clear();
+        pendingSendCount.set(0);
+        printStats(Level.INFO);
+    }
+
+    private void printStats(Level level) {
+        try {
+            StringBuilder sb = new StringBuilder();
+            sb.append("NIOMulticastSender monitoring stats: ");
+            sb.append("received: ").append(receivedPackets).append(" sent: ").append(sentPackets.get());
+            sb.append(" dropped sends: ").append(droppedSends.get());
+            sb.append(" allocated receive buffers: ").append(allocatedReceiveBuffers).append(' ').append(fragments);
+            if (threadPoolExecutor != null) {
+                sb.append(" core poolsize:").append(threadPoolExecutor.getCorePoolSize());
+                sb.append(" largest pool size:").append(threadPoolExecutor.getLargestPoolSize()).append(" task count:")
+                        .append(threadPoolExecutor.getTaskCount());
+            }
+            sb.append(" max queue size:").append(maxExecutorQueueSize).append(" rejected execution:").append(rejectedExecution);
+            monitorLog.log(level, sb.toString());
+        } catch (Throwable t) {
+        }
+    }
+
+    public void run() {
+        try {
+            while (running) {
+                try {
+                    selector.select();
+                    if (!running) {
+                        break;
+                    }
+                    selector.selectedKeys().clear();
+                    if (selectionKey.isValid() && selectionKey.isWritable()) {
+                        selectionKey.interestOps(SelectionKey.OP_READ);
+                        // send failures are reported to the broadcasters, they must not end this thread
+                        sendPending();
+                    }
+                    if (selectionKey.isValid() && selectionKey.isReadable()) {
+                        receivePackets();
+                    }
+                } catch (ClosedChannelException e) {
+                    break;
+                } catch (ClosedSelectorException e) {
+                    break;
+                } catch (IOException e) {
+                    if (!running) {
+                        break;
+                    }
+                    LOG.log(Level.SEVERE, "blockingiomcast.mcastreceivefailure", new Object[] { e.getLocalizedMessage() });
+                    break;
+                }
+            }
+        } catch (Throwable t) {
+            LOG.log(Level.SEVERE, "blockingiomcast.receiveprocess.uncaughtthrowable",
+                    new Object[] { t.getLocalizedMessage(), Thread.currentThread().getName() });
+            LOG.log(Level.SEVERE, "stack trace", t);
+        } finally {
+            multicastThread = null;
+            endGate.countDown();
+            LOG.log(Level.INFO, "mgmt.blockingiomulticast.threadcomplete", new Object[] { Thread.currentThread().getName() });
+        }
+    }
+
+    // Reads every datagram already waiting on the channel
+    private void receivePackets() throws IOException {
+        while (running) {
+            ByteBuffer buffer = receiveBuffers.poll();
+            if (buffer == null) {
+                buffer = ByteBuffer.allocate(multicastPacketSize);
+                allocatedReceiveBuffers++;
+            }
+            SocketAddress source = channel.receive(buffer);
+            if (source == null) {
+                releaseReceiveBuffer(buffer);
+                return;
+            }
+            receivedPackets++;
+            Runnable processor = new MessageProcessTask(buffer);
+            if (executor == null) {
+                processor.run();
+                continue;
+            }
+            try {
+                executor.execute(processor);
+            } catch (RejectedExecutionException ree) {
+                rejectedExecution++;
+                releaseReceiveBuffer(buffer);
+                LOG.log(Level.SEVERE, "blockingiomcast.mcastreceivefailure", new Object[] { ree.getLocalizedMessage() });
+                continue;
+            }
+            if (threadPoolExecutor != null) {
+                int qsize = threadPoolExecutor.getQueue().size();
+                if (qsize > maxExecutorQueueSize) {
+                    maxExecutorQueueSize = qsize;
+                }
+            }
+        }
+    }
+
+    private void releaseReceiveBuffer(ByteBuffer buffer) {
+        buffer.clear();
+        receiveBuffers.offer(buffer);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * The message is queued when the socket send buffer is full, so true means it has been handed to the channel.
+     * Returns false if too many datagrams are already waiting. Throws the IOException of a datagram of this message
+     * that failed before returning; a datagram failing once sent by another thread is only logged.
+     */
+    protected boolean doBroadcast(final Message message) throws IOException {
+        if (!running || channel == null) {
+            throw new IOException("multicast server is not running");
+        }
+        if (message == null) {
+            throw new IOException("message is null");
+        }
+        List<ByteBuffer> datagrams = fragments.fragment(message.getPlainByteBuffer().duplicate());
+        if (datagrams.size() > 1 && mcastLog.isLoggable(Level.FINER)) {
+            mcastLog.log(Level.FINER, "NIOMulticastSender sending message " + message + " as " + datagrams.size() + " fragments");
+        }
+        if (pendingSendCount.addAndGet(datagrams.size()) > MAX_PENDING_SENDS) {
+            pendingSendCount.addAndGet(-datagrams.size());
+            droppedSends.incrementAndGet();
+            return false;
+        }
+        PendingBroadcast broadcast = new PendingBroadcast();
+        for (ByteBuffer datagram : datagrams) {
+            pendingSends.offer(new PendingDatagram(datagram, broadcast));
+        }
+        sendPending();
+        IOException failure = broadcast.failure;
+        if (failure != null) {
+            throw failure;
+        }
+        return true;
+    }
+
+    private void sendPending() {
+        // Whoever holds the channel re-checks the queue after releasing it, so no datagram is left behind
+        while (!pendingSends.isEmpty() && sending.compareAndSet(false, true)) {
+            boolean full = false;
+            try {
+                for (PendingDatagram pending = pendingSends.peek(); pending != null; pending = pendingSends.peek()) {
+                    if (pending.broadcast.failure != null) {
+                        // the other fragments of a failed message are of no use to the receivers
+                        pendingSends.poll();
+                        pendingSendCount.decrementAndGet();
+                        continue;
+                    }
+                    int sent;
+                    try {
+                        sent = sendDatagram(pending.datagram);
+                    } catch (IOException e) {
+                        pendingSends.poll();
+                        pendingSendCount.decrementAndGet();
+                        droppedSends.incrementAndGet();
+                        pending.broadcast.failure = e;
+                        if (running) {
+                            LOG.log(Level.WARNING, "blockingiomcast.mcastsendfailure", new Object[] { e.getLocalizedMessage() });
+                        }
+                        continue;
+                    }
+                    if (sent == 0) {
+                        full = true;
+                        break;
+                    }
+                    pendingSends.poll();
+                    pendingSendCount.decrementAndGet();
+                    sentPackets.incrementAndGet();
+                }
+            } finally {
+                sending.set(false);
+            }
+            if (full) {
+                // no room in the socket send buffer. The listener thread resumes when the channel is writable, which
+                // must not happen before the channel has been released
+                selectionKey.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+                selector.wakeup();
+                return;
+            }
+        }
+    }
+
+    int sendDatagram(ByteBuffer datagram) throws IOException {
+        return channel.send(datagram, multicastSocketAddress);
+    }
+
+    // the outcome of one doBroadcast(), shared by the datagrams of its message
+    private static final class PendingBroadcast {
+
+        volatile IOException failure;
+    }
+
+    private static final class PendingDatagram {
+
+        final ByteBuffer datagram;
+        final PendingBroadcast broadcast;
+
+        PendingDatagram(ByteBuffer datagram, PendingBroadcast broadcast) {
+            this.datagram = datagram;
+            this.broadcast = broadcast;
+        }
+    }
+
+    private class MessageProcessTask implements Runnable {
+
+        private final ByteBuffer buffer;
+
+        public MessageProcessTask(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        public void run() {
+            Message message = null;
+            try {
+                message = new MessageImpl();
+                try {
+                    byte[] byteMessage = buffer.array();
+                    int packetLength = buffer.position();
+                    if (MulticastFragmentAssembler.isFragment(byteMessage, 0, packetLength)) {
+                        byteMessage = fragments.addFragment(byteMessage, 0, packetLength);
+                        if (byteMessage == null) {
+                            return;
+                        }
+                        packetLength = byteMessage.length;
+                    }
+                    if (packetLength < MessageImpl.HEADER_LENGTH) {
+                        throw new IllegalArgumentException("packet is too small: " + packetLength);
+                    }
+                    int messageLen = message.parseHeader(byteMessage, 0);
+                    if (messageLen > packetLength - MessageImpl.HEADER_LENGTH) {
+                        throw new IllegalArgumentException("packet is truncated: length = " + packetLength + ", message length = " + messageLen);
+                    }
+                    message.parseMessage(byteMessage, MessageImpl.HEADER_LENGTH, messageLen);
+                } catch (IllegalArgumentException iae) {
+                    if (LOG.isLoggable(Level.WARNING)) {
+                        LOG.log(Level.WARNING, "blockingiomcast.damaged", iae);
+                    }
+                    return;
+                } catch (MessageIOException mie) {
+                    if (LOG.isLoggable(Level.WARNING)) {
+                        LOG.log(Level.WARNING, "blockingiomcast.damaged", mie);
+                    }
+                    return;
+                } finally {
+                    // the message elements have been copied out of the buffer
+                    releaseReceiveBuffer(buffer);
+                }
+                if (networkManager != null) {
+                    networkManager.receiveMessage(message, null);
+                    if (message.getType() != MessageImpl.TYPE_HEALTH_MONITOR_MESSAGE) {
+                        if (mcastLog.isLoggable(Level.FINER)) {
+                            mcastLog.log(Level.FINER, "NIOMulticastSender.receiveMessage processed multicast message " + message.toString());
+                        }
+                    }
+                }
+            } catch (Throwable t) {
+                if (LOG.isLoggable(Level.WARNING)) {
+                    String msgOutput = "";
+                    try {
+                        if (message != null) {
+                            msgOutput = message.toString();
+                        }
+                    } catch (Throwable tt) {
+                    }
+                    LOG.log(Level.WARNING, "blockingiomcast.failprocessing", new Object[] { msgOutput });
+                    LOG.log(Level.WARNING, "stack trace", t);
+                }
+            }
+        }
+    }
+}
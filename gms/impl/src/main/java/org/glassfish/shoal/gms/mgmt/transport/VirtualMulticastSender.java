@@ -102,34 +102,34 @@ public class VirtualMulticastSender extends AbstractMulticastMessageSender {
                 removeUnknownInstances();
             }
         }
-        for (PeerID peerID : virtualPeerIdList) {
-            try {
-                if (LOG.isLoggable(Level.FINEST)) {
-                    LOG.log(Level.FINEST, "VirtualMulticastSender.doBroadcast prepare to send msg to peerID " + peerID);
-                }
-                if (!tcpSender.send(peerID, message)) {
-                    if (LOG.isLoggable(Level.FINE)) {
-                        LOG.log(Level.FINE, "VirtualMulticastSender.doBroadcast failed to send msg to peerID " + peerID);
-                    }
-                    result = false;
-                } else {
-                    if (LOG.isLoggable(Level.FINEST)) {
-                        LOG.log(Level.FINEST, "VirtualMulticastSender.doBroadcast succeded to send msg to peerID " + peerID);
-                    }
-                }
-
-            } catch (IOException ie) {
+        if (LOG.isLoggable(Level.FINEST)) {
+            LOG.log(Level.FINEST, "VirtualMulticastSender.doBroadcast prepare to send msg to peerIDs " + virtualPeerIdList);
+        }
+        // the sends to all the peers are in flight together, a stalled peer does not delay the others
+        final Map<PeerID, Throwable> failures = tcpSender.send(virtualPeerIdList, message);
+        for (Map.Entry<PeerID, Throwable> failure : failures.entrySet()) {
+            final PeerID peerID = failure.getKey();
+            final Throwable cause = failure.getValue();
+            if (cause instanceof IOException) {
                 Long lastFail = lastReportedSendFailure.get(peerID);
                 long currentTime = System.currentTimeMillis();
                 if (lastFail == null || ((lastFail - currentTime) > LAST_REPORTED_FAILURE_DURATION_MS)) {
                     if (LOG.isLoggable(Level.FINE)) {
-                        LOG.log(Level.FINE, "failed to send message to a virtual multicast endpoint[" + peerID + "] message=[" + message + "]", ie);
+                        LOG.log(Level.FINE, "failed to send message to a virtual multicast endpoint[" + peerID + "] message=[" + message + "]", cause);
                     }
                     lastReportedSendFailure.put(peerID, currentTime);
                 }
                 purge();
+            } else {
+                if (LOG.isLoggable(Level.FINE)) {
+                    LOG.log(Level.FINE, "VirtualMulticastSender.doBroadcast failed to send msg to peerID " + peerID, cause);
+                }
+                result = false;
             }
         }
+        if (LOG.isLoggable(Level.FINEST)) {
+            LOG.log(Level.FINEST, "VirtualMulticastSender.doBroadcast succeded to send msg to " + (virtualPeerIdList.size() - failures.size()) + " peerIDs");
+        }
         return result;
     }
 
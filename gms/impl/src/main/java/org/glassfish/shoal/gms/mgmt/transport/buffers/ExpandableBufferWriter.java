@@ -440,6 +440,26 @@ public abstract class ExpandableBufferWriter {
         return this;
     }
 
+    /**
+     * Relative bulk <i>put</i> method for bytes that do not have to be copied.
+     *
+     * <p>
+     * Implementations may reference the given array from the written data instead of copying it, so it must not be
+     * modified afterwards. This implementation copies it like {@link #put(byte[], int, int)}.
+     * </p>
+     *
+     * @param src The array from which bytes are to be read
+     *
+     * @param offset The offset within the array of the first byte to be read
+     *
+     * @param length The number of bytes to be read from the given array
+     *
+     * @return This buffer writer
+     */
+    public ExpandableBufferWriter putShared(final byte[] src, final int offset, final int length) {
+        return put(src, offset, length);
+    }
+
     public OutputStream asOutputStream() {
         return outputStream;
     }
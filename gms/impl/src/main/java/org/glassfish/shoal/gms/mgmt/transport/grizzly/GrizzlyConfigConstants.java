@@ -38,9 +38,15 @@ public enum GrizzlyConfigConstants {
 
     START_TIMEOUT, // ms
     WRITE_TIMEOUT, // ms
+    PEER_WRITE_QUEUE_SIZE, // maximum number of messages queued to single destination
+    MAX_PIPELINED_WRITES, // maximum number of writes in flight on the connection to single destination
+    COALESCE_MAX_BYTES, // if positive, small messages queued to single destination are packed into writes of up to this many bytes
+    COALESCE_LINGER_MICROS, // microseconds a message may wait for others to share its write when coalescing
 
     MAX_WRITE_SELECTOR_POOL_SIZE,
 
+    USE_BLOCKING_IO_MULTICAST, // if true, UDP multicast uses a blocking MulticastSocket instead of a selector based DatagramChannel
+
     // comma separated list of tcp uri endpoints
     // ex) tcp://192.168.0.3:9090,tcp://61.77.153.2:9090
     DISCOVERY_URI_LIST, MULTICAST_TIME_TO_LIVE
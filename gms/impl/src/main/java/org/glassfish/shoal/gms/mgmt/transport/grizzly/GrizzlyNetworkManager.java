@@ -25,6 +25,7 @@ import java.net.URISyntaxException;
 import java.net.UnknownHostException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -54,15 +55,20 @@ import static org.glassfish.shoal.gms.mgmt.ConfigConstants.FAILURE_DETECTION_TCP
 import static org.glassfish.shoal.gms.mgmt.ConfigConstants.MULTICASTADDRESS;
 import static org.glassfish.shoal.gms.mgmt.ConfigConstants.MULTICASTPORT;
 import static org.glassfish.shoal.gms.mgmt.ConfigConstants.MULTICAST_PACKET_SIZE;
+import static org.glassfish.shoal.gms.mgmt.transport.grizzly.GrizzlyConfigConstants.COALESCE_LINGER_MICROS;
+import static org.glassfish.shoal.gms.mgmt.transport.grizzly.GrizzlyConfigConstants.COALESCE_MAX_BYTES;
 import static org.glassfish.shoal.gms.mgmt.transport.grizzly.GrizzlyConfigConstants.DISCOVERY_URI_LIST;
 import static org.glassfish.shoal.gms.mgmt.transport.grizzly.GrizzlyConfigConstants.HIGH_WATER_MARK;
 import static org.glassfish.shoal.gms.mgmt.transport.grizzly.GrizzlyConfigConstants.MAX_PARALLEL;
+import static org.glassfish.shoal.gms.mgmt.transport.grizzly.GrizzlyConfigConstants.MAX_PIPELINED_WRITES;
 import static org.glassfish.shoal.gms.mgmt.transport.grizzly.GrizzlyConfigConstants.MAX_WRITE_SELECTOR_POOL_SIZE;
 import static org.glassfish.shoal.gms.mgmt.transport.grizzly.GrizzlyConfigConstants.MULTICAST_TIME_TO_LIVE;
 import static org.glassfish.shoal.gms.mgmt.transport.grizzly.GrizzlyConfigConstants.NUMBER_TO_RECLAIM;
+import static org.glassfish.shoal.gms.mgmt.transport.grizzly.GrizzlyConfigConstants.PEER_WRITE_QUEUE_SIZE;
 import static org.glassfish.shoal.gms.mgmt.transport.grizzly.GrizzlyConfigConstants.START_TIMEOUT;
 import static org.glassfish.shoal.gms.mgmt.transport.grizzly.GrizzlyConfigConstants.TCPENDPORT;
 import static org.glassfish.shoal.gms.mgmt.transport.grizzly.GrizzlyConfigConstants.TCPSTARTPORT;
+import static org.glassfish.shoal.gms.mgmt.transport.grizzly.GrizzlyConfigConstants.USE_BLOCKING_IO_MULTICAST;
 import static org.glassfish.shoal.gms.mgmt.transport.grizzly.GrizzlyConfigConstants.WRITE_TIMEOUT;
 
 /**
@@ -97,10 +103,15 @@ public abstract class GrizzlyNetworkManager extends AbstractNetworkManager {
     protected int highWaterMark;
     protected int numberToReclaim;
     protected int maxParallelSendConnections;
+    protected int peerWriteQueueSize;
+    protected int maxPipelinedWrites;
+    protected int coalesceMaxBytes;
+    protected long coalesceLingerMicros;
 
     public long startTimeoutMillis; // ms
     public long sendWriteTimeoutMillis; // ms
     public int multicastPacketSize;
+    protected boolean useBlockingIOMulticast;
     public int writeSelectorPoolSize;
     static final public String UNKNOWN = "Unknown_";
 
@@ -170,11 +181,16 @@ public abstract class GrizzlyNetworkManager extends AbstractNetworkManager {
         highWaterMark = Utility.getIntProperty(HIGH_WATER_MARK.toString(), 1024, properties);
         numberToReclaim = Utility.getIntProperty(NUMBER_TO_RECLAIM.toString(), 10, properties);
         maxParallelSendConnections = Utility.getIntProperty(MAX_PARALLEL.toString(), 15, properties);
+        peerWriteQueueSize = Utility.getIntProperty(PEER_WRITE_QUEUE_SIZE.toString(), 1024, properties);
+        maxPipelinedWrites = Utility.getIntProperty(MAX_PIPELINED_WRITES.toString(), 32, properties);
+        coalesceMaxBytes = Utility.getIntProperty(COALESCE_MAX_BYTES.toString(), 0, properties);
+        coalesceLingerMicros = Utility.getLongProperty(COALESCE_LINGER_MICROS.toString(), 100, properties);
 
         startTimeoutMillis = Utility.getLongProperty(START_TIMEOUT.toString(), 15 * 1000, properties);
         sendWriteTimeoutMillis = Utility.getLongProperty(WRITE_TIMEOUT.toString(), 10 * 1000, properties);
         multicastPacketSize = Utility.getIntProperty(MULTICAST_PACKET_SIZE.toString(), 64 * 1024, properties);
         multicastTimeToLive = Utility.getIntProperty(MULTICAST_TIME_TO_LIVE.toString(), GMSConstants.DEFAULT_MULTICAST_TIME_TO_LIVE, properties);
+        useBlockingIOMulticast = Utility.getBooleanProperty(USE_BLOCKING_IO_MULTICAST.toString(), false, properties);
         writeSelectorPoolSize = Utility.getIntProperty(MAX_WRITE_SELECTOR_POOL_SIZE.toString(), 30, properties);
         virtualUriList = Utility.getStringProperty(DISCOVERY_URI_LIST.toString(), null, properties);
         if (virtualUriList != null) {
@@ -191,9 +207,12 @@ public abstract class GrizzlyNetworkManager extends AbstractNetworkManager {
             buf.append("BIND_INTERFACE_ADDRESS:").append(host).append("  NetworkInterfaceName:").append(networkInterfaceName).append('\n');
             buf.append("TCPSTARTPORT..TCPENDPORT:").append(tcpStartPort).append("..").append(tcpEndPort).append('\n');
             buf.append("MULTICAST_ADDRESS:MULTICAST_PORT:").append(multicastAddress).append(':').append(multicastPort).append(" MULTICAST_PACKET_SIZE:")
-                    .append(multicastPacketSize).append(" MULTICAST_TIME_TO_LIVE:").append(multicastTTLresults).append('\n');
+                    .append(multicastPacketSize).append(" MULTICAST_TIME_TO_LIVE:").append(multicastTTLresults).append(" USE_BLOCKING_IO_MULTICAST:")
+                    .append(useBlockingIOMulticast).append('\n');
             buf.append("FAILURE_DETECT_TCP_RETRANSMIT_TIMEOUT(ms):").append(failTcpTimeout).append('\n');
-            buf.append(" MAX_PARALLEL:").append(maxParallelSendConnections).append('\n');
+            buf.append(" MAX_PARALLEL:").append(maxParallelSendConnections).append(" PEER_WRITE_QUEUE_SIZE:").append(peerWriteQueueSize)
+                    .append(" MAX_PIPELINED_WRITES:").append(maxPipelinedWrites).append('\n');
+            buf.append("COALESCE_MAX_BYTES:").append(coalesceMaxBytes).append(" COALESCE_LINGER_MICROS:").append(coalesceLingerMicros).append('\n');
             buf.append("START_TIMEOUT(ms):").append(startTimeoutMillis).append(" WRITE_TIMEOUT(ms):").append(sendWriteTimeoutMillis).append('\n');
             buf.append("MAX_WRITE_SELECTOR_POOL_SIZE:").append(writeSelectorPoolSize).append('\n');
             shoalLogger.log(Level.CONFIG, buf.toString());
@@ -268,6 +287,18 @@ public abstract class GrizzlyNetworkManager extends AbstractNetworkManager {
         return sender.send(peerID, message);
     }
 
+    @Override
+    public Map<PeerID, Throwable> send(final Collection<PeerID> peerIDs, final Message message) throws IOException {
+        if (!running) {
+            throw new IOException("network manager is not running");
+        }
+        MessageSender sender = tcpSender;
+        if (sender == null) {
+            throw new IOException("message sender is not initialized");
+        }
+        return sender.send(peerIDs, message);
+    }
+
     @Override
     public boolean broadcast(final Message message) throws IOException {
         if (!running) {
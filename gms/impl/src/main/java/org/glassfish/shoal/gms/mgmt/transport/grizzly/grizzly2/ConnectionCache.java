@@ -26,6 +26,7 @@ import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 
+import org.glassfish.grizzly.CompletionHandler;
 import org.glassfish.grizzly.Connection;
 import org.glassfish.grizzly.SocketConnectorHandler;
 import org.glassfish.grizzly.utils.Exceptions;
@@ -92,6 +93,30 @@ public class ConnectionCache {
         return connection;
     }
 
+    /**
+     * Hands an idle cached connection or a new one to the completion handler without blocking the calling thread. The
+     * connection then belongs to the caller, it is not expected to be offered back.
+     */
+    public void connect(final SocketAddress remoteAddress, final CompletionHandler<Connection> completionHandler) {
+        if (isClosed.get()) {
+            completionHandler.failed(new IOException("ConnectionCache is closed"));
+            return;
+        }
+
+        final CacheRecord cacheRecord = cache.get(remoteAddress);
+        if (cacheRecord != null) {
+            final Connection connection = cacheRecord.connections.poll();
+            if (connection != null) {
+                connection.removeCloseListener(removeCachedConnectionOnCloseListener);
+                cacheRecord.idleConnectionsCount.decrementAndGet();
+                completionHandler.completed(connection);
+                return;
+            }
+        }
+
+        socketConnectorHandler.connect(remoteAddress, completionHandler);
+    }
+
     public void offer(final Connection connection) {
         final SocketAddress remoteAddress = (SocketAddress) connection.getPeerAddress();
 
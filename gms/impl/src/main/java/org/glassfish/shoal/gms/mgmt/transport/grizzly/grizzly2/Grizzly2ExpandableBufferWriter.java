@@ -16,6 +16,8 @@
 
 package org.glassfish.shoal.gms.mgmt.transport.grizzly.grizzly2;
 
+import org.glassfish.grizzly.memory.Buffers;
+import org.glassfish.grizzly.memory.CompositeBuffer;
 import org.glassfish.grizzly.memory.MemoryManager;
 import org.glassfish.shoal.gms.mgmt.transport.buffers.Buffer;
 import org.glassfish.shoal.gms.mgmt.transport.buffers.ExpandableBufferWriter;
@@ -24,10 +26,23 @@ import org.glassfish.shoal.gms.mgmt.transport.buffers.ExpandableBufferWriterFact
 /**
  * Grizzly 2.0 based expandable Buffer writer.
  *
+ * The buffers come from the transport's {@link MemoryManager}, which pools them. Bytes passed to
+ * {@link #putShared(byte[], int, int)} are not copied: the written data becomes a {@link CompositeBuffer} of the
+ * buffers written so far and a wrapper around the given array.
+ *
  * @author Alexey Stashok
  */
 public final class Grizzly2ExpandableBufferWriter extends ExpandableBufferWriter {
 
+    // below this, copying is cheaper than one more buffer to write
+    private static final int MIN_SHARED_LENGTH = 1024;
+
+    // most messages fit, larger ones grow by doubling
+    private static final int INITIAL_SIZE = 1024;
+
+    // what follows shared bytes is usually a few fields
+    private static final int TAIL_SEGMENT_SIZE = 256;
+
     public static ExpandableBufferWriterFactory createFactory(final MemoryManager memoryManager) {
         return new ExpandableBufferWriterFactory() {
 
@@ -43,9 +58,14 @@ public final class Grizzly2ExpandableBufferWriter extends ExpandableBufferWriter
     private final GMSBufferWrapper wrapper = new GMSBufferWrapper();
     private org.glassfish.grizzly.Buffer grizzlyBuffer;
 
+    // the completed segments, once bytes have been shared
+    private CompositeBuffer segments;
+    private int segmentsLength;
+    private GMSBufferWrapper result;
+
     private Grizzly2ExpandableBufferWriter(final MemoryManager memoryManager) {
         this.memoryManager = memoryManager;
-        grizzlyBuffer = memoryManager.allocate(4096);
+        grizzlyBuffer = memoryManager.allocate(INITIAL_SIZE);
         wrapper.wrap(grizzlyBuffer);
     }
 
@@ -56,21 +76,66 @@ public final class Grizzly2ExpandableBufferWriter extends ExpandableBufferWriter
 
     @Override
     public Buffer toBuffer() {
-        grizzlyBuffer.trim();
-        final Buffer duplicate = wrapper.duplicate();
-        grizzlyBuffer.position(grizzlyBuffer.limit());
+        if (segments == null) {
+            grizzlyBuffer.trim();
+            final Buffer duplicate = wrapper.duplicate();
+            grizzlyBuffer.position(grizzlyBuffer.limit());
 
-        return duplicate;
+            return duplicate;
+        }
+
+        if (result == null) {
+            grizzlyBuffer.trim();
+            segments.append(grizzlyBuffer);
+            result = new GMSBufferWrapper().wrap(segments);
+        }
+        return result.duplicate();
     }
 
     @Override
     public int position() {
-        return grizzlyBuffer.position();
+        return segmentsLength + grizzlyBuffer.position();
     }
 
     @Override
     public void position(final int pos) {
-        grizzlyBuffer.position(pos);
+        grizzlyBuffer.position(pos - segmentsLength);
+    }
+
+    @Override
+    public ExpandableBufferWriter putInt(final int index, final int value) {
+        if (segments == null) {
+            return super.putInt(index, value);
+        }
+        if (index >= segmentsLength) {
+            grizzlyBuffer.putInt(index - segmentsLength, value);
+        } else {
+            segments.putInt(index, value);
+        }
+        return this;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public ExpandableBufferWriter putShared(final byte[] src, final int offset, final int length) {
+        if (length < MIN_SHARED_LENGTH || result != null) {
+            return put(src, offset, length);
+        }
+
+        if (segments == null) {
+            segments = CompositeBuffer.newBuffer(memoryManager);
+            // the shared arrays are not ours to dispose
+            segments.allowInternalBuffersDispose(false);
+        }
+        grizzlyBuffer.trim();
+        segmentsLength += grizzlyBuffer.remaining();
+        segments.append(grizzlyBuffer);
+        segments.append(Buffers.wrap(memoryManager, src, offset, length));
+        segmentsLength += length;
+
+        grizzlyBuffer = memoryManager.allocate(TAIL_SEGMENT_SIZE);
+        wrapper.wrap(grizzlyBuffer);
+        return this;
     }
 
     @Override
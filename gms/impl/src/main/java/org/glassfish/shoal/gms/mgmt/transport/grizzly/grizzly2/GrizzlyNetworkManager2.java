@@ -57,6 +57,8 @@ import org.glassfish.shoal.gms.common.GMSContextFactory;
 import org.glassfish.shoal.gms.common.GMSMonitor;
 import org.glassfish.shoal.gms.mgmt.transport.BlockingIOMulticastSender;
 import org.glassfish.shoal.gms.mgmt.transport.MessageEvent;
+import org.glassfish.shoal.gms.mgmt.transport.MessageSender;
+import org.glassfish.shoal.gms.mgmt.transport.NIOMulticastSender;
 import org.glassfish.shoal.gms.mgmt.transport.NetworkUtility;
 import org.glassfish.shoal.gms.mgmt.transport.VirtualMulticastSender;
 import org.glassfish.shoal.gms.mgmt.transport.grizzly.GrizzlyPeerID;
@@ -228,7 +230,8 @@ public class GrizzlyNetworkManager2 extends org.glassfish.shoal.gms.mgmt.transpo
             }
         }
 
-        tcpSender = new GrizzlyTCPMessageSender(tcpNioTransport, tcpNioConnectionCache, localPeerID, sendWriteTimeoutMillis);
+        tcpSender = new GrizzlyTCPMessageSender(tcpNioTransport, tcpNioConnectionCache, localPeerID, sendWriteTimeoutMillis, peerWriteQueueSize,
+                maxPipelinedWrites, coalesceMaxBytes, coalesceLingerMicros);
         udpSender = null;
 
         List<PeerID> virtualPeerIdList = getVirtualPeerIDList(virtualUriList);
@@ -249,8 +252,13 @@ public class GrizzlyNetworkManager2 extends org.glassfish.shoal.gms.mgmt.transpo
             final boolean FAIRNESS = true;
             ThreadFactory tf = new GMSThreadFactory("GMS-McastMsgProcessor-Group-" + groupName + "-thread");
             multicastSenderThreadPool = new ThreadPoolExecutor(10, 10, 60 * 1000, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<Runnable>(1024, FAIRNESS), tf);
-            multicastSender = new BlockingIOMulticastSender(host, multicastAddress, multicastPort, networkInterfaceName, multicastPacketSize, localPeerID,
-                    multicastSenderThreadPool, multicastTimeToLive, this);
+            if (useBlockingIOMulticast) {
+                multicastSender = new BlockingIOMulticastSender(host, multicastAddress, multicastPort, networkInterfaceName, multicastPacketSize,
+                        localPeerID, multicastSenderThreadPool, multicastTimeToLive, this);
+            } else {
+                multicastSender = new NIOMulticastSender(host, multicastAddress, multicastPort, networkInterfaceName, multicastPacketSize, localPeerID,
+                        multicastSenderThreadPool, multicastTimeToLive, this);
+            }
 //            }
         }
         if (tcpSender != null) {
@@ -337,6 +345,15 @@ public class GrizzlyNetworkManager2 extends org.glassfish.shoal.gms.mgmt.transpo
         addToVMS(peerID);
     }
 
+    @Override
+    public void removePeerID(final PeerID peerID) {
+        super.removePeerID(peerID);
+        final MessageSender sender = tcpSender;
+        if (peerID != null && sender instanceof GrizzlyTCPMessageSender) {
+            ((GrizzlyTCPMessageSender) sender).removeWriteQueue(peerID);
+        }
+    }
+
     @Override
     public void removeRemotePeer(final String instanceName) {
         final Instance instance = instances.remove(instanceName);
@@ -20,23 +20,28 @@ import java.io.IOException;
 import java.io.Serializable;
 import java.net.InetSocketAddress;
 import java.net.SocketAddress;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
-import org.glassfish.grizzly.Connection;
-import org.glassfish.grizzly.WriteResult;
-import org.glassfish.grizzly.impl.FutureImpl;
+import org.glassfish.grizzly.CompletionHandler;
 import org.glassfish.grizzly.nio.transport.TCPNIOTransport;
-import org.glassfish.grizzly.utils.Futures;
 import org.glassfish.shoal.gms.base.PeerID;
 import org.glassfish.shoal.gms.mgmt.transport.AbstractMessageSender;
 import org.glassfish.shoal.gms.mgmt.transport.Message;
-import org.glassfish.shoal.gms.mgmt.transport.MessageIOException;
 import org.glassfish.shoal.gms.mgmt.transport.grizzly.GrizzlyNetworkManager;
 import org.glassfish.shoal.gms.mgmt.transport.grizzly.GrizzlyPeerID;
 
 /**
+ * Messages to a peer go through its {@link PeerWriteQueue}, which pipelines them on one persistent connection.
+ * {@link #sendAsync(PeerID, Message, CompletionHandler)} returns as soon as the message is queued, {@link #send(PeerID, Message)}
+ * waits for the write to complete and {@link #send(java.util.Collection, Message)} queues the message to all the peers before
+ * waiting for any of the writes.
+ *
  * @author Bongjae Chang
  */
 public class GrizzlyTCPMessageSender extends AbstractMessageSender {
@@ -46,99 +51,143 @@ public class GrizzlyTCPMessageSender extends AbstractMessageSender {
 
     private final ConnectionCache connectionCache;
     private final long writeTimeoutMillis;
+    private final int peerWriteQueueSize;
+    private final int maxPipelinedWrites;
+    private final int coalesceMaxBytes;
+    private final long coalesceLingerMicros;
+
+    private final ConcurrentHashMap<SocketAddress, PeerWriteQueue> writeQueues = new ConcurrentHashMap<SocketAddress, PeerWriteQueue>();
+    private volatile boolean stopped;
+
+    public GrizzlyTCPMessageSender(final TCPNIOTransport tcpNioTransport, final ConnectionCache connectionCache, final PeerID<GrizzlyPeerID> localPeerID,
+            final long writeTimeoutMillis, final int peerWriteQueueSize, final int maxPipelinedWrites) {
+        this(tcpNioTransport, connectionCache, localPeerID, writeTimeoutMillis, peerWriteQueueSize, maxPipelinedWrites, 0, 0);
+    }
 
+    /**
+     * @param coalesceMaxBytes if positive, the most bytes of queued messages to one peer packed into a single write
+     * @param coalesceLingerMicros how long a message may wait for others to share its write
+     */
     public GrizzlyTCPMessageSender(final TCPNIOTransport tcpNioTransport, final ConnectionCache connectionCache, final PeerID<GrizzlyPeerID> localPeerID,
-            final long writeTimeoutMillis) {
+            final long writeTimeoutMillis, final int peerWriteQueueSize, final int maxPipelinedWrites, final int coalesceMaxBytes,
+            final long coalesceLingerMicros) {
         this.tcpNioTransport = tcpNioTransport;
         this.localPeerID = localPeerID;
         this.connectionCache = connectionCache;
         this.writeTimeoutMillis = writeTimeoutMillis;
+        this.peerWriteQueueSize = peerWriteQueueSize;
+        this.maxPipelinedWrites = maxPipelinedWrites;
+        this.coalesceMaxBytes = coalesceMaxBytes;
+        this.coalesceLingerMicros = coalesceLingerMicros;
+    }
+
+    /**
+     * Queues the given {@link Message} to the destination without waiting for it to be written
+     *
+     * @param peerID the destination {@link PeerID}. <code>null</code> is not allowed
+     * @param message a message which is sent to the peer
+     * @param completionHandler notified like the returned future, may be <code>null</code>
+     * @return a future completed with true once the message is written, with false if the queue to the peer is full or
+     * every write attempt failed, or failed with the IOException that prevents sending the message
+     * @throws IOException if given parameters are not valid
+     */
+    public Future<Boolean> sendAsync(final PeerID peerID, final Message message, final CompletionHandler<Boolean> completionHandler) throws IOException {
+        prepareMessage(peerID, message);
+        return getWriteQueue(peerID, message).enqueue(message, completionHandler);
     }
 
     @Override
     protected boolean doSend(final PeerID peerID, final Message message) throws IOException {
-
-        if (peerID == null) {
-            throw new IOException("peer ID can not be null");
-        }
-        Serializable uniqueID = peerID.getUniqueID();
-        SocketAddress remoteSocketAddress;
-        if (uniqueID instanceof GrizzlyPeerID) {
-            GrizzlyPeerID grizzlyPeerID = (GrizzlyPeerID) uniqueID;
-            remoteSocketAddress = new InetSocketAddress(grizzlyPeerID.getHost(), grizzlyPeerID.getTcpPort());
-        } else {
-            throw new IOException("peer ID must be GrizzlyPeerID type");
+        final Future<Boolean> future = getWriteQueue(peerID, message).enqueue(message, null);
+        try {
+            return future.get(writeTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            throw new IOException("failed to send a message to " + peerID, cause);
+        } catch (TimeoutException e) {
+            // the message stays queued, it is still written if the peer catches up
+            if (LOG.isLoggable(Level.FINE)) {
+                LOG.log(Level.FINE, "timed out after " + writeTimeoutMillis + " ms waiting for the write of " + message + " to " + peerID);
+            }
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
         }
+    }
 
-        return send(null, remoteSocketAddress, message, peerID);
+    @Override
+    protected Future<Boolean> doSendAsync(final PeerID peerID, final Message message) throws IOException {
+        return getWriteQueue(peerID, message).enqueue(message, null);
     }
 
-    @SuppressWarnings("unchecked")
-    private boolean send(final SocketAddress localAddress, final SocketAddress remoteAddress, final Message message, final PeerID target) throws IOException {
+    @Override
+    protected long getWriteTimeoutMillis() {
+        return writeTimeoutMillis;
+    }
 
-        final int MAX_RESEND_ATTEMPTS = 4;
+    @Override
+    public void stop() throws IOException {
+        stopped = true;
+        for (PeerWriteQueue writeQueue : writeQueues.values()) {
+            writeQueue.close();
+        }
+        writeQueues.clear();
+    }
+
+    private PeerWriteQueue getWriteQueue(final PeerID peerID, final Message message) throws IOException {
         if (tcpNioTransport == null) {
             throw new IOException("grizzly controller must be initialized");
         }
-        if (remoteAddress == null) {
-            throw new IOException("remote address can not be null");
+        if (peerID == null) {
+            throw new IOException("peer ID can not be null");
         }
         if (message == null) {
             throw new IOException("message can not be null");
         }
+        if (stopped) {
+            throw new IOException("message sender is stopped");
+        }
+        SocketAddress remoteSocketAddress = getRemoteSocketAddress(peerID);
+        if (remoteSocketAddress == null) {
+            throw new IOException("peer ID must be GrizzlyPeerID type");
+        }
 
-        int attemptNo = 1;
-        do {
-            final Connection connection;
-
-            try {
-                connection = connectionCache.poll(localAddress, remoteAddress);
-                if (connection == null) {
-                    LOG.log(Level.WARNING,
-                            "failed to get a connection from connectionCache in attempt# " + attemptNo + ". GrizzlyTCPMessageSender.send(localAddr="
-                                    + localAddress + " , remoteAddr=" + remoteAddress + " sendTo=" + target + " msg=" + message + ". Retrying send",
-                            new Exception("stack trace"));
-                    // try again.
-                    continue;
-                }
-            } catch (Throwable t) {
-                // include local call stack.
-                final IOException localIOE = new IOException("failed to connect to " + target.toString(), t);
-                // AbstractNetworkManager.getLogger().log(Level.WARNING, "failed to connect to target " + target.toString(), localIOE);
-                throw localIOE;
-            }
-
-            try {
-                final FutureImpl<WriteResult> syncWriteFuture = Futures.createSafeFuture();
-                connection.write(remoteAddress, message, Futures.toCompletionHandler(syncWriteFuture), null);
-                syncWriteFuture.get(writeTimeoutMillis, TimeUnit.MILLISECONDS);
-
-                connectionCache.offer(connection);
-                return true;
-            } catch (Exception e) {
-
-                // following exception is getting thrown java.util.concurrent.ExecutionException with MessageIOException
-                // as cause when calling synchWriteFuture.get. Unwrap the cause, check it and
-                // get this to fail immediately if cause is a MessageIOException.
-                Throwable cause = e.getCause();
-                if (cause instanceof MessageIOException) {
-                    try {
-                        connection.close();
-                    } catch (Throwable t) {
-                    }
-                    throw (MessageIOException) cause;
-                }
-
-                // TODO: Turn this back to FINE in future. Need to track these for the time being.
-                if (LOG.isLoggable(Level.INFO)) {
-                    LOG.log(Level.INFO, "exception writing message to connection. Retrying with another connection #" + attemptNo, e);
-                }
-                connection.close();
+        PeerWriteQueue writeQueue = writeQueues.get(remoteSocketAddress);
+        if (writeQueue == null) {
+            final PeerWriteQueue newWriteQueue = new PeerWriteQueue(connectionCache, remoteSocketAddress, peerID, peerWriteQueueSize, maxPipelinedWrites,
+                    tcpNioTransport.getMemoryManager(), coalesceMaxBytes, coalesceLingerMicros);
+            writeQueue = writeQueues.putIfAbsent(remoteSocketAddress, newWriteQueue);
+            if (writeQueue == null) {
+                writeQueue = newWriteQueue;
             }
+        }
+        return writeQueue;
+    }
 
-            attemptNo++;
-        } while (attemptNo <= MAX_RESEND_ATTEMPTS);
+    /**
+     * Closes the write queue to a peer that has left the group. Its pending messages fail.
+     */
+    public void removeWriteQueue(final PeerID peerID) {
+        final SocketAddress remoteSocketAddress = getRemoteSocketAddress(peerID);
+        if (remoteSocketAddress == null) {
+            return;
+        }
+        final PeerWriteQueue writeQueue = writeQueues.remove(remoteSocketAddress);
+        if (writeQueue != null) {
+            writeQueue.close();
+        }
+    }
 
-        return false;
+    private static SocketAddress getRemoteSocketAddress(final PeerID peerID) {
+        Serializable uniqueID = peerID.getUniqueID();
+        if (uniqueID instanceof GrizzlyPeerID) {
+            GrizzlyPeerID grizzlyPeerID = (GrizzlyPeerID) uniqueID;
+            return new InetSocketAddress(grizzlyPeerID.getHost(), grizzlyPeerID.getTcpPort());
+        }
+        return null;
     }
 }
@@ -41,6 +41,8 @@ import org.glassfish.shoal.gms.mgmt.transport.MessageImpl;
  *
  * Message Body is composed of following fields. payload byte[messageLen]
  *
+ * Several messages may be written back to back in one {@link Buffer}, they are read like any other stream of messages.
+ *
  * MessageHeader {@link Message#parseHeader(org.glassfish.shoal.gms.mgmt.transport.buffers.Buffer, int)}
  * MessageBody {@link Message#parseMessage(org.glassfish.shoal.gms.mgmt.transport.buffers.Buffer, int, int)}
  *
@@ -113,6 +115,10 @@ public class MessageFilter extends BaseFilter {
 
     @Override
     public NextAction handleWrite(final FilterChainContext ctx) throws IOException {
+        if (ctx.getMessage() instanceof Buffer) {
+            // messages already encoded and coalesced by the sender
+            return ctx.getInvokeAction();
+        }
         final Message message = ctx.getMessage();
 
         final MemoryManager<?> mm = ctx.getConnection().getTransport().getMemoryManager();
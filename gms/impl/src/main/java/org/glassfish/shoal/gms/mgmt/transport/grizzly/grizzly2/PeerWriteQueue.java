@@ -0,0 +1,496 @@
+/*
+ * Copyright (c) 2026 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+
+package org.glassfish.shoal.gms.mgmt.transport.grizzly.grizzly2;
+
+import java.io.IOException;
+import java.net.SocketAddress;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.glassfish.grizzly.Buffer;
+import org.glassfish.grizzly.CompletionHandler;
+import org.glassfish.grizzly.Connection;
+import org.glassfish.grizzly.EmptyCompletionHandler;
+import org.glassfish.grizzly.PendingWriteQueueLimitExceededException;
+import org.glassfish.grizzly.WriteResult;
+import org.glassfish.grizzly.impl.FutureImpl;
+import org.glassfish.grizzly.memory.CompositeBuffer;
+import org.glassfish.grizzly.memory.MemoryManager;
+import org.glassfish.grizzly.utils.Futures;
+import org.glassfish.shoal.gms.base.PeerID;
+import org.glassfish.shoal.gms.common.GMSEvents;
+import org.glassfish.shoal.gms.mgmt.transport.Message;
+import org.glassfish.shoal.gms.mgmt.transport.MessageIOException;
+import org.glassfish.shoal.gms.mgmt.transport.grizzly.GrizzlyNetworkManager;
+
+/**
+ * The outbound messages to one peer. Messages are written in order on one persistent connection with up to
+ * {@code maxWritesInFlight} writes outstanding. Whichever thread queues a message or completes a write drains the
+ * queue, so no thread waits for a write to complete. At most {@code maxQueuedWrites} messages may be pending, further
+ * messages are refused right away.
+ *
+ * If {@code coalesceMaxBytes} is positive, queued messages are packed into one write of up to that many bytes. The frames
+ * are simply written back to back, so the receiving side parses them like any other stream of messages. A message
+ * waits up to {@code coalesceLingerMicros} for others to share its write.
+ *
+ * The messages of a failed write are held back until the other writes in flight have completed, then they go back to
+ * the head of the queue in the order they were first written.
+ */
+final class PeerWriteQueue {
+
+    private final static Logger LOG = GrizzlyNetworkManager.getLogger();
+
+    static final int MAX_WRITE_ATTEMPTS = 4;
+
+    static final long CONNECT_TIMEOUT_MILLIS = 5000;
+
+    private final ConnectionCache connectionCache;
+    private final SocketAddress remoteAddress;
+    private final PeerID target;
+    private final int maxQueuedWrites;
+    private final int maxWritesInFlight;
+    private final MemoryManager memoryManager;
+    private final int coalesceMaxBytes;
+    private final long coalesceLingerNanos;
+
+    private final ConcurrentLinkedDeque<PendingWrite> queue = new ConcurrentLinkedDeque<PendingWrite>();
+    // failed writes to retry, in any order
+    private final List<PendingWrite> retries = new ArrayList<PendingWrite>();
+    private volatile boolean holdingRetries;
+    // the order in which messages are written, only advanced by the draining thread
+    private long writeSequence;
+
+    // queued and in flight
+    private final AtomicInteger pendingCount = new AtomicInteger();
+    private final AtomicInteger inFlightCount = new AtomicInteger();
+    // encoded size of the queued messages, only tracked when coalescing
+    private final AtomicLong queuedBytes = new AtomicLong();
+
+    private final AtomicBoolean draining = new AtomicBoolean();
+    // set by every drain() call, so that the draining thread makes another pass for a call it has locked out
+    private final AtomicBoolean drainRequested = new AtomicBoolean();
+    private final AtomicBoolean connecting = new AtomicBoolean();
+    private final AtomicBoolean lingering = new AtomicBoolean();
+
+    private volatile Connection connection;
+    private volatile boolean closed;
+
+    PeerWriteQueue(final ConnectionCache connectionCache, final SocketAddress remoteAddress, final PeerID target, final int maxQueuedWrites,
+            final int maxWritesInFlight) {
+        this(connectionCache, remoteAddress, target, maxQueuedWrites, maxWritesInFlight, null, 0, 0);
+    }
+
+    PeerWriteQueue(final ConnectionCache connectionCache, final SocketAddress remoteAddress, final PeerID target, final int maxQueuedWrites,
+            final int maxWritesInFlight, final MemoryManager memoryManager, final int coalesceMaxBytes, final long coalesceLingerMicros) {
+        this.connectionCache = connectionCache;
+        this.remoteAddress = remoteAddress;
+        this.target = target;
+        this.maxQueuedWrites = maxQueuedWrites;
+        this.maxWritesInFlight = Math.max(1, maxWritesInFlight);
+        this.memoryManager = memoryManager;
+        this.coalesceMaxBytes = memoryManager == null ? 0 : coalesceMaxBytes;
+        this.coalesceLingerNanos = TimeUnit.MICROSECONDS.toNanos(Math.max(0, coalesceLingerMicros));
+    }
+
+    /**
+     * @return a future completed with true once the message is written, with false if it is refused because the queue is
+     * full or if every write attempt failed, or failed with the IOException that prevents sending it
+     */
+    FutureImpl<Boolean> enqueue(final Message message, final CompletionHandler<Boolean> completionHandler) {
+        final FutureImpl<Boolean> future = Futures.createSafeFuture();
+        final PendingWrite write = new PendingWrite(message, future, completionHandler);
+        if (closed) {
+            write.failed(new IOException("message sender is stopped"));
+            return future;
+        }
+        if (pendingCount.incrementAndGet() > maxQueuedWrites) {
+            pendingCount.decrementAndGet();
+            if (LOG.isLoggable(Level.FINE)) {
+                LOG.log(Level.FINE, "write queue to " + target + " is full with " + maxQueuedWrites + " pending messages");
+            }
+            write.completed(Boolean.FALSE);
+            return future;
+        }
+        if (coalesceMaxBytes > 0) {
+            // encoded by the sending thread, the write only reuses the cached bytes
+            try {
+                write.size = encode(message).remaining();
+            } catch (MessageIOException mioe) {
+                pendingCount.decrementAndGet();
+                write.failed(mioe);
+                return future;
+            }
+            queuedBytes.addAndGet(write.size);
+        }
+        queue.offer(write);
+        drain();
+        return future;
+    }
+
+    int getPendingCount() {
+        return pendingCount.get();
+    }
+
+    void close() {
+        closed = true;
+        failQueued(new IOException("message sender is stopped"));
+        final Connection conn = connection;
+        if (conn != null) {
+            conn.closeSilently();
+        }
+    }
+
+    private void drain() {
+        drainRequested.set(true);
+        // the connect, linger and write completions that stop a pass call drain() again, even while this thread drains
+        while (drainRequested.get() && draining.compareAndSet(false, true)) {
+            drainRequested.set(false);
+            try {
+                drainQueue();
+            } finally {
+                draining.set(false);
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void drainQueue() {
+        if (holdingRetries && !requeueRetries()) {
+            // the last write in flight to complete drains the queue
+            return;
+        }
+        while (!queue.isEmpty() && inFlightCount.get() < maxWritesInFlight) {
+            final Connection conn = connection;
+            if (conn == null || !conn.isOpen()) {
+                if (connect()) {
+                    continue;
+                }
+                return;
+            }
+
+            if (coalesceMaxBytes > 0) {
+                // a write that failed synchronously may have closed the connection
+                while (connection == conn && !holdingRetries && inFlightCount.get() < maxWritesInFlight && !queue.isEmpty()) {
+                    if (linger()) {
+                        return;
+                    }
+                    writeCoalesced(conn);
+                }
+                if (holdingRetries) {
+                    return;
+                }
+                continue;
+            }
+
+            PendingWrite write;
+            // a write that failed synchronously may have closed the connection
+            while (connection == conn && !holdingRetries && inFlightCount.get() < maxWritesInFlight && (write = queue.poll()) != null) {
+                inFlightCount.incrementAndGet();
+                write.attempts++;
+                write.sequence = writeSequence++;
+                final WriteCompletionHandler completionHandler = new WriteCompletionHandler(conn, Collections.singletonList(write));
+                try {
+                    conn.write(remoteAddress, write.message, completionHandler, null);
+                } catch (Throwable t) {
+                    completionHandler.failed(t);
+                }
+            }
+            if (holdingRetries) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * @return true if the failed writes are back at the head of the queue, false if writes are still in flight
+     */
+    private boolean requeueRetries() {
+        synchronized (retries) {
+            if (inFlightCount.get() > 0) {
+                return false;
+            }
+            Collections.sort(retries, new Comparator<PendingWrite>() {
+                public int compare(final PendingWrite w1, final PendingWrite w2) {
+                    return Long.compare(w1.sequence, w2.sequence);
+                }
+            });
+            for (int i = retries.size() - 1; i >= 0; i--) {
+                queue.offerFirst(retries.get(i));
+            }
+            retries.clear();
+            holdingRetries = false;
+            return true;
+        }
+    }
+
+    /**
+     * @return true if the queued messages wait for more to share their write, the queue is then drained when the oldest
+     * message has waited long enough
+     */
+    private boolean linger() {
+        if (coalesceLingerNanos == 0 || queuedBytes.get() >= coalesceMaxBytes) {
+            return false;
+        }
+        final PendingWrite oldest = queue.peek();
+        if (oldest == null) {
+            return false;
+        }
+        final long remaining = oldest.startTime + coalesceLingerNanos - System.nanoTime();
+        if (remaining <= 0) {
+            return false;
+        }
+        if (lingering.compareAndSet(false, true)) {
+            CompletableFuture.delayedExecutor(remaining, TimeUnit.NANOSECONDS).execute(new Runnable() {
+                public void run() {
+                    lingering.set(false);
+                    drain();
+                }
+            });
+        }
+        return true;
+    }
+
+    /**
+     * Writes as many queued messages as fit in {@code coalesceMaxBytes}, at least one, with one write
+     */
+    @SuppressWarnings("unchecked")
+    private void writeCoalesced(final Connection conn) {
+        final List<PendingWrite> writes = new ArrayList<PendingWrite>();
+        long size = 0;
+        PendingWrite write;
+        while ((write = queue.poll()) != null) {
+            if (!writes.isEmpty() && size + write.size > coalesceMaxBytes) {
+                queue.offerFirst(write);
+                break;
+            }
+            queuedBytes.addAndGet(-write.size);
+            write.attempts++;
+            write.sequence = writeSequence++;
+            writes.add(write);
+            size += write.size;
+        }
+        if (writes.isEmpty()) {
+            return;
+        }
+
+        inFlightCount.incrementAndGet();
+        final WriteCompletionHandler completionHandler = new WriteCompletionHandler(conn, writes);
+        try {
+            if (writes.size() == 1) {
+                conn.write(remoteAddress, writes.get(0).message, completionHandler, null);
+            } else {
+                final CompositeBuffer frames = CompositeBuffer.newBuffer(memoryManager);
+                // the frames are the cached bytes of the messages
+                frames.allowInternalBuffersDispose(false);
+                for (PendingWrite coalesced : writes) {
+                    frames.append(encode(coalesced.message));
+                }
+                conn.write(remoteAddress, frames, completionHandler, null);
+            }
+        } catch (Throwable t) {
+            completionHandler.failed(t);
+        }
+    }
+
+    private Buffer encode(final Message message) throws MessageIOException {
+        return (Buffer) message.getPlainBuffer(Grizzly2ExpandableBufferWriter.createFactory(memoryManager)).underlying();
+    }
+
+    /**
+     * @return true if an open connection is available once this returns, otherwise the queue is drained when the
+     * connection is established
+     */
+    private boolean connect() {
+        if (closed) {
+            failQueued(new IOException("message sender is stopped"));
+            return false;
+        }
+        if (!connecting.compareAndSet(false, true)) {
+            return false;
+        }
+        final Connection current = connection;
+        if (current != null && current.isOpen()) {
+            connecting.set(false);
+            return true;
+        }
+
+        // the connect completes, fails or times out, whichever comes first
+        final AtomicBoolean settled = new AtomicBoolean();
+        connectionCache.connect(remoteAddress, new EmptyCompletionHandler<Connection>() {
+
+            @Override
+            public void completed(final Connection conn) {
+                if (!settled.compareAndSet(false, true)) {
+                    conn.closeSilently();
+                    return;
+                }
+                connection = conn;
+                connecting.set(false);
+                if (closed) {
+                    conn.closeSilently();
+                    return;
+                }
+                drain();
+            }
+
+            @Override
+            public void failed(final Throwable t) {
+                if (settled.compareAndSet(false, true)) {
+                    connecting.set(false);
+                    failQueued(new IOException("failed to connect to " + target, t));
+                }
+            }
+        });
+        if (!settled.get()) {
+            CompletableFuture.delayedExecutor(CONNECT_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS).execute(new Runnable() {
+                public void run() {
+                    if (settled.compareAndSet(false, true)) {
+                        connecting.set(false);
+                        failQueued(new IOException("timed out connecting to " + target + " after " + CONNECT_TIMEOUT_MILLIS + " ms"));
+                    }
+                }
+            });
+        }
+        final Connection conn = connection;
+        return conn != null && conn.isOpen();
+    }
+
+    private void failQueued(final IOException ioe) {
+        synchronized (retries) {
+            queue.addAll(retries);
+            retries.clear();
+            holdingRetries = false;
+        }
+        PendingWrite write;
+        while ((write = queue.poll()) != null) {
+            pendingCount.decrementAndGet();
+            queuedBytes.addAndGet(-write.size);
+            GMSEvents.messageSend(target, -1, write.attempts, false, System.nanoTime() - write.startTime);
+            write.failed(ioe);
+        }
+    }
+
+    private void retryOrGiveUp(final PendingWrite write) {
+        if (write.attempts < MAX_WRITE_ATTEMPTS && !closed) {
+            queuedBytes.addAndGet(write.size);
+            synchronized (retries) {
+                retries.add(write);
+                holdingRetries = true;
+            }
+        } else {
+            pendingCount.decrementAndGet();
+            GMSEvents.messageSend(target, -1, write.attempts, false, System.nanoTime() - write.startTime);
+            write.completed(Boolean.FALSE);
+        }
+    }
+
+    @SuppressWarnings("rawtypes")
+    private final class WriteCompletionHandler extends EmptyCompletionHandler<WriteResult> {
+
+        private final Connection conn;
+        private final List<PendingWrite> writes;
+
+        WriteCompletionHandler(final Connection conn, final List<PendingWrite> writes) {
+            this.conn = conn;
+            this.writes = writes;
+        }
+
+        @Override
+        public void completed(final WriteResult result) {
+            inFlightCount.decrementAndGet();
+            for (PendingWrite write : writes) {
+                pendingCount.decrementAndGet();
+                final long writtenSize = writes.size() == 1 ? result.getWrittenSize() : write.size;
+                GMSEvents.messageSend(target, writtenSize, write.attempts, true, System.nanoTime() - write.startTime);
+                write.completed(Boolean.TRUE);
+            }
+            drain();
+        }
+
+        @Override
+        public void failed(final Throwable t) {
+            if (t instanceof MessageIOException) {
+                // the message itself can not be written, other messages on the connection are not affected
+                for (PendingWrite write : writes) {
+                    pendingCount.decrementAndGet();
+                    GMSEvents.messageSend(target, -1, write.attempts, false, System.nanoTime() - write.startTime);
+                    write.failed(t);
+                }
+            } else if (t instanceof PendingWriteQueueLimitExceededException) {
+                // the connection is fine, only too far behind
+                retryOrGiveUp(writes);
+            } else {
+                // TODO: Turn this back to FINE in future. Need to track these for the time being.
+                if (LOG.isLoggable(Level.INFO)) {
+                    LOG.log(Level.INFO, "exception writing message to connection. Retrying with another connection #" + writes.get(0).attempts, t);
+                }
+                if (connection == conn) {
+                    connection = null;
+                }
+                conn.closeSilently();
+                retryOrGiveUp(writes);
+            }
+            // only once the writes are held back, so that no drain sends later messages ahead of them
+            inFlightCount.decrementAndGet();
+            drain();
+        }
+
+        private void retryOrGiveUp(final List<PendingWrite> writes) {
+            for (PendingWrite write : writes) {
+                PeerWriteQueue.this.retryOrGiveUp(write);
+            }
+        }
+    }
+
+    private static final class PendingWrite {
+
+        final Message message;
+        final FutureImpl<Boolean> future;
+        final CompletionHandler<Boolean> completionHandler;
+        final long startTime = System.nanoTime();
+        int attempts;
+        // the order of the last attempt to write it
+        long sequence;
+        // encoded size, only known when coalescing
+        int size;
+
+        PendingWrite(final Message message, final FutureImpl<Boolean> future, final CompletionHandler<Boolean> completionHandler) {
+            this.message = message;
+            this.future = future;
+            this.completionHandler = completionHandler;
+        }
+
+        void completed(final Boolean result) {
+            Futures.notifyResult(future, completionHandler, result);
+        }
+
+        void failed(final Throwable t) {
+            Futures.notifyFailure(future, completionHandler, t);
+        }
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright (c) 2026 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package org.glassfish.shoal.gms.common;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import junit.framework.TestCase;
+
+public class KeyedSerialExecutorTest extends TestCase {
+
+    private ExecutorService pool;
+
+    @Override
+    protected void tearDown() throws Exception {
+        if (pool != null) {
+            pool.shutdownNow();
+        }
+    }
+
+    public void testTasksOfOneKeyRunInOrderOneAtATime() throws Exception {
+        pool = Executors.newFixedThreadPool(4);
+        KeyedSerialExecutor executor = new KeyedSerialExecutor(pool, 4);
+        final int keys = 8;
+        final int tasksPerKey = 2000;
+        final List<List<Integer>> executed = new ArrayList<List<Integer>>();
+        final AtomicInteger[] running = new AtomicInteger[keys];
+        final AtomicInteger overlaps = new AtomicInteger();
+        final CountDownLatch done = new CountDownLatch(keys * tasksPerKey);
+        for (int k = 0; k < keys; k++) {
+            executed.add(Collections.synchronizedList(new ArrayList<Integer>()));
+            running[k] = new AtomicInteger();
+        }
+
+        for (int i = 0; i < tasksPerKey; i++) {
+            for (int k = 0; k < keys; k++) {
+                final int key = k;
+                final int sequence = i;
+                executor.execute("sender" + key, new Runnable() {
+                    public void run() {
+                        if (running[key].incrementAndGet() != 1) {
+                            overlaps.incrementAndGet();
+                        }
+                        executed.get(key).add(sequence);
+                        running[key].decrementAndGet();
+                        done.countDown();
+                    }
+                });
+            }
+        }
+
+        assertTrue(done.await(30, TimeUnit.SECONDS));
+        assertEquals(0, overlaps.get());
+        for (int k = 0; k < keys; k++) {
+            List<Integer> sequences = executed.get(k);
+            assertEquals(tasksPerKey, sequences.size());
+            for (int i = 0; i < tasksPerKey; i++) {
+                assertEquals(i, sequences.get(i).intValue());
+            }
+        }
+        // idle keys are forgotten
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+        assertEquals(0, executor.getActiveKeyCount());
+    }
+
+    public void testBusyKeyDoesNotStarveOthers() throws Exception {
+        pool = Executors.newSingleThreadExecutor();
+        KeyedSerialExecutor executor = new KeyedSerialExecutor(pool, 16);
+        final CountDownLatch release = new CountDownLatch(1);
+        final AtomicInteger chattyRun = new AtomicInteger();
+        final AtomicInteger chattyRunBeforeQuiet = new AtomicInteger(-1);
+        final CountDownLatch quietDone = new CountDownLatch(1);
+
+        // hold the only thread until all tasks are queued
+        executor.execute("chatty", new Runnable() {
+            public void run() {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                }
+            }
+        });
+        for (int i = 0; i < 1000; i++) {
+            executor.execute("chatty", new Runnable() {
+                public void run() {
+                    chattyRun.incrementAndGet();
+                }
+            });
+        }
+        executor.execute("quiet", new Runnable() {
+            public void run() {
+                chattyRunBeforeQuiet.set(chattyRun.get());
+                quietDone.countDown();
+            }
+        });
+        release.countDown();
+
+        assertTrue(quietDone.await(10, TimeUnit.SECONDS));
+        assertTrue("quiet task waited for " + chattyRunBeforeQuiet.get() + " chatty tasks", chattyRunBeforeQuiet.get() < 16);
+    }
+}
@@ -0,0 +1,137 @@
+/*
+ * Copyright (c) 2026 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+
+package org.glassfish.shoal.gms.common;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+
+import junit.framework.TestCase;
+
+/**
+ * Compares the signal throughput of the SignalQueue with the ArrayBlockingQueue it replaced in the Router, with many
+ * producers and the single handler thread. Not run by the build, since surefire only picks up *Test classes; run it
+ * with {@code mvn test -Dtest=SignalQueueBenchmark -Dsurefire.failIfNoSpecifiedTests=false}.
+ */
+public class SignalQueueBenchmark extends TestCase {
+
+    private static final int PRODUCERS = 8;
+
+    private static final int SIGNALS_PER_PRODUCER = 500000;
+
+    private static final int CAPACITY = 4096;
+
+    private static final int BATCH_SIZE = 64;
+
+    private static final int ROUNDS = 3;
+
+    public SignalQueueBenchmark(String testName) {
+        super(testName);
+    }
+
+    public void testThroughput() throws Exception {
+        for (int round = 0; round < ROUNDS; round++) {
+            long blockingQueue = runArrayBlockingQueue();
+            long signalQueue = runSignalQueue();
+            System.out.println("round " + round + ": " + PRODUCERS + " producers, ArrayBlockingQueue " + perSecond(blockingQueue)
+                    + " signals/s, SignalQueue " + perSecond(signalQueue) + " signals/s");
+        }
+    }
+
+    private static long perSecond(long nanos) {
+        return (long) PRODUCERS * SIGNALS_PER_PRODUCER * 1000000000L / nanos;
+    }
+
+    private static SignalPacket message(int i) {
+        return new SignalPacket(new MessageSignalImpl(new byte[] { (byte) i }, "component", "sender", "group", 0));
+    }
+
+    private long runArrayBlockingQueue() throws Exception {
+        final ArrayBlockingQueue<SignalPacket> queue = new ArrayBlockingQueue<SignalPacket>(CAPACITY);
+        Thread consumer = new Thread() {
+            public void run() {
+                try {
+                    for (long i = 0; i < (long) PRODUCERS * SIGNALS_PER_PRODUCER; i++) {
+                        queue.take();
+                    }
+                } catch (InterruptedException e) {
+                }
+            }
+        };
+        return run(consumer, new Producer() {
+            public void put(SignalPacket packet) throws InterruptedException {
+                queue.put(packet);
+            }
+        });
+    }
+
+    private long runSignalQueue() throws Exception {
+        final SignalQueue queue = new SignalQueue(CAPACITY);
+        Thread consumer = new Thread() {
+            public void run() {
+                List<SignalPacket> batch = new ArrayList<SignalPacket>(BATCH_SIZE);
+                try {
+                    long received = 0;
+                    while (received < (long) PRODUCERS * SIGNALS_PER_PRODUCER) {
+                        batch.clear();
+                        received += queue.drainTo(batch, BATCH_SIZE);
+                    }
+                } catch (InterruptedException e) {
+                }
+            }
+        };
+        return run(consumer, new Producer() {
+            public void put(SignalPacket packet) throws InterruptedException {
+                queue.put(packet);
+            }
+        });
+    }
+
+    private interface Producer {
+        void put(SignalPacket packet) throws InterruptedException;
+    }
+
+    private long run(Thread consumer, final Producer producer) throws Exception {
+        final SignalPacket[] packets = new SignalPacket[256];
+        for (int i = 0; i < packets.length; i++) {
+            packets[i] = message(i);
+        }
+        long start = System.nanoTime();
+        consumer.start();
+        List<Thread> threads = new ArrayList<Thread>();
+        for (int p = 0; p < PRODUCERS; p++) {
+            Thread thread = new Thread() {
+                public void run() {
+                    try {
+                        for (int i = 0; i < SIGNALS_PER_PRODUCER; i++) {
+                            producer.put(packets[i & 255]);
+                        }
+                    } catch (InterruptedException e) {
+                    }
+                }
+            };
+            thread.start();
+            threads.add(thread);
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        consumer.join();
+        return System.nanoTime() - start;
+    }
+}
@@ -0,0 +1,170 @@
+/*
+ * Copyright (c) 2026 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package org.glassfish.shoal.gms.common;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import junit.framework.TestCase;
+
+import org.glassfish.shoal.gms.api.core.GMSConstants;
+
+public class SignalQueueTest extends TestCase {
+
+    private static SignalPacket message(int i) {
+        return new SignalPacket(new MessageSignalImpl(new byte[] { (byte) i }, "component", "sender", "group", 0));
+    }
+
+    private static SignalPacket failure() {
+        return new SignalPacket(new FailureNotificationSignalImpl("failed", "group", 0));
+    }
+
+    public void testPriorityLaneDrainsFirst() throws Exception {
+        SignalQueue queue = new SignalQueue(100);
+        for (int i = 0; i < 10; i++) {
+            assertTrue(queue.offer(message(i)));
+        }
+        SignalPacket failure = failure();
+        assertTrue(queue.offer(failure));
+        assertEquals(11, queue.size());
+
+        List<SignalPacket> batch = new ArrayList<SignalPacket>();
+        assertEquals(5, queue.drainTo(batch, 4));
+        assertSame(failure, batch.get(0));
+        assertEquals(6, queue.size());
+        assertEquals(11, queue.getHighWaterMark());
+    }
+
+    private static SignalPacket join(String member) {
+        return new SignalPacket(new JoinNotificationSignalImpl(member, new ArrayList<String>(), new ArrayList<String>(), "group", 0,
+                GMSConstants.startupType.INSTANCE_STARTUP, null));
+    }
+
+    public void testFailureDoesNotPassJoinOfSameMember() throws Exception {
+        SignalQueue queue = new SignalQueue(100);
+        for (int i = 0; i < 3; i++) {
+            assertTrue(queue.offer(message(i)));
+        }
+        SignalPacket join = join("failed");
+        assertTrue(queue.offer(join));
+        SignalPacket later = message(3);
+        assertTrue(queue.offer(later));
+        SignalPacket failure = failure();
+        assertTrue(queue.offer(failure));
+
+        List<SignalPacket> batch = new ArrayList<SignalPacket>();
+        assertEquals(5, queue.drainTo(batch, 2));
+        assertSame(join, batch.get(3));
+        assertSame(failure, batch.get(4));
+        assertEquals(1, queue.size());
+    }
+
+    public void testFailureDuringBatchDoesNotPassJoinOfSameMember() throws Exception {
+        SignalQueue queue = new SignalQueue(100);
+        SignalPacket first = message(0);
+        SignalPacket join = join("failed");
+        SignalPacket last = message(1);
+        assertTrue(queue.offer(first));
+        assertTrue(queue.offer(join));
+        assertTrue(queue.offer(last));
+        List<SignalPacket> batch = new ArrayList<SignalPacket>();
+        assertEquals(3, queue.drainTo(batch, 10));
+
+        // the first packet has been handled when the failure arrives
+        SignalPacket failure = failure();
+        assertTrue(queue.offer(failure));
+        SignalPacket otherFailure = new SignalPacket(new FailureNotificationSignalImpl("other", "group", 0));
+        assertTrue(queue.offer(otherFailure));
+        assertTrue(queue.hasPriority());
+        queue.promotePriority(batch, 1);
+        assertEquals(5, batch.size());
+        assertSame(otherFailure, batch.get(1));
+        assertSame(join, batch.get(2));
+        assertSame(failure, batch.get(3));
+        assertSame(last, batch.get(4));
+    }
+
+    public void testOnlyNormalLaneIsBounded() throws Exception {
+        final SignalQueue queue = new SignalQueue(2);
+        assertTrue(queue.offer(message(0)));
+        assertTrue(queue.offer(message(1)));
+        assertFalse(queue.offer(message(2)));
+        assertTrue(queue.offer(failure()));
+
+        final CountDownLatch queued = new CountDownLatch(1);
+        Thread producer = new Thread() {
+            public void run() {
+                try {
+                    queue.put(message(3));
+                    queued.countDown();
+                } catch (InterruptedException e) {
+                }
+            }
+        };
+        producer.start();
+        assertFalse(queued.await(100, TimeUnit.MILLISECONDS));
+
+        List<SignalPacket> batch = new ArrayList<SignalPacket>();
+        queue.drainTo(batch, 1);
+        assertTrue(queued.await(10, TimeUnit.SECONDS));
+        assertEquals(2, queue.size());
+    }
+
+    public void testManyProducersOneConsumer() throws Exception {
+        final SignalQueue queue = new SignalQueue(64);
+        final int producers = 4;
+        final int packetsPerProducer = 20000;
+        final AtomicLong received = new AtomicLong();
+        Thread consumer = new Thread() {
+            public void run() {
+                List<SignalPacket> batch = new ArrayList<SignalPacket>();
+                try {
+                    while (received.get() < producers * packetsPerProducer) {
+                        batch.clear();
+                        received.addAndGet(queue.drainTo(batch, 16));
+                    }
+                } catch (InterruptedException e) {
+                }
+            }
+        };
+        consumer.start();
+        List<Thread> threads = new ArrayList<Thread>();
+        for (int p = 0; p < producers; p++) {
+            Thread producer = new Thread() {
+                public void run() {
+                    try {
+                        for (int i = 0; i < packetsPerProducer; i++) {
+                            queue.put(i % 100 == 0 ? failure() : message(i));
+                        }
+                    } catch (InterruptedException e) {
+                    }
+                }
+            };
+            producer.start();
+            threads.add(producer);
+        }
+        for (Thread producer : threads) {
+            producer.join(30000);
+        }
+        consumer.join(30000);
+        assertEquals(producers * packetsPerProducer, received.get());
+        assertEquals(0, queue.size());
+    }
+}
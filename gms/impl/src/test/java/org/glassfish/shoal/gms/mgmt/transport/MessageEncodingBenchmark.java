@@ -0,0 +1,102 @@
+/*
+ * Copyright (c) 2026 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package org.glassfish.shoal.gms.mgmt.transport;
+
+import java.io.Serializable;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.glassfish.shoal.gms.api.spi.GMSMessage;
+
+import junit.framework.TestCase;
+
+/**
+ * Compares the size and the encode and decode times of the serialized and the compact message encodings. Not run by
+ * the build, since surefire only picks up *Test classes; run it with
+ * {@code mvn test -Dtest=MessageEncodingBenchmark -Dsurefire.failIfNoSpecifiedTests=false}.
+ */
+public class MessageEncodingBenchmark extends TestCase {
+
+    private static final int WARMUP_ITERATIONS = 50000;
+
+    private static final int ITERATIONS = 100000;
+
+    public MessageEncodingBenchmark(String testName) {
+        super(testName);
+    }
+
+    public void testSmallMessage() throws Exception {
+        Map<String, Serializable> elements = new HashMap<String, Serializable>();
+        elements.put("SEQ", Long.valueOf(42));
+        elements.put(Message.SOURCE_PEER_ID_TAG, "instance01");
+        elements.put("APPMESSAGE", new GMSMessage("component", new byte[64], "group", 42L));
+        compare("3 elements, 64 byte payload", elements);
+    }
+
+    public void testApplicationMessage() throws Exception {
+        Map<String, Serializable> elements = new HashMap<String, Serializable>();
+        elements.put(Message.SOURCE_PEER_ID_TAG, "instance01");
+        elements.put(Message.TARGET_PEER_ID_TAG, "instance02");
+        elements.put("APPMESSAGE", new GMSMessage("component", new byte[256], "group", 42L));
+        compare("application message, 256 byte payload", elements);
+    }
+
+    private void compare(String name, Map<String, Serializable> elements) throws Exception {
+        boolean compactEncoding = MessageImpl.isCompactEncoding();
+        try {
+            MessageImpl.setCompactEncoding(false);
+            String serialized = run(elements);
+            MessageImpl.setCompactEncoding(true);
+            String compact = run(elements);
+            System.out.println(name + ": serialized " + serialized + "; compact " + compact);
+        } finally {
+            MessageImpl.setCompactEncoding(compactEncoding);
+        }
+    }
+
+    private String run(Map<String, Serializable> elements) throws Exception {
+        byte[] bytes = null;
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            bytes = encode(elements);
+            decode(bytes);
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            bytes = encode(elements);
+        }
+        long encodeNanos = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            decode(bytes);
+        }
+        long decodeNanos = System.nanoTime() - start;
+
+        return bytes.length + " bytes, encode " + encodeNanos / ITERATIONS + " ns, decode " + decodeNanos / ITERATIONS + " ns";
+    }
+
+    private static byte[] encode(Map<String, Serializable> elements) throws Exception {
+        return new MessageImpl(Message.TYPE_CLUSTER_MANAGER_MESSAGE, elements).getPlainBytes();
+    }
+
+    private static void decode(byte[] bytes) throws Exception {
+        Message message = new MessageImpl();
+        int messageLen = message.parseHeader(bytes, 0);
+        message.parseMessage(bytes, MessageImpl.HEADER_LENGTH, messageLen);
+    }
+}
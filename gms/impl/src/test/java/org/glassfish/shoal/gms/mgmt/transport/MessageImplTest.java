@@ -16,6 +16,13 @@
 
 package org.glassfish.shoal.gms.mgmt.transport;
 
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+
+import org.glassfish.shoal.gms.api.spi.GMSMessage;
 import org.glassfish.shoal.gms.mgmt.transport.Message;
 import org.glassfish.shoal.gms.mgmt.transport.MessageImpl;
 
@@ -211,4 +218,97 @@ public class MessageImplTest extends TestCase {
         } catch (Exception ex) {
         }
     }
+
+    /**
+     * Test of the compact encoding of native and serialized elements
+     */
+
+    public void testCompactEncoding() throws Exception {
+        mySetUp();
+        MessageImpl.setCompactEncoding(true);
+        try {
+            checkCompactEncoding();
+        } finally {
+            MessageImpl.setCompactEncoding(false);
+        }
+    }
+
+    private void checkCompactEncoding() throws Exception {
+
+        byte[] payload = new byte[] { 1, 2, 3 };
+        message.addMessageElement("APPMESSAGE", new GMSMessage("component", payload, "group", 42L));
+        message.addMessageElement("SEQ", Long.valueOf(7));
+        message.addMessageElement("RESEND", Boolean.TRUE);
+        message.addMessageElement("an unknown name", Integer.valueOf(-1));
+        message.addMessageElement("BYTES", payload);
+        message.addMessageElement("SERIALIZED", new ArrayList<String>(Arrays.asList("a", "b")));
+
+        byte[] plainBytes = message.getPlainBytes();
+        Message message7 = new MessageImpl();
+        int messageLen = message7.parseHeader(plainBytes, 0);
+        // the flag is in the second byte of the version
+        assertEquals(MessageImpl.COMPACT_ENCODING_FLAG >> 16, plainBytes[5]);
+        message7.parseMessage(plainBytes, MessageImpl.HEADER_LENGTH, messageLen);
+        assertEquals(1, message7.getVersion());
+        assertEquals(value1, message7.getMessageElement(key1));
+        assertEquals("fromMember", message7.getMessageElement(Message.SOURCE_PEER_ID_TAG));
+        GMSMessage gmsMessage = (GMSMessage) message7.getMessageElement("APPMESSAGE");
+        assertEquals("component", gmsMessage.getComponentName());
+        assertEquals("group", gmsMessage.getGroupName());
+        assertEquals(42L, gmsMessage.getStartTime());
+        assertTrue(Arrays.equals(payload, gmsMessage.getMessage()));
+        assertEquals(Long.valueOf(7), message7.getMessageElement("SEQ"));
+        assertEquals(Boolean.TRUE, message7.getMessageElement("RESEND"));
+        assertEquals(Integer.valueOf(-1), message7.getMessageElement("an unknown name"));
+        assertTrue(Arrays.equals(payload, (byte[]) message7.getMessageElement("BYTES")));
+        assertEquals(Arrays.asList("a", "b"), message7.getMessageElement("SERIALIZED"));
+    }
+
+    /**
+     * Test that the default encoding is the one of members that predate the compact encoding
+     */
+
+    public void testLegacyEncoding() throws Exception {
+        mySetUp();
+
+        assertFalse(MessageImpl.isCompactEncoding());
+        byte[] plainBytes = new MessageImpl(Message.TYPE_CLUSTER_MANAGER_MESSAGE, Collections.singletonMap(key1, (Serializable) value1))
+                .getPlainBytes();
+        assertEquals(1, plainBytes[7]);
+        assertEquals(0, plainBytes[5]);
+        Message message8 = new MessageImpl();
+        int messageLen = message8.parseHeader(plainBytes, 0);
+        message8.parseMessage(plainBytes, MessageImpl.HEADER_LENGTH, messageLen);
+        assertEquals(value1, message8.getMessageElement(key1));
+    }
+
+    /**
+     * Test of compression above the threshold, which never applies to health monitor messages
+     */
+
+    public void testCompression() throws Exception {
+        StringBuilder repetitive = new StringBuilder();
+        for (int i = 0; i < 200; i++) {
+            repetitive.append("org.glassfish.shoal.ha.session.SessionAttribute#").append(i).append(';');
+        }
+        Map<String, Serializable> elements = Collections.singletonMap(key1, (Serializable) repetitive.toString());
+
+        MessageImpl.setCompressionThreshold(1024);
+        MessageImpl.setCompactEncoding(true);
+        try {
+            byte[] plainBytes = new MessageImpl(Message.TYPE_CLUSTER_MANAGER_MESSAGE, elements).getPlainBytes();
+            assertEquals((MessageImpl.COMPACT_ENCODING_FLAG | MessageImpl.COMPRESSED_FLAG) >> 16, plainBytes[5]);
+            assertTrue(plainBytes.length < repetitive.length() / 2);
+            Message message9 = new MessageImpl();
+            int messageLen = message9.parseHeader(plainBytes, 0);
+            message9.parseMessage(plainBytes, MessageImpl.HEADER_LENGTH, messageLen);
+            assertEquals(repetitive.toString(), message9.getMessageElement(key1));
+
+            byte[] heartbeatBytes = new MessageImpl(Message.TYPE_HEALTH_MONITOR_MESSAGE, elements).getPlainBytes();
+            assertEquals(MessageImpl.COMPACT_ENCODING_FLAG >> 16, heartbeatBytes[5]);
+        } finally {
+            MessageImpl.setCompressionThreshold(0);
+            MessageImpl.setCompactEncoding(false);
+        }
+    }
 }
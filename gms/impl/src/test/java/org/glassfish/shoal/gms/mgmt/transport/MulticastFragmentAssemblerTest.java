@@ -0,0 +1,95 @@
+/*
+ * Copyright (c) 2026 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package org.glassfish.shoal.gms.mgmt.transport;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+public class MulticastFragmentAssemblerTest extends TestCase {
+
+    private static final int DATAGRAM_SIZE = 16384;
+
+    private final MulticastFragmentAssembler sender = new MulticastFragmentAssembler(DATAGRAM_SIZE);
+    private final MulticastFragmentAssembler receiver = new MulticastFragmentAssembler(DATAGRAM_SIZE);
+
+    public void testSmallMessageIsNotFragmented() throws Exception {
+        ByteBuffer message = ByteBuffer.wrap(new byte[DATAGRAM_SIZE]);
+        List<ByteBuffer> datagrams = sender.fragment(message);
+        assertEquals(1, datagrams.size());
+        assertSame(message, datagrams.get(0));
+        assertFalse(MulticastFragmentAssembler.isFragment(message.array(), 0, message.remaining()));
+    }
+
+    public void testReassemblesShuffledAndDuplicatedFragments() throws Exception {
+        byte[] message = new byte[100 * 1024];
+        new Random(7).nextBytes(message);
+        List<ByteBuffer> datagrams = sender.fragment(ByteBuffer.wrap(message));
+        assertEquals(7, datagrams.size());
+
+        List<ByteBuffer> received = new ArrayList<ByteBuffer>(datagrams);
+        received.addAll(datagrams.subList(0, 3));
+        Collections.shuffle(received, new Random(11));
+        byte[] result = null;
+        int delivered = 0;
+        for (ByteBuffer datagram : received) {
+            byte[] bytes = toBytes(datagram);
+            assertTrue(MulticastFragmentAssembler.isFragment(bytes, 0, bytes.length));
+            byte[] whole = receiver.addFragment(bytes, 0, bytes.length);
+            if (whole != null) {
+                result = whole;
+                delivered++;
+            }
+        }
+        assertEquals(1, delivered);
+        assertTrue(Arrays.equals(message, result));
+        assertEquals(0, receiver.getPartialMessageCount());
+
+        // a late duplicate of a delivered message
+        byte[] bytes = toBytes(datagrams.get(6));
+        assertNull(receiver.addFragment(bytes, 0, bytes.length));
+        assertEquals(0, receiver.getPartialMessageCount());
+    }
+
+    public void testBoundsPartialMessages() throws Exception {
+        byte[] message = new byte[40 * 1024];
+        for (int i = 0; i < MulticastFragmentAssembler.MAX_PARTIAL_MESSAGES + 10; i++) {
+            byte[] first = toBytes(sender.fragment(ByteBuffer.wrap(message)).get(0));
+            assertNull(receiver.addFragment(first, 0, first.length));
+        }
+        assertEquals(MulticastFragmentAssembler.MAX_PARTIAL_MESSAGES, receiver.getPartialMessageCount());
+    }
+
+    public void testDropsDamagedFragment() throws Exception {
+        byte[] bytes = toBytes(sender.fragment(ByteBuffer.wrap(new byte[40 * 1024])).get(0));
+        // total length beyond the message size limit
+        ByteBuffer.wrap(bytes).putInt(MulticastFragmentAssembler.FRAGMENT_HEADER_LENGTH - 4, Integer.MAX_VALUE);
+        assertNull(receiver.addFragment(bytes, 0, bytes.length));
+        assertEquals(0, receiver.getPartialMessageCount());
+    }
+
+    private static byte[] toBytes(ByteBuffer datagram) {
+        byte[] bytes = new byte[datagram.remaining()];
+        datagram.duplicate().get(bytes);
+        return bytes;
+    }
+}
@@ -0,0 +1,135 @@
+/*
+ * Copyright (c) 2026 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+package org.glassfish.shoal.gms.mgmt.transport;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.net.DatagramSocket;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import junit.framework.TestCase;
+
+public class NIOMulticastSenderTest extends TestCase {
+
+    private static final String NUMBER_ELEMENT_KEY = "Number";
+
+    private final List<Integer> received = new CopyOnWriteArrayList<Integer>();
+    // what the next sends do instead of sending: FULL or FAIL
+    private final Queue<String> scriptedSends = new ConcurrentLinkedQueue<String>();
+    private NIOMulticastSender sender;
+
+    public NIOMulticastSenderTest(String testName) {
+        super(testName);
+    }
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        NetworkManager networkManager = (NetworkManager) Proxy.newProxyInstance(getClass().getClassLoader(), new Class[] { NetworkManager.class },
+                new InvocationHandler() {
+                    public Object invoke(Object proxy, Method method, Object[] args) {
+                        if (method.getName().equals("receiveMessage")) {
+                            received.add((Integer) ((Message) args[0]).getMessageElement(NUMBER_ELEMENT_KEY));
+                        }
+                        return null;
+                    }
+                });
+        DatagramSocket socket = new DatagramSocket(0);
+        int port = socket.getLocalPort();
+        socket.close();
+        sender = new NIOMulticastSender(null, "230.30.1.1", port, null, 0, null, null, 0, networkManager) {
+            @Override
+            int sendDatagram(ByteBuffer datagram) throws IOException {
+                String script = scriptedSends.poll();
+                if ("FULL".equals(script)) {
+                    return 0;
+                }
+                if ("FAIL".equals(script)) {
+                    throw new IOException("scripted failure");
+                }
+                return super.sendDatagram(datagram);
+            }
+        };
+        sender.start();
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        sender.stop();
+        super.tearDown();
+    }
+
+    public void testBroadcastIsReceived() throws Exception {
+        assertTrue(sender.broadcast(createMessage(1)));
+        waitForReceived(1);
+        assertEquals(Integer.valueOf(1), received.get(0));
+    }
+
+    public void testFailedSendIsReportedToItsBroadcaster() throws Exception {
+        scriptedSends.add("FAIL");
+        try {
+            sender.broadcast(createMessage(1));
+            fail("the failure of the send must be reported");
+        } catch (IOException e) {
+            assertEquals("scripted failure", e.getMessage());
+        }
+
+        assertTrue(sender.broadcast(createMessage(2)));
+        waitForReceived(1);
+        assertEquals(Integer.valueOf(2), received.get(0));
+    }
+
+    public void testListenerSurvivesFailedResumedSend() throws Exception {
+        // the first message waits for the listener thread, whose send of it fails
+        scriptedSends.add("FULL");
+        scriptedSends.add("FAIL");
+        try {
+            assertTrue(sender.broadcast(createMessage(1)));
+        } catch (IOException e) {
+            // the listener thread failed to send it before the broadcast returned
+            assertEquals("scripted failure", e.getMessage());
+        }
+        for (long deadline = System.currentTimeMillis() + 10000; !scriptedSends.isEmpty() && System.currentTimeMillis() < deadline;) {
+            Thread.sleep(10);
+        }
+        assertTrue(scriptedSends.isEmpty());
+
+        // the listener thread still receives
+        assertTrue(sender.broadcast(createMessage(2)));
+        waitForReceived(1);
+        assertEquals(Integer.valueOf(2), received.get(0));
+    }
+
+    private void waitForReceived(int count) throws InterruptedException {
+        for (long deadline = System.currentTimeMillis() + 10000; received.size() < count && System.currentTimeMillis() < deadline;) {
+            Thread.sleep(10);
+        }
+        assertEquals(count, received.size());
+    }
+
+    private static Message createMessage(int num) {
+        Message message = new MessageImpl(Message.TYPE_MCAST_MESSAGE);
+        message.addMessageElement(NUMBER_ELEMENT_KEY, num);
+        return message;
+    }
+}
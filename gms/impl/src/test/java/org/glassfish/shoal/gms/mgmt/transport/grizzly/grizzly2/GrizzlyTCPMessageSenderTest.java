@@ -0,0 +1,240 @@
+/*
+ * Copyright (c) 2026 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v. 2.0, which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the
+ * Eclipse Public License v. 2.0 are satisfied: GNU General Public License,
+ * version 2 with the GNU Classpath Exception, which is available at
+ * https://www.gnu.org/software/classpath/license.html.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-2.0 WITH Classpath-exception-2.0
+ */
+
+
+package org.glassfish.shoal.gms.mgmt.transport.grizzly.grizzly2;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.ServerSocket;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.glassfish.grizzly.CompletionHandler;
+import org.glassfish.grizzly.Connection;
+import org.glassfish.grizzly.EmptyCompletionHandler;
+import org.glassfish.grizzly.filterchain.BaseFilter;
+import org.glassfish.grizzly.filterchain.FilterChainBuilder;
+import org.glassfish.grizzly.filterchain.FilterChainContext;
+import org.glassfish.grizzly.filterchain.NextAction;
+import org.glassfish.grizzly.filterchain.TransportFilter;
+import org.glassfish.grizzly.nio.transport.TCPNIOConnectorHandler;
+import org.glassfish.grizzly.nio.transport.TCPNIOTransport;
+import org.glassfish.grizzly.nio.transport.TCPNIOTransportBuilder;
+import org.glassfish.shoal.gms.base.PeerID;
+import org.glassfish.shoal.gms.mgmt.transport.Message;
+import org.glassfish.shoal.gms.mgmt.transport.MessageImpl;
+import org.glassfish.shoal.gms.mgmt.transport.grizzly.GrizzlyPeerID;
+
+import junit.framework.TestCase;
+
+public class GrizzlyTCPMessageSenderTest extends TestCase {
+
+    private static final String NUMBER_ELEMENT_KEY = "Number";
+    private static final String PAYLOAD_ELEMENT_KEY = "Payload";
+
+    private final List<Integer> received = new CopyOnWriteArrayList<Integer>();
+    private final List<byte[]> receivedPayloads = new CopyOnWriteArrayList<byte[]>();
+    private TCPNIOTransport transport;
+    private TCPNIOConnectorHandler connectorHandler;
+    private ConnectionCache connectionCache;
+    private PeerID<GrizzlyPeerID> peerID;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+
+        transport = TCPNIOTransportBuilder.newInstance().build();
+        transport.setProcessor(FilterChainBuilder.stateless().add(new TransportFilter()).add(new MessageFilter()).add(new BaseFilter() {
+            @Override
+            public NextAction handleRead(final FilterChainContext ctx) throws IOException {
+                final Message message = ctx.getMessage();
+                final byte[] payload = (byte[]) message.getMessageElement(PAYLOAD_ELEMENT_KEY);
+                if (payload != null) {
+                    receivedPayloads.add(payload);
+                }
+                received.add((Integer) message.getMessageElement(NUMBER_ELEMENT_KEY));
+                return ctx.getStopAction();
+            }
+        }).build());
+        final int port = ((InetSocketAddress) transport.bind(new InetSocketAddress("localhost", 0)).getLocalAddress()).getPort();
+        transport.start();
+
+        connectorHandler = TCPNIOConnectorHandler.builder(transport)
+                .processor(FilterChainBuilder.stateless().add(new TransportFilter()).add(new MessageFilter()).build()).build();
+        connectionCache = new ConnectionCache(connectorHandler, 1024, 15, 10);
+        peerID = new PeerID<GrizzlyPeerID>(new GrizzlyPeerID("localhost", port, null, 0), "group", "peer");
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        connectionCache.close();
+        transport.shutdownNow();
+
+        super.tearDown();
+    }
+
+    public void testPipelinedMessagesArriveInOrder() throws Exception {
+        sendInOrder(new GrizzlyTCPMessageSender(transport, connectionCache, null, 10000, 1000, 8));
+    }
+
+    public void testCoalescedMessagesArriveInOrder() throws Exception {
+        sendInOrder(new GrizzlyTCPMessageSender(transport, connectionCache, null, 10000, 1000, 8, 4096, 500));
+    }
+
+    private void sendInOrder(final GrizzlyTCPMessageSender sender) throws Exception {
+        final int count = 500;
+        final CountDownLatch completed = new CountDownLatch(count);
+        final List<Future<Boolean>> futures = new ArrayList<Future<Boolean>>();
+        for (int i = 0; i < count; i++) {
+            futures.add(sender.sendAsync(peerID, createMessage(i), new EmptyCompletionHandler<Boolean>() {
+                @Override
+                public void completed(Boolean result) {
+                    completed.countDown();
+                }
+            }));
+        }
+        assertTrue(completed.await(30, TimeUnit.SECONDS));
+        for (Future<Boolean> future : futures) {
+            assertTrue(future.get());
+        }
+        assertTrue(sender.send(peerID, createMessage(count)));
+
+        for (long deadline = System.currentTimeMillis() + 10000; received.size() < count + 1 && System.currentTimeMillis() < deadline;) {
+            Thread.sleep(10);
+        }
+        assertEquals(count + 1, received.size());
+        for (int i = 0; i <= count; i++) {
+            assertEquals(Integer.valueOf(i), received.get(i));
+        }
+        sender.stop();
+    }
+
+    public void testFullQueueRefusesMessages() throws Exception {
+        // holds the connect back until all the messages are queued
+        final List<CompletionHandler<Connection>> pendingConnects = new CopyOnWriteArrayList<CompletionHandler<Connection>>();
+        final ConnectionCache delayingCache = new ConnectionCache(connectorHandler, 1024, 15, 10) {
+            @Override
+            public void connect(final SocketAddress remoteAddress, final CompletionHandler<Connection> completionHandler) {
+                pendingConnects.add(completionHandler);
+            }
+        };
+        final GrizzlyTCPMessageSender sender = new GrizzlyTCPMessageSender(transport, delayingCache, null, 10000, 2, 1);
+        final List<Future<Boolean>> futures = new ArrayList<Future<Boolean>>();
+        for (int i = 0; i < 1000; i++) {
+            futures.add(sender.sendAsync(peerID, createMessage(i), null));
+        }
+        assertEquals(1, pendingConnects.size());
+        connectionCache.connect(new InetSocketAddress("localhost", peerID.getUniqueID().getTcpPort()), pendingConnects.get(0));
+
+        int refused = 0;
+        for (Future<Boolean> future : futures) {
+            if (!future.get(30, TimeUnit.SECONDS)) {
+                refused++;
+            }
+        }
+        assertEquals(998, refused);
+        sender.stop();
+        delayingCache.close();
+    }
+
+    public void testRemovedPeerFailsItsQueuedMessages() throws Exception {
+        final List<CompletionHandler<Connection>> pendingConnects = new CopyOnWriteArrayList<CompletionHandler<Connection>>();
+        final ConnectionCache delayingCache = new ConnectionCache(connectorHandler, 1024, 15, 10) {
+            @Override
+            public void connect(final SocketAddress remoteAddress, final CompletionHandler<Connection> completionHandler) {
+                pendingConnects.add(completionHandler);
+            }
+        };
+        final GrizzlyTCPMessageSender sender = new GrizzlyTCPMessageSender(transport, delayingCache, null, 10000, 1000, 1);
+        final Future<Boolean> future = sender.sendAsync(peerID, createMessage(0), null);
+        sender.removeWriteQueue(peerID);
+        try {
+            future.get(30, TimeUnit.SECONDS);
+            fail("a message queued to a removed peer must fail");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof IOException);
+        }
+
+        // a peer joining again on the same address gets a new queue
+        sender.sendAsync(peerID, createMessage(1), null);
+        assertEquals(2, pendingConnects.size());
+        sender.stop();
+        delayingCache.close();
+    }
+
+    public void testSendToSeveralPeersReportsFailures() throws Exception {
+        final GrizzlyTCPMessageSender sender = new GrizzlyTCPMessageSender(transport, connectionCache, null, 10000, 1000, 8);
+        final ServerSocket closedSocket = new ServerSocket(0);
+        final int closedPort = closedSocket.getLocalPort();
+        closedSocket.close();
+        final PeerID<GrizzlyPeerID> unreachablePeerID = new PeerID<GrizzlyPeerID>(new GrizzlyPeerID("localhost", closedPort, null, 0), "group", "unreachable");
+
+        final Map<PeerID, Throwable> failures = sender.send(Arrays.<PeerID>asList(unreachablePeerID, peerID), createMessage(0));
+        assertEquals(1, failures.size());
+        assertTrue(failures.get(unreachablePeerID) instanceof IOException);
+
+        for (long deadline = System.currentTimeMillis() + 10000; received.isEmpty() && System.currentTimeMillis() < deadline;) {
+            Thread.sleep(10);
+        }
+        assertEquals(1, received.size());
+        sender.stop();
+    }
+
+    public void testLargePayloadsArriveIntact() throws Exception {
+        final GrizzlyTCPMessageSender sender = new GrizzlyTCPMessageSender(transport, connectionCache, null, 10000, 1000, 8, 64 * 1024, 500);
+        final int count = 20;
+        final List<Future<Boolean>> futures = new ArrayList<Future<Boolean>>();
+        for (int i = 0; i < count; i++) {
+            final Message message = createMessage(i);
+            // large enough to be written without being copied
+            final byte[] payload = new byte[20000 + i];
+            Arrays.fill(payload, (byte) i);
+            message.addMessageElement(PAYLOAD_ELEMENT_KEY, payload);
+            futures.add(sender.sendAsync(peerID, message, null));
+        }
+        for (Future<Boolean> future : futures) {
+            assertTrue(future.get(30, TimeUnit.SECONDS));
+        }
+
+        for (long deadline = System.currentTimeMillis() + 10000; receivedPayloads.size() < count && System.currentTimeMillis() < deadline;) {
+            Thread.sleep(10);
+        }
+        assertEquals(count, receivedPayloads.size());
+        for (int i = 0; i < count; i++) {
+            final byte[] payload = receivedPayloads.get(i);
+            assertEquals(20000 + i, payload.length);
+            for (byte b : payload) {
+                assertEquals((byte) i, b);
+            }
+        }
+        sender.stop();
+    }
+
+    private static Message createMessage(final int num) {
+        final Message message = new MessageImpl(100);
+        message.addMessageElement(NUMBER_ELEMENT_KEY, num);
+        return message;
+    }
+}